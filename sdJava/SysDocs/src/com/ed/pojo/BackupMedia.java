@@ -1,6 +1,5 @@
 package com.ed.pojo;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -9,6 +8,7 @@ import com.ed.sysdocs.ErrMsgs;
 import com.ed.sysdocs.SysConstants;
 import com.ed.sysdocs.MediaTypes;
 import com.ed.sysdocs.TableHtml;
+import com.ed.sysdocs.TimestampCodec;
 import com.ed.sysdocs.dao.DBFOperations;
 
 /**
@@ -19,8 +19,6 @@ import com.ed.sysdocs.dao.DBFOperations;
  */
 public class BackupMedia extends SDPojo{
 	
-	private static final SimpleDateFormat sdf = new SimpleDateFormat(SysConstants.timestampFmt);
-	
 	/**
 	 * List of fields for a media record
 	 */
@@ -95,6 +93,32 @@ public class BackupMedia extends SDPojo{
 
 	/** Delete flag for this media item */
 	protected boolean delete = false;
+	
+	/**
+	 * Constructor
+	 */
+	public BackupMedia() {
+		super();
+	}
+	
+	/**
+	 * Copy constructor
+	 * @param bm The media to copy
+	 */
+	public BackupMedia(BackupMedia bm) {
+		
+		super();
+		
+		mediaId = bm.mediaId;
+		firstUse = bm.firstUse == null ? null : new Date(bm.firstUse.getTime());
+		lastUse = bm.lastUse == null ? null : new Date(bm.lastUse.getTime());
+		useCount = bm.useCount;
+		active = bm.active;
+		mediaType = bm.mediaType;
+		updated = bm.updated;
+		delete = bm.delete;
+		
+	}
 
 	/**
 	 * Validate the record
@@ -123,13 +147,13 @@ public class BackupMedia extends SDPojo{
 		s.append(SysConstants.recSep);
 		
 		if (firstUse != null) {
-			s.append(sdf.format(firstUse));
+			TimestampCodec.Storage.appendTo(s, firstUse);
 		}
 		
 		s.append(SysConstants.recSep);
 		
 		if (lastUse != null) {
-			s.append(sdf.format(lastUse));
+			TimestampCodec.Storage.appendTo(s, lastUse);
 		}
 		
 		s.append(SysConstants.recSep);
@@ -150,7 +174,6 @@ public class BackupMedia extends SDPojo{
 	 * @return the data formatted as the row of an HTML table 
 	 */
 	public String makeMediaRow(boolean odd, int maxUsage) {
-		SimpleDateFormat sdffd = new SimpleDateFormat(SysConstants.timestampDisplay);
 		StringBuilder row = new StringBuilder();
 		boolean maxExceeded = useCount >= maxUsage; 
 		
@@ -183,12 +206,12 @@ public class BackupMedia extends SDPojo{
 		row.append(mediaType.getDisplayName());
 		row.append(TableHtml.ColEnd.getTag());
 		row.append(TableHtml.ColStartC.getTag());
-		row.append(firstUse == null ? "New" : sdffd.format(firstUse));
-		row.append(generateHidden(Fields.FirstUse.name(), firstUse == null ? "" : sdf.format(firstUse)));
+		row.append(firstUse == null ? "New" : TimestampCodec.Display.format(firstUse));
+		row.append(generateHidden(Fields.FirstUse.name(), firstUse == null ? "" : TimestampCodec.Storage.format(firstUse)));
 		row.append(TableHtml.ColEnd.getTag());
 		row.append(TableHtml.ColStartC.getTag());
-		row.append(lastUse == null ? "New" : sdffd.format(lastUse));
-		row.append(generateHidden(Fields.LastUse.name(), lastUse == null ? "" : sdf.format(lastUse)));
+		row.append(lastUse == null ? "New" : TimestampCodec.Display.format(lastUse));
+		row.append(generateHidden(Fields.LastUse.name(), lastUse == null ? "" : TimestampCodec.Storage.format(lastUse)));
 		row.append(TableHtml.ColEnd.getTag());
 		row.append(TableHtml.ColStartR.getTag());
 		row.append(useCount);
@@ -1,18 +1,18 @@
 package com.ed.pojo;
 
 import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import org.xBaseJ.DBF;
-import org.xBaseJ.fields.Field;
-import org.xBaseJ.fields.NumField;
-import org.xBaseJ.indexes.Index;
-import org.xBaseJ.xBaseJException;
 
 import com.ed.sysdocs.SysConstants;
+import com.ed.sysdocs.TimestampCodec;
+import com.ed.sysdocs.dao.DBFCompactor;
+import com.ed.sysdocs.dao.DBFHeader;
+import com.ed.sysdocs.dao.DBFLock;
+import com.ed.sysdocs.dao.DBFReader;
 
 /**
  * Holder for DBF metadata
@@ -44,10 +44,16 @@ public class DbfMetaData {
 	protected Date lastUpdated = null;
 	
 	/** List of DBF field definitions */
-	protected List<Field> fields = new ArrayList<>();
+	protected List<DBFReader.Field> fields = new ArrayList<>();
 	
 	/** List of associated indexes */
-	protected List<Index> indexes = new ArrayList<>();
+	protected List<DBFHeader.Index> indexes = new ArrayList<>();
+	
+	/** Deleted records and compaction history of the DBF or null if not known */
+	protected DBFCompactor.Stats compaction = null;
+	
+	/** Lock statistics of the DBF in this process or null if not known */
+	protected DBFLock.Stats locking = null;
 	
 	private DecimalFormat fcf = new DecimalFormat(SysConstants.fieldCounterFormat);
 	private DecimalFormat rcf = new DecimalFormat(SysConstants.recordCountFormat);
@@ -119,9 +125,8 @@ public class DbfMetaData {
 	 * @return Formatted line for the last updated date/time
 	 */
 	public String getFormattedLastUpdated() {
-		SimpleDateFormat sdf = new SimpleDateFormat(SysConstants.timestampDisplay);
 		
-		return "Last updated: " + sdf.format(lastUpdated);
+		return "Last updated: " + TimestampCodec.Display.format(lastUpdated);
 		
 	}
 	
@@ -135,7 +140,7 @@ public class DbfMetaData {
 	/**
 	 * @return List of DBF field definitions
 	 */
-	public List<Field> getFields() {
+	public List<DBFReader.Field> getFields() {
 		return fields;
 	}
 
@@ -143,14 +148,14 @@ public class DbfMetaData {
 	 * Add a field definition to the list of fields
 	 * @param field A DBF field definition
 	 */
-	public void addField(Field field) {
+	public void addField(DBFReader.Field field) {
 		fields.add(field);
 	}
 	
 	/**
 	 * @return List of indexes
 	 */
-	public List<Index> getIndexes() {
+	public List<DBFHeader.Index> getIndexes() {
 		return indexes;
 	}
 
@@ -158,10 +163,90 @@ public class DbfMetaData {
 	 * Add an index to the list
 	 * @param index The index to add to the list
 	 */
-	public void addIndex(Index index) {
+	public void addIndex(DBFHeader.Index index) {
 		indexes.add(index);
 	}
 	
+	/**
+	 * @return Deleted records and compaction history of the DBF or null if not known
+	 */
+	public DBFCompactor.Stats getCompaction() {
+		return compaction;
+	}
+	
+	/**
+	 * @param compaction Deleted records and compaction history of the DBF
+	 */
+	public void setCompaction(DBFCompactor.Stats compaction) {
+		this.compaction = compaction;
+	}
+	
+	/**
+	 * @return Formatted lines for the deleted records and the last pack
+	 */
+	public String getFormattedCompaction() {
+		StringBuilder c = new StringBuilder("Deleted records: ");
+		
+		c.append(rcf.format(compaction.getDeletedCount()));
+		c.append(" (");
+		c.append(Math.round(compaction.getDeletedRatio() * 100));
+		c.append("%, ");
+		c.append(compaction.getDeadBytes());
+		c.append(" bytes)");
+		c.append(SysConstants.newline);
+		c.append("Last packed: ");
+		c.append(compaction.getLastCompacted() == null ? "Not since startup" : TimestampCodec.Display.format(compaction.getLastCompacted()));
+		
+		if (compaction.isPending()) {
+			c.append(", pack pending");
+		}
+		
+		if (compaction.getLastError() != null) {
+			c.append(", last pack failed: ");
+			c.append(compaction.getLastError());
+		}
+		
+		return c.toString();
+		
+	}
+	
+	/**
+	 * @return Lock statistics of the DBF in this process or null if not known
+	 */
+	public DBFLock.Stats getLocking() {
+		return locking;
+	}
+	
+	/**
+	 * @param locking Lock statistics of the DBF in this process
+	 */
+	public void setLocking(DBFLock.Stats locking) {
+		this.locking = locking;
+	}
+	
+	/**
+	 * @return Formatted line for the lock acquisitions and waits
+	 */
+	public String getFormattedLocking() {
+		StringBuilder l = new StringBuilder("Locks: ");
+		
+		l.append(locking.getReads());
+		l.append(" read, ");
+		l.append(locking.getWrites());
+		l.append(" write, ");
+		l.append(locking.getContended());
+		l.append(" waited ");
+		l.append(locking.getWaitMillis());
+		l.append(" ms (max ");
+		l.append(locking.getMaxWaitMillis());
+		l.append(" ms), ");
+		l.append(locking.getTimeouts());
+		l.append(" timed out");
+		
+		return l.toString();
+		
+	}
+	
 	/**
 	 * Generate the meta data for this DBF file
 	 * @return The complete formatted metadata for a DBF file 
@@ -195,6 +280,17 @@ public class DbfMetaData {
 		hdr.append(SysConstants.newline);
 		hdr.append(getFormattedRecordCount());
 		hdr.append(SysConstants.newline);
+		
+		if (compaction != null) {
+			hdr.append(getFormattedCompaction());
+			hdr.append(SysConstants.newline);
+		}
+		
+		if (locking != null) {
+			hdr.append(getFormattedLocking());
+			hdr.append(SysConstants.newline);
+		}
+		
 		hdr.append(getFormattedLastUpdated());
 		
 		return hdr;
@@ -251,13 +347,11 @@ public class DbfMetaData {
 	 */
 	private StringBuilder generateMetaDataFields() {
 		StringBuilder ft = new StringBuilder();
-		NumField nf = new NumField();
 		
 		ft.append(fieldListHeader);
 		
 		for (int pos = 0; pos < fields.size(); pos++) {
-			Field f = fields.get(pos);
-			char fType;
+			DBFReader.Field f = fields.get(pos);
 			
 			ft.append(SysConstants.newline);
 			ft.append(fcf.format(pos + 1));
@@ -265,20 +359,13 @@ public class DbfMetaData {
 			ft.append(padName(f.getName()));
 			ft.append(spaces(3));
 			
-			try {
-				fType = f.getType();
-			} 
-			catch (xBaseJException e) {
-				fType = 'X';
-			}
-			
-			ft.append(fType);
+			ft.append(f.getType());
 			ft.append(spaces(5));
 			ft.append(fcf.format(f.getLength()));
 			
-			if (fType == nf.getType()) {
+			if (f.getType() == 'N') {
 				ft.append(spaces(5));
-				ft.append(f.getDecimalPositionCount());
+				ft.append(f.getDecimals());
 			}
 			
 		}
@@ -295,7 +382,7 @@ public class DbfMetaData {
 		StringBuilder t = new StringBuilder();
 		int total = 0;
 
-		for (Field f : fields) {
+		for (DBFReader.Field f : fields) {
 			total += f.getLength();
 		}
 		
@@ -319,7 +406,7 @@ public class DbfMetaData {
 			x.append(SysConstants.newline);
 			
 			for (int i = 0; i < indexes.size(); i++) {
-				Index ndx = indexes.get(i); 
+				DBFHeader.Index ndx = indexes.get(i);
 				
 				if (i > 0) {
 					x.append(SysConstants.newline);
@@ -328,11 +415,11 @@ public class DbfMetaData {
 				x.append(i + 1);
 				x.append(". ");
 				
-				x.append(fnFromFs(ndx.getName()));
+				x.append(fnFromFs(ndx.getFileSpec()));
 				x.append(": ");
-				x.append(ndx.getKeyFields().toUpperCase());
+				x.append(ndx.getKeyExpression().toUpperCase());
 				x.append(", ");
-				x.append(ndx.is_unique_key() ? "" : "not ");
+				x.append(ndx.isUnique() ? "" : "not ");
 				x.append("unique");
 				
 			}
@@ -53,6 +53,26 @@ public class MediaMaximum extends SDPojo {
 
 	/** Maximum number of times this media type should be used */
 	protected int maxUse = 0;
+	
+	/**
+	 * Constructor
+	 */
+	public MediaMaximum() {
+		super();
+	}
+	
+	/**
+	 * Copy constructor
+	 * @param mm The media maximum to copy
+	 */
+	public MediaMaximum(MediaMaximum mm) {
+		
+		super();
+		
+		mediaType = mm.mediaType;
+		maxUse = mm.maxUse;
+		
+	}
 
 	/**
 	 * Validate the record
@@ -307,6 +307,16 @@ public class Property extends SDPojo {
 		this.value = value;
 	}
 	
+	/**
+	 * Copy constructor
+	 * @param prop The property to copy
+	 */
+	public Property(Property prop) {
+		this.key = prop.key;
+		this.position = prop.position;
+		this.value = prop.value;
+	}
+	
 	/**
 	 * Validate the value that is associated with this property
 	 * @return A list of error messages
@@ -327,18 +337,23 @@ public class Property extends SDPojo {
 		else if (key.getGroup().isMultiValue()) {
 			String [] lines = getMultiValue();
 			
-			for (String line : lines) {
-				if (line.length() > key.getPropMaxLen()) {
-					errs.add(ErrMsgs.VALUE_MAXLEN.getMsg(line, String.valueOf(key.getPropMaxLen())));
-				}
-			}
-			
 			if (dirProps.contains(key)) {
 				errs.addAll(checkDirs(lines));
 			}
 			
-			if (lines.length > SysConstants.maxMultiValues) {
-				errs.add(ErrMsgs.VALUES_MAX.getMsg());
+			// Values stored together in the blob file are not limited by the VALUE field
+			if (!SysConstants.multiValueBlobs) {
+				
+				for (String line : lines) {
+					if (line.length() > key.getPropMaxLen()) {
+						errs.add(ErrMsgs.VALUE_MAXLEN.getMsg(line, String.valueOf(key.getPropMaxLen())));
+					}
+				}
+				
+				if (lines.length > SysConstants.maxMultiValues) {
+					errs.add(ErrMsgs.VALUES_MAX.getMsg());
+				}
+				
 			}
 			
 		}
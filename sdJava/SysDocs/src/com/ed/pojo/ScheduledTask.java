@@ -1,12 +1,12 @@
 package com.ed.pojo;
 
 import java.io.File;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import com.ed.sysdocs.LogOps;
 import com.ed.sysdocs.SysConstants;
 import com.ed.sysdocs.TableHtml;
+import com.ed.sysdocs.TimestampCodec;
 
 /**
  * POJO to hold data for a scheduled task.
@@ -16,9 +16,6 @@ import com.ed.sysdocs.TableHtml;
  */
 public class ScheduledTask {
 	
-	/** Format the task start time */
-	private static final SimpleDateFormat stime = new SimpleDateFormat("HH:mm");
-	
 	/** Name of the scheduled task */
 	protected String taskName; 
 	
@@ -100,7 +97,7 @@ public class ScheduledTask {
 		String hm = "00:00";
 		
 		if (scheduledTime != null) {
-			hm = stime.format(scheduledTime);
+			hm = TimestampCodec.HourMinute.format(scheduledTime);
 		}
 		
 		return hm;
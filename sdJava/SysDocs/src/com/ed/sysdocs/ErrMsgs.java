@@ -39,7 +39,46 @@ public enum ErrMsgs {
 	VALUE_MAXLEN("{0} length is greater than {1}."),
 	
 	/** Number of values in a multi-value property is greater than the allowable amount */
-	VALUES_MAX("The number of values cannot be greater than" + SysConstants.maxMultiValues + ".");
+	VALUES_MAX("The number of values cannot be greater than" + SysConstants.maxMultiValues + "."),
+	
+	/** The header of a DBF file is damaged */
+	DBF_HEADER("{0} is not a valid DBF file."),
+	
+	/** A field of a DBF file is missing or has the wrong width */
+	DBF_LAYOUT("{0} does not have the expected {1} field."),
+	
+	/** The header or a node of an NDX file is damaged */
+	NDX_HEADER("{0} is not a valid NDX index."),
+	
+	/** An index expression is not a character key of its table */
+	NDX_KEY("{0} cannot be indexed on {1}."),
+	
+	/** More than one live record of a table has the same key of a unique index */
+	NDX_DUPLICATE("{0} cannot be built, more than one record has the key {1}."),
+	
+	/** The header of a hash index is damaged */
+	NDH_HEADER("{0} is not a valid hash index."),
+	
+	/** A record refers to a value that is not in the blob file of its table */
+	BLOB_VALUE("{0} has no valid value at position {1}."),
+	
+	/** A compacted blob file could not be moved over the blob file of its table */
+	BLOB_COMPACT("{0} could not be replaced by its compacted copy {1}."),
+	
+	/** A table stayed locked by another thread or process for longer than the lock timeout */
+	TABLE_LOCKED("{0} is locked by another process."),
+	
+	/** A table was changed through a handle that was only acquired to read it */
+	TABLE_READ_ONLY("{0} was opened to read and cannot be changed."),
+	
+	/** A rebuilt index could neither be moved over nor copied over the current index */
+	NDX_REPLACE("{0} could not be replaced and must be built again."),
+	
+	/** A change of the journal of a table was rejected by the table while it was replayed */
+	REPLAY_SKIPPED("{0} of {1} in {2} was skipped during recovery: {3}"),
+	
+	/** The text of a bulk load is not valid CSV or JSON */
+	LOAD_SYNTAX("The {0} input is not valid at line {1}.");
 	
 	private String msg;
 	
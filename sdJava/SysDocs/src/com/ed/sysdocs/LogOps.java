@@ -2,7 +2,12 @@ package com.ed.sysdocs;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
@@ -15,9 +20,6 @@ import java.util.Date;
  */
 public class LogOps {
 	
-	/** Format the task last run time */
-	private static final SimpleDateFormat lrun = new SimpleDateFormat(SysConstants.logTimestampDisplay);
-	
 	/**
 	 * Include only log files from the log directory
 	 */
@@ -101,6 +103,28 @@ public class LogOps {
 		
 	}
 	
+	/**
+	 * Append a line, stamped with the current time, to a log file of the site.  The log file and the log
+	 * directory are created if they do not exist.
+	 * @param logPrefix Name of the log file, without the extension
+	 * @param message The line to append, which may contain HTML
+	 * @throws IOException If the log file cannot be written
+	 */
+	public void append(String logPrefix, String message) throws IOException {
+		Path log = Paths.get(rootDir, SysConstants.logDir, logPrefix + SysConstants.logExt);
+		StringBuilder line = new StringBuilder();
+		
+		TimestampCodec.LogDisplay.appendTo(line, new Date());
+		line.append(" ");
+		line.append(message);
+		line.append("<br>");
+		line.append(System.lineSeparator());
+		
+		Files.createDirectories(log.getParent());
+		Files.write(log, line.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		
+	}
+	
 	/**
 	 * Build a link to a log file
 	 * @param logFile The log file
@@ -115,7 +139,7 @@ public class LogOps {
 		logLink.append("')\">");
 		
 		if (linkContent == null || linkContent.length() <= 0) {
-			logLink.append(lrun.format(new Date(logFile.lastModified())));
+			TimestampCodec.LogDisplay.appendTo(logLink, new Date(logFile.lastModified()));
 		}
 		else {
 			logLink.append(linkContent);
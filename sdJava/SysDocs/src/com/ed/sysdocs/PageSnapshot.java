@@ -0,0 +1,261 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.pojo.DbfMetaData;
+import com.ed.pojo.MediaMaximum;
+import com.ed.pojo.Property;
+import com.ed.sysdocs.dao.MediaColumns;
+import com.ed.sysdocs.dao.MediaDbfDao;
+import com.ed.sysdocs.dao.MediaMaxDbfDao;
+import com.ed.sysdocs.dao.PropertiesDbfDao;
+
+/**
+ * The data displayed by one request of the backups page.<br>
+ * Each table is read the first time one of its values is requested and the result is shared by
+ * every render method of the request, so a page reads each table once.  The snapshot must be
+ * created after the form data has been saved and is not refreshed if the tables change afterwards.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class PageSnapshot {
+	
+	/** Directory of the site */
+	private String rootDir;
+	
+	/** The system properties */
+	private PropertiesOps properties;
+	
+	/** All backup media, in media ID order */
+	private List<BackupMedia> media;
+	
+	/** All backup media by column, in media ID order */
+	private MediaColumns mediaColumns;
+	
+	/** All media maximums, in media type order */
+	private List<MediaMaximum> mediaMaximums;
+	
+	/** Maximum usage of each media type */
+	private Map<MediaTypes, Integer> mediaMaxMap;
+	
+	/** Maximum usage of each media type, by ordinal */
+	private int [] maxUseByType;
+	
+	private DbfMetaData mediaMetaData;
+	private DbfMetaData mediaMaxMetaData;
+	private DbfMetaData propertiesMetaData;
+	
+	/** Number of times a table was read */
+	private int loads = 0;
+	
+	/**
+	 * Constructor
+	 * @param rootDir Directory of the site
+	 * @param properties The system properties, if they were loaded by the request and match the properties table, otherwise null
+	 */
+	public PageSnapshot(String rootDir, PropertiesOps properties) {
+		
+		super();
+		
+		this.rootDir = rootDir;
+		this.properties = properties;
+		
+	}
+	
+	/**
+	 * Retrieve all backup media
+	 * @return The media, in media ID order.  The list cannot be modified.
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public List<BackupMedia> getMedia() throws SecurityException, xBaseJException, IOException {
+		
+		if (media == null) {
+			media = Collections.unmodifiableList(new MediaDbfDao(rootDir).listAll(false));
+			loads++;
+		}
+		
+		return media;
+		
+	}
+	
+	/**
+	 * Retrieve all backup media by column, for the usage reports
+	 * @return The media, in media ID order
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public MediaColumns getMediaColumns() throws SecurityException, xBaseJException, IOException {
+		
+		if (mediaColumns == null) {
+			mediaColumns = new MediaDbfDao(rootDir).columns();
+			loads++;
+		}
+		
+		return mediaColumns;
+		
+	}
+	
+	/**
+	 * Retrieve the media maximums
+	 * @return The maximum of every media type.  The list cannot be modified.
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public List<MediaMaximum> getMediaMaximums() throws SecurityException, xBaseJException, IOException {
+		
+		if (mediaMaximums == null) {
+			mediaMaximums = Collections.unmodifiableList(new MediaMaxDbfDao(rootDir).listAll());
+			loads++;
+		}
+		
+		return mediaMaximums;
+		
+	}
+	
+	/**
+	 * Retrieve the maximum usage of each media type
+	 * @return The maximums by media type.  The map cannot be modified.
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public Map<MediaTypes, Integer> getMediaMaximumMap() throws SecurityException, xBaseJException, IOException {
+		
+		if (mediaMaxMap == null) {
+			Map<MediaTypes, Integer> mm = new EnumMap<>(MediaTypes.class);
+			
+			for (MediaMaximum max : getMediaMaximums()) {
+				mm.put(max.getMediaType(), Integer.valueOf(max.getMaxUse()));
+			}
+			
+			mediaMaxMap = Collections.unmodifiableMap(mm);
+			
+		}
+		
+		return mediaMaxMap;
+		
+	}
+	
+	/**
+	 * Retrieve the maximum usage of each media type, for the usage reports
+	 * @return The maximums by media type ordinal, a type with no maximum has {@link Integer#MAX_VALUE}
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public int [] getMaxUseByType() throws SecurityException, xBaseJException, IOException {
+		
+		if (maxUseByType == null) {
+			int [] mu = new int[MediaTypes.values().length];
+			
+			Arrays.fill(mu, Integer.MAX_VALUE);
+			
+			for (MediaMaximum max : getMediaMaximums()) {
+				mu[max.getMediaType().ordinal()] = max.getMaxUse();
+			}
+			
+			maxUseByType = mu;
+			
+		}
+		
+		return maxUseByType;
+		
+	}
+	
+	/**
+	 * Retrieve the properties for display
+	 * @return The non-deleted properties, in display order
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public List<Property> getProperties() throws SecurityException, xBaseJException, IOException {
+		List<Property> pl;
+		
+		if (properties == null) {
+			pl = PropertiesSnapshot.get(rootDir).list();
+		}
+		else {
+			pl = properties.list();
+		}
+		
+		return pl;
+		
+	}
+	
+	/**
+	 * Retrieve the metadata of media.dbf and its indexes
+	 * @return The metadata
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public DbfMetaData getMediaMetaData() throws SecurityException, xBaseJException, IOException {
+		
+		if (mediaMetaData == null) {
+			mediaMetaData = new MediaDbfDao(rootDir).loadMetaData();
+			loads++;
+		}
+		
+		return mediaMetaData;
+		
+	}
+	
+	/**
+	 * Retrieve the metadata of mediamax.dbf and its index
+	 * @return The metadata
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public DbfMetaData getMediaMaxMetaData() throws SecurityException, xBaseJException, IOException {
+		
+		if (mediaMaxMetaData == null) {
+			mediaMaxMetaData = new MediaMaxDbfDao(rootDir).loadMetaData();
+			loads++;
+		}
+		
+		return mediaMaxMetaData;
+		
+	}
+	
+	/**
+	 * Retrieve the metadata of properties.dbf and its index
+	 * @return The metadata
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public DbfMetaData getPropertiesMetaData() throws SecurityException, xBaseJException, IOException {
+		
+		if (propertiesMetaData == null) {
+			propertiesMetaData = new PropertiesDbfDao(rootDir).loadMetaData();
+			loads++;
+		}
+		
+		return propertiesMetaData;
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return The number of times a table or its metadata was read by this snapshot
+	 */
+	public int getLoads() {
+		return loads;
+	}
+	
+}
@@ -63,22 +63,15 @@ public class PropertiesOps {
 	}
 	
 	/**
-	 * Load all properties
+	 * Load all properties, copied from the current {@link PropertiesSnapshot} so they can be edited.  Any
+	 * defined property that is not in the table has its default value.
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
 	 * @throws IOException If the table cannot be created
 	 */
 	public void load() throws SecurityException, xBaseJException, IOException {
-		PropertiesDbfDao dbf = new PropertiesDbfDao(rootDir);
-		
-		props = dbf.loadMap();
 		
-		// Add any defined properties that are not in the table
-		for (Property.Properties p : Property.Properties.values()) {
-			if (props.get(p) == null) {
-				add(p, p.getDefaultValue());
-			}
-		}
+		props = PropertiesSnapshot.get(rootDir).copyMap();
 		
 	}
 	
@@ -97,7 +90,9 @@ public class PropertiesOps {
 	}
 
 	/**
-	 * Save all properties to the properties table
+	 * Save all properties to the properties table.  Only the records that differ from the table are
+	 * written, so saving unchanged properties does not write any file.  The {@link PropertiesSnapshot}
+	 * is rebuilt from the table before the save releases it.
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
 	 * @throws IOException If the table cannot be created
@@ -105,73 +100,9 @@ public class PropertiesOps {
 	 */
 	public void save() throws SecurityException, xBaseJException, IOException, CloneNotSupportedException {
 		PropertiesDbfDao dbf = new PropertiesDbfDao(rootDir);
-		boolean deleteHappened = false;
-		
-		for (Property.Properties pp : props.keySet()) {
-			Property p = props.get(pp);
-			
-			if (p.getKey().getGroup().isMultiValue()) {
-				String [] values = p.getMultiValue();
-				int i;
-				
-				for (i = 0; i < values.length; i++) {
-					p.setPosition(i);
-					p.setValue(values[i]);
-					deleteHappened |= processProperty(dbf, p);
-				}
-				
-				// Delete all positions that do not have a value
-				for (; i < SysConstants.maxMultiValues; i++) {
-					p.setPosition(i);
-					
-					if (dbf.delete(p)) {
-						deleteHappened = true;
-					}
-					
-				}
-				
-			}
-			else {
-				deleteHappened |= processProperty(dbf, p);
-			}
-			
-		}
-		
-		if (deleteHappened) {
-			dbf.pack();
-		}
 		
-	}
-	
-	/**
-	 * Write a property to the DB
-	 * @param dbf DAO to manage the DB operations
-	 * @param p The data to process
-	 * @return true if a delete happened, otherwise false
-	 * @throws SecurityException If the OS will not allow the table to be created 
-	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
-	 * @throws IOException If the table cannot be created
-	 */
-	private boolean processProperty(PropertiesDbfDao dbf, Property p) 
-			throws SecurityException, 
-			       xBaseJException, 
-			       IOException {
-		Property p2 = dbf.read(p.getKey(), p.getPosition());
-		boolean deleteHappened = false;
-		
-		if (p2 == null) {
-			dbf.insert(p);
-		}
-		else if (p.getValue() == null) {
-			dbf.delete(p);
-			deleteHappened = true;
-		}
-		else if (!p.getValue().equals(p2.getValue())) {
-			dbf.update(p);
-		}
+		dbf.save(props.values());
 		
-		return deleteHappened;
-
 	}
 	
 	/**
@@ -0,0 +1,187 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.pojo.Property;
+import com.ed.sysdocs.dao.PropertiesDbfDao;
+
+/**
+ * Application wide, immutable view of the system properties.<br>
+ * The snapshot of each site is a view of its properties table in {@link com.ed.sysdocs.dao.DBFTableCache},
+ * so every request and thread reads the same consistent values without a lock and, while the table is
+ * unchanged, without reading the disk.  The values are parsed when the snapshot is built.  Whenever the table changes,
+ * whether saved by this application, changed by another process, loaded, packed or recovered from its
+ * journal, the next snapshot is built from the table.  A save rebuilds it while the saver still holds the
+ * table, so saves publish their snapshots in the order they were written.  Readers that already hold the
+ * previous snapshot keep using it.  A property that is not in the table or was deleted has its default value.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class PropertiesSnapshot {
+	
+	/** The properties table of each site, keyed by the directory of the site */
+	private static final Map<String, PropertiesDbfDao> tables = new ConcurrentHashMap<>();
+	
+	/** The properties, which are never handed out */
+	private final Map<Property.Properties, Property> props;
+	
+	/** The values parsed as integers */
+	private final Map<Property.Properties, Integer> intValues;
+	
+	/** The values split into their lines */
+	private final Map<Property.Properties, List<String>> multiValues;
+	
+	/**
+	 * Constructor
+	 * @param values The properties, any that are missing or deleted get their default value
+	 */
+	private PropertiesSnapshot(Map<Property.Properties, Property> values) {
+		
+		super();
+		
+		props = new EnumMap<>(Property.Properties.class);
+		intValues = new EnumMap<>(Property.Properties.class);
+		multiValues = new EnumMap<>(Property.Properties.class);
+		
+		for (Property.Properties key : Property.Properties.values()) {
+			Property p = values.get(key);
+			
+			if (p == null || p.isDeleted()) {
+				p = new Property(key, key.getDefaultValue());
+			}
+			else {
+				p = new Property(p);
+			}
+			
+			// A multi-value property is read back one line per position
+			if (key.getGroup().isMultiValue()) {
+				p.setValue(String.join(String.valueOf(SysConstants.newline), p.getMultiValue()));
+			}
+			
+			props.put(key, p);
+			intValues.put(key, Integer.valueOf(p.getIntValue()));
+			multiValues.put(key, List.of(p.getMultiValue()));
+			
+		}
+		
+	}
+	
+	/**
+	 * Retrieve the current snapshot of a site, building it from the properties table if the table has
+	 * changed since the last one was built
+	 * @param rootDir Directory of the site
+	 * @return The current snapshot
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public static PropertiesSnapshot get(String rootDir) throws SecurityException, xBaseJException, IOException {
+		PropertiesDbfDao table;
+		
+		try {
+			table = tables.computeIfAbsent(rootDir, PropertiesSnapshot::openTable);
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		
+		return table.view(PropertiesSnapshot.class.getSimpleName(), PropertiesSnapshot::new);
+		
+	}
+	
+	/**
+	 * Open the properties table of a site, the first time its snapshot is asked for
+	 * @param rootDir Directory of the site
+	 * @return The properties table
+	 * @throws UncheckedIOException If the table cannot be opened, created or recovered
+	 */
+	private static PropertiesDbfDao openTable(String rootDir) {
+		
+		try {
+			return new PropertiesDbfDao(rootDir);
+		}
+		catch (xBaseJException e) {
+			throw new UncheckedIOException(new IOException(e.getMessage(), e));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+	}
+	
+	/**
+	 * Get a copy of a property
+	 * @param key Key of the property
+	 * @return A copy of the property, which may be modified
+	 */
+	public Property get(Property.Properties key) {
+		return new Property(props.get(key));
+	}
+	
+	/**
+	 * Get the value of a property
+	 * @param key Key of the property
+	 * @return The value
+	 */
+	public String getValue(Property.Properties key) {
+		return props.get(key).getValue();
+	}
+	
+	/**
+	 * Get the value of a property as an integer
+	 * @param key Key of the property
+	 * @return The value or zero if it is not a number
+	 */
+	public int getIntValue(Property.Properties key) {
+		return intValues.get(key).intValue();
+	}
+	
+	/**
+	 * Get the values of a multi-value property
+	 * @param key Key of the property
+	 * @return The values, one for each line of the value.  The list cannot be modified.
+	 */
+	public List<String> getMultiValue(Property.Properties key) {
+		return multiValues.get(key);
+	}
+	
+	/**
+	 * Copy all of the properties, to be edited
+	 * @return Copies of the properties, keyed by property
+	 */
+	public Map<Property.Properties, Property> copyMap() {
+		Map<Property.Properties, Property> pm = new EnumMap<>(Property.Properties.class);
+		
+		for (Property p : props.values()) {
+			pm.put(p.getKey(), new Property(p));
+		}
+		
+		return pm;
+		
+	}
+	
+	/**
+	 * List the properties
+	 * @return Copies of the properties, sorted by group and name
+	 */
+	public List<Property> list() {
+		List<Property> pl = new ArrayList<>(copyMap().values());
+		
+		Collections.sort(pl, Comparator.comparing(Property::getKeyName));
+		
+		return pl;
+		
+	}
+	
+}
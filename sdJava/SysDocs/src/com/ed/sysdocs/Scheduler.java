@@ -4,8 +4,6 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -17,6 +15,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xBaseJ.xBaseJException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -83,16 +82,14 @@ public class Scheduler {
 
 	/**
 	 * Constructor
-	 * @param properties The systems properties
 	 * @param rootDir The absolute path, on the server, where the web page page resides 
 	 */
-	public Scheduler(PropertiesOps properties, String rootDir) {
+	public Scheduler(String rootDir) {
 		
 		super();
 		
 		this.rootDir = rootDir;
 		this.errors = new ArrayList<>();
-		this.schedFolder = properties.get(Properties.schedFolder).getValue();
 		
 	}
 	
@@ -104,9 +101,10 @@ public class Scheduler {
 		Document doc = null;
 		
 		try {
+			schedFolder = PropertiesSnapshot.get(rootDir).getValue(Properties.schedFolder);
 			output = loadSchedule();
 		} 
-		catch (IOException | InterruptedException e) {
+		catch (xBaseJException | IOException | InterruptedException e) {
 			errors.add(e.getMessage());
 		}
 		
@@ -244,7 +242,6 @@ public class Scheduler {
 	 * @return A populated scheduled task object
 	 */
 	private ScheduledTask makeScheduledTask(Element elt) {
-		SimpleDateFormat sdf = new SimpleDateFormat(SysConstants.taskDateFormat);
 		StringBuilder cmd = new StringBuilder(extractContent(elt, DataTags.Command.name()));
 		String taskName = extractContent(elt, DataTags.URI.name()).substring(schedFolder.length());
 		LogOps logOps = new LogOps(rootDir);
@@ -255,12 +252,7 @@ public class Scheduler {
 		cmd.append(extractContent(elt, DataTags.Arguments.name()));
 		
 		// Get the start time
-		try {
-			scheduledTime = sdf.parse(extractContent(elt, DataTags.StartBoundary.name()).replace('T', ' '));
-		} 
-		catch (ParseException e) {
-			scheduledTime = null;
-		}
+		scheduledTime = TimestampCodec.Task.parse(extractContent(elt, DataTags.StartBoundary.name()).replace('T', ' '));
 		
 		return new ScheduledTask(taskName, scheduledTime, logOps.getLatestLog(taskName), cmd.toString());
 		
@@ -20,6 +20,9 @@ public class SysConstants {
 	/** Internal FFS XML format of the task start times */
 	public static final String taskDateFormat = "yyyy-MM-dd HH:mm:ss";
 	
+	/** Format used to display the scheduled run time of a task */
+	public static final String scheduledTimeFormat = "HH:mm";
+	
 	/** Subdirectory where the data is stored */
 	public final static String dataDir = "data/";
 	
@@ -28,6 +31,9 @@ public class SysConstants {
 	
 	/** File extension for log files */
 	public final static String logExt = ".html";
+	
+	/** Name of the log of the changes skipped while recovering a table from its journal */
+	public final static String recoveryLog = "recovery";
 
 	/** Newline character */
 	public final static char newline = '\n';
@@ -60,7 +66,25 @@ public class SysConstants {
 	/** Format for displaying the record count value for the metadata table */
 	public final static String recordCountFormat = "00000";
 	
-	/** The maximum number of values in a multi-value field */
+	/** The maximum number of values in a multi-value field, when each value is stored in its own record */
 	public static final int maxMultiValues = 10;
+	
+	/** true to store the values of a multi-value property together in the blob file of the properties table, false for one record per value */
+	public static final boolean multiValueBlobs = true;
+	
+	/** Default fraction of the records of a table that must be deleted before it is packed */
+	public static final double compactDeletedRatio = 0.25;
+	
+	/** Default number of records of a table that must be deleted before it is packed */
+	public static final int compactMinDeleted = 4;
+	
+	/** Length a table journal may reach before the table is forced to disk and the journal emptied */
+	public static final long journalCheckpointBytes = 64 * 1024;
+	
+	/** Longest wait for the lock of a table, in milliseconds */
+	public static final long lockTimeoutMillis = 10 * 1000;
+	
+	/** Most pooled handles of a table, which is the number of threads that can read it through xBaseJ at once */
+	public static final int maxTableHandles = 4;
 
 }
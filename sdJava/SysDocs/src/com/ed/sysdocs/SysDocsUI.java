@@ -3,8 +3,6 @@ package com.ed.sysdocs;
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.File;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -18,9 +16,9 @@ import com.ed.pojo.MediaMaximum;
 import com.ed.pojo.Property;
 import com.ed.pojo.Property.Properties;
 import com.ed.pojo.ScheduledTask;
+import com.ed.sysdocs.dao.MediaColumns;
 import com.ed.sysdocs.dao.MediaDbfDao;
 import com.ed.sysdocs.dao.MediaMaxDbfDao;
-import com.ed.sysdocs.dao.PropertiesDbfDao;
 import com.ed.sysdocs.dao.DBFOperations;
 
 /**
@@ -43,6 +41,9 @@ public class SysDocsUI {
 	/** Media maximum usage table */
 	protected Map<MediaTypes, Integer> mediaMaxs;
 	
+	/** The tables as of the end of the form processing, shared by the render methods */
+	protected PageSnapshot snapshot;
+	
 	/** Directory of the site */
 	protected String rootDir;
 
@@ -75,13 +76,19 @@ public class SysDocsUI {
         
 		try {
 			properties = new PropertiesOps(rootDir);
-			saveProperties();
+			
+			// Properties that came from the form are reloaded, as saved, when they are displayed
+			snapshot = new PageSnapshot(rootDir, saveProperties() ? null : properties);
 		    saveMediaMaximums();
 		    saveMedia();
 		} 
 		catch (SecurityException | xBaseJException | IOException | CloneNotSupportedException e) {
 			errors.add(e.getMessage());
 		}
+		
+		if (snapshot == null) {
+			snapshot = new PageSnapshot(rootDir, null);
+		}
 
 	}
 	
@@ -93,8 +100,7 @@ public class SysDocsUI {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public String editMediaMaximums() throws SecurityException, xBaseJException, IOException {
-		MediaMaxDbfDao mm = new MediaMaxDbfDao(rootDir);
-		List<MediaMaximum> mml = mm.listAll();
+		List<MediaMaximum> mml = snapshot.getMediaMaximums();
 		StringBuilder content = new StringBuilder();
 		
 		if (mml != null) {
@@ -122,8 +128,7 @@ public class SysDocsUI {
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 */
 	public String showMedia() throws SecurityException, xBaseJException, IOException {
-		MediaDbfDao md = new MediaDbfDao(rootDir);
-		List<BackupMedia> bm = md.listAll(false);
+		List<BackupMedia> bm = snapshot.getMedia();
 		StringBuilder content = new StringBuilder();
 		boolean odd = true;
 		
@@ -147,32 +152,23 @@ public class SysDocsUI {
 	 */
 	public String showMediaMaximums() throws SecurityException, xBaseJException, IOException {
 		StringBuilder maxNotes = new StringBuilder();
-		MediaDbfDao md = new MediaDbfDao(rootDir);
-		List<BackupMedia> bm = md.listAll(false);
-		Map<MediaTypes, Integer> typeUsed = new HashMap<>();
+		MediaColumns media = snapshot.getMediaColumns();
+		int [] over = media.countOverMaximum(snapshot.getMaxUseByType(), false);
 		boolean exceeded = false;
 		
-		if (bm != null) {
-			for (BackupMedia media : bm) {
-				if (typeUsed.get(media.getMediaType()) == null) {
-					typeUsed.put(media.getMediaType(), Integer.valueOf(0));
-					
-					if (maxNotes.length() > 0) {
-						maxNotes.append(TableHtml.NewLine.getTag());
-					}
-					
-					maxNotes.append("&nbsp;");
-					maxNotes.append(media.getMediaType().getDisplayName());
-					maxNotes.append(": Replace after the Usage Count reaches ");
-					maxNotes.append(mediaMaxs.get(media.getMediaType()));
-					maxNotes.append('.');
-					
-				}
-				
-				if (media.getUseCount() >= mediaMaxs.get(media.getMediaType())) {
-					exceeded = true;
-				}
-				
+		for (MediaTypes mt : media.listTypes()) {
+			if (maxNotes.length() > 0) {
+				maxNotes.append(TableHtml.NewLine.getTag());
+			}
+			
+			maxNotes.append("&nbsp;");
+			maxNotes.append(mt.getDisplayName());
+			maxNotes.append(": Replace after the Usage Count reaches ");
+			maxNotes.append(mediaMaxs.get(mt));
+			maxNotes.append('.');
+			
+			if (over[mt.ordinal()] > 0) {
+				exceeded = true;
 			}
 			
 		}
@@ -197,8 +193,7 @@ public class SysDocsUI {
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 */
 	public String showProperties() throws SecurityException, xBaseJException, IOException {
-		PropertiesOps pd = new PropertiesOps(rootDir);
-		List<Property> pl = pd.list();
+		List<Property> pl = snapshot.getProperties();
 		StringBuilder rows = new StringBuilder();
 		Property.PropertyGroup lastGroup = null;
 		boolean newGroup = true;
@@ -254,7 +249,7 @@ public class SysDocsUI {
 	 */
 	public String buildScheduledTaskTbl() {
 		StringBuilder tbl = new StringBuilder();
-		Scheduler sched = new Scheduler(properties, rootDir);
+		Scheduler sched = new Scheduler(rootDir);
 		boolean odd = true; 
 		
 		sched.processSchedule();
@@ -295,53 +290,34 @@ public class SysDocsUI {
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 */
 	public String usageNotification() throws SecurityException, xBaseJException, IOException {
-		MediaDbfDao md = new MediaDbfDao(rootDir);
-		List<BackupMedia> bm = md.listAll(true);
-		Map<MediaTypes, Integer> over = new HashMap<>();
 	    StringBuilder warn = new StringBuilder();
 	    
 	    // Analyze all active media and determine how many of each type are 
 	    // over the maximum usage value. 
-	    for (BackupMedia m : bm) {
-	    	int max = mediaMaxs.get(m.getMediaType());
-	    	
-	    	if (m.getUseCount() >= max) {
-	    		Integer typeOver = over.get(m.getMediaType());
-	    		
-	    		if (typeOver == null) {
-	    			typeOver = Integer.valueOf(1);
-	    		}
-	    		else {
-	    			over.remove(m.getMediaType());
-	    			typeOver = Integer.valueOf(typeOver.intValue() + 1);
-	    		}
-	    		
-    			over.put(m.getMediaType(), typeOver);
-    			
-	    	}
-	    	
-	    }
+	    int [] over = snapshot.getMediaColumns().countOverMaximum(snapshot.getMaxUseByType(), true);
 	    
 	    // Based on the number of media that over the limit, generate 
 	    // a message.
-	    for (MediaTypes t : over.keySet()) {
-	    	if (warn.length() > 0) {
-	    		warn.append(SysConstants.newline);
-	    	}
-	    	
-	    	warn.append(over.get(t).intValue());
-	    	warn.append(' ');
-	    	warn.append(t.getDisplayName());
-	    	
-	    	if (over.get(t).intValue() > 1) {
-		    	warn.append("s have");
-	    	}
-	    	else {
-		    	warn.append(" has");
+	    for (MediaTypes t : MediaTypes.values()) {
+	    	if (over[t.ordinal()] > 0) {
+		    	if (warn.length() > 0) {
+		    		warn.append(SysConstants.newline);
+		    	}
+		
+		    	warn.append(over[t.ordinal()]);
+		    	warn.append(' ');
+		    	warn.append(t.getDisplayName());
+		
+		    	if (over[t.ordinal()] > 1) {
+			    	warn.append("s have");
+		    	}
+		    	else {
+			    	warn.append(" has");
+		    	}
+		
+		    	warn.append(" exceeded the maximum usage and should be replaced.");
+		
 	    	}
-	    	
-	    	warn.append(" exceeded the maximum usage and should be replaced.");
-	    	
 	    }
 	    
 	    return warn.toString();
@@ -375,8 +351,7 @@ public class SysDocsUI {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public String showMediaMetaData() throws SecurityException, xBaseJException, IOException {
-		MediaDbfDao md = new MediaDbfDao(rootDir);
-		DbfMetaData metaData = md.loadMetaData();
+		DbfMetaData metaData = snapshot.getMediaMetaData();
 		
 		return metaData.generateTableMetaData();
 		
@@ -390,8 +365,7 @@ public class SysDocsUI {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public String showMediaMaxMetaData() throws SecurityException, xBaseJException, IOException {
-		MediaMaxDbfDao mmd = new MediaMaxDbfDao(rootDir);
-		DbfMetaData metaData = mmd.loadMetaData();
+		DbfMetaData metaData = snapshot.getMediaMaxMetaData();
 		
 		return metaData.generateTableMetaData();
 		
@@ -405,8 +379,7 @@ public class SysDocsUI {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public String showPropertiesMetaData() throws SecurityException, xBaseJException, IOException {
-		PropertiesDbfDao pmd = new PropertiesDbfDao(rootDir);
-		DbfMetaData metaData = pmd.loadMetaData();
+		DbfMetaData metaData = snapshot.getPropertiesMetaData();
 		
 		return metaData.generateTableMetaData();
 		
@@ -437,13 +410,11 @@ public class SysDocsUI {
 		MediaMaxDbfDao mmd = new MediaMaxDbfDao(rootDir);
 		List<MediaMaximum> mml = parseMediaMax();
 		
-		if (mml != null && validateMediaMaximums(mml)) {
-			for (MediaMaximum mm : mml) {
-				mmd.update(mm);
-			}
+		if (mml != null && !mml.isEmpty() && validateMediaMaximums(mml)) {
+			mmd.applyBatch(mml);
 		}
 		
-		mediaMaxs = loadMediaMaximums();
+		mediaMaxs = snapshot.getMediaMaximumMap();
 		
 	}
 	
@@ -457,41 +428,25 @@ public class SysDocsUI {
 	protected void saveMedia() throws SecurityException, xBaseJException, IOException, CloneNotSupportedException {
 		MediaDbfDao md = new MediaDbfDao(rootDir);
 		List<BackupMedia> bml = parseMedia();
-		boolean pack = false;
 		
-		if (bml != null && validateMedia(bml)) {
-			for (BackupMedia bm : bml) {
-				if (bm.isDelete()) {
-					md.delete(bm.getMediaId());
-					pack = true;
-				}
-				else if (bm.getUpdated() == DBFOperations.Insert) {
-					md.insert(bm);
-				}
-				else if (bm.getUpdated() == DBFOperations.Modified) {
-					md.update(bm);
-				}
-				
-			}
-			
-			if (pack) {
-				md.pack();
-			}
-	
+		if (bml != null && !bml.isEmpty() && validateMedia(bml)) {
+			md.applyBatch(bml);
 		}
 		
 	}
 
 	/**
-	 * Save the media data to the data file
+	 * Save the properties data to the data file
+	 * @return true if the form changed at least one property, otherwise false
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
 	 * @throws IOException If the table cannot be read or updated
 	 * @throws CloneNotSupportedException Java error caused by called methods 
 	 */
-	protected void saveProperties() throws SecurityException, xBaseJException, IOException, CloneNotSupportedException {
+	protected boolean saveProperties() throws SecurityException, xBaseJException, IOException, CloneNotSupportedException {
+		boolean updates = parseProperties();
 		
-		if (parseProperties()) {
+		if (updates) {
 			properties.validate();
 			
 			if  (!properties.hasErrors()) {
@@ -500,6 +455,8 @@ public class SysDocsUI {
 			
 		}
 		
+		return updates;
+		
 	}
 
 	/**
@@ -515,20 +472,6 @@ public class SysDocsUI {
 		
 	}
 	
-	/**
-	 * Load the media maximums
-	 * @return A map of the system properties
-	 * @throws IOException If the table cannot be read or updated
-	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
-	 * @throws SecurityException If the OS will not allow the table to be created 
-	 */
-	private Map<MediaTypes, Integer> loadMediaMaximums() throws SecurityException, xBaseJException, IOException {
-		MediaMaxDbfDao pd = new MediaMaxDbfDao(rootDir);
-	
-		return pd.mapAll();
-		
-	}
-	
 	/**
 	 * Retrieve the next backup media to use
 	 * @param type Get the next ID for this type of media
@@ -539,14 +482,8 @@ public class SysDocsUI {
 	 */
 	private BackupMedia getNextMedia(MediaTypes type) throws SecurityException, xBaseJException, IOException {
 		MediaDbfDao md = new MediaDbfDao(rootDir);
-		List<BackupMedia> bm = md.listByType(type, true);  // Load only active records
-		BackupMedia m = null;
 		
-		if (!bm.isEmpty()) {
-		    m = bm.get(0);
-		}
-		
-		return m;
+		return md.findLeastRecentlyUsed(type);
 		
 	}
 	
@@ -615,7 +552,6 @@ public class SysDocsUI {
 	 * @return list of backup media extracted from the request
 	 */
 	private List<BackupMedia> parseMedia() {
-		SimpleDateFormat sdf = new SimpleDateFormat(SysConstants.timestampFmt);
 		String [] mediaIds = request.getParameterValues(BackupMedia.Fields.MediaId.name());
 		String [] mediaTypes = request.getParameterValues(BackupMedia.Fields.MediaType.name());
 		String [] firstUses = request.getParameterValues(BackupMedia.Fields.FirstUse.name());
@@ -642,21 +578,21 @@ public class SysDocsUI {
 			}
 			
 			if (firstUses.length > i && firstUses[i].length() > 0) {
-				try {
-					m.setFirstUse(sdf.parse(firstUses[i]));
-				} 
-				catch (ParseException e) {
-					errors.add(ErrMsgs.BAD_MEDIA.getMsg(firstUses[i], mediaIds[i]));
+				m.setFirstUse(TimestampCodec.Storage.parse(firstUses[i]));
+				
+				if (m.getFirstUse() == null) {
+					errors.add(ErrMsgs.BAD_DATE.getMsg(firstUses[i], mediaIds[i]));
 				}
+				
 			}
 			
 			if (lastUses.length > i && lastUses[i].length() > 0) {
-				try {
-					m.setLastUse(sdf.parse(lastUses[i]));
-				} 
-				catch (ParseException e) {
-					errors.add(ErrMsgs.BAD_MEDIA.getMsg(lastUses[i], mediaIds[i]));
+				m.setLastUse(TimestampCodec.Storage.parse(lastUses[i]));
+				
+				if (m.getLastUse() == null) {
+					errors.add(ErrMsgs.BAD_DATE.getMsg(lastUses[i], mediaIds[i]));
 				}
+				
 			}
 			
 			if (useCounts.length > i) {
@@ -0,0 +1,336 @@
+package com.ed.sysdocs;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Thread-safe formatting and parsing of the timestamp formats used by the application.<br>
+ * Patterns made up only of yyyy, MM, dd, HH, mm and ss fields and punctuation are fixed width
+ * and are converted directly, digit by digit, without a formatter.  Any other pattern is
+ * handled by an immutable DateTimeFormatter.  Like SimpleDateFormat, parsing stops at the end
+ * of the pattern and ignores any remaining text.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public enum TimestampCodec {
+	
+	/** Timestamps stored in the DBF files and HTML forms */
+	Storage(SysConstants.timestampFmt),
+	
+	/** Displayed timestamps */
+	Display(SysConstants.timestampDisplay),
+	
+	/** Last modified date of a log file */
+	LogDisplay(SysConstants.logTimestampDisplay),
+	
+	/** Task start times in the FFS XML */
+	Task(SysConstants.taskDateFormat),
+	
+	/** Scheduled run time of a task */
+	HourMinute(SysConstants.scheduledTimeFormat);
+	
+	/** Returned by {@link #toEpochMillis(int, int, int, int, int, int)} for a date or time that does not exist */
+	public static final long invalid = Long.MIN_VALUE;
+	
+	/** Default time zone of the JVM.  TimeZone.getDefault() returns a new copy on every call. */
+	private static final TimeZone zone = TimeZone.getDefault();
+	
+	private static final long millisPerDay = 86400000L;
+	private static final int [] daysBefore = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+	
+	private String pattern;
+	private char [] layout;
+	private DateTimeFormatter formatter;
+	
+	/**
+	 * Constructor
+	 * @param pattern The date format pattern
+	 */
+	private TimestampCodec(String pattern) {
+		
+		this.pattern = pattern;
+		
+		if (isFixedWidth(pattern)) {
+			layout = pattern.toCharArray();
+		}
+		else {
+			formatter = DateTimeFormatter.ofPattern(pattern);
+		}
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return The date format pattern
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+	
+	/**
+	 * Format a date
+	 * @param d The date to format
+	 * @return The formatted date
+	 */
+	public String format(Date d) {
+		String s;
+		
+		if (layout != null) {
+			s = new String(render(d.getTime()));
+		}
+		else {
+			s = formatter.format(LocalDateTime.ofInstant(d.toInstant(), zone.toZoneId()));
+		}
+		
+		return s;
+		
+	}
+	
+	/**
+	 * Format a date and append it to a buffer
+	 * @param sb The buffer
+	 * @param d The date to format
+	 * @return The buffer
+	 */
+	public StringBuilder appendTo(StringBuilder sb, Date d) {
+		
+		if (layout != null) {
+			sb.append(render(d.getTime()));
+		}
+		else {
+			sb.append(format(d));
+		}
+		
+		return sb;
+		
+	}
+	
+	/**
+	 * Parse a date
+	 * @param s The text to parse
+	 * @return The date or null if the text does not start with a valid date in this format
+	 */
+	public Date parse(String s) {
+		Date d = null;
+		
+		if (s != null && layout != null) {
+			long millis = parseFixed(s);
+			
+			if (millis != invalid) {
+				d = new Date(millis);
+			}
+			
+		}
+		else if (s != null) {
+			try {
+				d = Date.from(LocalDateTime.parse(s, formatter).atZone(zone.toZoneId()).toInstant());
+			}
+			catch (DateTimeParseException e) {
+				d = null;
+			}
+		}
+		
+		return d;
+		
+	}
+	
+	/**
+	 * Convert a local date and time to milliseconds since the epoch
+	 * @param year The year
+	 * @param month The month, 1 - 12
+	 * @param day The day of the month
+	 * @param hour The hour, 0 - 23
+	 * @param minute The minute, 0 - 59
+	 * @param second The second, 0 - 59
+	 * @return Milliseconds since the epoch or {@link #invalid} if the date or time does not exist
+	 */
+	public static long toEpochMillis(int year, int month, int day, int hour, int minute, int second) {
+		long millis = invalid;
+		
+		if (month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month) &&
+			hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60) {
+			long local = ((epochDay(year, month, day) * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+			
+			millis = local - zone.getOffset(local - zone.getRawOffset());
+			
+		}
+		
+		return millis;
+		
+	}
+	
+	/**
+	 * Determine if a pattern has only fixed width numeric fields
+	 * @param pattern The date format pattern
+	 * @return true if the pattern can be converted digit by digit, otherwise false
+	 */
+	private static boolean isFixedWidth(String pattern) {
+		boolean fixed = true;
+		int i = 0;
+		
+		while (i < pattern.length() && fixed) {
+			char c = pattern.charAt(i);
+			int run = 1;
+			
+			while (i + run < pattern.length() && pattern.charAt(i + run) == c) {
+				run++;
+			}
+			
+			if (Character.isLetter(c) || c == '\'') {
+				fixed = (c == 'y' && run == 4) || ("MdHms".indexOf(c) >= 0 && run == 2);
+			}
+			
+			i += run;
+			
+		}
+		
+		return fixed;
+		
+	}
+	
+	/**
+	 * Replace the field letters of the layout with the digits of a date
+	 * @param millis The date, in milliseconds since the epoch
+	 * @return The formatted date
+	 */
+	private char [] render(long millis) {
+		long local = millis + zone.getOffset(millis);
+		long days = Math.floorDiv(local, millisPerDay);
+		int secs = (int) (Math.floorMod(local, millisPerDay) / 1000);
+		char [] out = layout.clone();
+		int i = out.length - 1;
+		
+		// Fill from the right so each field is produced by repeated division
+		while (i >= 0) {
+			char c = layout[i];
+			int value;
+			
+			switch (c) {
+				case 'H':
+					value = secs / 3600;
+					break;
+				case 'm':
+					value = secs / 60 % 60;
+					break;
+				case 's':
+					value = secs % 60;
+					break;
+				default:
+					value = Character.isLetter(c) ? civilField(c, days) : 0;
+					break;
+			}
+			
+			do {
+				if (Character.isLetter(c)) {
+					out[i] = (char) ('0' + value % 10);
+					value /= 10;
+				}
+				
+				i--;
+				
+			} while (i >= 0 && Character.isLetter(c) && layout[i] == c);
+			
+		}
+		
+		return out;
+		
+	}
+	
+	/**
+	 * Extract the year, month or day from a count of days since the epoch
+	 * @param c y, M or d
+	 * @param epochDays Days since 01/01/1970
+	 * @return The year, month (1 - 12) or day of the month
+	 */
+	private static int civilField(char c, long epochDays) {
+		long z = epochDays + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+		
+		return c == 'y' ? year : c == 'M' ? month : day;
+		
+	}
+	
+	/**
+	 * Parse text with a fixed width layout
+	 * @param s The text to parse
+	 * @return Milliseconds since the epoch or {@link #invalid} if the text does not match the layout
+	 */
+	private long parseFixed(String s) {
+		int [] values = {1970, 1, 1, 0, 0, 0};
+		String fields = "yMdHms";
+		boolean ok = s.length() >= layout.length;
+		
+		for (int i = 0; i < layout.length && ok; i++) {
+			char c = layout[i];
+			char t = s.charAt(i);
+			int f = fields.indexOf(c);
+			
+			if (f >= 0 && t >= '0' && t <= '9') {
+				// The first digit of a field replaces the default
+				values[f] = (i > 0 && layout[i - 1] == c ? values[f] * 10 : 0) + (t - '0');
+			}
+			else {
+				ok = f < 0 && t == c;
+			}
+			
+		}
+		
+		return ok ? toEpochMillis(values[0], values[1], values[2], values[3], values[4], values[5]) : invalid;
+		
+	}
+	
+	/**
+	 * Determine if a year is a leap year in the Gregorian calendar
+	 * @param year The year
+	 * @return true if the year is a leap year, otherwise false
+	 */
+	private static boolean isLeapYear(int year) {
+		return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+	}
+	
+	/**
+	 * Determine the number of days in a month
+	 * @param year The year
+	 * @param month The month, 1 - 12
+	 * @return The number of days in the month
+	 */
+	private static int daysInMonth(int year, int month) {
+		int days = (month == 12 ? 365 : daysBefore[month]) - daysBefore[month - 1];
+		
+		return month == 2 && isLeapYear(year) ? days + 1 : days;
+		
+	}
+	
+	/**
+	 * Count the days from 01/01/1970 to a date
+	 * @param year The year
+	 * @param month The month, 1 - 12
+	 * @param day The day of the month
+	 * @return Number of days since the epoch
+	 */
+	private static long epochDay(int year, int month, int day) {
+		long y = year - 1;
+		long days = 365 * y + y / 4 - y / 100 + y / 400 - 719162;
+		
+		days += daysBefore[month - 1] + day - 1;
+		
+		if (month > 2 && isLeapYear(year)) {
+			days++;
+		}
+		
+		return days;
+		
+	}
+	
+}
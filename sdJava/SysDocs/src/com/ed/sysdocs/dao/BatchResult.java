@@ -0,0 +1,93 @@
+package com.ed.sysdocs.dao;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of applying a batch of changes to a DBF table.<br>
+ * Every row of the batch is reported under the operation that was applied to it.  Rows that
+ * could not be applied, such as an update or delete of a record that does not exist, are
+ * reported as failed.
+ * @param <T> Type of the rows in the batch
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class BatchResult<T> {
+	
+	/** Applied rows, by operation */
+	private Map<DBFOperations, List<T>> applied = new EnumMap<>(DBFOperations.class);
+	
+	/** Rows that could not be applied */
+	private List<T> failed = new ArrayList<>();
+	
+	/**
+	 * Constructor
+	 */
+	public BatchResult() {
+		
+		super();
+		
+		for (DBFOperations op : DBFOperations.values()) {
+			applied.put(op, new ArrayList<>());
+		}
+		
+	}
+	
+	/**
+	 * Record a row that was applied to the table
+	 * @param op The operation that was applied
+	 * @param row The row
+	 */
+	public void add(DBFOperations op, T row) {
+		applied.get(op).add(row);
+	}
+	
+	/**
+	 * Record a row that could not be applied to the table
+	 * @param row The row
+	 */
+	public void fail(T row) {
+		failed.add(row);
+	}
+	
+	/**
+	 * Getter
+	 * @param op An operation
+	 * @return The rows that were applied with the operation
+	 */
+	public List<T> get(DBFOperations op) {
+		return applied.get(op);
+	}
+	
+	/**
+	 * Getter
+	 * @return The rows that could not be applied
+	 */
+	public List<T> getFailed() {
+		return failed;
+	}
+	
+	/**
+	 * Determine if the batch changed the table
+	 * @return true if at least one row was inserted, modified or deleted, otherwise false
+	 */
+	public boolean hasChanges() {
+		
+		return !applied.get(DBFOperations.Insert).isEmpty() ||
+			   !applied.get(DBFOperations.Modified).isEmpty() ||
+			   !applied.get(DBFOperations.Delete).isEmpty();
+			
+	}
+	
+	/**
+	 * Determine if the batch deleted any records
+	 * @return true if at least one record was deleted, otherwise false
+	 */
+	public boolean hasDeletes() {
+		return !applied.get(DBFOperations.Delete).isEmpty();
+	}
+	
+}
@@ -0,0 +1,195 @@
+package com.ed.sysdocs.dao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Reads the rows of a bulk load from CSV text, one character at a time.<br>
+ * The first line holds the field names.  Values are separated by commas and may be enclosed in
+ * double quotes, in which case they may hold commas, line breaks and doubled double quotes.  Lines
+ * end with CR LF or LF, and a blank line is skipped.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class CsvSource implements DBFBulkLoader.Source {
+	
+	/** Returned by {@link #nextValue(StringBuilder)} at the end of a line */
+	private static final int endOfLine = '\n';
+	
+	/** Returned by {@link #nextValue(StringBuilder)} at the end of the input */
+	private static final int endOfInput = -1;
+	
+	/** The CSV text */
+	private final BufferedReader in;
+	
+	/** Field names from the first line or null until it is read */
+	private List<String> names = null;
+	
+	/** Current line number, for error messages */
+	private int line = 1;
+	
+	/** Character read ahead or -2 if none */
+	private int ahead = -2;
+	
+	/**
+	 * Constructor
+	 * @param in The CSV text
+	 */
+	public CsvSource(Reader in) {
+		
+		super();
+		this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see com.ed.sysdocs.dao.DBFBulkLoader.Source#next()
+	 */
+	@Override
+	public Map<String, String> next() throws IOException {
+		Map<String, String> row = null;
+		List<String> values;
+		
+		if (names == null) {
+			names = nextLine();
+			
+			if (names == null) {
+				names = List.of();
+			}
+			
+		}
+		
+		values = nextLine();
+		
+		if (values != null) {
+			row = new LinkedHashMap<>();
+			
+			if (values.size() > names.size()) {
+				throw new IOException(ErrMsgs.LOAD_SYNTAX.getMsg("CSV", String.valueOf(line - 1)));
+			}
+			
+			for (int i = 0; i < values.size(); i++) {
+				row.put(names.get(i), values.get(i));
+			}
+			
+		}
+		
+		return row;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see com.ed.sysdocs.dao.DBFBulkLoader.Source#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	/**
+	 * Read the values of the next line that is not blank
+	 * @return The values or null at the end of the input
+	 * @throws IOException If the text cannot be read or a quoted value is not closed
+	 */
+	private List<String> nextLine() throws IOException {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		int end;
+		
+		do {
+			values.clear();
+			
+			do {
+				value.setLength(0);
+				end = nextValue(value);
+				values.add(value.toString());
+			} while (end == ',');
+			
+		} while (end == endOfLine && values.size() == 1 && values.get(0).isEmpty());
+		
+		return end == endOfInput && values.size() == 1 && values.get(0).isEmpty() ? null : values;
+		
+	}
+	
+	/**
+	 * Read one value
+	 * @param value Receives the value
+	 * @return The character that ended the value: a comma, {@link #endOfLine} or {@link #endOfInput}
+	 * @throws IOException If the text cannot be read or a quoted value is not closed
+	 */
+	private int nextValue(StringBuilder value) throws IOException {
+		int c = read();
+		boolean quoted = c == '"';
+		
+		if (quoted) {
+			c = read();
+			
+			while (quoted) {
+				if (c == endOfInput) {
+					throw new IOException(ErrMsgs.LOAD_SYNTAX.getMsg("CSV", String.valueOf(line)));
+				}
+				else if (c != '"') {
+					value.append((char) c);
+					c = read();
+				}
+				else if ((c = read()) == '"') {
+					value.append('"');
+					c = read();
+				}
+				else {
+					quoted = false;
+				}
+			}
+			
+		}
+		
+		while (c != ',' && c != endOfLine && c != endOfInput) {
+			value.append((char) c);
+			c = read();
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Read a character, turning CR LF into LF and counting the lines.  A line break inside a quoted
+	 * value is returned as LF.
+	 * @return The character or {@link #endOfInput}
+	 * @throws IOException If the text cannot be read
+	 */
+	private int read() throws IOException {
+		int c = ahead == -2 ? in.read() : ahead;
+		
+		ahead = -2;
+		
+		if (c == '\r') {
+			ahead = in.read();
+			
+			if (ahead == '\n') {
+				ahead = -2;
+			}
+			
+			c = '\n';
+			
+		}
+		
+		if (c == '\n') {
+			line++;
+		}
+		
+		return c;
+		
+	}
+	
+}
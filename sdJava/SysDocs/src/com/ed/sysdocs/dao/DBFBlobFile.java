@@ -0,0 +1,438 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Sidecar file of a table for values that do not fit in a record.<br>
+ * Each value is appended as one frame, the length and checksum of the value followed by the value,
+ * and the record of the table keeps the position of the frame.  A value is read with one positional
+ * read of the frame and written with one append, which is forced to disk before the position is
+ * journaled, see {@link DBFJournal}.  A value that is replaced is not removed from the file, its frame
+ * is only no longer referred to until the file is compacted, see {@link Compaction}.<br>
+ * The file is shared by every process that uses the table.  Appends and compactions are made while
+ * holding the write lock of the table, see {@link DBFLock}.  A compaction moves a new file over the
+ * blob file, so before each read or append the file is opened again if it is no longer the one that
+ * is open.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFBlobFile {
+	
+	/** File extension of a blob file, which replaces the extension of its DBF file */
+	public static final String blobExt = ".blb";
+	
+	/** File extension added to a blob file while it is being compacted */
+	public static final String compactExt = ".tmp";
+	
+	/** Length of the header of a frame, the length and checksum of the value */
+	private static final int frameHeader = 8;
+	
+	/** Open blob files keyed by DBF file specification */
+	private static final Map<String, DBFBlobFile> blobs = new ConcurrentHashMap<>();
+	
+	/**
+	 * A copy of the values of a blob file that are still referred to, which replaces the blob file.<br>
+	 * The values are copied one at a time and each copy returns the new position of the value.  Once
+	 * the copies are forced to disk the new positions are journaled and the copy is moved over the blob
+	 * file in one atomic move.  A copy that was forced but not moved is kept, whether the journal refers
+	 * to it is decided by {@link DBFBlobFile#recover(Collection)}.
+	 */
+	public final class Compaction implements AutoCloseable {
+		
+		/** The copy */
+		private final FileChannel copy;
+		
+		/** Length of the copy */
+		private long length = 0;
+		
+		/** true once the copy is forced to disk and may be referred to by the journal */
+		private boolean forced = false;
+		
+		/**
+		 * Constructor
+		 * @throws IOException If the copy cannot be created
+		 */
+		private Compaction() throws IOException {
+			
+			super();
+			
+			copy = FileChannel.open(compactPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			
+		}
+		
+		/**
+		 * Copy a value
+		 * @param pos Position of the value in the blob file
+		 * @return Position of the value in the copy
+		 * @throws IOException If the value cannot be read or the copy cannot be written
+		 */
+		public long copy(long pos) throws IOException {
+			long start = length;
+			
+			length += write(copy, read(pos), start);
+			
+			return start;
+			
+		}
+		
+		/**
+		 * Determine if the copy is smaller than the blob file
+		 * @return true if replacing the blob file with the copy reclaims space, otherwise false
+		 * @throws IOException If the size of the blob file cannot be read
+		 */
+		public boolean reclaims() throws IOException {
+			
+			synchronized (DBFBlobFile.this) {
+				return length < channel.size();
+			}
+			
+		}
+		
+		/**
+		 * Force the copy to disk, before the journal refers to its positions
+		 * @throws IOException If the copy cannot be forced
+		 */
+		public void force() throws IOException {
+			
+			copy.force(true);
+			forced = true;
+			
+		}
+		
+		/**
+		 * Move the copy over the blob file and open it in its place
+		 * @throws IOException If the copy cannot be moved, it is then moved by the next {@link DBFBlobFile#recover(Collection)}
+		 */
+		public void swap() throws IOException {
+			
+			copy.close();
+			replace();
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.AutoCloseable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			
+			copy.close();
+			
+			if (!forced) {
+				Files.deleteIfExists(compactPath());
+			}
+			
+		}
+		
+	}
+	
+	/** File specification of the blob file */
+	private final String fileSpec;
+	
+	/** The open blob file */
+	private FileChannel channel;
+	
+	/** Identity of the open blob file, its file key or, where there is none, its creation time */
+	private Object identity;
+	
+	/**
+	 * Constructor
+	 * @param fileSpec File specification of the blob file
+	 * @throws IOException If the file cannot be opened or created
+	 */
+	private DBFBlobFile(String fileSpec) throws IOException {
+		
+		super();
+		this.fileSpec = fileSpec;
+		
+		open();
+		
+	}
+	
+	/**
+	 * Obtain the blob file of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return The blob file, shared by every DAO of the table
+	 * @throws IOException If the file cannot be opened or created
+	 */
+	public static DBFBlobFile forTable(String dbfFileSpec) throws IOException {
+		DBFBlobFile blob = blobs.get(dbfFileSpec);
+		
+		if (blob == null) {
+			synchronized (blobs) {
+				blob = blobs.get(dbfFileSpec);
+				
+				if (blob == null) {
+					blob = new DBFBlobFile(blobFileSpec(dbfFileSpec));
+					blobs.put(dbfFileSpec, blob);
+				}
+				
+			}
+		}
+		
+		return blob;
+		
+	}
+	
+	/**
+	 * Build the file specification of the blob file of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return File specification of the blob file
+	 */
+	public static String blobFileSpec(String dbfFileSpec) {
+		return DBFUtilities.replaceExtension(dbfFileSpec, blobExt);
+	}
+	
+	/**
+	 * Build the file specification of the compacted copy of the blob file of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return File specification of the copy, which only exists while the blob file is compacted or
+	 *         after a compaction was interrupted
+	 */
+	public static String compactFileSpec(String dbfFileSpec) {
+		return blobFileSpec(dbfFileSpec) + compactExt;
+	}
+	
+	/**
+	 * Start a compaction of the blob file.  The write lock of the table must be held until the
+	 * compaction is closed.
+	 * @return The compaction, which must be closed
+	 * @throws IOException If the copy cannot be created
+	 */
+	public Compaction compact() throws IOException {
+		return new Compaction();
+	}
+	
+	/**
+	 * Finish or discard a compaction that was interrupted after its copy was forced to disk.  The copy
+	 * is moved over the blob file if every value the table refers to is valid in it, the journal then
+	 * refers to the copy, otherwise it is deleted.  The write lock of the table must be held.
+	 * @param positions Positions of the values the table refers to
+	 * @throws IOException If the copy cannot be read, moved or deleted
+	 */
+	public synchronized void recover(Collection<Long> positions) throws IOException {
+		Path temp = compactPath();
+		boolean committed = !positions.isEmpty();
+		
+		if (Files.exists(temp)) {
+			
+			try (FileChannel fc = FileChannel.open(temp, StandardOpenOption.READ)) {
+				for (Long pos : positions) {
+					committed &= readFrame(fc, pos.longValue()) != null;
+				}
+			}
+			
+			if (committed) {
+				replace();
+			}
+			else {
+				Files.delete(temp);
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Append a value and force it to disk.  The write lock of the table must be held.
+	 * @param value The value
+	 * @return Position of the value, to be kept by the record
+	 * @throws IOException If the file cannot be written
+	 */
+	public synchronized long append(byte [] value) throws IOException {
+		long start;
+		
+		current();
+		
+		// Another process may have appended since this one last did
+		start = channel.size();
+		write(channel, value, start);
+		channel.force(false);
+		
+		return start;
+		
+	}
+	
+	/**
+	 * Read a value
+	 * @param pos Position of the value, as returned by {@link #append(byte[])}
+	 * @return The value
+	 * @throws IOException If the file cannot be read or there is no valid value at the position
+	 */
+	public synchronized byte [] read(long pos) throws IOException {
+		byte [] value;
+		
+		current();
+		value = readFrame(channel, pos);
+		
+		if (value == null) {
+			throw new IOException(ErrMsgs.BLOB_VALUE.getMsg(fileSpec, String.valueOf(pos)));
+		}
+		
+		return value;
+		
+	}
+	
+	/**
+	 * Open the blob file, creating it if it does not exist
+	 * @throws IOException If the file cannot be opened or created
+	 */
+	private void open() throws IOException {
+		Path path = Paths.get(fileSpec);
+		
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		identity = identity(path);
+		
+	}
+	
+	/**
+	 * Open the blob file again if another process, or a compaction, has moved a new file over it
+	 * @throws IOException If the file cannot be opened
+	 */
+	private void current() throws IOException {
+		
+		if (!identity.equals(identity(Paths.get(fileSpec)))) {
+			channel.close();
+			open();
+		}
+		
+	}
+	
+	/**
+	 * Move the compacted copy over the blob file and open it
+	 * @throws IOException If the copy cannot be moved atomically
+	 */
+	private synchronized void replace() throws IOException {
+		Path temp = compactPath();
+		
+		try {
+			Files.move(temp, Paths.get(fileSpec), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			throw new IOException(ErrMsgs.BLOB_COMPACT.getMsg(fileSpec, temp.toString()), e);
+		}
+		
+		channel.close();
+		open();
+		
+	}
+	
+	/**
+	 * Build the path of the compacted copy of the blob file
+	 * @return The path
+	 */
+	private Path compactPath() {
+		return Paths.get(fileSpec + compactExt);
+	}
+	
+	/**
+	 * Identify a file, so that a file moved over it can be told apart from it
+	 * @param path The file
+	 * @return The file key or, where the file system has none, the creation time
+	 * @throws IOException If the attributes of the file cannot be read
+	 */
+	private static Object identity(Path path) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		
+		return attrs.fileKey() != null ? attrs.fileKey() : attrs.creationTime();
+		
+	}
+	
+	/**
+	 * Write a value as one frame
+	 * @param fc The file
+	 * @param value The value
+	 * @param pos Position of the frame
+	 * @return Length of the frame
+	 * @throws IOException If the file cannot be written
+	 */
+	private static int write(FileChannel fc, byte [] value, long pos) throws IOException {
+		ByteBuffer frame = ByteBuffer.allocate(frameHeader + value.length);
+		CRC32 crc = new CRC32();
+		long next = pos;
+		
+		crc.update(value);
+		frame.putInt(value.length);
+		frame.putInt((int) crc.getValue());
+		frame.put(value);
+		frame.flip();
+		
+		while (frame.hasRemaining()) {
+			next += fc.write(frame, next);
+		}
+		
+		return frame.limit();
+		
+	}
+	
+	/**
+	 * Read the value of a frame and check it against the length and checksum of the frame
+	 * @param fc The file
+	 * @param pos Position of the frame
+	 * @return The value or null if there is no valid frame at the position
+	 * @throws IOException If the file cannot be read
+	 */
+	private static byte [] readFrame(FileChannel fc, long pos) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(frameHeader);
+		byte [] value = null;
+		
+		if (pos >= 0 && read(fc, header, pos)) {
+			int length = header.getInt(0);
+			
+			if (length >= 0 && pos + frameHeader + length <= fc.size()) {
+				ByteBuffer body = ByteBuffer.allocate(length);
+				CRC32 crc = new CRC32();
+				
+				if (read(fc, body, pos + frameHeader)) {
+					crc.update(body.array());
+					
+					if ((int) crc.getValue() == header.getInt(4)) {
+						value = body.array();
+					}
+					
+				}
+				
+			}
+			
+		}
+		
+		return value;
+		
+	}
+	
+	/**
+	 * Fill a buffer from a file
+	 * @param fc The file
+	 * @param buf The buffer
+	 * @param pos Position in the file
+	 * @return true if the buffer was filled, false if the file ended first
+	 * @throws IOException If the file cannot be read
+	 */
+	private static boolean read(FileChannel fc, ByteBuffer buf, long pos) throws IOException {
+		int n = 0;
+		
+		while (buf.hasRemaining() && n >= 0) {
+			n = fc.read(buf, pos + buf.position());
+		}
+		
+		return !buf.hasRemaining();
+		
+	}
+	
+}
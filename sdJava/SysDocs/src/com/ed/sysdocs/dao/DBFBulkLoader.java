@@ -0,0 +1,348 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Appends rows to a DBF file in one sequential pass, without xBaseJ and without updating any index.<br>
+ * Rows are encoded straight into the record layout of the table and written in large blocks.  The
+ * record count in the header is only written by {@link #commit()}, so until then readers, which
+ * trust the header, do not see the new records, and closing a loader that was not committed cuts
+ * the file back to its original length.  The indexes must be rebuilt once the load is committed,
+ * see {@link DBFUtilities#bulkLoad(String, Source)}, and a load whose rows the indexes reject can still
+ * be undone with {@link #rollback()}.<br>
+ * A row holds the text of each field by field name, as stored in the table, the same text a
+ * {@link DBFJournal.Change} holds.  Character, date and logical values are left aligned, numeric
+ * values are right aligned and a missing field is left blank.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class DBFBulkLoader implements AutoCloseable {
+	
+	/** Marks the end of the records */
+	private static final byte eofMarker = 0x1A;
+	
+	/** Number of records written at a time */
+	private static final int blockRecords = 1024;
+	
+	/**
+	 * A stream of rows to load
+	 */
+	public interface Source extends AutoCloseable {
+		
+		/**
+		 * Read the next row
+		 * @return The field values of the row by field name or null at the end of the input
+		 * @throws IOException If the input cannot be read or is not valid
+		 */
+		Map<String, String> next() throws IOException;
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.AutoCloseable#close()
+		 */
+		@Override
+		default void close() throws IOException {
+			// Nothing to release
+		}
+		
+	}
+	
+	/** File specification of the DBF file */
+	private final String dbfFileSpec;
+	
+	/** The open DBF file */
+	private final FileChannel channel;
+	
+	/** Fields by upper case name */
+	private final Map<String, DBFReader.Field> fields = new HashMap<>();
+	
+	/** Length of a record, including the deletion flag */
+	private final int recordLength;
+	
+	/** Length of the file before the load */
+	private final long originalLength;
+	
+	/** Position of the end of file marker before the load */
+	private final long originalEnd;
+	
+	/** Date of last update and record count of the header before the load */
+	private final ByteBuffer originalHeader = ByteBuffer.allocate(7);
+	
+	/** Records not yet written */
+	private final ByteBuffer block;
+	
+	/** Number of records in the table */
+	private int recordCount;
+	
+	/** Position of the next record */
+	private long end;
+	
+	/** true once the load has been committed */
+	private boolean committed = false;
+	
+	/**
+	 * Constructor.  The caller must hold the write lock of the table and have removed it from the
+	 * handle pool.
+	 * @param dbfFileSpec File specification of the DBF file, which must already exist
+	 * @throws IOException If the table cannot be opened or its header is not valid
+	 */
+	public DBFBulkLoader(String dbfFileSpec) throws IOException {
+		DBFReader table = new DBFReader(dbfFileSpec);
+		
+		this.dbfFileSpec = dbfFileSpec;
+		
+		for (DBFReader.Field f : table.getFields()) {
+			fields.put(f.getName().toUpperCase(), f);
+		}
+		
+		recordLength = table.getRecordLength();
+		recordCount = table.getRecordCount();
+		end = table.recordStart(recordCount + 1);
+		block = ByteBuffer.allocate(recordLength * blockRecords);
+		channel = FileChannel.open(Paths.get(dbfFileSpec), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		originalLength = channel.size();
+		originalEnd = end;
+		
+		while (originalHeader.hasRemaining() && channel.read(originalHeader, 1 + originalHeader.position()) > 0) {
+			// Keep reading until the header fields are complete
+		}
+		
+		originalHeader.flip();
+		
+	}
+	
+	/**
+	 * A source that reads rows from memory
+	 * @param rows The rows
+	 * @return The source
+	 */
+	public static Source rows(Iterable<Map<String, String>> rows) {
+		Iterator<Map<String, String>> it = rows.iterator();
+		
+		return () -> it.hasNext() ? it.next() : null;
+		
+	}
+	
+	/**
+	 * A source that reads the records of another DBF file in physical order, skipping deleted records
+	 * @param dbfFileSpec File specification of the DBF file to read
+	 * @param rename New names of the fields whose names differ in the target table, by old name
+	 * @return The source
+	 * @throws IOException If the file cannot be read or its header is not valid
+	 */
+	public static Source dbf(String dbfFileSpec, Map<String, String> rename) throws IOException {
+		DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).read();
+		DBFReader reader;
+		
+		try {
+			reader = new DBFReader(dbfFileSpec);
+		}
+		finally {
+			hold.close();
+		}
+		
+		return new Source() {
+			
+			private int rec = 0;
+			
+			@Override
+			public Map<String, String> next() {
+				Map<String, String> row = null;
+				
+				while (row == null && ++rec <= reader.getRecordCount()) {
+					if (!reader.isDeleted(rec)) {
+						row = new LinkedHashMap<>();
+						
+						for (DBFReader.Field f : reader.getFields()) {
+							row.put(rename.getOrDefault(f.getName(), f.getName()), reader.getString(rec, f));
+						}
+						
+					}
+				}
+				
+				return row;
+				
+			}
+			
+		};
+		
+	}
+	
+	/**
+	 * A source that reads CSV text.  The first line holds the field names.
+	 * @param in The CSV text
+	 * @return The source
+	 */
+	public static Source csv(Reader in) {
+		return new CsvSource(in);
+	}
+	
+	/**
+	 * A source that reads a JSON array of flat objects, one object per row
+	 * @param in The JSON text
+	 * @return The source
+	 */
+	public static Source json(Reader in) {
+		return new JsonSource(in);
+	}
+	
+	/**
+	 * Append every row of a source
+	 * @param source The rows to append, closed when they have all been read
+	 * @return Number of rows appended
+	 * @throws IOException If the source cannot be read, a row does not fit the table or the table cannot be written
+	 */
+	public int load(Source source) throws IOException {
+		int count = 0;
+		
+		try (Source src = source) {
+			Map<String, String> row;
+			
+			while ((row = src.next()) != null) {
+				append(row);
+				count++;
+			}
+			
+		}
+		
+		return count;
+		
+	}
+	
+	/**
+	 * Append one row
+	 * @param row The field values of the row by field name
+	 * @throws IOException If the row does not fit the table or the table cannot be written
+	 */
+	public void append(Map<String, String> row) throws IOException {
+		int start = block.position();
+		byte [] rec = block.array();
+		
+		Arrays.fill(rec, start, start + recordLength, (byte) ' ');
+		
+		for (Map.Entry<String, String> e : row.entrySet()) {
+			DBFReader.Field f = fields.get(e.getKey().toUpperCase());
+			String value = e.getValue() == null ? "" : e.getValue();
+			byte [] text;
+			
+			if (f == null) {
+				throw new IOException(ErrMsgs.DBF_LAYOUT.getMsg(dbfFileSpec, e.getKey()));
+			}
+			
+			text = (f.getType() == 'N' ? value.trim() : value).getBytes(StandardCharsets.ISO_8859_1);
+			
+			if (text.length > f.getLength()) {
+				throw new IOException(ErrMsgs.VALUE_MAXLEN.getMsg(f.getName(), String.valueOf(f.getLength())));
+			}
+			
+			System.arraycopy(text, 0, rec, start + f.getOffset() + (f.getType() == 'N' ? f.getLength() - text.length : 0), text.length);
+			
+		}
+		
+		block.position(start + recordLength);
+		recordCount++;
+		
+		if (!block.hasRemaining()) {
+			flush();
+		}
+		
+	}
+	
+	/**
+	 * Write the remaining records, the end of file marker and the new record count and date of the
+	 * header, then force the table to disk
+	 * @throws IOException If the table cannot be written
+	 */
+	public void commit() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(7).order(ByteOrder.LITTLE_ENDIAN);
+		LocalDate today = LocalDate.now();
+		
+		flush();
+		channel.write(ByteBuffer.wrap(new byte[] { eofMarker }), end);
+		channel.truncate(end + 1);
+		
+		header.put((byte) (today.getYear() - 1900));
+		header.put((byte) today.getMonthValue());
+		header.put((byte) today.getDayOfMonth());
+		header.putInt(recordCount);
+		header.flip();
+		channel.write(header, 1);
+		channel.force(true);
+		committed = true;
+		
+	}
+	
+	/**
+	 * Undo a committed load, after the indexes rejected its rows: the table is cut back to its original
+	 * length and gets back its end of file marker, date of last update and record count, then it is
+	 * forced to disk.  The indexes must be rebuilt again.
+	 * @throws IOException If the table cannot be written
+	 */
+	public void rollback() throws IOException {
+		
+		if (originalLength > originalEnd) {
+			channel.write(ByteBuffer.wrap(new byte[] { eofMarker }), originalEnd);
+		}
+		
+		channel.truncate(originalLength);
+		channel.write(originalHeader.duplicate(), 1);
+		channel.force(true);
+		end = originalEnd;
+		committed = false;
+		
+	}
+	
+	/**
+	 * Close the table.  If the load was not committed, the table is cut back to its original length.
+	 * @throws IOException If the table cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		try {
+			if (!committed) {
+				channel.truncate(originalLength);
+			}
+		}
+		catch (IOException e) {
+			// Records past the count in the header are ignored, as is a record torn by a crash
+		}
+		finally {
+			channel.close();
+		}
+		
+	}
+	
+	/**
+	 * Write the records in the block
+	 * @throws IOException If the table cannot be written
+	 */
+	private void flush() throws IOException {
+		
+		block.flip();
+		
+		while (block.hasRemaining()) {
+			end += channel.write(block, end);
+		}
+		
+		block.clear();
+		
+	}
+	
+}
@@ -0,0 +1,246 @@
+package com.ed.sysdocs.dao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.xBaseJ.fields.LogicalField;
+
+import com.ed.sysdocs.TimestampCodec;
+
+/**
+ * Decodes DBF field values directly from the record bytes.<br>
+ * None of the methods create intermediate Strings or throw exceptions for a blank or invalid
+ * value, a defined default is returned instead.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFCodec {
+	
+	/** Returned by {@link #parseTimestamp(ByteBuffer, int, int)} for a blank or invalid timestamp */
+	public static final long noTimestamp = TimestampCodec.invalid;
+	
+	/** Width of a yyyyMMddHHmmss timestamp */
+	public static final int timestampLen = 14;
+	
+	/**
+	 * Lookup of the constants of an enum by their names as stored in a DBF field
+	 * @param <E> The enum type
+	 */
+	public static class EnumLookup<E extends Enum<E>> {
+		
+		/** The constants, grouped by the length of their names */
+		private List<List<E>> byLength = new ArrayList<>();
+		
+		/** The names of the constants, in the same order as byLength */
+		private List<List<byte []>> namesByLength = new ArrayList<>();
+		
+		/**
+		 * Constructor
+		 * @param type The enum class
+		 */
+		public EnumLookup(Class<E> type) {
+			
+			super();
+			
+			for (E e : type.getEnumConstants()) {
+				int len = e.name().length();
+				
+				while (byLength.size() <= len) {
+					byLength.add(new ArrayList<>());
+					namesByLength.add(new ArrayList<>());
+				}
+				
+				byLength.get(len).add(e);
+				namesByLength.get(len).add(e.name().getBytes(StandardCharsets.ISO_8859_1));
+				
+			}
+			
+		}
+		
+		/**
+		 * Find the constant whose name is stored in a field
+		 * @param buf The record bytes
+		 * @param pos Position of the field
+		 * @param len Width of the field
+		 * @return The constant or null if the field does not hold the name of a constant
+		 */
+		public E lookup(ByteBuffer buf, int pos, int len) {
+			int trimmed = trimmedLength(buf, pos, len);
+			E found = null;
+			
+			if (trimmed < byLength.size()) {
+				List<E> candidates = byLength.get(trimmed);
+				List<byte []> names = namesByLength.get(trimmed);
+				
+				for (int i = 0; i < candidates.size() && found == null; i++) {
+					if (equals(buf, pos, names.get(i))) {
+						found = candidates.get(i);
+					}
+				}
+				
+			}
+			
+			return found;
+			
+		}
+		
+		/**
+		 * Compare bytes of a buffer with a name
+		 * @param buf The record bytes
+		 * @param pos Position of the field
+		 * @param name The name to compare with
+		 * @return true if the buffer holds the name at pos, otherwise false
+		 */
+		private boolean equals(ByteBuffer buf, int pos, byte [] name) {
+			boolean match = true;
+			
+			for (int i = 0; i < name.length && match; i++) {
+				match = buf.get(pos + i) == name[i];
+			}
+			
+			return match;
+			
+		}
+		
+	}
+	
+	/**
+	 * Constructor, not used
+	 */
+	private DBFCodec() {
+		super();
+	}
+	
+	/**
+	 * Decode a NUMERIC field with no decimal places.  Leading blanks are skipped and decoding
+	 * stops at the first character that is not a digit.
+	 * @param buf The record bytes
+	 * @param pos Position of the field
+	 * @param len Width of the field
+	 * @return The value of the field or 0 if the field is blank
+	 */
+	public static int parseInt(ByteBuffer buf, int pos, int len) {
+		int end = pos + len;
+		int value = 0;
+		boolean negative = false;
+		
+		while (pos < end && buf.get(pos) == ' ') {
+			pos++;
+		}
+		
+		if (pos < end && buf.get(pos) == '-') {
+			negative = true;
+			pos++;
+		}
+		
+		while (pos < end && buf.get(pos) >= '0' && buf.get(pos) <= '9') {
+			value = value * 10 + (buf.get(pos) - '0');
+			pos++;
+		}
+		
+		return negative ? -value : value;
+		
+	}
+	
+	/**
+	 * Decode a LOGICAL field
+	 * @param b The field byte
+	 * @return true if the field is T, t, Y or y, otherwise false
+	 */
+	public static boolean parseLogical(byte b) {
+		return b == LogicalField.BYTETRUE || b == 't' || b == 'Y' || b == 'y';
+	}
+	
+	/**
+	 * Decode a yyyyMMddHHmmss timestamp, stored in the local time zone
+	 * @param buf The record bytes
+	 * @param pos Position of the field
+	 * @param len Width of the field
+	 * @return Milliseconds since the epoch or {@link #noTimestamp} if the field is blank or not a valid timestamp
+	 */
+	public static long parseTimestamp(ByteBuffer buf, int pos, int len) {
+		long millis = noTimestamp;
+		
+		if (len >= timestampLen && digits(buf, pos, timestampLen)) {
+			int year = number(buf, pos, 4);
+			int month = number(buf, pos + 4, 2);
+			int day = number(buf, pos + 6, 2);
+			int hour = number(buf, pos + 8, 2);
+			int minute = number(buf, pos + 10, 2);
+			int second = number(buf, pos + 12, 2);
+			
+			millis = TimestampCodec.toEpochMillis(year, month, day, hour, minute, second);
+			
+		}
+		
+		return millis;
+		
+	}
+	
+	/**
+	 * Convert a decoded timestamp to a Date
+	 * @param millis Milliseconds since the epoch or {@link #noTimestamp}
+	 * @return The date or null if millis is {@link #noTimestamp}
+	 */
+	public static Date toDate(long millis) {
+		return millis == noTimestamp ? null : new Date(millis);
+	}
+	
+	/**
+	 * Determine the length of a field without its trailing blanks and nulls
+	 * @param buf The record bytes
+	 * @param pos Position of the field
+	 * @param len Width of the field
+	 * @return The length of the value of the field
+	 */
+	public static int trimmedLength(ByteBuffer buf, int pos, int len) {
+		
+		while (len > 0 && (buf.get(pos + len - 1) == ' ' || buf.get(pos + len - 1) == 0)) {
+			len--;
+		}
+		
+		return len;
+		
+	}
+	
+	/**
+	 * Determine if a range of bytes are all ASCII digits
+	 * @param buf The record bytes
+	 * @param pos Position of the first byte
+	 * @param len Number of bytes to check
+	 * @return true if every byte is a digit, otherwise false
+	 */
+	private static boolean digits(ByteBuffer buf, int pos, int len) {
+		boolean ok = true;
+		
+		for (int i = 0; i < len && ok; i++) {
+			ok = buf.get(pos + i) >= '0' && buf.get(pos + i) <= '9';
+		}
+		
+		return ok;
+		
+	}
+	
+	/**
+	 * Decode a fixed number of ASCII digits, which must already have been validated
+	 * @param buf The record bytes
+	 * @param pos Position of the first digit
+	 * @param len Number of digits
+	 * @return The value of the digits
+	 */
+	private static int number(ByteBuffer buf, int pos, int len) {
+		int value = 0;
+		
+		for (int i = 0; i < len; i++) {
+			value = value * 10 + (buf.get(pos + i) - '0');
+		}
+		
+		return value;
+		
+	}
+	
+}
@@ -0,0 +1,302 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.sysdocs.SysConstants;
+
+/**
+ * Application wide compaction of the DBF tables.<br>
+ * Deleting a record only marks it as deleted, the readers skip it and the space is recovered by
+ * packing the table.  Rather than packing after every delete, the DAOs report their deletes here.
+ * The table is packed, and its indexes rebuilt, only once the deleted records reach both the minimum
+ * count and the ratio of the threshold.  Packs run one at a time on a background thread, so the
+ * request that crossed the threshold does not wait for them.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFCompactor {
+	
+	/** Compaction history keyed by DBF file specification */
+	private static final Map<String, History> tables = new ConcurrentHashMap<>();
+	
+	/** Runs the packs, one at a time */
+	private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "DBFCompactor");
+		
+		t.setDaemon(true);
+		
+		return t;
+		
+	});
+	
+	/** Fraction of the records that must be deleted before a table is packed */
+	private static volatile double deletedRatio = SysConstants.compactDeletedRatio;
+	
+	/** Number of records that must be deleted before a table is packed */
+	private static volatile int minDeleted = SysConstants.compactMinDeleted;
+	
+	/**
+	 * Constructor, not used
+	 */
+	private DBFCompactor() {
+		super();
+	}
+	
+	/**
+	 * The space used by the deleted records of a table and the compaction history of the table
+	 */
+	public static class Stats {
+		
+		private int recordCount;
+		private int deletedCount;
+		private int recordLength;
+		private Date lastCompacted;
+		private int compactions;
+		private boolean pending;
+		private String lastError;
+		
+		/**
+		 * Getter
+		 * @return Number of records in the table, including the deleted records
+		 */
+		public int getRecordCount() {
+			return recordCount;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of deleted records
+		 */
+		public int getDeletedCount() {
+			return deletedCount;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of bytes used by the deleted records
+		 */
+		public long getDeadBytes() {
+			return (long) deletedCount * recordLength;
+		}
+		
+		/**
+		 * Getter
+		 * @return Fraction of the records that are deleted
+		 */
+		public double getDeletedRatio() {
+			return recordCount == 0 ? 0 : (double) deletedCount / recordCount;
+		}
+		
+		/**
+		 * Getter
+		 * @return Date/time the table was last packed by the compactor or null if it has not been packed
+		 */
+		public Date getLastCompacted() {
+			return lastCompacted;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of times the table was packed by the compactor
+		 */
+		public int getCompactions() {
+			return compactions;
+		}
+		
+		/**
+		 * Getter
+		 * @return true if a pack of the table is waiting or running, otherwise false
+		 */
+		public boolean isPending() {
+			return pending;
+		}
+		
+		/**
+		 * Getter
+		 * @return The error of the last failed pack or null if the last pack succeeded
+		 */
+		public String getLastError() {
+			return lastError;
+		}
+		
+	}
+	
+	/**
+	 * Compaction history of one table
+	 */
+	private static class History {
+		
+		private final AtomicBoolean pending = new AtomicBoolean(false);
+		private volatile Date lastCompacted = null;
+		private volatile int compactions = 0;
+		private volatile String lastError = null;
+		private volatile Counted counted = null;
+		
+	}
+	
+	/**
+	 * The deleted records of a table, counted for one header of the table
+	 */
+	private static class Counted {
+		
+		private final DBFHeader header;
+		private final int recordCount;
+		private final int deletedCount;
+		
+		/**
+		 * Constructor
+		 * @param header The header of the table when the records were counted
+		 * @param recordCount Number of records counted
+		 * @param deletedCount Number of deleted records
+		 */
+		Counted(DBFHeader header, int recordCount, int deletedCount) {
+			this.header = header;
+			this.recordCount = recordCount;
+			this.deletedCount = deletedCount;
+		}
+		
+	}
+	
+	/**
+	 * Change the threshold at which a table is packed
+	 * @param ratio Fraction of the records that must be deleted, between 0 and 1
+	 * @param minimum Number of records that must be deleted, at least 1
+	 */
+	public static void setThreshold(double ratio, int minimum) {
+		
+		deletedRatio = Math.min(Math.max(ratio, 0), 1);
+		minDeleted = Math.max(minimum, 1);
+		
+	}
+	
+	/**
+	 * Measure the deleted records of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return The current statistics of the table
+	 * @throws IOException If the table cannot be read or stays locked by a writer
+	 */
+	public static Stats getStats(String dbfFileSpec) throws IOException {
+		
+		return getStats(DBFHeader.read(dbfFileSpec));
+		
+	}
+	
+	/**
+	 * Measure the deleted records of a table.  The records are only counted again once the header
+	 * of the table has changed.
+	 * @param header The current header of the table
+	 * @return The current statistics of the table
+	 * @throws IOException If the table cannot be read or stays locked by a writer
+	 */
+	public static Stats getStats(DBFHeader header) throws IOException {
+		
+		return measure(header, false);
+		
+	}
+	
+	/**
+	 * Measure the deleted records of a table
+	 * @param header The current header of the table
+	 * @param recount true to count the records even if they were counted for this header
+	 * @return The current statistics of the table
+	 * @throws IOException If the table cannot be read or stays locked by a writer
+	 */
+	private static Stats measure(DBFHeader header, boolean recount) throws IOException {
+		DBFReader reader;
+		History history = tables.computeIfAbsent(header.getFileSpec(), fs -> new History());
+		Counted counted = history.counted;
+		Stats stats = new Stats();
+		IntStream records;
+		
+		if (recount || counted == null || counted.header != header) {
+			
+			DBFLock.Hold hold = DBFLock.forTable(header.getFileSpec()).read();
+			
+			try {
+				reader = new DBFReader(header.getFileSpec());
+			}
+			finally {
+				hold.close();
+			}
+			
+			records = IntStream.rangeClosed(1, reader.getRecordCount());
+			
+			// Large tables are counted in chunks on every core
+			if (reader.getRecordCount() >= 2 * DBFSpliterator.minChunk) {
+				records = records.parallel();
+			}
+			
+			counted = new Counted(header, reader.getRecordCount(), (int) records.filter(reader::isDeleted).count());
+			history.counted = counted;
+			
+		}
+		
+		stats.recordCount = counted.recordCount;
+		stats.deletedCount = counted.deletedCount;
+		stats.recordLength = header.getRecordLength();
+		
+		stats.lastCompacted = history.lastCompacted;
+		stats.compactions = history.compactions;
+		stats.pending = history.pending.get();
+		stats.lastError = history.lastError;
+		
+		return stats;
+		
+	}
+	
+	/**
+	 * Report that records of a table were deleted.  If the deleted records have reached the
+	 * threshold, a pack of the table is queued unless one is already waiting.
+	 * @param table DAO of the table, used to pack it
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return true if a pack was queued, otherwise false
+	 * @throws IOException If the table cannot be read
+	 */
+	public static boolean deleted(DBFUtilities table, String dbfFileSpec) throws IOException {
+		// The time stamp of the file may not have moved since the last count, so count again
+		Stats stats = measure(DBFHeader.read(dbfFileSpec), true);
+		History history = tables.get(dbfFileSpec);
+		boolean queued = false;
+		
+		if (stats.deletedCount >= minDeleted && stats.getDeletedRatio() >= deletedRatio && history.pending.compareAndSet(false, true)) {
+			worker.execute(() -> compact(table, history));
+			queued = true;
+		}
+		
+		return queued;
+		
+	}
+	
+	/**
+	 * Pack a table on the background thread
+	 * @param table DAO of the table
+	 * @param history Compaction history of the table
+	 */
+	private static void compact(DBFUtilities table, History history) {
+		
+		try {
+			table.pack();
+			history.lastCompacted = new Date();
+			history.compactions++;
+			history.lastError = null;
+		}
+		catch (xBaseJException | IOException | CloneNotSupportedException | RuntimeException e) {
+			history.lastError = e.toString();
+		}
+		finally {
+			history.pending.set(false);
+		}
+		
+	}
+	
+}
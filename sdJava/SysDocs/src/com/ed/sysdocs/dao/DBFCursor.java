@@ -0,0 +1,170 @@
+package com.ed.sysdocs.dao;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Forward-only cursor over the records of a table, in physical order or in the key order of an index.<br>
+ * Deleted records are skipped.  The end of the records is reported by {@link #hasNext()}, never by an
+ * exception, and the cursor closes itself once the last record has been read.
+ * @param <T> Type of the decoded records
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class DBFCursor<T> implements Iterator<T>, AutoCloseable {
+	
+	/** The table or null once the cursor is closed */
+	private DBFReader reader;
+	
+	/** Record numbers to visit */
+	private PrimitiveIterator.OfInt records;
+	
+	/** Decoder bound to the table */
+	private RecordDecoder<T> decoder;
+	
+	/** The next record, already decoded, or null */
+	private T pending = null;
+	
+	/**
+	 * Constructor for a cursor over every record in physical order
+	 * @param reader The table
+	 * @param decoder Decoder bound to the table
+	 */
+	public DBFCursor(DBFReader reader, RecordDecoder<T> decoder) {
+		
+		this(reader, IntStream.rangeClosed(1, reader.getRecordCount()).iterator(), decoder);
+		
+	}
+	
+	/**
+	 * Constructor for a cursor over a list of records, such as a key range of an index
+	 * @param reader The table
+	 * @param records Record numbers to visit, in the order to visit them
+	 * @param decoder Decoder bound to the table
+	 */
+	public DBFCursor(DBFReader reader, PrimitiveIterator.OfInt records, RecordDecoder<T> decoder) {
+		
+		super();
+		this.reader = reader;
+		this.records = records;
+		this.decoder = decoder;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		
+		if (pending == null) {
+			pending = advance(null);
+		}
+		
+		return pending != null;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public T next() {
+		T record;
+		
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		
+		record = pending;
+		pending = null;
+		
+		return record;
+		
+	}
+	
+	/**
+	 * Pass every remaining record to a visitor.  The same record object is reused for every row,
+	 * so the visitor must copy anything it keeps.  The cursor is closed when this returns.
+	 * @param visitor Called for each record
+	 */
+	public void visit(Consumer<? super T> visitor) {
+		T record = pending == null ? decoder.newRecord() : pending;
+		
+		if (pending != null) {
+			pending = null;
+			visitor.accept(record);
+		}
+		
+		while (advance(record) != null) {
+			visitor.accept(record);
+		}
+		
+	}
+	
+	/**
+	 * Stream the remaining records.  Closing the stream closes the cursor.
+	 * @return The records, a new object for each row
+	 */
+	public Stream<T> stream() {
+		
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				            .onClose(this::close);
+				
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		
+		reader = null;
+		records = null;
+		pending = null;
+		
+	}
+	
+	/**
+	 * Decode the next record that is not deleted and is accepted by the decoder
+	 * @param reuse Record to decode into or null to create a new record
+	 * @return The decoded record or null if there are no more records
+	 */
+	private T advance(T reuse) {
+		T record = null;
+		
+		while (record == null && reader != null && records.hasNext()) {
+			int recNo = records.nextInt();
+			
+			// The index may list records past the end of an older image of the table
+			if (recNo >= 1 && recNo <= reader.getRecordCount() && !reader.isDeleted(recNo)) {
+				T candidate = reuse == null ? decoder.newRecord() : reuse;
+				
+				if (decoder.decode(recNo, candidate)) {
+					record = candidate;
+				}
+				
+			}
+			
+		}
+		
+		if (record == null) {
+			close();
+		}
+		
+		return record;
+		
+	}
+	
+}
@@ -0,0 +1,493 @@
+package com.ed.sysdocs.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.xBaseJ.DBF;
+import org.xBaseJ.xBaseJException;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * A pooled, open DBF table with all of its indexes attached.<br>
+ * A handle is obtained from {@link DBFHandlePool#acquire(String, String...)} to change the table, or
+ * from {@link DBFHandlePool#acquireRead(String, String...)} to only read it, and is held exclusively by
+ * the calling thread until it is closed, along with the write or read lock of the table, which keeps
+ * out other processes as well.  A handle that was acquired to read cannot be written through.  Closing
+ * a handle returns it to the pool, the underlying table and indexes remain open for the next caller.
+ * The {@link NDXHash} of each unique index is opened with the table, when it exists, to find exact keys,
+ * and learns the keys it did not have only while the table is held for writing.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class DBFHandle implements AutoCloseable {
+	
+	/** File specification of the DBF file */
+	private final String dbfFileSpec;
+	
+	/** File specifications of the attached indexes */
+	private final String [] ndxFileSpecs;
+	
+	/** Serializes access to the open table */
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	/** Locks of the table taken by each acquisition of the handle that is not yet closed */
+	private final Deque<DBFLock.Hold> holds = new ArrayDeque<>();
+	
+	/** For each acquisition of the handle that is not yet closed, true if it holds the write lock */
+	private final Deque<Boolean> writers = new ArrayDeque<>();
+	
+	/** The open table or null if the table is closed */
+	private DBF dbf = null;
+	
+	/** The hash index of each attached index that has one, by file specification of the index */
+	private final Map<String, NDXHash> hashes = new HashMap<>();
+	
+	/** Last modified time and size of the DBF, generation of the table and last modified time and size of each index, when opened or last written by this handle */
+	private long [] stamp = null;
+	
+	/** true if the table was written while this handle was held, otherwise false */
+	private boolean modified = false;
+	
+	/** The changes written while this handle was held, in order, or null if a write was not described by one */
+	private List<DBFJournal.Change> changes = new ArrayList<>();
+	
+	/** Number of writes since the last change was described */
+	private int undescribed = 0;
+	
+	/** true once the handle has been removed from the pool */
+	private boolean retired = false;
+	
+	/** Deleted records that an insert may reuse or null if the table has not been scanned for them */
+	private BitSet free = null;
+	
+	/**
+	 * Constructor
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of the indexes to attach
+	 */
+	DBFHandle(String dbfFileSpec, String... ndxFileSpecs) {
+		
+		super();
+		this.dbfFileSpec = dbfFileSpec;
+		this.ndxFileSpecs = ndxFileSpecs;
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return The open table
+	 */
+	public DBF getDbf() {
+		return dbf;
+	}
+	
+	/**
+	 * Getter
+	 * @return File specification of the DBF file
+	 */
+	public String getDbfFileSpec() {
+		return dbfFileSpec;
+	}
+	
+	/**
+	 * Make an attached index the master index for find and findNext operations
+	 * @param ndxFileSpec File specification of the index
+	 * @return The open table
+	 * @throws xBaseJException If the index cannot be read
+	 * @throws IOException If the index cannot be read
+	 */
+	public DBF useIndex(String ndxFileSpec) throws xBaseJException, IOException {
+		
+		dbf.useIndex(ndxFileSpec);
+		
+		return dbf;
+		
+	}
+	
+	/**
+	 * Position the table on the record with a key of a unique index.  The hash index of the index finds
+	 * the record with one probe, the index itself is searched only for a key that is not in the hash
+	 * index, which then learns the key.
+	 * @param ndxFileSpec File specification of the index
+	 * @param key The key
+	 * @return true if the key was found, otherwise false
+	 * @throws xBaseJException If the index or the record cannot be read
+	 * @throws IOException If the index, the hash index or the record cannot be read
+	 */
+	public boolean findExact(String ndxFileSpec, String key) throws xBaseJException, IOException {
+		NDXHash hash = hashes.get(ndxFileSpec);
+		int recNo = hash == null ? 0 : hash.find(key);
+		boolean found = recNo > 0;
+		
+		if (found) {
+			dbf.gotoRecord(recNo);
+		}
+		else {
+			found = useIndex(ndxFileSpec).findExact(key);
+			
+			// A reader does not write the hash index, other readers may be probing it
+			if (found && hash != null && isWritable()) {
+				hash.put(key, dbf.getCurrentRecordNumber());
+			}
+			
+		}
+		
+		return found;
+		
+	}
+	
+	/**
+	 * Note that the current record was written with a key of a unique index, so that its hash index
+	 * finds the record
+	 * @param ndxFileSpec File specification of the index
+	 * @param key The key of the current record
+	 * @throws IOException If the hash index cannot be updated
+	 */
+	public void keyed(String ndxFileSpec, String key) throws IOException {
+		NDXHash hash = hashes.get(ndxFileSpec);
+		
+		if (hash != null) {
+			hash.put(key, dbf.getCurrentRecordNumber());
+		}
+		
+	}
+	
+	/**
+	 * Determine if the table may be written through this handle
+	 * @return true if the handle was acquired with the write lock of the table, otherwise false
+	 */
+	public boolean isWritable() {
+		return Boolean.TRUE.equals(writers.peek());
+	}
+	
+	/**
+	 * Make sure the table may be written through this handle, before the first write of a change
+	 * @throws IOException If the handle was acquired to only read the table
+	 */
+	public void checkWritable() throws IOException {
+		
+		if (!isWritable()) {
+			throw new IOException(ErrMsgs.TABLE_READ_ONLY.getMsg(dbfFileSpec));
+		}
+		
+	}
+	
+	/**
+	 * Note that the table was written through this handle so that the write is not mistaken
+	 * for a change made by another process.  The first write of an acquisition moves the generation
+	 * of the table on.
+	 * @throws IOException If the generation of the table cannot be written
+	 */
+	public void modified() throws IOException {
+		
+		if (!modified) {
+			DBFLock.forTable(dbfFileSpec).changed();
+		}
+		
+		modified = true;
+		undescribed++;
+		
+	}
+	
+	/**
+	 * Note the change that the last write through this handle made, so that the cached contents of the
+	 * table can apply it instead of reloading the table.  A change must follow exactly one write.
+	 * @param change The change
+	 */
+	public void described(DBFJournal.Change change) {
+		
+		if (changes != null && undescribed == 1) {
+			changes.add(change);
+		}
+		else {
+			changes = null;
+		}
+		
+		undescribed = 0;
+		
+	}
+	
+	/**
+	 * Note that a record was deleted so that an insert can reuse it
+	 * @param recNo Number of the deleted record
+	 */
+	public void freed(int recNo) {
+		
+		if (free != null && recNo > 0) {
+			free.set(recNo);
+		}
+		
+	}
+	
+	/**
+	 * Remove the lowest numbered deleted record from the free list.  The table is scanned for
+	 * deleted records the first time this is called after it is opened.  The record may have been
+	 * reused since it was listed, so the caller must check that it is still deleted.
+	 * @return Number of a deleted record or 0 if there are none
+	 * @throws IOException If the table cannot be scanned
+	 */
+	int takeFree() throws IOException {
+		int recNo;
+		
+		if (free == null) {
+			DBFReader reader = new DBFReader(dbfFileSpec);
+			
+			free = new BitSet(reader.getRecordCount() + 1);
+			
+			for (int rec = 1; rec <= reader.getRecordCount(); rec++) {
+				if (reader.isDeleted(rec)) {
+					free.set(rec);
+				}
+			}
+			
+		}
+		
+		recNo = free.nextSetBit(1);
+		
+		if (recNo < 0) {
+			recNo = 0;
+		}
+		else {
+			free.clear(recNo);
+		}
+		
+		return recNo;
+		
+	}
+	
+	/**
+	 * Return the handle to the pool and release the lock of the table.  If the table was written,
+	 * its cached contents are brought up to date before the next caller can change it, from the changes
+	 * written if every write was described by one.
+	 */
+	@Override
+	public void close() {
+		DBFLock.Hold hold;
+		
+		if (modified && dbf != null) {
+			long [] before = stamp;
+			
+			try {
+				stamp = stamp();
+				DBFTableCache.refresh(dbfFileSpec, undescribed == 0 ? changes : null, before);
+			}
+			catch (IOException e) {
+				// The table is reopened and its cached contents reloaded on the next use
+				stamp = null;
+				DBFTableCache.refresh(dbfFileSpec, null, null);
+			}
+			
+			modified = false;
+			
+		}
+		
+		changes = new ArrayList<>();
+		undescribed = 0;
+		
+		hold = holds.pop();
+		writers.pop();
+		lock.unlock();
+		hold.close();
+		
+	}
+	
+	/**
+	 * Lock the handle for the current thread, if no other thread holds it, and make sure the table is
+	 * open and current.  The caller holds the lock of the table, which is always taken first.
+	 * @param hold The lock of the table, released when the handle is closed
+	 * @param writable true if the hold is the write lock of the table
+	 * @return true if the handle is locked and ready, false if another thread holds it or it was removed from the pool
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	boolean tryAcquire(DBFLock.Hold hold, boolean writable) throws xBaseJException, IOException {
+		return lock.tryLock() && ready(hold, writable);
+	}
+	
+	/**
+	 * Lock the handle for the current thread, waiting for any other thread that holds it, and make sure
+	 * the table is open and current.  The caller holds the lock of the table, which is always taken first.
+	 * @param hold The lock of the table, released when the handle is closed
+	 * @param writable true if the hold is the write lock of the table
+	 * @return true if the handle is locked and ready, false if the handle was removed from the pool while waiting
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	boolean acquire(DBFLock.Hold hold, boolean writable) throws xBaseJException, IOException {
+		
+		lock.lock();
+		
+		return ready(hold, writable);
+		
+	}
+	
+	/**
+	 * Make sure the table of a handle that was just locked is open and current.  The handle is unlocked
+	 * again if it cannot be used.
+	 * @param hold The lock of the table, released when the handle is closed
+	 * @param writable true if the hold is the write lock of the table
+	 * @return true if the handle is ready, false if the handle was removed from the pool
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	private boolean ready(DBFLock.Hold hold, boolean writable) throws xBaseJException, IOException {
+		
+		if (retired) {
+			lock.unlock();
+			return false;
+		}
+		
+		try {
+			if (dbf != null && isStale()) {
+				closeTable();
+			}
+			
+			if (dbf == null) {
+				openTable();
+			}
+			
+		}
+		catch (xBaseJException | IOException | RuntimeException e) {
+			lock.unlock();
+			throw e;
+		}
+		
+		holds.push(hold);
+		writers.push(Boolean.valueOf(writable));
+		
+		return true;
+		
+	}
+	
+	/**
+	 * Close the table once any thread currently holding the handle has released it
+	 */
+	void shutdown() {
+		
+		lock.lock();
+		
+		try {
+			retired = true;
+			closeTable();
+		}
+		finally {
+			lock.unlock();
+		}
+		
+	}
+	
+	/**
+	 * Open the table and attach the indexes
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	private void openTable() throws xBaseJException, IOException {
+		DBF table = new DBF(dbfFileSpec);
+		
+		try {
+			for (String ndx : ndxFileSpecs) {
+				table.useIndex(ndx);
+			}
+		}
+		catch (xBaseJException | IOException e) {
+			table.close();
+			throw e;
+		}
+		
+		dbf = table;
+		free = null;
+		stamp = stamp();
+		
+		for (String ndx : ndxFileSpecs) {
+			if (new File(NDXHash.fileSpec(ndx)).exists()) {
+				try {
+					hashes.put(ndx, new NDXHash(ndx, dbfFileSpec));
+				}
+				catch (IOException e) {
+					// A damaged hash index is not used, the index is searched instead until it is rebuilt
+				}
+			}
+		}
+		
+		
+	}
+	
+	/**
+	 * Close the table and the hash indexes, ignoring any errors
+	 */
+	private void closeTable() {
+		
+		if (dbf != null) {
+			try {
+				dbf.close();
+			}
+			catch (IOException e) {
+				// The handle is being discarded
+			}
+			
+			dbf = null;
+			
+		}
+		
+		for (NDXHash hash : hashes.values()) {
+			try {
+				hash.close();
+			}
+			catch (IOException e) {
+				// The handle is being discarded
+			}
+		}
+		
+		hashes.clear();
+		
+		
+	}
+	
+	/**
+	 * Record the current size and modification time of the DBF file and the indexes and the generation
+	 * of the table, which changes with every write even if the files keep their size and time
+	 * @return The modification time and size of the DBF, the generation, then the time and size of each index
+	 * @throws IOException If the generation of the table cannot be read
+	 */
+	private long [] stamp() throws IOException {
+		long [] s = new long[(ndxFileSpecs.length + 1) * 2 + 1];
+		File dbfFile = new File(dbfFileSpec);
+		
+		s[0] = dbfFile.lastModified();
+		s[1] = dbfFile.length();
+		s[2] = DBFLock.forTable(dbfFileSpec).generation();
+		
+		for (int i = 0; i < ndxFileSpecs.length; i++) {
+			File f = new File(ndxFileSpecs[i]);
+			
+			s[i * 2 + 3] = f.lastModified();
+			s[i * 2 + 4] = f.length();
+			
+		}
+		
+		return s;
+		
+	}
+	
+	/**
+	 * Determine if the table or an index has been changed by another process or through another handle
+	 * since it was opened, such as a write or a rebuild of the indexes by the command line increment
+	 * @return true if the open table no longer matches the files, otherwise false
+	 * @throws IOException If the generation of the table cannot be read
+	 */
+	private boolean isStale() throws IOException {
+		return !Arrays.equals(stamp, stamp());
+	}
+	
+}
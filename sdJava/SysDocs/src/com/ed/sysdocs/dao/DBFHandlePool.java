@@ -0,0 +1,148 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.sysdocs.SysConstants;
+
+/**
+ * Application wide pool of open DBF tables.<br>
+ * Each table is opened with all of its indexes attached and is shared by every DAO call for that
+ * table.  A caller that changes the table holds its write lock, so it always gets the first handle.
+ * Callers that only read the table share its read lock, and each gets a handle of its own, opening up
+ * to {@link SysConstants#maxTableHandles} handles of a table, so readers do not wait for each other.
+ * A handle is reopened when the DBF file is changed by another process or through another handle,
+ * discarded when a table or index is rebuilt and closed when the JVM shuts down.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFHandlePool {
+	
+	/** Open handles of each table keyed by DBF file specification */
+	private static final Map<String, List<DBFHandle>> handles = new ConcurrentHashMap<>();
+	
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(DBFHandlePool::closeAll));
+	}
+	
+	/**
+	 * Constructor, not used
+	 */
+	private DBFHandlePool() {
+		super();
+	}
+	
+	/**
+	 * Obtain exclusive use of an open table to change it, holding the write lock of the table.  The
+	 * handle must be closed when the caller is done with it.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return The open, locked handle
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened or the table stays locked by another process
+	 */
+	public static DBFHandle acquire(String dbfFileSpec, String... ndxFileSpecs) throws xBaseJException, IOException {
+		return acquire(DBFLock.forTable(dbfFileSpec).write(), true, dbfFileSpec, ndxFileSpecs);
+	}
+	
+	/**
+	 * Obtain the use of an open table to read it, holding the read lock of the table.  The table cannot
+	 * be changed through the handle.  The handle must be closed when the caller is done with it.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return The open, locked handle
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened or the table stays locked by a writer
+	 */
+	public static DBFHandle acquireRead(String dbfFileSpec, String... ndxFileSpecs) throws xBaseJException, IOException {
+		return acquire(DBFLock.forTable(dbfFileSpec).read(), false, dbfFileSpec, ndxFileSpecs);
+	}
+	
+	/**
+	 * Close and discard the handles of a table.  Must be called before the table or
+	 * any of its indexes is rewritten or deleted.
+	 * @param dbfFileSpec File specification of the DBF file
+	 */
+	public static void invalidate(String dbfFileSpec) {
+		List<DBFHandle> open = handles.remove(dbfFileSpec);
+		
+		if (open != null) {
+			for (DBFHandle handle : open) {
+				handle.shutdown();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Close every open table
+	 */
+	public static void closeAll() {
+		
+		for (String fs : handles.keySet()) {
+			invalidate(fs);
+		}
+		
+	}
+	
+	/**
+	 * Lock a handle of a table whose lock is already held.  The first handle that no other thread holds
+	 * is used, another handle is opened if they are all held and the table has fewer than
+	 * {@link SysConstants#maxTableHandles}, otherwise the caller waits for the first handle.
+	 * @param hold The lock of the table, released when the handle is closed or if no handle can be locked
+	 * @param writable true if the hold is the write lock of the table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return The open, locked handle
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	private static DBFHandle acquire(DBFLock.Hold hold, boolean writable, String dbfFileSpec, String... ndxFileSpecs) throws xBaseJException, IOException {
+		DBFHandle handle = null;
+		
+		try {
+			while (handle == null) {
+				List<DBFHandle> open = handles.computeIfAbsent(dbfFileSpec, fs -> new CopyOnWriteArrayList<>());
+				DBFHandle wait = null;
+				
+				for (int i = 0; i < open.size() && handle == null; i++) {
+					if (open.get(i).tryAcquire(hold, writable)) {
+						handle = open.get(i);
+					}
+				}
+				
+				if (handle == null) {
+					synchronized (open) {
+						if (open.size() < SysConstants.maxTableHandles) {
+							wait = new DBFHandle(dbfFileSpec, ndxFileSpecs);
+							open.add(wait);
+						}
+						else {
+							wait = open.get(0);
+						}
+					}
+					
+					if (wait.acquire(hold, writable)) {
+						handle = wait;
+					}
+					
+				}
+				
+			}
+		}
+		catch (xBaseJException | IOException | RuntimeException e) {
+			hold.close();
+			throw e;
+		}
+		
+		return handle;
+		
+	}
+	
+}
@@ -0,0 +1,273 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * The structure of a table, read from the header and field descriptors of the DBF file and the header
+ * block of each NDX index with positional reads.  No record is read and the table is not opened with
+ * xBaseJ.<br>
+ * Headers are cached by table.  A cached header is used while the DBF file keeps its modification time
+ * and size, so reading a header that has not changed costs one stat of the DBF file.  The headers of the
+ * indexes are kept with the header of the table and read again once the table changes.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFHeader {
+	
+	/** The last header read of each table, keyed by DBF file specification */
+	private static final Map<String, DBFHeader> headers = new ConcurrentHashMap<>();
+	
+	/**
+	 * The header of an NDX index
+	 */
+	public static final class Index {
+		
+		private final String fileSpec;
+		private final String keyExpression;
+		private final int keyLength;
+		private final boolean unique;
+		
+		/**
+		 * Constructor
+		 * @param fileSpec File specification of the NDX file
+		 * @throws IOException If the header block cannot be read or is not valid
+		 */
+		Index(String fileSpec) throws IOException {
+			ByteBuffer block = ByteBuffer.allocate(NDXReader.blockSize).order(ByteOrder.LITTLE_ENDIAN);
+			
+			this.fileSpec = fileSpec;
+			read(fileSpec, block, 0);
+			keyLength = Short.toUnsignedInt(block.getShort(12));
+			unique = block.get(23) != 0;
+			keyExpression = NDXReader.readKeyExpression(block);
+			
+			if (keyLength == 0 || keyExpression.isEmpty()) {
+				throw new IOException(ErrMsgs.NDX_HEADER.getMsg(fileSpec));
+			}
+			
+		}
+		
+		/**
+		 * Getter
+		 * @return File specification of the NDX file
+		 */
+		public String getFileSpec() {
+			return fileSpec;
+		}
+		
+		/**
+		 * Getter
+		 * @return The key expression, such as MEDIATYPE+LASTUSE
+		 */
+		public String getKeyExpression() {
+			return keyExpression;
+		}
+		
+		/**
+		 * Getter
+		 * @return Length of a key
+		 */
+		public int getKeyLength() {
+			return keyLength;
+		}
+		
+		/**
+		 * Getter
+		 * @return true if the index does not allow duplicate keys
+		 */
+		public boolean isUnique() {
+			return unique;
+		}
+		
+	}
+	
+	/** File specification of the DBF */
+	private final String fileSpec;
+	
+	/** Modification time of the DBF when the header was read */
+	private final FileTime modified;
+	
+	/** Size of the DBF when the header was read */
+	private final long size;
+	
+	/** Version byte of the file */
+	private final byte version;
+	
+	/** Number of complete records in the file */
+	private final int recordCount;
+	
+	/** Length of a record, including the deletion flag */
+	private final int recordLength;
+	
+	/** The field descriptors, in record order */
+	private final List<DBFReader.Field> fields;
+	
+	/** The headers of the indexes read so far, keyed by NDX file specification */
+	private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+	
+	/**
+	 * Constructor
+	 * @param fileSpec File specification of the DBF file
+	 * @param attrs Modification time and size of the DBF file
+	 * @throws IOException If the header cannot be read or is not valid
+	 */
+	private DBFHeader(String fileSpec, BasicFileAttributes attrs) throws IOException {
+		ByteBuffer start = ByteBuffer.allocate(DBFReader.descriptorLen).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer header;
+		int count;
+		int headerLength;
+		DBFLock.Hold hold;
+		
+		this.fileSpec = fileSpec;
+		modified = attrs.lastModifiedTime();
+		size = attrs.size();
+		hold = DBFLock.forTable(fileSpec).read();
+		
+		try {
+			read(fileSpec, start, 0);
+			count = start.getInt(4);
+			headerLength = Short.toUnsignedInt(start.getShort(8));
+			recordLength = Short.toUnsignedInt(start.getShort(10));
+			
+			if (count < 0 || headerLength <= DBFReader.descriptorLen || headerLength > size || recordLength < 1) {
+				throw new IOException(ErrMsgs.DBF_HEADER.getMsg(fileSpec));
+			}
+			
+			header = ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+			read(fileSpec, header, 0);
+			
+		}
+		finally {
+			hold.close();
+		}
+		
+		version = start.get(0);
+		fields = Collections.unmodifiableList(DBFReader.readFields(header, headerLength, recordLength, fileSpec));
+		
+		// A record being appended by another process may not be complete yet
+		recordCount = (int) Math.min(count, (size - headerLength) / recordLength);
+		
+	}
+	
+	/**
+	 * Read the header of a table, from the cache unless the DBF file has changed
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return The header
+	 * @throws IOException If the header cannot be read or is not valid or the table stays locked by a writer
+	 */
+	public static DBFHeader read(String dbfFileSpec) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(Paths.get(dbfFileSpec), BasicFileAttributes.class);
+		DBFHeader header = headers.get(dbfFileSpec);
+		
+		if (header == null || !header.modified.equals(attrs.lastModifiedTime()) || header.size != attrs.size()) {
+			header = new DBFHeader(dbfFileSpec, attrs);
+			headers.put(dbfFileSpec, header);
+		}
+		
+		return header;
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return File specification of the DBF
+	 */
+	public String getFileSpec() {
+		return fileSpec;
+	}
+	
+	/**
+	 * Getter
+	 * @return Modification time of the DBF when the header was read, in milliseconds
+	 */
+	public long getLastModified() {
+		return modified.toMillis();
+	}
+	
+	/**
+	 * Getter
+	 * @return Version byte of the file
+	 */
+	public byte getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Getter
+	 * @return Number of records, including deleted records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+	
+	/**
+	 * Getter
+	 * @return Length of a record, including the deletion flag
+	 */
+	public int getRecordLength() {
+		return recordLength;
+	}
+	
+	/**
+	 * Getter
+	 * @return The field descriptors, in record order
+	 */
+	public List<DBFReader.Field> getFields() {
+		return fields;
+	}
+	
+	/**
+	 * Read the header of an index of the table, the first time it is asked for
+	 * @param ndxFileSpec File specification of the NDX file
+	 * @return The header of the index
+	 * @throws IOException If the header block cannot be read or is not valid
+	 */
+	public Index getIndex(String ndxFileSpec) throws IOException {
+		Index index = indexes.get(ndxFileSpec);
+		
+		if (index == null) {
+			index = new Index(ndxFileSpec);
+			indexes.put(ndxFileSpec, index);
+		}
+		
+		return index;
+		
+	}
+	
+	/**
+	 * Fill a buffer from a position of a file
+	 * @param fileSpec File specification of the file
+	 * @param buf The buffer to fill
+	 * @param pos Position of the first byte
+	 * @throws IOException If the file cannot be read or is too short
+	 */
+	private static void read(String fileSpec, ByteBuffer buf, long pos) throws IOException {
+		
+		try (FileChannel fc = FileChannel.open(Paths.get(fileSpec), StandardOpenOption.READ)) {
+			while (buf.hasRemaining() && fc.read(buf, pos + buf.position()) > 0) {
+				// Keep reading until the buffer is full
+			}
+		}
+		
+		if (buf.hasRemaining()) {
+			throw new IOException(ErrMsgs.DBF_HEADER.getMsg(fileSpec));
+		}
+		
+	}
+	
+}
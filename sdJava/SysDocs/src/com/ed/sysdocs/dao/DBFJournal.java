@@ -0,0 +1,574 @@
+package com.ed.sysdocs.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.sysdocs.SysConstants;
+
+/**
+ * Write-ahead journal of the changes made to a table.<br>
+ * Every change to a table is described by its key in the primary index and the values of its
+ * fields.  The changes of a batch are appended to the journal as one frame, with a checksum, and
+ * the journal is forced to disk before any of them is applied to the DBF and its indexes.  A batch
+ * is committed while holding the write lock of the table, so each batch has a force of its own.<br>
+ * Replaying a change gives the same result however many times it is replayed, so after a crash
+ * the indexes are rebuilt and every change still in the journal is applied again, in order.  Once
+ * the journal passes {@link SysConstants#journalCheckpointBytes} with no batch in progress, the
+ * table and its indexes are forced to disk and the journal is emptied, which bounds the work of
+ * a recovery.<br>
+ * The journal file is shared by every process that uses the table.  A batch is followed by a
+ * short marker frame once it has been applied, so a process that opens the journal can tell
+ * whether the last batch, which may have been written by another process, is complete.  Appends,
+ * replays and checkpoints are made while holding the write lock of the table, see {@link DBFLock}.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFJournal {
+	
+	/** File extension of a journal, which replaces the extension of its DBF file */
+	public static final String journalExt = ".jnl";
+	
+	/** Open journals keyed by DBF file specification */
+	private static final Map<String, DBFJournal> journals = new ConcurrentHashMap<>();
+	
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(DBFJournal::checkpointAll));
+	}
+	
+	/**
+	 * Type of a change
+	 */
+	public enum ChangeType {
+		
+		/** Write the record, inserting it if the key is not in the table */
+		Upsert,
+		
+		/** Write the fields of an existing record, ignored if the key is not in the table */
+		Update,
+		
+		/** Mark the record as deleted */
+		Delete,
+		
+		/** Write a new record, reusing a deleted record with the key, not applied if a live record has the key */
+		Insert;
+		
+	}
+	
+	/**
+	 * One change to one record of a table
+	 */
+	public static class Change {
+		
+		private ChangeType type;
+		private String key;
+		private Map<String, String> fields = new LinkedHashMap<>();
+		
+		/**
+		 * Constructor
+		 * @param type The type of change
+		 * @param key Key of the record in the primary index
+		 */
+		public Change(ChangeType type, String key) {
+			
+			super();
+			this.type = type;
+			this.key = key;
+			
+		}
+		
+		/**
+		 * Set the value of a field
+		 * @param name Name of the field
+		 * @param value New value of the field
+		 * @return This change
+		 */
+		public Change set(String name, String value) {
+			
+			fields.put(name, value);
+			
+			return this;
+			
+		}
+		
+		/**
+		 * Getter
+		 * @return The type of change
+		 */
+		public ChangeType getType() {
+			return type;
+		}
+		
+		/**
+		 * Getter
+		 * @return Key of the record in the primary index
+		 */
+		public String getKey() {
+			return key;
+		}
+		
+		/**
+		 * Getter
+		 * @return New values of the fields, by field name, in the order they were set
+		 */
+		public Map<String, String> getFields() {
+			return Collections.unmodifiableMap(fields);
+		}
+		
+	}
+	
+	/**
+	 * Applies the changes of a journal during a recovery
+	 */
+	@FunctionalInterface
+	public interface Replayer {
+		
+		/**
+		 * Rebuild the indexes of the table and apply the changes
+		 * @param changes Every change in the journal, in the order they were committed
+		 * @throws xBaseJException If the table cannot be updated
+		 * @throws IOException If the table cannot be updated
+		 */
+		void replay(List<Change> changes) throws xBaseJException, IOException;
+		
+	}
+	
+	/** Number of changes recorded in a marker frame */
+	private static final int markerCount = -1;
+	
+	/** File specification of the DBF file */
+	private final String dbfFileSpec;
+	
+	/** The journal file */
+	private final Path path;
+	
+	/** The table and its indexes, forced to disk before the journal is emptied */
+	private final Path [] tableFiles;
+	
+	/** The open journal file */
+	private final FileChannel channel;
+	
+	/** Length of the valid frames in the journal */
+	private long end;
+	
+	/** Sequence number of the last batch appended */
+	private long lastSeq = 0;
+	
+	/** Number of batches committed but not yet applied */
+	private int inProgress = 0;
+	
+	/** true if a batch of this process could not be applied */
+	private boolean failed = false;
+	
+	/** true if the last batch of the journal, when it was last scanned, has no applied marker */
+	private boolean pending = false;
+	
+	/**
+	 * Constructor
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of the indexes of the table
+	 * @throws IOException If the journal cannot be opened
+	 */
+	private DBFJournal(String dbfFileSpec, String... ndxFileSpecs) throws IOException {
+		
+		super();
+		this.dbfFileSpec = dbfFileSpec;
+		
+		path = Paths.get(journalFileSpec(dbfFileSpec));
+		tableFiles = new Path[ndxFileSpecs.length + 1];
+		tableFiles[0] = Paths.get(dbfFileSpec);
+		
+		for (int i = 0; i < ndxFileSpecs.length; i++) {
+			tableFiles[i + 1] = Paths.get(ndxFileSpecs[i]);
+		}
+		
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		// Another process may be appending, so an incomplete frame is left for the write lock holder
+		scan(false);
+		
+	}
+	
+	/**
+	 * Obtain the journal of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return The journal, shared by every DAO of the table
+	 * @throws IOException If the journal cannot be opened
+	 */
+	public static DBFJournal forTable(String dbfFileSpec, String... ndxFileSpecs) throws IOException {
+		DBFJournal journal = journals.get(dbfFileSpec);
+		
+		if (journal == null) {
+			synchronized (journals) {
+				journal = journals.get(dbfFileSpec);
+				
+				if (journal == null) {
+					journal = new DBFJournal(dbfFileSpec, ndxFileSpecs);
+					journals.put(dbfFileSpec, journal);
+				}
+				
+			}
+		}
+		
+		return journal;
+		
+	}
+	
+	/**
+	 * Build the file specification of the journal of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return File specification of the journal
+	 */
+	public static String journalFileSpec(String dbfFileSpec) {
+		return DBFUtilities.replaceExtension(dbfFileSpec, journalExt);
+	}
+	
+	/**
+	 * Make a batch of changes durable.  Returns once the batch is on disk, the changes must then
+	 * be applied and the batch closed with {@link #applied(long)} or {@link #failed(long)}.  The write
+	 * lock of the table must be held until then.
+	 * @param changes The changes of the batch
+	 * @return Sequence number of the batch
+	 * @throws IOException If the journal cannot be written
+	 */
+	public synchronized long commit(List<Change> changes) throws IOException {
+		ByteBuffer frame;
+		long seq;
+		
+		refresh();
+		seq = ++lastSeq;
+		frame = encode(seq, changes);
+		
+		while (frame.hasRemaining()) {
+			end += channel.write(frame, end);
+		}
+		
+		channel.force(false);
+		inProgress++;
+		
+		return seq;
+		
+	}
+	
+	/**
+	 * Close a batch whose changes were all applied.  Unless an earlier batch still needs to be
+	 * replayed, the journal is emptied if it is long enough, otherwise an applied marker is appended.
+	 * The marker is not forced, if it is lost the batch is only replayed again.
+	 * @param seq Sequence number of the batch
+	 * @throws IOException If the journal could not be written or emptied
+	 */
+	public synchronized void applied(long seq) throws IOException {
+		
+		inProgress--;
+		
+		if (inProgress == 0 && !failed && !pending) {
+			if (end > SysConstants.journalCheckpointBytes) {
+				checkpoint();
+			}
+			else {
+				ByteBuffer marker = encode(seq, null);
+				
+				while (marker.hasRemaining()) {
+					end += channel.write(marker, end);
+				}
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * Close a batch that could not be applied completely.  The journal is replayed by the next
+	 * call to {@link #replay(Replayer)}.
+	 * @param seq Sequence number of the batch
+	 */
+	public synchronized void failed(long seq) {
+		
+		inProgress--;
+		failed = true;
+		
+	}
+	
+	/**
+	 * Determine, without any lock of the table, if the journal may need to be replayed: a batch of
+	 * this process failed, the last batch had not been applied when the journal was last scanned, or
+	 * another process has changed the journal since then
+	 * @return true if {@link #replay(Replayer)} should be called, otherwise false
+	 * @throws IOException If the size of the journal cannot be read
+	 */
+	public synchronized boolean mayNeedReplay() throws IOException {
+		return failed || pending || channel.size() != end;
+	}
+	
+	/**
+	 * Apply the changes of the journal again if they may not all have been applied, as after a
+	 * crash or a failed batch, then empty the journal.  The write lock of the table must be held.
+	 * @param replayer Rebuilds the indexes of the table and applies the changes
+	 * @throws xBaseJException If the table cannot be updated
+	 * @throws IOException If the journal cannot be read or the table cannot be updated
+	 */
+	public synchronized void replay(Replayer replayer) throws xBaseJException, IOException {
+		
+		scan(true);
+		
+		if (failed || pending) {
+			replayer.replay(readChanges());
+			failed = false;
+			pending = false;
+			
+			if (inProgress == 0) {
+				checkpoint();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return Length of the journal in bytes
+	 */
+	public synchronized long getLength() {
+		return end;
+	}
+	
+	/**
+	 * Scan the journal again if another process has changed its length since it was last scanned
+	 * @throws IOException If the journal cannot be read or truncated
+	 */
+	private void refresh() throws IOException {
+		
+		if (channel.size() != end) {
+			scan(true);
+		}
+		
+	}
+	
+	/**
+	 * Find the end of the last complete frame of the journal and whether the last batch was applied
+	 * @param truncate true to remove a frame torn by a crash, which was never committed.  Only the
+	 * holder of the write lock of the table may truncate the journal.
+	 * @throws IOException If the journal cannot be read or truncated
+	 */
+	private void scan(boolean truncate) throws IOException {
+		long pos = 0;
+		boolean applied = true;
+		byte [] payload;
+		
+		while ((payload = readFrame(pos)) != null) {
+			applied = ByteBuffer.wrap(payload).getInt(8) == markerCount;
+			pos += payload.length + 8;
+		}
+		
+		end = pos;
+		pending = !applied;
+		
+		if (truncate && channel.size() > end) {
+			channel.truncate(end);
+		}
+		
+	}
+	
+	/**
+	 * Force the table and its indexes to disk and empty the journal
+	 * @throws IOException If a file cannot be forced or the journal cannot be emptied
+	 */
+	private void checkpoint() throws IOException {
+		
+		for (Path p : tableFiles) {
+			if (Files.exists(p)) {
+				try (FileChannel fc = FileChannel.open(p, StandardOpenOption.WRITE)) {
+					fc.force(true);
+				}
+			}
+		}
+		
+		channel.truncate(0);
+		channel.force(true);
+		end = 0;
+		
+	}
+	
+	/**
+	 * Empty every journal whose batches have all been applied
+	 */
+	private static void checkpointAll() {
+		
+		for (DBFJournal journal : journals.values()) {
+			try {
+				DBFLock.Hold hold = DBFLock.forTable(journal.dbfFileSpec).write();
+				
+				try {
+					synchronized (journal) {
+						journal.refresh();
+						
+						if (journal.inProgress == 0 && !journal.failed && !journal.pending && journal.end > 0) {
+							journal.checkpoint();
+						}
+						
+					}
+				}
+				finally {
+					hold.close();
+				}
+			}
+			catch (IOException e) {
+				// The journal is replayed on the next start
+			}
+		}
+		
+	}
+	
+	/**
+	 * Encode a batch as a frame: the length and checksum of the batch, then the batch
+	 * @param seq Sequence number of the batch
+	 * @param changes The changes of the batch or null for the marker of an applied batch
+	 * @return The frame, ready to be written
+	 * @throws IOException If the batch cannot be encoded
+	 */
+	private static ByteBuffer encode(long seq, List<Change> changes) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		CRC32 crc = new CRC32();
+		byte [] payload;
+		ByteBuffer frame;
+		
+		out.writeLong(seq);
+		out.writeInt(changes == null ? markerCount : changes.size());
+		
+		for (Change c : changes == null ? Collections.<Change>emptyList() : changes) {
+			out.writeByte(c.type.ordinal());
+			out.writeUTF(c.key);
+			out.writeInt(c.fields.size());
+			
+			for (Map.Entry<String, String> f : c.fields.entrySet()) {
+				out.writeUTF(f.getKey());
+				out.writeUTF(f.getValue());
+			}
+			
+		}
+		
+		out.flush();
+		payload = bytes.toByteArray();
+		crc.update(payload);
+		
+		frame = ByteBuffer.allocate(payload.length + 8);
+		frame.putInt(payload.length);
+		frame.putInt((int) crc.getValue());
+		frame.put(payload);
+		frame.flip();
+		
+		return frame;
+		
+	}
+	
+	/**
+	 * Read every change of the journal, skipping the applied markers
+	 * @return The changes, in the order they were committed
+	 * @throws IOException If the journal cannot be read
+	 */
+	private List<Change> readChanges() throws IOException {
+		List<Change> changes = new ArrayList<>();
+		ChangeType [] types = ChangeType.values();
+		long pos = 0;
+		byte [] payload;
+		
+		while (pos < end && (payload = readFrame(pos)) != null) {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+			int count;
+			
+			lastSeq = Math.max(lastSeq, in.readLong());
+			count = in.readInt();
+			
+			for (int i = 0; i < count; i++) {
+				Change c = new Change(types[in.readByte()], in.readUTF());
+				int fieldCount = in.readInt();
+				
+				for (int f = 0; f < fieldCount; f++) {
+					c.set(in.readUTF(), in.readUTF());
+				}
+				
+				changes.add(c);
+				
+			}
+			
+			pos += payload.length + 8;
+			
+		}
+		
+		return changes;
+		
+	}
+	
+	/**
+	 * Read the batch of a frame
+	 * @param pos Position of the frame in the journal
+	 * @return The batch or null if there is no complete, valid frame at the position
+	 * @throws IOException If the journal cannot be read
+	 */
+	private byte [] readFrame(long pos) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(8);
+		byte [] payload = null;
+		
+		if (read(header, pos)) {
+			int length = header.getInt(0);
+			
+			if (length >= 12 && pos + 8 + length <= channel.size()) {
+				ByteBuffer body = ByteBuffer.allocate(length);
+				CRC32 crc = new CRC32();
+				
+				if (read(body, pos + 8)) {
+					crc.update(body.array());
+					
+					if ((int) crc.getValue() == header.getInt(4)) {
+						payload = body.array();
+					}
+					
+				}
+				
+			}
+			
+		}
+		
+		return payload;
+		
+	}
+	
+	/**
+	 * Fill a buffer from the journal
+	 * @param buf The buffer
+	 * @param pos Position in the journal
+	 * @return true if the buffer was filled, false if the journal ended first
+	 * @throws IOException If the journal cannot be read
+	 */
+	private boolean read(ByteBuffer buf, long pos) throws IOException {
+		int n = 0;
+		
+		while (buf.hasRemaining() && n >= 0) {
+			n = channel.read(buf, pos + buf.position());
+		}
+		
+		return !buf.hasRemaining();
+		
+	}
+	
+}
@@ -0,0 +1,391 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.ed.sysdocs.ErrMsgs;
+import com.ed.sysdocs.SysConstants;
+
+/**
+ * Reader/writer lock of a table, shared by the threads of this process and by every other process
+ * that uses the table, such as the webapp and the IncrementMedia command.<br>
+ * Within the process each table has its own read/write lock.  Across processes the lock is a
+ * FileChannel lock on a lock file next to the table: shared while any thread of this process reads
+ * the table and exclusive while a thread writes it.  Readers never wait for each other.  Every
+ * acquisition waits at most {@link SysConstants#lockTimeoutMillis} and then fails with an
+ * IOException, and the number of acquisitions, the time spent waiting and the number of timeouts
+ * are recorded for each table.<br>
+ * A thread that holds the write lock may also take the read lock, but a reader may not take the
+ * write lock.  The lock of a table must be taken before the lock of its pooled {@link DBFHandle}.<br>
+ * The first bytes of the lock file, which are never locked so they can be read at any time, hold the
+ * generation of the table.  A writer moves it on with {@link #changed()} once it has changed the table,
+ * so a cached copy of the table can tell that it is stale even when the DBF file keeps its size and
+ * modification time.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFLock {
+	
+	/** File extension of a lock file, which replaces the extension of its DBF file */
+	public static final String lockExt = ".lck";
+	
+	/** Longest pause between attempts to lock the lock file, in milliseconds */
+	private static final long maxPollMillis = 50;
+	
+	/** Length of the generation at the start of the lock file, which the lock does not cover */
+	private static final int generationBytes = Long.BYTES;
+	
+	/** Locks keyed by DBF file specification */
+	private static final Map<String, DBFLock> locks = new ConcurrentHashMap<>();
+	
+	/**
+	 * A held lock, closing it releases the lock
+	 */
+	@FunctionalInterface
+	public interface Hold extends AutoCloseable {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.AutoCloseable#close()
+		 */
+		@Override
+		void close();
+		
+	}
+	
+	/**
+	 * Lock statistics of a table
+	 */
+	public static class Stats {
+		
+		private long reads;
+		private long writes;
+		private long contended;
+		private long timeouts;
+		private long waitNanos;
+		private long maxWaitNanos;
+		
+		/**
+		 * Getter
+		 * @return Number of times the read lock was taken
+		 */
+		public long getReads() {
+			return reads;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of times the write lock was taken
+		 */
+		public long getWrites() {
+			return writes;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of acquisitions that had to wait for another holder
+		 */
+		public long getContended() {
+			return contended;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of acquisitions that gave up
+		 */
+		public long getTimeouts() {
+			return timeouts;
+		}
+		
+		/**
+		 * Getter
+		 * @return Total time spent waiting for the lock, in milliseconds
+		 */
+		public long getWaitMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+		}
+		
+		/**
+		 * Getter
+		 * @return Longest wait for the lock, in milliseconds
+		 */
+		public long getMaxWaitMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+		}
+		
+	}
+	
+	/** File specification of the DBF file */
+	private final String dbfFileSpec;
+	
+	/** Lock of the threads of this process */
+	private final ReentrantReadWriteLock threads = new ReentrantReadWriteLock();
+	
+	/** The open lock file or null until it is first needed */
+	private FileChannel channel = null;
+	
+	/** Lock on the lock file or null if this process does not hold it */
+	private FileLock fileLock = null;
+	
+	/** Number of holders in this process that share the lock on the lock file */
+	private int fileHolders = 0;
+	
+	private final LongAdder reads = new LongAdder();
+	private final LongAdder writes = new LongAdder();
+	private final LongAdder contended = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	
+	/**
+	 * Constructor
+	 * @param dbfFileSpec File specification of the DBF file
+	 */
+	private DBFLock(String dbfFileSpec) {
+		
+		super();
+		this.dbfFileSpec = dbfFileSpec;
+		
+	}
+	
+	/**
+	 * Obtain the lock of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return The lock, shared by every caller in this process
+	 */
+	public static DBFLock forTable(String dbfFileSpec) {
+		
+		return locks.computeIfAbsent(dbfFileSpec, DBFLock::new);
+		
+	}
+	
+	/**
+	 * Take the read lock
+	 * @return The held lock, which must be closed
+	 * @throws IOException If the lock could not be taken in time or the lock file cannot be locked
+	 */
+	public Hold read() throws IOException {
+		
+		return acquire(threads.readLock(), false);
+		
+	}
+	
+	/**
+	 * Take the write lock
+	 * @return The held lock, which must be closed
+	 * @throws IOException If the lock could not be taken in time or the lock file cannot be locked
+	 */
+	public Hold write() throws IOException {
+		
+		return acquire(threads.writeLock(), true);
+		
+	}
+	
+	/**
+	 * Read the generation of the table, without taking the lock
+	 * @return The generation, 0 if the table has never been changed by a writer that counts its changes
+	 * @throws IOException If the lock file cannot be opened or read
+	 */
+	public synchronized long generation() throws IOException {
+		ByteBuffer gen = ByteBuffer.allocate(generationBytes);
+		
+		open();
+		
+		while (gen.hasRemaining() && channel.read(gen, gen.position()) > 0) {
+			// Keep reading until the generation is complete
+		}
+		
+		return gen.hasRemaining() ? 0 : gen.getLong(0);
+		
+	}
+	
+	/**
+	 * Move the generation of the table on, after the table was changed.  The write lock must be held.
+	 * @throws IOException If the lock file cannot be written
+	 */
+	public synchronized void changed() throws IOException {
+		ByteBuffer gen = ByteBuffer.allocate(generationBytes);
+		
+		gen.putLong(0, generation() + 1);
+		
+		while (gen.hasRemaining()) {
+			channel.write(gen, gen.position());
+		}
+		
+	}
+	
+	/**
+	 * Collect the statistics of the lock
+	 * @return The current statistics
+	 */
+	public Stats getStats() {
+		Stats stats = new Stats();
+		
+		stats.reads = reads.sum();
+		stats.writes = writes.sum();
+		stats.contended = contended.sum();
+		stats.timeouts = timeouts.sum();
+		stats.waitNanos = waitNanos.sum();
+		stats.maxWaitNanos = maxWaitNanos.get();
+		
+		return stats;
+		
+	}
+	
+	/**
+	 * Take the lock of this process and then the lock file
+	 * @param lock The read or write lock of this process
+	 * @param exclusive true to lock the lock file exclusively, false to share it
+	 * @return The held lock
+	 * @throws IOException If the lock could not be taken in time or the lock file cannot be locked
+	 */
+	private Hold acquire(Lock lock, boolean exclusive) throws IOException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(SysConstants.lockTimeoutMillis);
+		boolean waited = false;
+		
+		try {
+			if (!lock.tryLock()) {
+				waited = true;
+				
+				if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+					throw timedOut();
+				}
+				
+			}
+			
+			try {
+				waited |= lockFile(exclusive, deadline);
+			}
+			catch (IOException | RuntimeException e) {
+				lock.unlock();
+				throw e;
+			}
+			
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ErrMsgs.TABLE_LOCKED.getMsg(dbfFileSpec));
+		}
+		
+		record(exclusive, waited, System.nanoTime() - start);
+		
+		return () -> {
+			unlockFile();
+			lock.unlock();
+		};
+		
+	}
+	
+	/**
+	 * Lock the lock file unless another holder in this process already did.  The lock of this process
+	 * guarantees that a shared lock is only reused by readers and an exclusive lock only by the writer.
+	 * @param exclusive true to lock the lock file exclusively, false to share it
+	 * @param deadline Value of System.nanoTime() at which to give up
+	 * @return true if another process held the lock file and had to be waited for, otherwise false
+	 * @throws IOException If the lock file could not be locked in time or cannot be opened
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 */
+	private synchronized boolean lockFile(boolean exclusive, long deadline) throws IOException, InterruptedException {
+		boolean waited = false;
+		
+		if (fileHolders == 0) {
+			long pause = 1;
+			
+			open();
+			
+			while ((fileLock = channel.tryLock(generationBytes, Long.MAX_VALUE - generationBytes, !exclusive)) == null) {
+				if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pause) > deadline) {
+					throw timedOut();
+				}
+				
+				waited = true;
+				Thread.sleep(pause);
+				pause = Math.min(pause * 2, maxPollMillis);
+				
+			}
+			
+		}
+		
+		fileHolders++;
+		
+		return waited;
+		
+	}
+	
+	/**
+	 * Open the lock file, creating it if it does not exist, unless it is already open
+	 * @throws IOException If the lock file cannot be opened
+	 */
+	private void open() throws IOException {
+		
+		if (channel == null) {
+			channel = FileChannel.open(Paths.get(DBFUtilities.replaceExtension(dbfFileSpec, lockExt)),
+									   StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+		
+	}
+	
+	/**
+	 * Release the lock file once the last holder in this process is done with it
+	 */
+	private synchronized void unlockFile() {
+		
+		if (--fileHolders == 0 && fileLock != null) {
+			try {
+				fileLock.release();
+			}
+			catch (IOException e) {
+				// Closing the channel at exit releases it
+			}
+			
+			fileLock = null;
+			
+		}
+		
+	}
+	
+	/**
+	 * Record an acquisition
+	 * @param exclusive true for the write lock
+	 * @param waited true if the acquisition had to wait
+	 * @param nanos Time taken to acquire the lock
+	 */
+	private void record(boolean exclusive, boolean waited, long nanos) {
+		
+		(exclusive ? writes : reads).increment();
+		
+		if (waited) {
+			contended.increment();
+			waitNanos.add(nanos);
+			maxWaitNanos.accumulateAndGet(nanos, Math::max);
+		}
+		
+	}
+	
+	/**
+	 * Count a timeout and build its exception
+	 * @return The exception to throw
+	 */
+	private IOException timedOut() {
+		
+		timeouts.increment();
+		
+		return new IOException(ErrMsgs.TABLE_LOCKED.getMsg(dbfFileSpec));
+		
+	}
+	
+}
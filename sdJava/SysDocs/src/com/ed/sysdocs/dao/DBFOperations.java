@@ -15,7 +15,10 @@ public enum DBFOperations {
 	Insert,
 	
 	/** This media record was modified */
-	Modified;
+	Modified,
+	
+	/** This media record was deleted */
+	Delete;
 
 	/**
 	 * @return The associated operation value
@@ -0,0 +1,744 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.ed.sysdocs.ErrMsgs;
+import com.ed.sysdocs.TimestampCodec;
+
+/**
+ * A query over the records of a table: the conditions a record must meet, all of them, on the fields
+ * named by the Fields enum of the table's record class.<br>
+ * Each condition is typed by the way it reads its field, as text, a number, a LOGICAL or a
+ * yyyyMMddHHmmss timestamp, and is evaluated on the record bytes without decoding the rest of the
+ * record.  The DAO picks an index range that covers the conditions when it can and otherwise scans the
+ * table, see {@link DBFQueryPlan}, and a {@link Projection} turns each matching record into the result.
+ * Queries are immutable, {@link #and(Condition)} returns a new query.
+ * <pre> DBFQuery.where(DBFQuery.is(BackupMedia.Fields.MediaType, MediaTypes.flash))
+ *         .and(DBFQuery.is(BackupMedia.Fields.Active, true))
+ *         .and(DBFQuery.atLeast(BackupMedia.Fields.UseCount, max))</pre>
+ * @param <F> The Fields enum of the table
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFQuery<F extends Enum<F>> {
+	
+	/**
+	 * How a condition compares its field with its value, and how the value can bound an index range
+	 */
+	public enum Op {
+		
+		/** The text of the field, without trailing blanks, is the value */
+		TextEquals(Bound.Equals),
+		
+		/** The text of the field starts with the value */
+		TextStartsWith(Bound.Prefix),
+		
+		/** The LOGICAL field has the value */
+		LogicalEquals(Bound.None),
+		
+		/** The NUMERIC field is the value */
+		IntEquals(Bound.Equals),
+		
+		/** The NUMERIC field is at least the value */
+		IntAtLeast(Bound.Low),
+		
+		/** The NUMERIC field is at most the value */
+		IntAtMost(Bound.High),
+		
+		/** The timestamp field is before the value, a blank timestamp is before every time */
+		TimeBefore(Bound.High),
+		
+		/** The timestamp field is at or after the value */
+		TimeAtOrAfter(Bound.Low);
+		
+		private Bound bound;
+		
+		/**
+		 * Constructor
+		 * @param bound How the value can bound an index range
+		 */
+		private Op(Bound bound) {
+			this.bound = bound;
+		}
+		
+		/**
+		 * Getter
+		 * @return How the value can bound an index range
+		 */
+		public Bound getBound() {
+			return bound;
+		}
+		
+	}
+	
+	/**
+	 * The part of an index range a condition can supply when its field is part of the key
+	 */
+	public enum Bound {
+		
+		/** The stored value of the field, which may be followed by more key fields */
+		Equals,
+		
+		/** The start of the field, which ends the range */
+		Prefix,
+		
+		/** The lowest value of the field, which ends the range */
+		Low,
+		
+		/** The highest value of the field, which ends the range */
+		High,
+		
+		/** Not usable in an index range */
+		None;
+		
+	}
+	
+	/**
+	 * One condition on one field
+	 * @param <F> The Fields enum of the table
+	 */
+	public static final class Condition<F extends Enum<F>> {
+		
+		private final F field;
+		private final Op op;
+		private final String text;
+		private final long number;
+		
+		/**
+		 * Constructor
+		 * @param field The field
+		 * @param op The comparison
+		 * @param text The value of a text comparison, otherwise null
+		 * @param number The value of any other comparison
+		 */
+		private Condition(F field, Op op, String text, long number) {
+			
+			super();
+			this.field = field;
+			this.op = op;
+			this.text = text;
+			this.number = number;
+			
+		}
+		
+		/**
+		 * Getter
+		 * @return The field
+		 */
+		public F getField() {
+			return field;
+		}
+		
+		/**
+		 * Getter
+		 * @return The comparison
+		 */
+		public Op getOp() {
+			return op;
+		}
+		
+		/**
+		 * Determine if a record meets the condition
+		 * @param reader The table
+		 * @param fld The field in the table
+		 * @param rec The record number
+		 * @return true if the record meets the condition, otherwise false
+		 */
+		boolean test(DBFReader reader, DBFReader.Field fld, int rec) {
+			boolean met;
+			
+			switch (op) {
+				case TextEquals:
+					met = reader.matches(rec, fld, text);
+					break;
+				case TextStartsWith:
+					met = startsWith(reader, fld, rec);
+					break;
+				case LogicalEquals:
+					met = reader.getLogical(rec, fld) == (number != 0);
+					break;
+				case IntEquals:
+					met = reader.getInt(rec, fld) == number;
+					break;
+				case IntAtLeast:
+					met = reader.getInt(rec, fld) >= number;
+					break;
+				case IntAtMost:
+					met = reader.getInt(rec, fld) <= number;
+					break;
+				case TimeBefore:
+					met = reader.getTimestamp(rec, fld) < number;
+					break;
+				case TimeAtOrAfter:
+					met = reader.getTimestamp(rec, fld) >= number;
+					break;
+				default:
+					met = false;
+					break;
+			}
+			
+			return met;
+			
+		}
+		
+		/**
+		 * Add the condition to a scan of the record bytes
+		 * @param scan The scan
+		 * @throws IOException If the field is not in the table
+		 */
+		void addTo(DBFScan scan) throws IOException {
+			String name = field.name();
+			
+			switch (op) {
+				case TextEquals:
+					scan.is(name, text);
+					break;
+				case TextStartsWith:
+					scan.startsWith(name, text);
+					break;
+				case LogicalEquals:
+					scan.is(name, number != 0);
+					break;
+				case IntEquals:
+					scan.is(name, (int) number);
+					break;
+				case IntAtLeast:
+					scan.atLeast(name, (int) number);
+					break;
+				case IntAtMost:
+					scan.atMost(name, (int) number);
+					break;
+				case TimeBefore:
+					scan.before(name, new Date(number));
+					break;
+				case TimeAtOrAfter:
+					scan.atOrAfter(name, new Date(number));
+					break;
+				default:
+					break;
+			}
+			
+		}
+		
+		/**
+		 * Encode the value as the start of an index key, as the field stores it
+		 * @param fld The field in the table
+		 * @return The key text, padded to the width of the field unless it is a prefix, or null if the
+		 *         value cannot be stored in the field
+		 */
+		String keyText(DBFReader.Field fld) {
+			String key = null;
+			
+			switch (op) {
+				case TextEquals:
+					key = text.length() <= fld.getLength() ? String.format("%-" + fld.getLength() + "s", text) : null;
+					break;
+				case TextStartsWith:
+					key = text.length() <= fld.getLength() ? text : null;
+					break;
+				case IntEquals:
+				case IntAtLeast:
+				case IntAtMost:
+					// Right aligned digits sort in numeric order, a blank field reads as 0 but sorts first
+					key = number > 0 && Long.toString(number).length() <= fld.getLength()
+						? String.format("%" + fld.getLength() + "d", Long.valueOf(number)) : null;
+					break;
+				case TimeBefore:
+				case TimeAtOrAfter:
+					key = fld.getLength() >= DBFCodec.timestampLen && number != DBFCodec.noTimestamp
+						? TimestampCodec.Storage.format(new Date(number)) : null;
+					break;
+				default:
+					break;
+			}
+			
+			return key;
+			
+		}
+		
+		/**
+		 * Compare the start of a character field with the value
+		 * @param reader The table
+		 * @param fld The field in the table
+		 * @param rec The record number
+		 * @return true if the field starts with the value, otherwise false
+		 */
+		private boolean startsWith(DBFReader reader, DBFReader.Field fld, int rec) {
+			int pos = reader.recordStart(rec) + fld.getOffset();
+			boolean match = text.length() <= fld.getLength();
+			
+			for (int i = 0; i < text.length() && match; i++) {
+				match = reader.getData().get(pos + i) == (byte) text.charAt(i);
+			}
+			
+			return match;
+			
+		}
+		
+	}
+	
+	/**
+	 * An index of a table and the fields of its key, in key order
+	 * @param <F> The Fields enum of the table
+	 */
+	public static final class Index<F extends Enum<F>> {
+		
+		private final String ndxFileSpec;
+		private final List<F> keyFields;
+		
+		/**
+		 * Constructor
+		 * @param ndxFileSpec File specification of the index
+		 * @param keyFields The fields of the key, in the order they are concatenated
+		 */
+		@SafeVarargs
+		public Index(String ndxFileSpec, F... keyFields) {
+			List<F> fields = new ArrayList<>();
+			
+			for (F f : keyFields) {
+				fields.add(f);
+			}
+			
+			this.ndxFileSpec = ndxFileSpec;
+			this.keyFields = Collections.unmodifiableList(fields);
+			
+		}
+		
+		/**
+		 * Getter
+		 * @return File specification of the index
+		 */
+		public String getNdxFileSpec() {
+			return ndxFileSpec;
+		}
+		
+		/**
+		 * Getter
+		 * @return The fields of the key, in key order
+		 */
+		public List<F> getKeyFields() {
+			return keyFields;
+		}
+		
+	}
+	
+	/**
+	 * The fields of a record that matched a query.  Only the fields that are read are decoded.
+	 * @param <F> The Fields enum of the table
+	 */
+	public interface Row<F extends Enum<F>> {
+		
+		/**
+		 * Get the text of a field
+		 * @param field The field
+		 * @return The text without trailing blanks
+		 */
+		String getString(F field);
+		
+		/**
+		 * Get the first character of a field, such as a single character ID
+		 * @param field The field
+		 * @return The character
+		 */
+		char getChar(F field);
+		
+		/**
+		 * Get a NUMERIC field with no decimal places
+		 * @param field The field
+		 * @return The value or 0 if the field is blank
+		 */
+		int getInt(F field);
+		
+		/**
+		 * Get a LOGICAL field
+		 * @param field The field
+		 * @return The value
+		 */
+		boolean getLogical(F field);
+		
+		/**
+		 * Get a yyyyMMddHHmmss timestamp field
+		 * @param field The field
+		 * @return Milliseconds since the epoch or {@link DBFCodec#noTimestamp} if the field is blank
+		 */
+		long getTimestamp(F field);
+		
+		/**
+		 * Get a field that holds the name of an enum constant
+		 * @param <E> The enum type
+		 * @param field The field
+		 * @param type The enum class
+		 * @return The constant or null if the field does not hold the name of a constant
+		 */
+		<E extends Enum<E>> E getEnum(F field, Class<E> type);
+		
+	}
+	
+	/**
+	 * Builds the result of a query from each matching record
+	 * @param <F> The Fields enum of the table
+	 * @param <T> Type of the result
+	 */
+	@FunctionalInterface
+	public interface Projection<F extends Enum<F>, T> {
+		
+		/**
+		 * Build the result of a record
+		 * @param row The fields of the record, only valid during the call
+		 * @return The result
+		 */
+		T project(Row<F> row);
+		
+	}
+	
+	/**
+	 * The row of the current record of a cursor, which reads the fields of the record on demand
+	 * @param <F> The Fields enum of the table
+	 */
+	static final class BoundRow<F extends Enum<F>> implements Row<F>, RecordDecoder<Row<F>> {
+		
+		private final DBFReader reader;
+		private final List<Condition<F>> conditions;
+		private final DBFReader.Field [] fields;
+		private final DBFReader.Field [] tested;
+		private int recNo = 0;
+		
+		/**
+		 * Constructor
+		 * @param reader The table
+		 * @param fieldsType The Fields enum of the table
+		 * @param conditions The conditions a record must meet to be decoded
+		 * @throws IOException If a field of a condition is not in the table
+		 */
+		BoundRow(DBFReader reader, Class<F> fieldsType, List<Condition<F>> conditions) throws IOException {
+			
+			this.reader = reader;
+			this.conditions = conditions;
+			fields = new DBFReader.Field[fieldsType.getEnumConstants().length];
+			tested = new DBFReader.Field[conditions.size()];
+			
+			// Not every constant of a Fields enum is stored in the table
+			for (DBFReader.Field fld : reader.getFields()) {
+				for (F f : fieldsType.getEnumConstants()) {
+					if (f.name().equalsIgnoreCase(fld.getName())) {
+						fields[f.ordinal()] = fld;
+					}
+				}
+			}
+			
+			for (int i = 0; i < tested.length; i++) {
+				tested[i] = reader.getField(conditions.get(i).getField().name());
+			}
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#newRecord()
+		 */
+		@Override
+		public Row<F> newRecord() {
+			return this;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#decode(int, java.lang.Object)
+		 */
+		@Override
+		public boolean decode(int recNo, Row<F> record) {
+			boolean met = true;
+			
+			this.recNo = recNo;
+			
+			for (int i = 0; i < tested.length && met; i++) {
+				met = conditions.get(i).test(reader, tested[i], recNo);
+			}
+			
+			return met;
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFQuery.Row#getString(java.lang.Enum)
+		 */
+		@Override
+		public String getString(F field) {
+			return reader.getString(recNo, field(field));
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFQuery.Row#getChar(java.lang.Enum)
+		 */
+		@Override
+		public char getChar(F field) {
+			return (char) (reader.getByte(recNo, field(field)) & 0xFF);
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFQuery.Row#getInt(java.lang.Enum)
+		 */
+		@Override
+		public int getInt(F field) {
+			return reader.getInt(recNo, field(field));
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFQuery.Row#getLogical(java.lang.Enum)
+		 */
+		@Override
+		public boolean getLogical(F field) {
+			return reader.getLogical(recNo, field(field));
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFQuery.Row#getTimestamp(java.lang.Enum)
+		 */
+		@Override
+		public long getTimestamp(F field) {
+			return reader.getTimestamp(recNo, field(field));
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFQuery.Row#getEnum(java.lang.Enum, java.lang.Class)
+		 */
+		@Override
+		public <E extends Enum<E>> E getEnum(F field, Class<E> type) {
+			return reader.getEnum(recNo, field(field), enumLookup(type));
+		}
+		
+		/**
+		 * Find the descriptor of a field
+		 * @param field The field
+		 * @return The descriptor
+		 * @throws IllegalArgumentException If the field is not stored in the table
+		 */
+		private DBFReader.Field field(F field) {
+			
+			if (fields[field.ordinal()] == null) {
+				throw new IllegalArgumentException(ErrMsgs.DBF_LAYOUT.getMsg(reader.getFileSpec(), field.name()));
+			}
+			
+			return fields[field.ordinal()];
+			
+		}
+		
+	}
+	
+	/** Lookups of the enum constants read by {@link Row#getEnum(Enum, Class)}, by enum class */
+	private static final Map<Class<?>, DBFCodec.EnumLookup<?>> enumLookups = new ConcurrentHashMap<>();
+	
+	/** The conditions, all of which must be met */
+	private final List<Condition<F>> conditions;
+	
+	/**
+	 * Constructor
+	 * @param conditions The conditions
+	 */
+	private DBFQuery(List<Condition<F>> conditions) {
+		
+		super();
+		this.conditions = Collections.unmodifiableList(conditions);
+		
+	}
+	
+	/**
+	 * A query that every record meets
+	 * @param <F> The Fields enum of the table
+	 * @return The query
+	 */
+	public static <F extends Enum<F>> DBFQuery<F> all() {
+		return new DBFQuery<>(List.of());
+	}
+	
+	/**
+	 * A query with one condition
+	 * @param <F> The Fields enum of the table
+	 * @param condition The condition
+	 * @return The query
+	 */
+	public static <F extends Enum<F>> DBFQuery<F> where(Condition<F> condition) {
+		return new DBFQuery<F>(List.of()).and(condition);
+	}
+	
+	/**
+	 * Add a condition
+	 * @param condition The condition
+	 * @return A new query with the conditions of this query and the new condition
+	 */
+	public DBFQuery<F> and(Condition<F> condition) {
+		List<Condition<F>> all = new ArrayList<>(conditions);
+		
+		all.add(condition);
+		
+		return new DBFQuery<>(all);
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return The conditions, in the order they were added
+	 */
+	public List<Condition<F>> getConditions() {
+		return conditions;
+	}
+	
+	/**
+	 * Describe the shape of the query, its fields and comparisons without their values.  Queries of the
+	 * same shape share a plan.
+	 * @return The shape
+	 */
+	public String getShape() {
+		StringBuilder shape = new StringBuilder();
+		
+		for (Condition<F> c : conditions) {
+			if (shape.length() > 0) {
+				shape.append(',');
+			}
+			
+			shape.append(c.field.name());
+			shape.append(' ');
+			shape.append(c.op.name());
+			
+		}
+		
+		return shape.toString();
+		
+	}
+	
+	/**
+	 * Text field equals a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The value, without trailing blanks
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> is(F field, String value) {
+		return new Condition<>(field, Op.TextEquals, value, 0);
+	}
+	
+	/**
+	 * Text field holds the name of an enum constant
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The constant
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> is(F field, Enum<?> value) {
+		return is(field, value.name());
+	}
+	
+	/**
+	 * Single character field equals a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The value
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> is(F field, char value) {
+		return is(field, String.valueOf(value));
+	}
+	
+	/**
+	 * LOGICAL field has a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The value
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> is(F field, boolean value) {
+		return new Condition<>(field, Op.LogicalEquals, null, value ? 1 : 0);
+	}
+	
+	/**
+	 * NUMERIC field equals a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The value
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> is(F field, int value) {
+		return new Condition<>(field, Op.IntEquals, null, value);
+	}
+	
+	/**
+	 * Text field starts with a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The start of the text
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> startsWith(F field, String value) {
+		return new Condition<>(field, Op.TextStartsWith, value, 0);
+	}
+	
+	/**
+	 * NUMERIC field is at least a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The lowest value
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> atLeast(F field, int value) {
+		return new Condition<>(field, Op.IntAtLeast, null, value);
+	}
+	
+	/**
+	 * NUMERIC field is at most a value
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param value The highest value
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> atMost(F field, int value) {
+		return new Condition<>(field, Op.IntAtMost, null, value);
+	}
+	
+	/**
+	 * Timestamp field is before a time.  A blank timestamp, such as the last use of media that was never
+	 * used, is before every time.
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param time The time
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> before(F field, Date time) {
+		return new Condition<>(field, Op.TimeBefore, null, time.getTime());
+	}
+	
+	/**
+	 * Timestamp field is at or after a time
+	 * @param <F> The Fields enum of the table
+	 * @param field The field
+	 * @param time The time
+	 * @return The condition
+	 */
+	public static <F extends Enum<F>> Condition<F> atOrAfter(F field, Date time) {
+		return new Condition<>(field, Op.TimeAtOrAfter, null, time.getTime());
+	}
+	
+	/**
+	 * Find the lookup of the constants of an enum
+	 * @param <E> The enum type
+	 * @param type The enum class
+	 * @return The lookup, shared by every query
+	 */
+	@SuppressWarnings("unchecked")
+	static <E extends Enum<E>> DBFCodec.EnumLookup<E> enumLookup(Class<E> type) {
+		return (DBFCodec.EnumLookup<E>) enumLookups.computeIfAbsent(type, t -> new DBFCodec.EnumLookup<>(type));
+	}
+	
+}
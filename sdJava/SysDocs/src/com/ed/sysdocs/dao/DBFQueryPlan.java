@@ -0,0 +1,208 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How a {@link DBFQuery} is run: over a key range of one index of the table or over every record in
+ * physical order.<br>
+ * Each index is scored on the conditions that can bound its key.  A condition that fixes a key field,
+ * such as an equal MEDIATYPE, scores 2 and lets the next key field bound the range too.  A prefix or a
+ * lower or upper limit scores 1 and ends the range.  The index with the highest score is used, a table
+ * whose indexes all score 0 is scanned.  Every condition is still tested on every record in the range,
+ * the range only skips records that cannot match.<br>
+ * Plans depend on the fields and comparisons of a query but not on its values, so they are computed
+ * once per table and {@link DBFQuery#getShape() shape} and shared.
+ * @param <F> The Fields enum of the table
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+final class DBFQueryPlan<F extends Enum<F>> {
+	
+	/** Plans by table and query shape */
+	private static final Map<String, DBFQueryPlan<?>> plans = new ConcurrentHashMap<>();
+	
+	/** File specification of the index to use or null to scan the table */
+	private final String ndxFileSpec;
+	
+	/** The key fields that bound the range, in key order */
+	private final List<F> keyFields;
+	
+	/** For each key field, the position of the conditions that give its lowest and highest key, or -1 */
+	private final List<int []> bounds;
+	
+	/**
+	 * Constructor
+	 * @param ndxFileSpec File specification of the index or null to scan the table
+	 * @param keyFields The key fields that bound the range
+	 * @param bounds Positions of the conditions that bound each key field
+	 */
+	private DBFQueryPlan(String ndxFileSpec, List<F> keyFields, List<int []> bounds) {
+		
+		super();
+		this.ndxFileSpec = ndxFileSpec;
+		this.keyFields = keyFields;
+		this.bounds = bounds;
+		
+	}
+	
+	/**
+	 * Find the plan of a query, computing it the first time a table sees its shape
+	 * @param <F> The Fields enum of the table
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param indexes Every index of the table
+	 * @param query The query
+	 * @return The plan
+	 */
+	@SuppressWarnings("unchecked")
+	static <F extends Enum<F>> DBFQueryPlan<F> forQuery(String dbfFileSpec, List<DBFQuery.Index<F>> indexes, DBFQuery<F> query) {
+		return (DBFQueryPlan<F>) plans.computeIfAbsent(dbfFileSpec + '|' + query.getShape(), k -> plan(indexes, query));
+	}
+	
+	/**
+	 * Getter
+	 * @return File specification of the index to use or null to scan the table
+	 */
+	String getNdxFileSpec() {
+		return ndxFileSpec;
+	}
+	
+	/**
+	 * Build the key range of a query.  Each bound is the stored form of the values, so it compares with
+	 * the keys as the index does.  A value that cannot be stored in its field ends the bound early,
+	 * which only widens the range.
+	 * @param reader The table
+	 * @param query The query, of the shape of this plan
+	 * @return The lowest and the highest key, either may be empty
+	 * @throws IOException If a key field is not in the table
+	 */
+	String [] range(DBFReader reader, DBFQuery<F> query) throws IOException {
+		List<DBFQuery.Condition<F>> conditions = query.getConditions();
+		StringBuilder low = new StringBuilder();
+		StringBuilder high = new StringBuilder();
+		boolean open = true;
+		
+		for (int k = 0; k < keyFields.size() && open; k++) {
+			DBFReader.Field fld = reader.getField(keyFields.get(k).name());
+			int [] b = bounds.get(k);
+			String lowKey = b[0] < 0 ? null : conditions.get(b[0]).keyText(fld);
+			String highKey = b[1] == b[0] ? lowKey : b[1] < 0 ? null : conditions.get(b[1]).keyText(fld);
+			
+			if (lowKey != null) {
+				low.append(lowKey);
+			}
+			
+			if (highKey != null) {
+				high.append(highKey);
+			}
+			
+			// Only a fixed key field of the full width leaves the next key field in order
+			open = b[0] == b[1] && lowKey != null && lowKey.length() == fld.getLength();
+			
+		}
+		
+		return new String[] {low.toString(), high.toString()};
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		
+		return ndxFileSpec == null ? "scan" : "range of " + ndxFileSpec + " on " + keyFields;
+		
+	}
+	
+	/**
+	 * Pick the index with the highest score for a query
+	 * @param <F> The Fields enum of the table
+	 * @param indexes Every index of the table
+	 * @param query The query
+	 * @return The plan
+	 */
+	private static <F extends Enum<F>> DBFQueryPlan<F> plan(List<DBFQuery.Index<F>> indexes, DBFQuery<F> query) {
+		DBFQueryPlan<F> best = new DBFQueryPlan<>(null, List.<F>of(), List.<int []>of());
+		int bestScore = 0;
+		
+		for (DBFQuery.Index<F> index : indexes) {
+			List<F> keyFields = new ArrayList<>();
+			List<int []> bounds = new ArrayList<>();
+			int score = 0;
+			boolean open = true;
+			
+			for (int k = 0; k < index.getKeyFields().size() && open; k++) {
+				F field = index.getKeyFields().get(k);
+				int [] b = bound(query.getConditions(), field);
+				
+				open = b[0] >= 0 && b[0] == b[1] && query.getConditions().get(b[0]).getOp().getBound() == DBFQuery.Bound.Equals;
+				
+				if (b[0] >= 0 || b[1] >= 0) {
+					keyFields.add(field);
+					bounds.add(b);
+					score += open ? 2 : 1;
+				}
+				else {
+					open = false;
+				}
+				
+			}
+			
+			if (score > bestScore) {
+				best = new DBFQueryPlan<>(index.getNdxFileSpec(), keyFields, bounds);
+				bestScore = score;
+			}
+			
+		}
+		
+		return best;
+		
+	}
+	
+	/**
+	 * Find the conditions that bound a key field.  A fixed value or a prefix bounds both ends of the range,
+	 * otherwise the first lower limit and the first upper limit are used.
+	 * @param <F> The Fields enum of the table
+	 * @param conditions The conditions of the query
+	 * @param field The key field
+	 * @return The positions of the conditions that give the lowest and highest key, or -1
+	 */
+	private static <F extends Enum<F>> int [] bound(List<DBFQuery.Condition<F>> conditions, F field) {
+		int [] b = {-1, -1};
+		boolean fixed = false;
+		
+		for (int i = 0; i < conditions.size() && !fixed; i++) {
+			DBFQuery.Condition<F> c = conditions.get(i);
+			
+			if (c.getField() == field) {
+				switch (c.getOp().getBound()) {
+					case Equals:
+					case Prefix:
+						b[0] = i;
+						b[1] = i;
+						fixed = true;
+						break;
+					case Low:
+						b[0] = b[0] < 0 ? i : b[0];
+						break;
+					case High:
+						b[1] = b[1] < 0 ? i : b[1];
+						break;
+					default:
+						break;
+				}
+			}
+			
+		}
+		
+		return b;
+		
+	}
+	
+}
@@ -0,0 +1,454 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Read-only image of a DBF file that decodes records directly from the file bytes.<br>
+ * The layout of a dBase III file is:
+ * <pre> Offset  Size  Content
+ * 0       1     Version
+ * 1       3     Date of last update, YYMMDD
+ * 4       4     Number of records, little endian
+ * 8       2     Length of the header, little endian
+ * 10      2     Length of a record, little endian
+ * 32      32    One descriptor per field, terminated by 0x0D
+ *               0-10 name, 11 type, 16 length, 17 decimal count
+ * Header  Rec   Records.  Byte 0 of each record is the deletion flag, * if deleted.</pre>
+ * Large files are memory mapped, small files are read into the heap.  A mapped file cannot be
+ * deleted or truncated on Windows until the mapping is garbage collected, so only tables that
+ * are too large to copy are mapped.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class DBFReader {
+	
+	/** Files at least this large are memory mapped instead of being read into the heap */
+	public static final long mapThreshold = 1024 * 1024;
+	
+	/** Deletion flag of a deleted record */
+	public static final byte deletedFlag = '*';
+	
+	/** Size of the fixed part of the header and of each field descriptor */
+	static final int descriptorLen = 32;
+	
+	/** Marks the end of the field descriptors */
+	private static final byte headerEnd = 0x0D;
+	
+	/**
+	 * Descriptor of a field in the DBF
+	 */
+	public static class Field {
+		
+		private String name;
+		private char type;
+		private int offset;
+		private int length;
+		private int decimals;
+		
+		/**
+		 * Constructor
+		 * @param name Name of the field
+		 * @param type Type of the field
+		 * @param offset Position of the field within a record
+		 * @param length Width of the field
+		 * @param decimals Number of decimal places of a numeric field
+		 */
+		Field(String name, char type, int offset, int length, int decimals) {
+			
+			super();
+			this.name = name;
+			this.type = type;
+			this.offset = offset;
+			this.length = length;
+			this.decimals = decimals;
+			
+		}
+		
+		/**
+		 * Getter
+		 * @return Name of the field
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * Getter
+		 * @return Type of the field, C, N, L, D or M
+		 */
+		public char getType() {
+			return type;
+		}
+		
+		/**
+		 * Getter
+		 * @return Position of the field within a record.  The deletion flag is at position 0.
+		 */
+		public int getOffset() {
+			return offset;
+		}
+		
+		/**
+		 * Getter
+		 * @return Width of the field
+		 */
+		public int getLength() {
+			return length;
+		}
+		
+		/**
+		 * Getter
+		 * @return Number of decimal places of a numeric field
+		 */
+		public int getDecimals() {
+			return decimals;
+		}
+		
+	}
+	
+	/** File specification of the DBF */
+	private String fileSpec;
+	
+	/** The file contents */
+	private ByteBuffer data;
+	
+	/** Version byte of the file */
+	private byte version;
+	
+	/** Number of complete records in the file */
+	private int recordCount;
+	
+	/** Position of the first record */
+	private int headerLength;
+	
+	/** Length of a record, including the deletion flag */
+	private int recordLength;
+	
+	/** The field descriptors, in record order */
+	private List<Field> fields = new ArrayList<>();
+	
+	/**
+	 * Constructor
+	 * @param fileSpec File specification of the DBF file
+	 * @throws IOException If the file cannot be read or the header is not valid
+	 */
+	public DBFReader(String fileSpec) throws IOException {
+		
+		super();
+		this.fileSpec = fileSpec;
+		data = load(fileSpec);
+		readHeader();
+		
+	}
+	
+	/**
+	 * Load the contents of a file, mapping it if it is large
+	 * @param fileSpec File specification of the file
+	 * @return The contents of the file, in little endian order
+	 * @throws IOException If the file cannot be read
+	 */
+	static ByteBuffer load(String fileSpec) throws IOException {
+		ByteBuffer buf;
+		
+		try (FileChannel fc = FileChannel.open(Paths.get(fileSpec), StandardOpenOption.READ)) {
+			long size = fc.size();
+			
+			if (size >= mapThreshold) {
+				buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			else {
+				buf = ByteBuffer.allocate((int) size);
+				
+				while (buf.hasRemaining() && fc.read(buf) >= 0) {
+					// Keep reading until the buffer is full
+				}
+				
+				buf.flip();
+				
+			}
+			
+		}
+		
+		return buf.order(ByteOrder.LITTLE_ENDIAN);
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return File specification of the DBF
+	 */
+	public String getFileSpec() {
+		return fileSpec;
+	}
+	
+	/**
+	 * Getter
+	 * @return Version byte of the file
+	 */
+	public byte getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Getter
+	 * @return Number of records in the file, including deleted records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+	
+	/**
+	 * Getter
+	 * @return Length of a record, including the deletion flag
+	 */
+	public int getRecordLength() {
+		return recordLength;
+	}
+	
+	/**
+	 * Getter
+	 * @return The field descriptors, in record order
+	 */
+	public List<Field> getFields() {
+		return Collections.unmodifiableList(fields);
+	}
+	
+	/**
+	 * Getter
+	 * @return The contents of the file.  Do not change the position or limit of the returned buffer.
+	 */
+	public ByteBuffer getData() {
+		return data;
+	}
+	
+	/**
+	 * Find a field of any width
+	 * @param name Name of the field
+	 * @return The field descriptor
+	 * @throws IOException If the field does not exist
+	 */
+	public Field getField(String name) throws IOException {
+		Field found = null;
+		
+		for (int i = 0; i < fields.size() && found == null; i++) {
+			if (fields.get(i).getName().equalsIgnoreCase(name)) {
+				found = fields.get(i);
+			}
+		}
+		
+		if (found == null) {
+			throw new IOException(ErrMsgs.DBF_LAYOUT.getMsg(fileSpec, name));
+		}
+		
+		return found;
+		
+	}
+	
+	/**
+	 * Find a field and make sure it has the expected width
+	 * @param name Name of the field
+	 * @param length Expected width of the field
+	 * @return The field descriptor
+	 * @throws IOException If the field does not exist or has a different width
+	 */
+	public Field getField(String name, int length) throws IOException {
+		Field found = getField(name);
+		
+		if (found.getLength() != length) {
+			throw new IOException(ErrMsgs.DBF_LAYOUT.getMsg(fileSpec, name));
+		}
+		
+		return found;
+		
+	}
+	
+	/**
+	 * Determine the position of a record in the file
+	 * @param recNo The record number, starting at 1
+	 * @return Position of the deletion flag of the record
+	 */
+	public int recordStart(int recNo) {
+		return headerLength + (recNo - 1) * recordLength;
+	}
+	
+	/**
+	 * Determine if a record is marked as deleted
+	 * @param recNo The record number, starting at 1
+	 * @return true if the record is deleted, otherwise false
+	 */
+	public boolean isDeleted(int recNo) {
+		return data.get(recordStart(recNo)) == deletedFlag;
+	}
+	
+	/**
+	 * Extract the value of a field.  Trailing blanks and nulls are removed.
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to extract
+	 * @return The value of the field
+	 */
+	public String getString(int recNo, Field field) {
+		int pos = recordStart(recNo) + field.getOffset();
+		byte [] raw = new byte[DBFCodec.trimmedLength(data, pos, field.getLength())];
+		
+		data.get(pos, raw);
+		
+		return new String(raw, StandardCharsets.ISO_8859_1);
+		
+	}
+	
+	/**
+	 * Extract the first byte of a field, such as a LOGICAL or a single character field
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to extract
+	 * @return The first byte of the field
+	 */
+	public byte getByte(int recNo, Field field) {
+		return data.get(recordStart(recNo) + field.getOffset());
+	}
+	
+	/**
+	 * Decode a NUMERIC field with no decimal places
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to decode
+	 * @return The value of the field or 0 if the field is blank
+	 */
+	public int getInt(int recNo, Field field) {
+		return DBFCodec.parseInt(data, recordStart(recNo) + field.getOffset(), field.getLength());
+	}
+	
+	/**
+	 * Decode a LOGICAL field
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to decode
+	 * @return true if the field is true, otherwise false
+	 */
+	public boolean getLogical(int recNo, Field field) {
+		return DBFCodec.parseLogical(getByte(recNo, field));
+	}
+	
+	/**
+	 * Decode a yyyyMMddHHmmss timestamp field
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to decode
+	 * @return Milliseconds since the epoch or {@link DBFCodec#noTimestamp} if the field is blank or not valid
+	 */
+	public long getTimestamp(int recNo, Field field) {
+		return DBFCodec.parseTimestamp(data, recordStart(recNo) + field.getOffset(), field.getLength());
+	}
+	
+	/**
+	 * Decode a field that holds the name of an enum constant
+	 * @param <E> The enum type
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to decode
+	 * @param lookup Lookup of the enum constants
+	 * @return The constant or null if the field does not hold the name of a constant
+	 */
+	public <E extends Enum<E>> E getEnum(int recNo, Field field, DBFCodec.EnumLookup<E> lookup) {
+		return lookup.lookup(data, recordStart(recNo) + field.getOffset(), field.getLength());
+	}
+	
+	/**
+	 * Compare a character field with a value without decoding the field
+	 * @param recNo The record number, starting at 1
+	 * @param field The field to compare
+	 * @param value The value to compare with.  The field matches if it holds the value followed by blanks.
+	 * @return true if the field holds the value, otherwise false
+	 */
+	public boolean matches(int recNo, Field field, String value) {
+		int pos = recordStart(recNo) + field.getOffset();
+		boolean match = value.length() <= field.getLength();
+		
+		for (int i = 0; i < field.getLength() && match; i++) {
+			byte b = data.get(pos + i);
+			
+			match = i < value.length() ? b == (byte) value.charAt(i) : b == ' ' || b == 0;
+			
+		}
+		
+		return match;
+		
+	}
+	
+	/**
+	 * Parse and validate the header and field descriptors
+	 * @throws IOException If the header is not valid
+	 */
+	private void readHeader() throws IOException {
+		int count;
+		
+		if (data.limit() < descriptorLen + 1) {
+			throw new IOException(ErrMsgs.DBF_HEADER.getMsg(fileSpec));
+		}
+		
+		version = data.get(0);
+		count = data.getInt(4);
+		headerLength = Short.toUnsignedInt(data.getShort(8));
+		recordLength = Short.toUnsignedInt(data.getShort(10));
+		
+		if (count < 0 || headerLength > data.limit() || recordLength < 1) {
+			throw new IOException(ErrMsgs.DBF_HEADER.getMsg(fileSpec));
+		}
+		
+		fields = readFields(data, headerLength, recordLength, fileSpec);
+		
+		// A record being appended by another process may not be complete yet
+		recordCount = Math.min(count, (data.limit() - headerLength) / recordLength);
+		
+	}
+	
+	/**
+	 * Parse the field descriptors of a DBF header
+	 * @param data The header, from the start of the file
+	 * @param headerLength Length of the header
+	 * @param recordLength Length of a record
+	 * @param fileSpec File specification of the DBF, for the error message
+	 * @return The field descriptors, in record order
+	 * @throws IOException If the fields do not add up to the record length
+	 */
+	static List<Field> readFields(ByteBuffer data, int headerLength, int recordLength, String fileSpec) throws IOException {
+		List<Field> fields = new ArrayList<>();
+		int offset = 1;
+		int pos = descriptorLen;
+		
+		while (pos + descriptorLen <= headerLength && data.get(pos) != headerEnd) {
+			byte [] nm = new byte[11];
+			int nmLen = 0;
+			
+			data.get(pos, nm);
+			
+			while (nmLen < nm.length && nm[nmLen] != 0) {
+				nmLen++;
+			}
+			
+			fields.add(new Field(new String(nm, 0, nmLen, StandardCharsets.ISO_8859_1).trim(),
+					             (char) data.get(pos + 11),
+					             offset,
+					             Byte.toUnsignedInt(data.get(pos + 16)),
+					             Byte.toUnsignedInt(data.get(pos + 17))));
+			offset += Byte.toUnsignedInt(data.get(pos + 16));
+			pos += descriptorLen;
+			
+		}
+		
+		if (offset != recordLength) {
+			throw new IOException(ErrMsgs.DBF_HEADER.getMsg(fileSpec));
+		}
+		
+		return fields;
+		
+	}
+	
+}
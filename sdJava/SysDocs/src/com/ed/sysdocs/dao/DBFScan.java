@@ -0,0 +1,641 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntPredicate;
+import java.util.stream.StreamSupport;
+
+import org.xBaseJ.fields.LogicalField;
+
+import com.ed.sysdocs.ErrMsgs;
+import com.ed.sysdocs.TimestampCodec;
+
+/**
+ * Selects the records of a table that meet a set of conditions by comparing the record bytes, without
+ * decoding any field.  The result is a bitmap with a bit for each record that is not deleted and meets
+ * every condition.<br>
+ * The records are copied a chunk at a time into an array.  Single byte fields, such as a LOGICAL and the
+ * deletion flag, are looked up in a table of the byte values and the results are written straight into
+ * the words of the bitmap, 64 records at a time.  Wider fields are then compared only for the records
+ * still selected.  When the JVM was started with <code>--add-modules jdk.incubator.vector</code> a field
+ * is compared with its key as one vector, otherwise one byte at a time.  The results are the same
+ * either way.<br>
+ * NUMERIC fields are compared as xBaseJ stores them, right aligned with leading blanks, and timestamps
+ * as their yyyyMMddHHmmss text, so a blank timestamp is before every time.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFScan {
+	
+	/** Size of the chunks of records copied from the table */
+	private static final int chunkBytes = 64 * 1024;
+	
+	/** Name of the vector kernel, which is only loaded when its module is present */
+	private static final String vectorKernel = DBFScan.class.getPackageName() + ".DBFScanVector";
+	
+	/** Constructor of the vector kernel or null if the Vector API is not available */
+	private static final Constructor<? extends Kernel> vectorConstructor = findVectorKernel();
+	
+	/** Room after the records of a chunk and after a key for a vector to read past their end */
+	private static final int padding = 64;
+	
+	/** Byte values of a true LOGICAL */
+	private static final byte [] trueBytes = {LogicalField.BYTETRUE, 't', 'Y', 'y'};
+	
+	/** Byte value of a deleted record */
+	private static final byte [] deletedBytes = {DBFReader.deletedFlag};
+	
+	/**
+	 * Compares record bytes, with vector instructions or with plain loops
+	 */
+	interface Kernel {
+		
+		/**
+		 * Find the first byte of a field that differs from a key.  Both arrays have room to read
+		 * {@link DBFScan#padding} bytes past the field and the key.
+		 * @param buf The records
+		 * @param pos Position of the field
+		 * @param key The key
+		 * @param len Length of the key, not longer than the field
+		 * @return Index of the first byte that differs or -1 if the field starts with the key
+		 */
+		int mismatch(byte [] buf, int pos, byte [] key, int len);
+		
+	}
+	
+	/**
+	 * How a field is compared with its key
+	 */
+	private enum Test {
+		
+		/** The text is the key, followed by blanks or nulls */
+		Text,
+		
+		/** The text starts with the key */
+		Prefix,
+		
+		/** The right aligned number is at least the key */
+		NumberAtLeast,
+		
+		/** The right aligned number is at most the key */
+		NumberAtMost,
+		
+		/** The right aligned number is the key */
+		NumberEquals,
+		
+		/** The timestamp is before the key */
+		Before,
+		
+		/** The timestamp is at or after the key */
+		AtOrAfter,
+		
+		/** The decoded number meets a predicate */
+		Parsed;
+		
+	}
+	
+	/**
+	 * One condition on a single byte field
+	 */
+	private static final class ByteTerm {
+		
+		private final int offset;
+		private final boolean [] keep = new boolean[256];
+		
+		/**
+		 * Constructor
+		 * @param offset Position of the byte in a record
+		 * @param values The byte values to look for
+		 * @param wanted true to keep the records whose byte is one of the values, false to keep the others
+		 */
+		ByteTerm(int offset, byte [] values, boolean wanted) {
+			
+			this.offset = offset;
+			Arrays.fill(keep, !wanted);
+			
+			for (byte v : values) {
+				keep[v & 0xFF] = wanted;
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * One condition on a wider field
+	 */
+	private static final class Term {
+		
+		private final Test test;
+		private final int offset;
+		private final int length;
+		private final byte [] key;
+		private final int keyLength;
+		private final int valueLength;
+		private final IntPredicate parsed;
+		
+		/**
+		 * Constructor
+		 * @param test How the field is compared
+		 * @param field The field
+		 * @param key The key to compare with
+		 * @param valueLength Length of the value in the key, without its padding
+		 * @param parsed The predicate of a decoded number, otherwise null
+		 */
+		Term(Test test, DBFReader.Field field, byte [] key, int valueLength, IntPredicate parsed) {
+			
+			this.test = test;
+			this.offset = field.getOffset();
+			this.length = field.getLength();
+			this.key = key == null ? null : Arrays.copyOf(key, key.length + padding);
+			this.keyLength = key == null ? 0 : key.length;
+			this.valueLength = valueLength;
+			this.parsed = parsed;
+			
+		}
+		
+	}
+	
+	/** The table */
+	private final DBFReader reader;
+	
+	/** Compares the record bytes */
+	private final Kernel kernel;
+	
+	/** Single byte conditions, starting with the deletion flag */
+	private final List<ByteTerm> byteTerms = new ArrayList<>();
+	
+	/** Conditions on wider fields */
+	private final List<Term> terms = new ArrayList<>();
+	
+	/** Set when a condition cannot be met by any record */
+	private boolean none = false;
+	
+	/**
+	 * Constructor for a scan that uses the Vector API when it is available
+	 * @param reader The table
+	 */
+	public DBFScan(DBFReader reader) {
+		
+		this(reader, true);
+		
+	}
+	
+	/**
+	 * Constructor
+	 * @param reader The table
+	 * @param vectorize true to use the Vector API when it is available, false to always use plain loops
+	 */
+	public DBFScan(DBFReader reader, boolean vectorize) {
+		
+		super();
+		this.reader = reader;
+		this.kernel = vectorize ? newVectorKernel() : new ScalarKernel();
+		byteTerms.add(new ByteTerm(0, deletedBytes, false));
+		
+	}
+	
+	/**
+	 * Determine if scans use the Vector API
+	 * @return true if the jdk.incubator.vector module is present, otherwise false
+	 */
+	public static boolean isVectorized() {
+		return vectorConstructor != null;
+	}
+	
+	/**
+	 * Getter
+	 * @return true if this scan uses the Vector API
+	 */
+	public boolean usesVectors() {
+		return !(kernel instanceof ScalarKernel);
+	}
+	
+	/**
+	 * Select the records whose character field holds a value
+	 * @param name Name of the field
+	 * @param value The value, without trailing blanks
+	 * @return This scan
+	 * @throws IOException If the field is not in the table
+	 */
+	public DBFScan is(String name, String value) throws IOException {
+		
+		return text(Test.Text, reader.getField(name), value);
+		
+	}
+	
+	/**
+	 * Select the records whose character field starts with a value
+	 * @param name Name of the field
+	 * @param value The start of the text
+	 * @return This scan
+	 * @throws IOException If the field is not in the table
+	 */
+	public DBFScan startsWith(String name, String value) throws IOException {
+		
+		return text(Test.Prefix, reader.getField(name), value);
+		
+	}
+	
+	/**
+	 * Select the records whose LOGICAL field has a value
+	 * @param name Name of the field
+	 * @param value The value
+	 * @return This scan
+	 * @throws IOException If the field is not in the table
+	 */
+	public DBFScan is(String name, boolean value) throws IOException {
+		DBFReader.Field field = reader.getField(name);
+		
+		byteTerms.add(new ByteTerm(field.getOffset(), trueBytes, value));
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Select the records whose NUMERIC field is a value
+	 * @param name Name of the field
+	 * @param value The value
+	 * @return This scan
+	 * @throws IOException If the field is not in the table
+	 */
+	public DBFScan is(String name, int value) throws IOException {
+		
+		return number(Test.NumberEquals, reader.getField(name), value, n -> n == value);
+		
+	}
+	
+	/**
+	 * Select the records whose NUMERIC field is at least a value
+	 * @param name Name of the field
+	 * @param value The lowest value
+	 * @return This scan
+	 * @throws IOException If the field is not in the table
+	 */
+	public DBFScan atLeast(String name, int value) throws IOException {
+		
+		return number(Test.NumberAtLeast, reader.getField(name), value, n -> n >= value);
+		
+	}
+	
+	/**
+	 * Select the records whose NUMERIC field is at most a value
+	 * @param name Name of the field
+	 * @param value The highest value
+	 * @return This scan
+	 * @throws IOException If the field is not in the table
+	 */
+	public DBFScan atMost(String name, int value) throws IOException {
+		
+		return number(Test.NumberAtMost, reader.getField(name), value, n -> n <= value);
+		
+	}
+	
+	/**
+	 * Select the records whose timestamp field is before a time, or blank
+	 * @param name Name of the field
+	 * @param time The time
+	 * @return This scan
+	 * @throws IOException If the field is not in the table or is too narrow for a timestamp
+	 */
+	public DBFScan before(String name, Date time) throws IOException {
+		
+		return timestamp(Test.Before, reader.getField(name), time);
+		
+	}
+	
+	/**
+	 * Select the records whose timestamp field is at or after a time
+	 * @param name Name of the field
+	 * @param time The time
+	 * @return This scan
+	 * @throws IOException If the field is not in the table or is too narrow for a timestamp
+	 */
+	public DBFScan atOrAfter(String name, Date time) throws IOException {
+		
+		return timestamp(Test.AtOrAfter, reader.getField(name), time);
+		
+	}
+	
+	/**
+	 * Compare every record of the table
+	 * @return A bit for each selected record, bit 0 for record 1
+	 */
+	public BitSet select() {
+		int recLen = reader.getRecordLength();
+		int count = reader.getRecordCount();
+		int perChunk = Math.max(64, chunkBytes / recLen / 64 * 64);
+		long [] words = new long[(count + 63) / 64];
+		byte [] buf = new byte[perChunk * recLen + padding];
+		ByteBuffer data = reader.getData();
+		
+		for (int first = 0; first < count && !none; first += perChunk) {
+			int n = Math.min(perChunk, count - first);
+			
+			data.get(reader.recordStart(first + 1), buf, 0, n * recLen);
+			selectChunk(buf, n, words, first / 64);
+			
+		}
+		
+		return BitSet.valueOf(words);
+		
+	}
+	
+	/**
+	 * List the record numbers of an index range, or of any other list, that are selected
+	 * @param records Record numbers, in the order to visit them
+	 * @param selected The selected records, bit 0 for record 1
+	 * @return The selected record numbers in the same order
+	 */
+	public static PrimitiveIterator.OfInt filter(PrimitiveIterator.OfInt records, BitSet selected) {
+		
+		return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED), false)
+				            .filter(r -> r >= 1 && selected.get(r - 1))
+				            .iterator();
+				
+	}
+	
+	/**
+	 * List the selected record numbers in physical order
+	 * @param selected The selected records, bit 0 for record 1
+	 * @return The record numbers
+	 */
+	public static PrimitiveIterator.OfInt records(BitSet selected) {
+		return selected.stream().map(r -> r + 1).iterator();
+	}
+	
+	/**
+	 * Select the records of one chunk
+	 * @param buf The records of the chunk
+	 * @param n Number of records in the chunk
+	 * @param words The bitmap of the table
+	 * @param firstWord The word of the bitmap that holds the first record of the chunk
+	 */
+	private void selectChunk(byte [] buf, int n, long [] words, int firstWord) {
+		int recLen = reader.getRecordLength();
+		int wordCount = (n + 63) / 64;
+		
+		for (int w = 0; w < wordCount; w++) {
+			words[firstWord + w] = n - w * 64 >= 64 ? -1L : (1L << (n - w * 64)) - 1;
+		}
+		
+		for (ByteTerm t : byteTerms) {
+			byteTest(buf, n, t, words, firstWord);
+		}
+		
+		for (Term t : terms) {
+			for (int w = 0; w < wordCount; w++) {
+				long word = words[firstWord + w];
+				long kept = word;
+				
+				while (word != 0) {
+					int r = w * 64 + Long.numberOfTrailingZeros(word);
+					
+					kept ^= test(t, buf, r * recLen + t.offset) ? 0 : Long.lowestOneBit(word);
+					word &= word - 1;
+					
+				}
+				
+				words[firstWord + w] = kept;
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * Apply a single byte condition to a chunk, a word of the bitmap at a time
+	 * @param buf The records of the chunk
+	 * @param n Number of records in the chunk
+	 * @param t The condition
+	 * @param words The bitmap of the table
+	 * @param firstWord The word of the bitmap that holds the first record of the chunk
+	 */
+	private void byteTest(byte [] buf, int n, ByteTerm t, long [] words, int firstWord) {
+		int recLen = reader.getRecordLength();
+		
+		for (int g = 0; g < n; g += 64) {
+			int end = Math.min(64, n - g);
+			int pos = g * recLen + t.offset;
+			long keep = 0;
+			
+			for (int i = 0; i < end; i++, pos += recLen) {
+				keep |= (t.keep[buf[pos] & 0xFF] ? 1L : 0L) << i;
+			}
+			
+			words[firstWord + g / 64] &= keep;
+			
+		}
+		
+	}
+	
+	/**
+	 * Compare a field of a record with its key
+	 * @param t The condition
+	 * @param buf The records
+	 * @param pos Position of the field
+	 * @return true if the record meets the condition, otherwise false
+	 */
+	private boolean test(Term t, byte [] buf, int pos) {
+		boolean met;
+		int i = t.test == Test.Parsed ? -1 : kernel.mismatch(buf, pos, t.key, t.keyLength);
+		// A minus sign where the key has a blank or digit makes the field the smaller number
+		int cmp = i < 0 ? 0 : buf[pos + i] == '-' ? -1 : (buf[pos + i] & 0xFF) - (t.key[i] & 0xFF);
+		
+		switch (t.test) {
+			case Text:
+				met = i < 0 || i >= t.valueLength && blank(buf, pos + i, t.length - i);
+				break;
+			case Prefix:
+			case NumberEquals:
+				met = i < 0;
+				break;
+			case NumberAtLeast:
+			case AtOrAfter:
+				met = cmp >= 0;
+				break;
+			case NumberAtMost:
+				met = cmp <= 0;
+				break;
+			case Before:
+				met = cmp < 0;
+				break;
+			case Parsed:
+				met = t.parsed.test(DBFCodec.parseInt(ByteBuffer.wrap(buf), pos, t.length));
+				break;
+			default:
+				met = false;
+				break;
+		}
+		
+		return met;
+		
+	}
+	
+	/**
+	 * Add a condition on a character field
+	 * @param test How the field is compared
+	 * @param field The field
+	 * @param value The value
+	 * @return This scan
+	 */
+	private DBFScan text(Test test, DBFReader.Field field, String value) {
+		
+		if (value.length() > field.getLength()) {
+			none = true;
+		}
+		else {
+			// The whole field is compared, blank padded, so a field that holds a longer value does not match
+			String key = test == Test.Text ? String.format("%-" + field.getLength() + "s", value) : value;
+			
+			terms.add(new Term(test, field, key.getBytes(StandardCharsets.ISO_8859_1), value.length(), null));
+			
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Add a condition on a NUMERIC field.  A blank field decodes as 0 but sorts before every digit, so
+	 * only a positive value is compared as text.
+	 * @param test How the field is compared
+	 * @param field The field
+	 * @param value The value
+	 * @param parsed The same condition on the decoded number
+	 * @return This scan
+	 */
+	private DBFScan number(Test test, DBFReader.Field field, int value, IntPredicate parsed) {
+		String key = String.valueOf(value);
+		
+		if (value > 0 && key.length() <= field.getLength()) {
+			byte [] digits = String.format("%" + field.getLength() + "d", Integer.valueOf(value)).getBytes(StandardCharsets.ISO_8859_1);
+			
+			terms.add(new Term(test, field, digits, digits.length, null));
+			
+		}
+		else {
+			terms.add(new Term(Test.Parsed, field, null, 0, parsed));
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Add a condition on a timestamp field
+	 * @param test How the field is compared
+	 * @param field The field
+	 * @param time The time
+	 * @return This scan
+	 * @throws IOException If the field is too narrow for a timestamp
+	 */
+	private DBFScan timestamp(Test test, DBFReader.Field field, Date time) throws IOException {
+		
+		if (field.getLength() < DBFCodec.timestampLen) {
+			throw new IOException(ErrMsgs.DBF_LAYOUT.getMsg(reader.getFileSpec(), field.getName()));
+		}
+		
+		terms.add(new Term(test, field, TimestampCodec.Storage.format(time).getBytes(StandardCharsets.ISO_8859_1), DBFCodec.timestampLen, null));
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Determine if the rest of a field is blank
+	 * @param buf The records
+	 * @param pos Position of the first byte to check
+	 * @param len Number of bytes to check
+	 * @return true if every byte is a blank or a null
+	 */
+	private static boolean blank(byte [] buf, int pos, int len) {
+		boolean ok = true;
+		
+		for (int i = 0; i < len && ok; i++) {
+			ok = buf[pos + i] == ' ' || buf[pos + i] == 0;
+		}
+		
+		return ok;
+		
+	}
+	
+	/**
+	 * Create the vector kernel
+	 * @return The vector kernel or a scalar kernel if the Vector API is not available
+	 */
+	private static Kernel newVectorKernel() {
+		Kernel k = null;
+		
+		if (vectorConstructor != null) {
+			try {
+				k = vectorConstructor.newInstance();
+			}
+			catch (ReflectiveOperationException e) {
+				k = null;
+			}
+		}
+		
+		return k == null ? new ScalarKernel() : k;
+		
+	}
+	
+	/**
+	 * Find the vector kernel.  It is not referenced directly so that this class loads without the
+	 * jdk.incubator.vector module.
+	 * @return The constructor of the kernel or null if the module is not present
+	 */
+	private static Constructor<? extends Kernel> findVectorKernel() {
+		Constructor<? extends Kernel> c = null;
+		
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			try {
+				c = Class.forName(vectorKernel).asSubclass(Kernel.class).getDeclaredConstructor();
+			}
+			catch (ReflectiveOperationException | LinkageError e) {
+				c = null;
+			}
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Compares a field one byte at a time
+	 */
+	private static final class ScalarKernel implements Kernel {
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.DBFScan.Kernel#mismatch(byte[], int, byte[], int)
+		 */
+		@Override
+		public int mismatch(byte [] buf, int pos, byte [] key, int len) {
+			int found = -1;
+			
+			for (int i = 0; i < len && found < 0; i++) {
+				if (buf[pos + i] != key[i]) {
+					found = i;
+				}
+			}
+			
+			return found;
+			
+		}
+		
+	}
+	
+}
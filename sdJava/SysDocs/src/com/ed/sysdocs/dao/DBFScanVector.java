@@ -0,0 +1,46 @@
+package com.ed.sysdocs.dao;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares a field with its key for a {@link DBFScan} with the Vector API.<br>
+ * The field and the key are each loaded as one vector, past their end, and compared lane by lane.
+ * The first lane that differs is the first byte that differs, unless it is past the end of the key.
+ * Fields wider than a vector take a vector per step.<br>
+ * This class needs the jdk.incubator.vector module to compile and to load.  DBFScan only loads it
+ * when the module is present.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+final class DBFScanVector implements DBFScan.Kernel {
+	
+	/** 16 bytes, as wide as most fields, which every CPU with vectors has */
+	private static final VectorSpecies<Byte> species = ByteVector.SPECIES_128;
+	
+	/*
+	 * (non-Javadoc)
+	 * @see com.ed.sysdocs.dao.DBFScan.Kernel#mismatch(byte[], int, byte[], int)
+	 */
+	@Override
+	public int mismatch(byte [] buf, int pos, byte [] key, int len) {
+		int found = -1;
+		
+		for (int i = 0; i < len && found < 0; i += species.length()) {
+			ByteVector field = ByteVector.fromArray(species, buf, pos + i);
+			int lane = field.compare(VectorOperators.NE, ByteVector.fromArray(species, key, i)).firstTrue();
+			
+			// Lanes past the end of the key hold whatever follows the field
+			if (i + lane < len) {
+				found = i + lane;
+			}
+			
+		}
+		
+		return found;
+		
+	}
+	
+}
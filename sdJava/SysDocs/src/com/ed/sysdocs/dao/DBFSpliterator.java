@@ -0,0 +1,179 @@
+package com.ed.sysdocs.dao;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits the records of a table image into ranges of record numbers so that a parallel stream can
+ * decode them on the threads of a {@link java.util.concurrent.ForkJoinPool}.<br>
+ * Each split takes the first half of the remaining records, down to {@link #minChunk} records, so the
+ * chunks of a large table keep every core busy and a small table is decoded on one thread.  The
+ * image is only read, with absolute positions, so the chunks share the reader and the decoder.  The
+ * decoder must therefore keep nothing of a record between calls, which holds for a decoder that only
+ * looks up its fields when it is bound.<br>
+ * Deleted records and rows rejected by the decoder are skipped, so the size of a split is only an
+ * estimate.
+ * @param <T> Type of the decoded records
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFSpliterator<T> implements Spliterator<T> {
+	
+	/** Fewest records in a chunk, below this a range is not split */
+	public static final int minChunk = 4096;
+	
+	/** The table */
+	private final DBFReader reader;
+	
+	/** Decoder bound to the table */
+	private final RecordDecoder<T> decoder;
+	
+	/** The next record to decode */
+	private int next;
+	
+	/** The record after the last one of the range */
+	private final int end;
+	
+	/**
+	 * Constructor for every record of a table
+	 * @param reader The table
+	 * @param decoder Decoder bound to the table
+	 */
+	public DBFSpliterator(DBFReader reader, RecordDecoder<T> decoder) {
+		
+		this(reader, decoder, 1, reader.getRecordCount() + 1);
+		
+	}
+	
+	/**
+	 * Constructor for a range of records
+	 * @param reader The table
+	 * @param decoder Decoder bound to the table
+	 * @param from The first record, starting at 1
+	 * @param end The record after the last one
+	 */
+	private DBFSpliterator(DBFReader reader, RecordDecoder<T> decoder, int from, int end) {
+		
+		super();
+		this.reader = reader;
+		this.decoder = decoder;
+		this.next = from;
+		this.end = end;
+		
+	}
+	
+	/**
+	 * Stream every record of a table, a new object for each row
+	 * @param <T> Type of the decoded records
+	 * @param reader The table
+	 * @param decoder Decoder bound to the table
+	 * @param parallel true to decode the chunks in parallel
+	 * @return The records, in physical order unless the stream is made unordered
+	 */
+	public static <T> Stream<T> stream(DBFReader reader, RecordDecoder<T> decoder, boolean parallel) {
+		
+		return StreamSupport.stream(new DBFSpliterator<>(reader, decoder), parallel);
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+	 */
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		T record = null;
+		
+		while (record == null && next < end) {
+			record = decode(next++);
+		}
+		
+		if (record != null) {
+			action.accept(record);
+		}
+		
+		return record != null;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator#forEachRemaining(java.util.function.Consumer)
+	 */
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		
+		while (next < end) {
+			T record = decode(next++);
+			
+			if (record != null) {
+				action.accept(record);
+			}
+			
+		}
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator#trySplit()
+	 */
+	@Override
+	public Spliterator<T> trySplit() {
+		DBFSpliterator<T> prefix = null;
+		
+		if (end - next >= 2 * minChunk) {
+			int mid = next + (end - next) / 2;
+			
+			prefix = new DBFSpliterator<>(reader, decoder, next, mid);
+			next = mid;
+			
+		}
+		
+		return prefix;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator#estimateSize()
+	 */
+	@Override
+	public long estimateSize() {
+		return end - next;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.Spliterator#characteristics()
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+	
+	/**
+	 * Decode a record that is not deleted and is accepted by the decoder
+	 * @param recNo The record number
+	 * @return A new record or null to skip the row
+	 */
+	private T decode(int recNo) {
+		T record = null;
+		
+		if (!reader.isDeleted(recNo)) {
+			T candidate = decoder.newRecord();
+			
+			if (decoder.decode(recNo, candidate)) {
+				record = candidate;
+			}
+			
+		}
+		
+		return record;
+		
+	}
+	
+}
@@ -0,0 +1,459 @@
+package com.ed.sysdocs.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application wide cache of the decoded contents of the DBF tables.<br>
+ * Each table is decoded once and shared by every request until its files change.  The directory
+ * of each cached table is registered with a WatchService, so a read of a warm entry does not touch
+ * the disk.  When an event arrives the size and modification time of the table and its indexes,
+ * and the generation of the table kept by {@link DBFLock}, are compared with the values recorded
+ * when the entry was loaded, and the entry is dropped if they differ.  If the file system cannot be watched, every read makes that comparison instead.<br>
+ * Writes made through the DAOs are applied to the cache by {@link #refresh(String, List, long[])}
+ * while the writer still holds the table.  Contents that are {@link Incremental} apply the changes
+ * that were written to a copy of themselves, other contents are reloaded.  Other loads take the
+ * read lock of the table before the entry, the same order as a writer, so a load never sees a
+ * write half done.<br>
+ * A table may be cached in more than one form, each under its own view name.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class DBFTableCache {
+	
+	/**
+	 * Decodes the contents of a table
+	 * @param <T> Type of the decoded contents
+	 */
+	@FunctionalInterface
+	public interface Loader<T> {
+		
+		/**
+		 * Read and decode a table
+		 * @return The decoded contents, which must not be modified once loaded
+		 * @throws IOException If the table cannot be read
+		 */
+		T load() throws IOException;
+		
+	}
+	
+	/**
+	 * Decoded contents that can apply the changes written to their table instead of being reloaded
+	 * @param <T> Type of the decoded contents
+	 */
+	@FunctionalInterface
+	public interface Incremental<T> {
+		
+		/**
+		 * Apply changes to a copy of the contents, which must not be modified
+		 * @param changes The changes written to the table, in order
+		 * @return The updated copy or null if the changes cannot be applied and the table must be reloaded
+		 */
+		T apply(List<DBFJournal.Change> changes);
+		
+	}
+	
+	/** Separates the DBF file specification from the view name in the key of an entry */
+	private static final char viewSep = '#';
+	
+	/** Cached tables keyed by DBF file specification and view name */
+	private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	
+	/** Watched directories, the value is false if the directory cannot be watched */
+	private static final Map<Path, Boolean> directories = new ConcurrentHashMap<>();
+	
+	/** Receives the change events of the watched directories or null if watching is not supported */
+	private static final WatchService watcher = openWatcher();
+	
+	/**
+	 * Constructor, not used
+	 */
+	private DBFTableCache() {
+		super();
+	}
+	
+	/**
+	 * Retrieve the decoded contents of a table, loading them if they are not cached or are out of date
+	 * @param <T> Type of the decoded contents
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param loader Decodes the table
+	 * @param ndxFileSpecs File specifications of any indexes used by the loader
+	 * @return The decoded contents, shared by every caller
+	 * @throws IOException If the table cannot be read
+	 */
+	public static <T> T get(String dbfFileSpec, Loader<T> loader, String... ndxFileSpecs) throws IOException {
+		return get(dbfFileSpec, "", loader, ndxFileSpecs);
+	}
+	
+	/**
+	 * Retrieve one view of the decoded contents of a table, loading it if it is not cached or is out of date
+	 * @param <T> Type of the decoded contents
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param view Name of the view, which tells apart the forms in which a table is cached
+	 * @param loader Decodes the table
+	 * @param ndxFileSpecs File specifications of any indexes used by the loader
+	 * @return The decoded contents, shared by every caller
+	 * @throws IOException If the table cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T get(String dbfFileSpec, String view, Loader<T> loader, String... ndxFileSpecs) throws IOException {
+		Entry entry = entries.computeIfAbsent(dbfFileSpec + viewSep + view, k -> new Entry(dbfFileSpec, ndxFileSpecs));
+		
+		return (T) entry.get(loader);
+		
+	}
+	
+	/**
+	 * Reload every view of a cached table after it was written by this application.  Must be called
+	 * while the writer still has exclusive use of the table.
+	 * @param dbfFileSpec File specification of the DBF file
+	 */
+	public static void refresh(String dbfFileSpec) {
+		refresh(dbfFileSpec, null, null);
+	}
+	
+	/**
+	 * Bring every view of a cached table up to date after it was written by this application.  Must be
+	 * called while the writer still has exclusive use of the table.  A view that is {@link Incremental}
+	 * applies the changes, provided it was decoded from the table as the writer found it, other views
+	 * are reloaded.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param changes Every change written, in order, or null if the writes are not known
+	 * @param before Modification time and size of the DBF file and generation of the table when the writer
+	 *               took the table, the first three values of the array, or null if not known
+	 */
+	public static void refresh(String dbfFileSpec, List<DBFJournal.Change> changes, long [] before) {
+		
+		for (Entry entry : entries.values()) {
+			if (entry.isFor(dbfFileSpec)) {
+				entry.reload(changes, before);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Drop the cached contents of every view of a table
+	 * @param dbfFileSpec File specification of the DBF file
+	 */
+	public static void invalidate(String dbfFileSpec) {
+		
+		for (Entry entry : entries.values()) {
+			if (entry.isFor(dbfFileSpec)) {
+				entry.drop();
+			}
+		}
+		
+	}
+	
+	/**
+	 * The cached contents of one table
+	 */
+	private static class Entry {
+		
+		/** The table and its indexes */
+		private final String [] files;
+		
+		/** true if the directory of the table is watched, otherwise every read checks the files */
+		private final boolean watched;
+		
+		/** The most recent loader, used to reload the table after a write */
+		private Loader<?> loader = null;
+		
+		/** The decoded contents or null if they must be loaded */
+		private volatile Loaded current = null;
+		
+		/** The most recent contents, kept when they are dropped so that a write can be applied to them */
+		private Loaded last = null;
+		
+		/**
+		 * Constructor
+		 * @param dbfFileSpec File specification of the DBF file
+		 * @param ndxFileSpecs File specifications of the indexes used by the loader
+		 */
+		Entry(String dbfFileSpec, String... ndxFileSpecs) {
+			
+			files = new String[ndxFileSpecs.length + 1];
+			files[0] = dbfFileSpec;
+			System.arraycopy(ndxFileSpecs, 0, files, 1, ndxFileSpecs.length);
+			watched = watch(new File(dbfFileSpec).getAbsoluteFile().toPath().getParent());
+			
+		}
+		
+		/**
+		 * Retrieve the contents, loading them if necessary
+		 * @param loader Decodes the table
+		 * @return The decoded contents
+		 * @throws IOException If the table cannot be read or stays locked by a writer
+		 */
+		Object get(Loader<?> loader) throws IOException {
+			Loaded loaded = current;
+			
+			if (loaded == null || (!watched && !Arrays.equals(loaded.stamp, stamp()))) {
+				DBFLock.Hold hold = DBFLock.forTable(files[0]).read();
+				
+				try {
+					synchronized (this) {
+						loaded = current;
+						
+						if (loaded == null || !Arrays.equals(loaded.stamp, stamp())) {
+							this.loader = loader;
+							loaded = load();
+						}
+						
+					}
+				}
+				finally {
+					hold.close();
+				}
+			}
+			
+			return loaded.value;
+			
+		}
+		
+		/**
+		 * Apply changes to the most recent contents if they are incremental and were decoded from the
+		 * table as the writer found it, otherwise reload them with the most recent loader.  The contents
+		 * are dropped if that fails.
+		 * @param changes The changes written, in order, or null if they are not known
+		 * @param before Modification time and size of the DBF file and generation of the table when the writer took the table or null
+		 */
+		synchronized void reload(List<DBFJournal.Change> changes, long [] before) {
+			Loaded base = last;
+			Object value = null;
+			
+			try {
+				if (base != null && changes != null && before != null && base.value instanceof Incremental
+						&& Arrays.equals(base.stamp, 0, 3, before, 0, 3)) {
+					value = ((Incremental<?>) base.value).apply(changes);
+				}
+				
+				if (value != null) {
+					last = new Loaded(value, stamp());
+					current = last;
+				}
+				else if (loader != null) {
+					load();
+				}
+				
+			}
+			catch (IOException | RuntimeException e) {
+				drop();
+			}
+			
+		}
+		
+		/**
+		 * Drop the contents, so that the next read loads them and the next write cannot be applied to them
+		 */
+		synchronized void drop() {
+			
+			current = null;
+			last = null;
+			
+		}
+		
+		/**
+		 * Drop the contents if the files no longer match them
+		 */
+		void check() {
+			Loaded loaded = current;
+			
+			try {
+				if (loaded != null && !Arrays.equals(loaded.stamp, stamp())) {
+					current = null;
+				}
+			}
+			catch (IOException e) {
+				current = null;
+			}
+			
+		}
+		
+		/**
+		 * Determine if this is a view of a table
+		 * @param dbfFileSpec File specification of the DBF file
+		 * @return true if the entry caches the table, otherwise false
+		 */
+		boolean isFor(String dbfFileSpec) {
+			return files[0].equals(dbfFileSpec);
+		}
+		
+		/**
+		 * Determine if the table is in a directory
+		 * @param dir The directory
+		 * @return true if the DBF file is in the directory, otherwise false
+		 */
+		boolean isIn(Path dir) {
+			return dir.equals(new File(files[0]).getAbsoluteFile().toPath().getParent());
+		}
+		
+		/**
+		 * Load the contents.  The files are stamped first, so a change made during the load
+		 * causes the next check to drop the contents.
+		 * @return The new contents
+		 * @throws IOException If the table cannot be read
+		 */
+		private Loaded load() throws IOException {
+			long [] stamp = stamp();
+			Loaded loaded = new Loaded(loader.load(), stamp);
+			
+			last = loaded;
+			current = loaded;
+			
+			return loaded;
+			
+		}
+		
+		/**
+		 * Record the size and modification time of the table and its indexes and the generation of the
+		 * table, which changes with every write even if the files keep their size and time
+		 * @return The modification time and size of the DBF, the generation, then the time and size of each index
+		 * @throws IOException If the generation of the table cannot be read
+		 */
+		private long [] stamp() throws IOException {
+			long [] stamp = new long[files.length * 2 + 1];
+			File dbf = new File(files[0]);
+			
+			stamp[0] = dbf.lastModified();
+			stamp[1] = dbf.length();
+			stamp[2] = DBFLock.forTable(files[0]).generation();
+			
+			for (int i = 1; i < files.length; i++) {
+				File f = new File(files[i]);
+				
+				stamp[i * 2 + 1] = f.lastModified();
+				stamp[i * 2 + 2] = f.length();
+				
+			}
+			
+			return stamp;
+			
+		}
+		
+	}
+	
+	/**
+	 * Decoded contents and the state of the files they were decoded from
+	 */
+	private static class Loaded {
+		
+		private final Object value;
+		private final long [] stamp;
+		
+		/**
+		 * Constructor
+		 * @param value The decoded contents
+		 * @param stamp Size and modification time of each file and generation of the table when the load started
+		 */
+		Loaded(Object value, long [] stamp) {
+			
+			this.value = value;
+			this.stamp = stamp;
+			
+		}
+		
+	}
+	
+	/**
+	 * Start watching a directory
+	 * @param dir The directory
+	 * @return true if the directory is watched, otherwise false
+	 */
+	private static boolean watch(Path dir) {
+		
+		return directories.computeIfAbsent(dir, d -> {
+			boolean ok = watcher != null;
+			
+			try {
+				if (ok) {
+					d.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+							   StandardWatchEventKinds.ENTRY_MODIFY);
+				}
+			}
+			catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+				ok = false;
+			}
+			
+			return Boolean.valueOf(ok);
+			
+		}).booleanValue();
+		
+	}
+	
+	/**
+	 * Create the watch service and start the thread that processes its events
+	 * @return The watch service or null if the default file system cannot be watched
+	 */
+	private static WatchService openWatcher() {
+		WatchService ws;
+		
+		try {
+			ws = FileSystems.getDefault().newWatchService();
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			ws = null;
+		}
+		
+		if (ws != null) {
+			WatchService service = ws;
+			Thread t = new Thread(() -> processEvents(service), "DBFTableCache watcher");
+			
+			t.setDaemon(true);
+			t.start();
+			
+		}
+		
+		return ws;
+		
+	}
+	
+	/**
+	 * Check the tables of each directory that reports a change.  The events themselves are not
+	 * examined, a change to any file of the directory causes its tables to be checked.
+	 * @param ws The watch service
+	 */
+	private static void processEvents(WatchService ws) {
+		boolean running = true;
+		
+		while (running) {
+			try {
+				WatchKey key = ws.take();
+				Path dir = (Path) key.watchable();
+				
+				key.pollEvents();
+				
+				for (Entry entry : entries.values()) {
+					if (entry.isIn(dir)) {
+						entry.check();
+					}
+				}
+				
+				if (!key.reset()) {
+					// The directory is gone, stop trusting the events for it
+					directories.remove(dir);
+					entries.values().removeIf(entry -> entry.isIn(dir));
+				}
+				
+			}
+			catch (InterruptedException | ClosedWatchServiceException e) {
+				running = false;
+			}
+			
+		}
+		
+	}
+	
+}
@@ -1,17 +1,22 @@
 package com.ed.sysdocs.dao;
 
-import java.io.File;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.stream.Collector;
 
 import org.xBaseJ.DBF;
 import org.xBaseJ.xBaseJException;
 import org.xBaseJ.fields.LogicalField;
 
 import com.ed.pojo.DbfMetaData;
+import com.ed.sysdocs.ErrMsgs;
+import com.ed.sysdocs.LogOps;
 import com.ed.sysdocs.SysConstants;
+import com.ed.sysdocs.TimestampCodec;
 
 /**
  * General utilities for processing DBF files
@@ -24,12 +29,40 @@ public abstract class DBFUtilities {
 	/** Operator for joining terms together in an index key */
 	public static final char keyOp = '+';
 	
-	/** Date format for storing date/times */
-	protected static final SimpleDateFormat sdf = new SimpleDateFormat(SysConstants.timestampFmt);
-
 	/** Root of the directory path where the data file is located */
 	protected String rootDir;
 	
+	/**
+	 * Copies the values of a new record into the record buffer of a table
+	 */
+	@FunctionalInterface
+	protected interface RecordWriter {
+		
+		/**
+		 * Put the values of the new record into the fields of the table
+		 * @param dbf The open table
+		 * @throws xBaseJException If a value does not fit its field
+		 * @throws IOException If the table cannot be updated
+		 */
+		void put(DBF dbf) throws xBaseJException, IOException;
+		
+	}
+	
+	/**
+	 * Adds the conditions of a {@link DBFScan} that selects the records a cursor visits
+	 */
+	@FunctionalInterface
+	protected interface ScanFilter {
+		
+		/**
+		 * Add the conditions to the scan
+		 * @param scan The scan of the table
+		 * @throws IOException If a field of a condition is not in the table
+		 */
+		void addTo(DBFScan scan) throws IOException;
+		
+	}
+	
 	/**
 	 * Getter
 	 * @return Root of the directory path where the data file is located
@@ -105,14 +138,521 @@ public abstract class DBFUtilities {
 	}
 	
 	/**
-	 * Generate an index.  Any current index will be deleted.
+	 * Replace the extension of a file specification
+	 * @param fileSpec The file specification
+	 * @param ext The new extension, including the period
+	 * @return The file specification with the new extension, which is appended if there was none
+	 */
+	public static String replaceExtension(String fileSpec, String ext) {
+		int dot = fileSpec.lastIndexOf('.');
+		
+		return (dot > fileSpec.lastIndexOf(SysConstants.dirSep) ? fileSpec.substring(0, dot) : fileSpec) + ext;
+		
+	}
+	
+	/**
+	 * Obtain the pooled, open handle of a table to change it.  The handle must be closed, which returns
+	 * it to the pool, when the caller is done with it.  The write lock of the table is held until then.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return The open table with all of its indexes attached
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	protected DBFHandle openTable(String dbfFileSpec, String... ndxFileSpecs) throws xBaseJException, IOException {
+		
+		return DBFHandlePool.acquire(dbfFileSpec, ndxFileSpecs);
+		
+	}
+	
+	/**
+	 * Obtain a pooled, open handle of a table to read it.  The handle must be closed, which returns it to
+	 * the pool, when the caller is done with it.  The read lock of the table is held until then, so other
+	 * readers are not kept waiting, and the table cannot be changed through the handle.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return The open table with all of its indexes attached
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	protected DBFHandle readTable(String dbfFileSpec, String... ndxFileSpecs) throws xBaseJException, IOException {
+		
+		return DBFHandlePool.acquireRead(dbfFileSpec, ndxFileSpecs);
+		
+	}
+	
+	/**
+	 * Load a read-only image of a table for full table scans.  Records are decoded directly from the
+	 * file, in physical order, without going through xBaseJ or the indexes.  The read lock of the table
+	 * is held while the image is loaded.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @return The table image
+	 * @throws IOException If the table cannot be read, its header is not valid or it stays locked by a writer
+	 */
+	protected DBFReader openReader(String dbfFileSpec) throws IOException {
+		DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).read();
+		DBFReader reader;
+		
+		try {
+			reader = new DBFReader(dbfFileSpec);
+		}
+		finally {
+			hold.close();
+		}
+		
+		return reader;
+		
+	}
+	
+	/**
+	 * Open a cursor over every record of a table, in physical order
+	 * @param <T> Type of the decoded records
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param factory Creates the decoder of the records
+	 * @return The open cursor
+	 * @throws IOException If the table cannot be read or does not have the expected layout
+	 */
+	protected <T> DBFCursor<T> openCursor(String dbfFileSpec, RecordDecoder.Factory<T> factory) throws IOException {
+		DBFReader reader = openReader(dbfFileSpec);
+		
+		return new DBFCursor<>(reader, factory.bind(reader));
+		
+	}
+	
+	/**
+	 * Open a cursor over the records whose index key starts with a prefix, in key order.  The index
+	 * is read directly, the records are not located one seek at a time.
+	 * @param <T> Type of the decoded records
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpec File specification of the index
+	 * @param keyPrefix The beginning of the keys to visit, an empty string visits every record
+	 * @param factory Creates the decoder of the records
+	 * @return The open cursor
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	protected <T> DBFCursor<T> openCursor(String dbfFileSpec, String ndxFileSpec, String keyPrefix, RecordDecoder.Factory<T> factory) throws IOException {
+		
+		return openCursor(dbfFileSpec, ndxFileSpec, keyPrefix, null, factory);
+		
+	}
+	
+	/**
+	 * Open a cursor over the records whose index key starts with a prefix, in key order, that are
+	 * selected by a scan of the record bytes.  Only the selected records are decoded.
+	 * @param <T> Type of the decoded records
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param ndxFileSpec File specification of the index
+	 * @param keyPrefix The beginning of the keys to visit, an empty string visits every record
+	 * @param filter Adds the conditions of the scan or null to decode every record in the range
+	 * @param factory Creates the decoder of the records
+	 * @return The open cursor
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	protected <T> DBFCursor<T> openCursor(String dbfFileSpec,
+			                              String ndxFileSpec,
+			                              String keyPrefix,
+			                              ScanFilter filter,
+			                              RecordDecoder.Factory<T> factory)
+			  throws IOException {
+		PrimitiveIterator.OfInt records;
+		DBFReader reader;
+		NDXReader index;
+		DBFLock.Hold hold;
+		
+		// One read lock covers both files, so the index matches the table
+		hold = DBFLock.forTable(dbfFileSpec).read();
+		
+		try {
+			reader = openReader(dbfFileSpec);
+			index = new NDXReader(ndxFileSpec);
+		}
+		finally {
+			hold.close();
+		}
+		
+		records = index.range(keyPrefix);
+		
+		if (filter != null) {
+			DBFScan scan = new DBFScan(reader);
+			
+			filter.addTo(scan);
+			records = DBFScan.filter(records, scan.select());
+			
+		}
+		
+		return new DBFCursor<>(reader, records, factory.bind(reader));
+		
+	}
+	
+	/**
+	 * Run a query on a table.  The records are read over the key range of the index picked by the plan
+	 * of the query, or in physical order when no index bounds the query, and every condition is tested
+	 * on the record bytes before the record is projected.
+	 * @param <F> The Fields enum of the table
+	 * @param <T> Type of the results
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param fieldsType The Fields enum of the table
+	 * @param indexes Every index of the table, with the fields of its key
+	 * @param query The query
+	 * @param projection Builds a result from each matching record
+	 * @return The results, in the key order of the index or in physical order
+	 * @throws IOException If the table or index cannot be read or a field of the query is not in the table
+	 */
+	protected <F extends Enum<F>, T> List<T> runQuery(String dbfFileSpec,
+			                                          Class<F> fieldsType,
+			                                          List<DBFQuery.Index<F>> indexes,
+			                                          DBFQuery<F> query,
+			                                          DBFQuery.Projection<F, T> projection)
+			  throws IOException {
+		DBFQueryPlan<F> plan = DBFQueryPlan.forQuery(dbfFileSpec, indexes, query);
+		List<T> results = new ArrayList<>();
+		DBFReader reader;
+		NDXReader index = null;
+		DBFLock.Hold hold;
+		
+		// One read lock covers both files, so the index matches the table
+		hold = DBFLock.forTable(dbfFileSpec).read();
+		
+		try {
+			reader = openReader(dbfFileSpec);
+			
+			if (plan.getNdxFileSpec() != null) {
+				index = new NDXReader(plan.getNdxFileSpec());
+			}
+			
+		}
+		finally {
+			hold.close();
+		}
+		
+		DBFQuery.BoundRow<F> row = new DBFQuery.BoundRow<>(reader, fieldsType, query.getConditions());
+		String [] range = index == null ? null : plan.range(reader, query);
+		PrimitiveIterator.OfInt records;
+		
+		if (range == null || range[0].isEmpty() && range[1].isEmpty()) {
+			// Without a key range the conditions are compared on the record bytes first
+			DBFScan scan = new DBFScan(reader);
+			
+			for (DBFQuery.Condition<F> c : query.getConditions()) {
+				c.addTo(scan);
+			}
+			
+			records = DBFScan.records(scan.select());
+			
+		}
+		else {
+			records = index.range(range[0], range[1]);
+		}
+		
+		DBFCursor<DBFQuery.Row<F>> cursor = new DBFCursor<>(reader, records, row);
+			
+		cursor.visit(r -> results.add(projection.project(r)));
+		
+		return results;
+		
+	}
+	
+	/**
+	 * Decode every record of a table in parallel and merge the results with a collector.  The records
+	 * are split into chunks of at least {@link DBFSpliterator#minChunk} records, each decoded on the
+	 * common fork/join pool, so only tables of several chunks are spread over the cores.  The decoder is
+	 * shared by the chunks.  The collector sees the records in physical order unless it is unordered.
+	 * @param <T> Type of the decoded records
+	 * @param <A> Type of the intermediate results of the collector
+	 * @param <R> Type of the result
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param factory Creates the decoder of the records
+	 * @param collector Merges the records of all chunks
+	 * @return The result of the collector
+	 * @throws IOException If the table cannot be read or does not have the expected layout
+	 */
+	protected <T, A, R> R scanParallel(String dbfFileSpec, RecordDecoder.Factory<T> factory, Collector<? super T, A, R> collector) throws IOException {
+		DBFReader reader = openReader(dbfFileSpec);
+		
+		return DBFSpliterator.stream(reader, factory.bind(reader), true).collect(collector);
+		
+	}
+	
+	/**
+	 * Add a record to a table.  If the table has a deleted record, the new record is written over it and
+	 * the attached indexes are updated in place, otherwise the record is appended.
+	 * @param handle The open table
+	 * @param writer Puts the values of the new record
+	 * @throws xBaseJException If the record cannot be written
+	 * @throws IOException If the table cannot be updated
+	 */
+	protected void insertRecord(DBFHandle handle, RecordWriter writer) throws xBaseJException, IOException {
+		DBF dbf = handle.getDbf();
+		boolean reused = false;
+		int recNo;
+		
+		handle.checkWritable();
+		
+		while (!reused && (recNo = handle.takeFree()) > 0) {
+			if (recNo <= dbf.getRecordCount()) {
+				dbf.gotoRecord(recNo);
+				reused = dbf.deleted();
+			}
+		}
+		
+		writer.put(dbf);
+		
+		if (reused) {
+			dbf.update();
+			dbf.undelete();
+		}
+		else {
+			dbf.write();
+		}
+		
+		handle.modified();
+		
+	}
+	
+	/**
+	 * Journal a batch of changes and then apply them to a table.  The batch is on disk before the table
+	 * is changed, if it is not completely applied it is applied again by the next {@link #recover}.
+	 * @param handle The open table
+	 * @param keyNdxFileSpec File specification of the unique index that locates the records by key
+	 * @param changes The changes to apply, in order
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return For each change, true if it was applied or false if an update or delete did not find its record
+	 * @throws xBaseJException If a record cannot be written
+	 * @throws IOException If the journal cannot be written or the table cannot be updated
+	 */
+	protected boolean [] applyChanges(DBFHandle handle,
+			                          String keyNdxFileSpec,
+			                          List<DBFJournal.Change> changes,
+			                          String... ndxFileSpecs)
+			  throws xBaseJException,
+			         IOException {
+		boolean [] done = new boolean[changes.size()];
+		
+		handle.checkWritable();
+		
+		if (!changes.isEmpty()) {
+			DBFJournal journal = DBFJournal.forTable(handle.getDbfFileSpec(), ndxFileSpecs);
+			long seq = journal.commit(changes);
+			
+			try {
+				for (int i = 0; i < changes.size(); i++) {
+					done[i] = applyChange(handle, keyNdxFileSpec, changes.get(i));
+					
+					if (done[i]) {
+						handle.described(changes.get(i));
+					}
+					
+				}
+			}
+			catch (xBaseJException | IOException | RuntimeException e) {
+				journal.failed(seq);
+				throw e;
+			}
+			
+			journal.applied(seq);
+			
+		}
+		
+		return done;
+		
+	}
+	
+	/**
+	 * Journal an update to the record the table is positioned on and write it in place.  The record
+	 * is not located again through the key index, the caller found it while holding the handle.  Only
+	 * the fields of the change are written, and xBaseJ moves the entries of any attached index whose
+	 * key changed.  A replay applies the change by its key, like any other update.
+	 * @param handle The open table, positioned on the record to update
+	 * @param change The update, keyed by the key of the current record
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @throws xBaseJException If the record cannot be written
+	 * @throws IOException If the journal cannot be written or the table cannot be updated
+	 */
+	protected void updateCurrent(DBFHandle handle, DBFJournal.Change change, String... ndxFileSpecs) throws xBaseJException, IOException {
+		DBFJournal journal;
+		long seq;
+		DBF dbf = handle.getDbf();
+		
+		handle.checkWritable();
+		journal = DBFJournal.forTable(handle.getDbfFileSpec(), ndxFileSpecs);
+		seq = journal.commit(List.of(change));
+		
+		try {
+			putFields(dbf, change);
+			dbf.update();
+			handle.modified();
+			handle.described(change);
+		}
+		catch (xBaseJException | IOException | RuntimeException e) {
+			journal.failed(seq);
+			throw e;
+		}
+		
+		journal.applied(seq);
+		
+	}
+	
+	/**
+	 * Apply any changes of the journal of a table that may not have been applied, after a crash or a failed
+	 * batch, in this or another process.  The indexes are rebuilt from the table first, then every change in
+	 * the journal is applied again.  A change that the table rejects is skipped, it also failed when it was
+	 * first made, and is written to the {@link SysConstants#recoveryLog} log of the site.  The write lock of
+	 * the table is only taken if the journal may need to be replayed.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param keyNdxFileSpec File specification of the unique index that locates the records by key
+	 * @param ndxFileSpecs File specifications of every index of the table
+	 * @return Number of changes that were skipped
+	 * @throws SecurityException If the OS will not allow the indexes to be rebuilt
+	 * @throws xBaseJException If the table cannot be updated
+	 * @throws IOException If the journal cannot be read or the table cannot be updated
+	 */
+	protected int recover(String dbfFileSpec, String keyNdxFileSpec, String... ndxFileSpecs) throws SecurityException, xBaseJException, IOException {
+		DBFJournal journal = DBFJournal.forTable(dbfFileSpec, ndxFileSpecs);
+		List<String> skipped = new ArrayList<>();
+		
+		if (journal.mayNeedReplay()) {
+			DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).write();
+			
+			try {
+				journal.replay(changes -> {
+					index();
+					
+					try (DBFHandle handle = openTable(dbfFileSpec, ndxFileSpecs)) {
+						for (DBFJournal.Change change : changes) {
+							try {
+								applyChange(handle, keyNdxFileSpec, change);
+							}
+							catch (xBaseJException e) {
+								// Rejected by the table, as it was when the change was first made
+								skipped.add(ErrMsgs.REPLAY_SKIPPED.getMsg(change.getType().name(), change.getKey().trim(), dbfFileSpec, e.getMessage()));
+							}
+						}
+					}
+					
+				});
+			}
+			finally {
+				hold.close();
+			}
+		}
+		
+		try {
+			LogOps log = new LogOps(rootDir);
+			
+			for (String msg : skipped) {
+				log.append(SysConstants.recoveryLog, msg);
+			}
+			
+		}
+		catch (IOException e) {
+			// The table is recovered, the number of skipped changes is still returned
+		}
+		
+		return skipped.size();
+		
+	}
+	
+	/**
+	 * Apply one change to a table
+	 * @param handle The open table
+	 * @param keyNdxFileSpec File specification of the unique index that locates the records by key
+	 * @param change The change
+	 * @return true if the change was applied, false if an update or delete did not find its record or an
+	 * insert found a live record with its key
+	 * @throws xBaseJException If the record cannot be written
+	 * @throws IOException If the table cannot be updated
+	 */
+	private boolean applyChange(DBFHandle handle, String keyNdxFileSpec, DBFJournal.Change change) throws xBaseJException, IOException {
+		boolean found = handle.findExact(keyNdxFileSpec, change.getKey());
+		DBF dbf = handle.getDbf();
+		boolean live = found && !dbf.deleted();
+		boolean done = false;
+		
+		switch (change.getType()) {
+			case Delete:
+				done = live && markDeleted(handle);
+				break;
+			case Update:
+				if (live) {
+					putFields(dbf, change);
+					dbf.update();
+					handle.modified();
+					done = true;
+				}
+				break;
+			case Insert:
+			case Upsert:
+				// A deleted record still holds its key in the unique index, so it is reused
+				// An insert is not applied over a live record, nor is it when an applied insert is replayed
+				if (live && change.getType() == DBFJournal.ChangeType.Insert) {
+					done = false;
+				}
+				else if (found) {
+					putFields(dbf, change);
+					dbf.update();
+					dbf.undelete();
+					handle.modified();
+					done = true;
+				}
+				else {
+					insertRecord(handle, d -> putFields(d, change));
+					handle.keyed(keyNdxFileSpec, change.getKey());
+					done = true;
+				}
+				break;
+			default:
+				break;
+		}
+		
+		return done;
+		
+	}
+	
+	/**
+	 * Copy the field values of a change into the record buffer of a table
+	 * @param dbf The open table
+	 * @param change The change
+	 * @throws xBaseJException If a value does not fit its field
+	 */
+	private void putFields(DBF dbf, DBFJournal.Change change) throws xBaseJException {
+		
+		for (Map.Entry<String, String> f : change.getFields().entrySet()) {
+			dbf.getField(f.getKey()).put(f.getValue());
+		}
+		
+	}
+	
+	/**
+	 * Mark the current record of a table as deleted and make it available for reuse by an insert
+	 * @param handle The open table, positioned on the record to delete
+	 * @return true if the record was deleted, otherwise false
+	 * @throws xBaseJException If the record cannot be written
+	 * @throws IOException If the table cannot be updated
+	 */
+	protected boolean markDeleted(DBFHandle handle) throws xBaseJException, IOException {
+		DBF dbf = handle.getDbf();
+		
+		handle.checkWritable();
+		dbf.delete();
+		handle.modified();
+		
+		if (dbf.deleted()) {
+			handle.freed(dbf.getCurrentRecordNumber());
+		}
+		
+		return dbf.deleted();
+		
+	}
+	
+	/**
+	 * Generate an index.  Any current index will be replaced.
 	 * @param dbfFileSpec File specification of the DBF file to index
 	 * @param ndxFileSpec File specification of the index file to create
 	 * @param key Index expression 
 	 * @param unique true if this index will generate unique keys, otherwise false
-	 * @throws SecurityException If the OS will not allow the table to be created 
-	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
-	 * @throws IOException If the table cannot be read or updated
+	 * @throws SecurityException If the OS will not allow the index to be created
+	 * @throws xBaseJException If the table cannot be closed
+	 * @throws IOException If the table cannot be read or the index cannot be written
 	 */
 	protected void createIndex(String dbfFileSpec, 
 			                   String ndxFileSpec, 
@@ -121,15 +661,83 @@ public abstract class DBFUtilities {
 			  throws SecurityException, 
 			         xBaseJException, 
 			         IOException {
-		DBF dbf = new DBF(dbfFileSpec);
-		File fileId = new File(ndxFileSpec);
 		
-		if (fileId.exists()) {
-			fileId.delete();
+		createIndexes(new NDXBuilder(dbfFileSpec).add(ndxFileSpec, key, unique));
+		
+	}
+	
+	/**
+	 * Generate all of the indexes of a table in a single scan of the table.  Any current indexes will be replaced.
+	 * Every rewrite of a table, a pack or a bulk load, ends here, and the generation of the table is moved on.
+	 * @param builder The table and the indexes to build
+	 * @throws SecurityException If the OS will not allow an index to be created
+	 * @throws IOException If the table cannot be read or an index cannot be written
+	 */
+	protected void createIndexes(NDXBuilder builder) throws SecurityException, IOException {
+		
+		DBFLock.Hold hold = DBFLock.forTable(builder.getDbfFileSpec()).write();
+		
+		try {
+			DBFHandlePool.invalidate(builder.getDbfFileSpec());
+			
+			try {
+				builder.build();
+			}
+			finally {
+				// A build that failed may still have rewritten some of the indexes
+				DBFLock.forTable(builder.getDbfFileSpec()).changed();
+			}
+			
+			DBFTableCache.refresh(builder.getDbfFileSpec());
+		}
+		finally {
+			hold.close();
+		}
+		
+	}
+	
+	/**
+	 * Append rows to a table in one sequential pass and then rebuild every index once with {@link #index()}.
+	 * The rows are not journaled and the unique indexes are only checked when they are rebuilt.  If a row
+	 * has the same unique key as a live record, or as another row, the rebuild fails, the load is rolled
+	 * back and the indexes are rebuilt for the table as it was.  If the load fails, the table is left as it was.
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @param source The rows to append
+	 * @return Number of rows appended
+	 * @throws SecurityException If the OS will not allow the indexes to be rebuilt
+	 * @throws xBaseJException If the indexes cannot be rebuilt
+	 * @throws IOException If the source cannot be read, a row does not fit the table, a row repeats a unique key
+	 *                     or the table cannot be written
+	 */
+	protected int bulkLoad(String dbfFileSpec, DBFBulkLoader.Source source) throws SecurityException, xBaseJException, IOException {
+		DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).write();
+		int count;
+		
+		try {
+			DBFHandlePool.invalidate(dbfFileSpec);
+			
+			try (DBFBulkLoader loader = new DBFBulkLoader(dbfFileSpec)) {
+				count = loader.load(source);
+				loader.commit();
+				
+				try {
+					index();
+				}
+				catch (xBaseJException | IOException | RuntimeException e) {
+					// Such as a row that repeats a unique key, which the indexes could not reach
+					loader.rollback();
+					index();
+					throw e;
+				}
+				
+			}
+			
+		}
+		finally {
+			hold.close();
 		}
 		
-		dbf.createIndex(ndxFileSpec, key, true, unique);
-		dbf.close();
+		return count;
 		
 	}
 	
@@ -155,24 +763,31 @@ public abstract class DBFUtilities {
 	}
 	
 	/**
-	 * Pack the table and update the index(es)
-	 * @param dbfFileSpec File specification of the DBF file to index
-	 * @param ndxFileSpecs File specification(s) of the index file(s) to create
+	 * Pack the table and rebuild its indexes.  The indexes are not attached while packing, they
+	 * are rebuilt afterwards by {@link #index()} in a single scan of the packed table.
+	 * @param dbfFileSpec File specification of the DBF file to pack
 	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
 	 * @throws IOException If the table cannot be read or updated
 	 * @throws SecurityException If the OS will not allow the table to be created 
 	 * @throws CloneNotSupportedException Java error caused by called methods 
 	 */
-	protected void packDbf(String dbfFileSpec, String... ndxFileSpecs) throws xBaseJException, IOException, SecurityException, CloneNotSupportedException {
-		DBF mm = new DBF(dbfFileSpec);
+	protected void packDbf(String dbfFileSpec) throws xBaseJException, IOException, SecurityException, CloneNotSupportedException {
 		
-		for (String ndxFs : ndxFileSpecs) {
-			mm.useIndex(ndxFs);
-		}
+		DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).write();
 		
-		mm.pack();
-		mm.close();
-		index();
+		try {
+			DBF mm;
+			
+			DBFHandlePool.invalidate(dbfFileSpec);
+			mm = new DBF(dbfFileSpec);
+			mm.pack();
+			mm.close();
+			index();
+			
+		}
+		finally {
+			hold.close();
+		}
 		
 	}
 
@@ -182,14 +797,8 @@ public abstract class DBFUtilities {
 	 * @return a Date or null of the string does not represent a valid date
 	 */
 	protected Date parseDate(String date) {
-		Date d = null;
 		
-		try {
-			d = sdf.parse(date);
-		} 
-		catch (ParseException e) {}
-		
-		return d;
+		return TimestampCodec.Storage.parse(date);
 		
 	}
 	
@@ -214,34 +823,34 @@ public abstract class DBFUtilities {
 	}
 	
 	/**
-	 * Gather the metadata for a DBF file
+	 * Gather the metadata for a DBF file from the headers of the DBF and NDX files, which are only read
+	 * again once the DBF file has changed
 	 * @param dbfFileSpec File specification of the DBF file
 	 * @param ndxFileSpecs Zero or more index file specifications
 	 * @return The metadata for the DBF file
 	 * @throws SecurityException If the OS will not allow the table to be accessed 
-	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws xBaseJException Not thrown, kept for the callers
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	protected DbfMetaData getMetaData(String dbfFileSpec, String... ndxFileSpecs) throws SecurityException, xBaseJException, IOException {
-		DBF dbf = new DBF(dbfFileSpec);
-		File dbfFile = new File(dbfFileSpec);
-		Date dbfUpdated = new Date(dbfFile.lastModified());
+		DBFHeader header = DBFHeader.read(dbfFileSpec);
 		DbfMetaData metaData = new DbfMetaData();
 		
-		metaData.setFileSpec(dbf.getName());
-		metaData.setDbfVersion(dbf.getVersion());
-		metaData.setRecordCount(dbf.getRecordCount());
-		metaData.setLastUpdated(dbfUpdated);
+		metaData.setFileSpec(dbfFileSpec);
+		metaData.setDbfVersion(header.getVersion());
+		metaData.setRecordCount(header.getRecordCount());
+		metaData.setLastUpdated(new Date(header.getLastModified()));
 		
-		for (int i = 1; i <= dbf.getFieldCount(); i++) {
-			metaData.addField(dbf.getField(i));
+		for (DBFReader.Field field : header.getFields()) {
+			metaData.addField(field);
 		}
 		
 		for (String ndx : ndxFileSpecs) {
-			metaData.addIndex(dbf.useIndex(ndx));
+			metaData.addIndex(header.getIndex(ndx));
 		}
 		
-		dbf.close();
+		metaData.setCompaction(DBFCompactor.getStats(header));
+		metaData.setLocking(DBFLock.forTable(dbfFileSpec).getStats());
 		
 		return metaData;
 		
@@ -0,0 +1,329 @@
+package com.ed.sysdocs.dao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Reads the rows of a bulk load from a JSON array of flat objects, one object at a time.<br>
+ * Each member of an object is a field: a string is loaded as is, a number as written, true and
+ * false as the LOGICAL values T and F, and null leaves the field blank.  Nested objects and arrays
+ * are not valid.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class JsonSource implements DBFBulkLoader.Source {
+	
+	/** Returned by {@link #peek()} at the end of the input */
+	private static final int endOfInput = -1;
+	
+	/** The JSON text */
+	private final BufferedReader in;
+	
+	/** true once the opening bracket of the array has been read */
+	private boolean started = false;
+	
+	/** true once the closing bracket of the array has been read */
+	private boolean finished = false;
+	
+	/** Current line number, for error messages */
+	private int line = 1;
+	
+	/** Character read ahead or -2 if none */
+	private int ahead = -2;
+	
+	/**
+	 * Constructor
+	 * @param in The JSON text
+	 */
+	public JsonSource(Reader in) {
+		
+		super();
+		this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see com.ed.sysdocs.dao.DBFBulkLoader.Source#next()
+	 */
+	@Override
+	public Map<String, String> next() throws IOException {
+		Map<String, String> row = null;
+		
+		if (!started) {
+			expect('[');
+			started = true;
+			
+			if (skipSpace() == ']') {
+				read();
+				finished = true;
+			}
+			
+		}
+		else if (!finished) {
+			expect(',');
+		}
+		
+		if (!finished) {
+			row = readObject();
+			
+			if (skipSpace() == ']') {
+				read();
+				finished = true;
+			}
+			
+		}
+		
+		return row;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see com.ed.sysdocs.dao.DBFBulkLoader.Source#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	/**
+	 * Read one object
+	 * @return The members of the object
+	 * @throws IOException If the text cannot be read or is not a flat object
+	 */
+	private Map<String, String> readObject() throws IOException {
+		Map<String, String> row = new LinkedHashMap<>();
+		boolean more;
+		
+		expect('{');
+		more = skipSpace() != '}';
+		
+		while (more) {
+			String name;
+			String value;
+			
+			skipSpace();
+			name = readString();
+			expect(':');
+			value = readValue();
+			
+			if (value != null) {
+				row.put(name, value);
+			}
+			
+			more = skipSpace() == ',';
+			
+			if (more) {
+				read();
+			}
+			
+		}
+		
+		expect('}');
+		
+		return row;
+		
+	}
+	
+	/**
+	 * Read a value that is not an object or an array
+	 * @return The text of the value or null for null
+	 * @throws IOException If the text cannot be read or the value is not valid
+	 */
+	private String readValue() throws IOException {
+		int c = skipSpace();
+		String value;
+		
+		if (c == '"') {
+			value = readString();
+		}
+		else {
+			StringBuilder word = new StringBuilder();
+			
+			while ((c = peek()) == '-' || c == '+' || c == '.' || Character.isLetterOrDigit(c)) {
+				word.append((char) read());
+			}
+			
+			switch (word.toString()) {
+				case "true":
+					value = "T";
+					break;
+				case "false":
+					value = "F";
+					break;
+				case "null":
+					value = null;
+					break;
+				default:
+					if (word.length() == 0 || !Character.isDigit(word.charAt(word.length() - 1))) {
+						throw syntax();
+					}
+					value = word.toString();
+					break;
+			}
+			
+		}
+		
+		return value;
+		
+	}
+	
+	/**
+	 * Read a string, the next character must be its opening quote
+	 * @return The string without its quotes and with its escapes decoded
+	 * @throws IOException If the text cannot be read or the string is not valid
+	 */
+	private String readString() throws IOException {
+		StringBuilder s = new StringBuilder();
+		int c;
+		
+		expect('"');
+		
+		while ((c = read()) != '"') {
+			if (c == endOfInput || c == '\n') {
+				throw syntax();
+			}
+			
+			if (c == '\\') {
+				c = read();
+				
+				switch (c) {
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = '\f';
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'u':
+						c = readHex();
+						break;
+					case '"':
+					case '\\':
+					case '/':
+						break;
+					default:
+						throw syntax();
+				}
+				
+			}
+			
+			s.append((char) c);
+			
+		}
+		
+		return s.toString();
+		
+	}
+	
+	/**
+	 * Read the four hex digits of a unicode escape
+	 * @return The character
+	 * @throws IOException If the text cannot be read or the digits are not valid
+	 */
+	private int readHex() throws IOException {
+		int c = 0;
+		
+		for (int i = 0; i < 4; i++) {
+			int digit = Character.digit(read(), 16);
+			
+			if (digit < 0) {
+				throw syntax();
+			}
+			
+			c = c * 16 + digit;
+			
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Skip white space and read an expected character
+	 * @param expected The character
+	 * @throws IOException If the text cannot be read or the next character is a different one
+	 */
+	private void expect(int expected) throws IOException {
+		
+		if (skipSpace() != expected) {
+			throw syntax();
+		}
+		
+		read();
+		
+	}
+	
+	/**
+	 * Skip white space
+	 * @return The next character, which is not consumed, or {@link #endOfInput}
+	 * @throws IOException If the text cannot be read
+	 */
+	private int skipSpace() throws IOException {
+		int c;
+		
+		while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+			read();
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Look at the next character without consuming it
+	 * @return The character or {@link #endOfInput}
+	 * @throws IOException If the text cannot be read
+	 */
+	private int peek() throws IOException {
+		
+		if (ahead == -2) {
+			ahead = in.read();
+		}
+		
+		return ahead;
+		
+	}
+	
+	/**
+	 * Consume the next character, counting the lines
+	 * @return The character or {@link #endOfInput}
+	 * @throws IOException If the text cannot be read
+	 */
+	private int read() throws IOException {
+		int c = peek();
+		
+		ahead = -2;
+		
+		if (c == '\n') {
+			line++;
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Build the exception for text that is not valid
+	 * @return The exception
+	 */
+	private IOException syntax() {
+		return new IOException(ErrMsgs.LOAD_SYNTAX.getMsg("JSON", String.valueOf(line)));
+	}
+	
+}
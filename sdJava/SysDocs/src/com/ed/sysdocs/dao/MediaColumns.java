@@ -0,0 +1,529 @@
+package com.ed.sysdocs.dao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.sysdocs.MediaTypes;
+import com.ed.sysdocs.SysConstants;
+
+/**
+ * The media table held by column, for the usage reports of the backups page.<br>
+ * Each field is an array of primitives indexed by row, and the rows are in media ID order.  The reports
+ * loop over the arrays they need and count into arrays indexed by media type ordinal, so no media objects
+ * are created and no counts are boxed.<br>
+ * A copy is never modified once built.  It is cached with the media table, see
+ * {@link MediaDbfDao#columns()}, and the changes written through the DAO are applied to a new copy, which
+ * patches the rows the changes name instead of decoding the table again.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class MediaColumns implements DBFTableCache.Incremental<MediaColumns> {
+	
+	/** First or last use of media that has never been used, before every other time */
+	public static final long never = DBFCodec.noTimestamp;
+	
+	/** Milliseconds in a day, for the age histogram */
+	private static final long millisPerDay = 24L * 60 * 60 * 1000;
+	
+	/** The media types by ordinal */
+	private static final MediaTypes [] mediaTypes = MediaTypes.values();
+	
+	/** Decodes the MEDIATYPE values of a change */
+	private static final DBFCodec.EnumLookup<MediaTypes> typeLookup = new DBFCodec.EnumLookup<>(MediaTypes.class);
+	
+	/** Number of rows */
+	private final int size;
+	
+	/** MEDIAID of each row, in ascending order */
+	private final char [] ids;
+	
+	/** FIRSTUSE of each row in milliseconds since the epoch or {@link #never} */
+	private final long [] firstUse;
+	
+	/** LASTUSE of each row in milliseconds since the epoch or {@link #never} */
+	private final long [] lastUse;
+	
+	/** USECOUNT of each row */
+	private final int [] useCounts;
+	
+	/** ACTIVE of each row */
+	private final BitSet active;
+	
+	/** Ordinal of the MEDIATYPE of each row */
+	private final byte [] types;
+	
+	/**
+	 * Constructor
+	 * @param b The builder, whose rows are in media ID order
+	 */
+	private MediaColumns(Builder b) {
+		
+		super();
+		size = b.size;
+		ids = Arrays.copyOf(b.ids, size);
+		firstUse = Arrays.copyOf(b.firstUse, size);
+		lastUse = Arrays.copyOf(b.lastUse, size);
+		useCounts = Arrays.copyOf(b.useCounts, size);
+		active = b.active.get(0, size);
+		types = Arrays.copyOf(b.types, size);
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return Number of media
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Getter
+	 * @param row The row
+	 * @return The media ID
+	 */
+	public char getId(int row) {
+		return ids[row];
+	}
+	
+	/**
+	 * Getter
+	 * @param row The row
+	 * @return The first use in milliseconds since the epoch or {@link #never}
+	 */
+	public long getFirstUse(int row) {
+		return firstUse[row];
+	}
+	
+	/**
+	 * Getter
+	 * @param row The row
+	 * @return The last use in milliseconds since the epoch or {@link #never}
+	 */
+	public long getLastUse(int row) {
+		return lastUse[row];
+	}
+	
+	/**
+	 * Getter
+	 * @param row The row
+	 * @return The use count
+	 */
+	public int getUseCount(int row) {
+		return useCounts[row];
+	}
+	
+	/**
+	 * Getter
+	 * @param row The row
+	 * @return true if the media is active, otherwise false
+	 */
+	public boolean isActive(int row) {
+		return active.get(row);
+	}
+	
+	/**
+	 * Getter
+	 * @param row The row
+	 * @return The media type
+	 */
+	public MediaTypes getType(int row) {
+		return mediaTypes[types[row]];
+	}
+	
+	/**
+	 * Count the media of each type whose use count has reached the maximum for the type
+	 * @param maxUse The maximum use count of each media type, by ordinal
+	 * @param activeOnly true to count only active media
+	 * @return The number of media at or over the maximum, by media type ordinal
+	 */
+	public int [] countOverMaximum(int [] maxUse, boolean activeOnly) {
+		int [] counts = new int[mediaTypes.length];
+		
+		for (int row = 0; row < size; row++) {
+			if (useCounts[row] >= maxUse[types[row]] && (!activeOnly || active.get(row))) {
+				counts[types[row]]++;
+			}
+		}
+		
+		return counts;
+		
+	}
+	
+	/**
+	 * List the media types in the table, in the order in which each first appears
+	 * @return The media types
+	 */
+	public List<MediaTypes> listTypes() {
+		List<MediaTypes> found = new ArrayList<>();
+		boolean [] seen = new boolean[mediaTypes.length];
+		
+		for (int row = 0; row < size; row++) {
+			if (!seen[types[row]]) {
+				seen[types[row]] = true;
+				found.add(mediaTypes[types[row]]);
+			}
+		}
+		
+		return found;
+		
+	}
+	
+	/**
+	 * Find the active media of a type that should be used next.  Media that has never been used comes
+	 * first, followed by the media with the oldest last use, and a tie goes to the lower media ID.
+	 * @param type The media type
+	 * @return The media ID or {@link SysConstants#badMediaId} if there is no active media of the type
+	 */
+	public char leastRecentlyUsed(MediaTypes type) {
+		byte ordinal = (byte) type.ordinal();
+		int found = -1;
+		
+		for (int row = 0; row < size; row++) {
+			if (types[row] == ordinal && active.get(row) && (found < 0 || lastUse[row] < lastUse[found])) {
+				found = row;
+			}
+		}
+		
+		return found < 0 ? SysConstants.badMediaId : ids[found];
+		
+	}
+	
+	/**
+	 * Count media by the number of days since they were last used
+	 * @param type Count only media of this type or null for every type
+	 * @param activeOnly true to count only active media
+	 * @param now The time the ages are measured from, in milliseconds since the epoch
+	 * @param days The upper bound of each age bucket in days, in ascending order
+	 * @return The count of each bucket: element i counts the media last used less than days[i] days ago and
+	 *         not in an earlier bucket, element days.length the media last used longer ago and the last
+	 *         element the media that have never been used
+	 */
+	public int [] ageHistogram(MediaTypes type, boolean activeOnly, long now, int... days) {
+		int [] counts = new int[days.length + 2];
+		long [] bounds = new long[days.length];
+		
+		for (int i = 0; i < days.length; i++) {
+			bounds[i] = days[i] * millisPerDay;
+		}
+		
+		for (int row = 0; row < size; row++) {
+			if ((type == null || types[row] == type.ordinal()) && (!activeOnly || active.get(row))) {
+				int bucket = 0;
+				
+				if (lastUse[row] == never) {
+					bucket = days.length + 1;
+				}
+				else {
+					long age = now - lastUse[row];
+					
+					while (bucket < bounds.length && age >= bounds[bucket]) {
+						bucket++;
+					}
+					
+				}
+				
+				counts[bucket]++;
+				
+			}
+		}
+		
+		return counts;
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see com.ed.sysdocs.dao.DBFTableCache.Incremental#apply(java.util.List)
+	 */
+	@Override
+	public MediaColumns apply(List<DBFJournal.Change> changes) {
+		Builder b = new Builder(this);
+		boolean applied = true;
+		
+		for (int i = 0; i < changes.size() && applied; i++) {
+			applied = b.apply(changes.get(i));
+		}
+		
+		return applied ? b.build() : null;
+		
+	}
+	
+	/**
+	 * Collects the rows of a copy of the table
+	 */
+	static class Builder {
+		
+		private char [] ids;
+		private long [] firstUse;
+		private long [] lastUse;
+		private int [] useCounts;
+		private BitSet active;
+		private byte [] types;
+		private int size = 0;
+		
+		/** true while the rows are in media ID order */
+		private boolean sorted = true;
+		
+		/**
+		 * Constructor
+		 * @param capacity Number of rows expected
+		 */
+		Builder(int capacity) {
+			
+			ids = new char[Math.max(capacity, 1)];
+			firstUse = new long[ids.length];
+			lastUse = new long[ids.length];
+			useCounts = new int[ids.length];
+			active = new BitSet(ids.length);
+			types = new byte[ids.length];
+			
+		}
+		
+		/**
+		 * Constructor, starting from the rows of a copy
+		 * @param from The copy
+		 */
+		Builder(MediaColumns from) {
+			
+			size = from.size;
+			ids = Arrays.copyOf(from.ids, size + 1);
+			firstUse = Arrays.copyOf(from.firstUse, ids.length);
+			lastUse = Arrays.copyOf(from.lastUse, ids.length);
+			useCounts = Arrays.copyOf(from.useCounts, ids.length);
+			active = (BitSet) from.active.clone();
+			types = Arrays.copyOf(from.types, ids.length);
+			
+		}
+		
+		/**
+		 * Add a row, in any order
+		 * @param id MEDIAID
+		 * @param first FIRSTUSE in milliseconds since the epoch or {@link MediaColumns#never}
+		 * @param last LASTUSE in milliseconds since the epoch or {@link MediaColumns#never}
+		 * @param useCount USECOUNT
+		 * @param isActive ACTIVE
+		 * @param type MEDIATYPE
+		 */
+		void add(char id, long first, long last, int useCount, boolean isActive, MediaTypes type) {
+			
+			if (size > 0 && id < ids[size - 1]) {
+				sorted = false;
+			}
+			
+			grow();
+			ids[size] = id;
+			firstUse[size] = first;
+			lastUse[size] = last;
+			useCounts[size] = useCount;
+			active.set(size, isActive);
+			types[size] = (byte) type.ordinal();
+			size++;
+			
+		}
+		
+		/**
+		 * Build the copy
+		 * @return The rows in media ID order
+		 */
+		MediaColumns build() {
+			
+			if (!sorted) {
+				sort();
+			}
+			
+			return new MediaColumns(this);
+			
+		}
+		
+		/**
+		 * Apply one change, keeping the rows in media ID order
+		 * @param change The change
+		 * @return true if the change was applied, false if it does not describe a valid media
+		 */
+		boolean apply(DBFJournal.Change change) {
+			boolean applied = change.getKey().length() == 1;
+			int row = applied ? Arrays.binarySearch(ids, 0, size, change.getKey().charAt(0)) : -1;
+			
+			switch (change.getType()) {
+				case Delete:
+					applied = applied && row >= 0;
+					
+					if (applied) {
+						remove(row);
+					}
+					
+					break;
+				case Update:
+					applied = applied && row >= 0 && set(row, change.getFields());
+					break;
+				case Insert:
+				case Upsert:
+					if (applied && row < 0) {
+						row = -row - 1;
+						insert(row, change.getKey().charAt(0));
+					}
+					
+					applied = applied && set(row, change.getFields());
+					break;
+				default:
+					applied = false;
+					break;
+			}
+			
+			return applied;
+			
+		}
+		
+		/**
+		 * Store the field values of a change in a row
+		 * @param row The row
+		 * @param fields The field values as stored in the table, by field name
+		 * @return true if every value is valid and the row has a media type, otherwise false
+		 */
+		private boolean set(int row, Map<String, String> fields) {
+			boolean valid = true;
+			
+			for (Map.Entry<String, String> f : fields.entrySet()) {
+				String name = f.getKey();
+				byte [] text = f.getValue().getBytes(StandardCharsets.ISO_8859_1);
+				ByteBuffer buf = ByteBuffer.wrap(text);
+				
+				if (name.equalsIgnoreCase(BackupMedia.Fields.FirstUse.name())) {
+					firstUse[row] = DBFCodec.parseTimestamp(buf, 0, text.length);
+				}
+				else if (name.equalsIgnoreCase(BackupMedia.Fields.LastUse.name())) {
+					lastUse[row] = DBFCodec.parseTimestamp(buf, 0, text.length);
+				}
+				else if (name.equalsIgnoreCase(BackupMedia.Fields.UseCount.name())) {
+					useCounts[row] = DBFCodec.parseInt(buf, 0, text.length);
+				}
+				else if (name.equalsIgnoreCase(BackupMedia.Fields.Active.name())) {
+					active.set(row, text.length > 0 && DBFCodec.parseLogical(text[0]));
+				}
+				else if (name.equalsIgnoreCase(BackupMedia.Fields.MediaType.name())) {
+					MediaTypes mt = typeLookup.lookup(buf, 0, text.length);
+					
+					valid = valid && mt != null;
+					types[row] = mt == null ? -1 : (byte) mt.ordinal();
+					
+				}
+				
+			}
+			
+			return valid && types[row] >= 0;
+			
+		}
+		
+		/**
+		 * Open a row for a new media, which has no media type until one is set
+		 * @param row Position of the new row
+		 * @param id MEDIAID
+		 */
+		private void insert(int row, char id) {
+			
+			grow();
+			System.arraycopy(ids, row, ids, row + 1, size - row);
+			System.arraycopy(firstUse, row, firstUse, row + 1, size - row);
+			System.arraycopy(lastUse, row, lastUse, row + 1, size - row);
+			System.arraycopy(useCounts, row, useCounts, row + 1, size - row);
+			System.arraycopy(types, row, types, row + 1, size - row);
+			
+			for (int i = size; i > row; i--) {
+				active.set(i, active.get(i - 1));
+			}
+			
+			ids[row] = id;
+			firstUse[row] = never;
+			lastUse[row] = never;
+			useCounts[row] = 0;
+			active.clear(row);
+			types[row] = -1;
+			size++;
+			
+		}
+		
+		/**
+		 * Remove a row
+		 * @param row The row
+		 */
+		private void remove(int row) {
+			
+			size--;
+			System.arraycopy(ids, row + 1, ids, row, size - row);
+			System.arraycopy(firstUse, row + 1, firstUse, row, size - row);
+			System.arraycopy(lastUse, row + 1, lastUse, row, size - row);
+			System.arraycopy(useCounts, row + 1, useCounts, row, size - row);
+			System.arraycopy(types, row + 1, types, row, size - row);
+			
+			for (int i = row; i < size; i++) {
+				active.set(i, active.get(i + 1));
+			}
+			
+			active.clear(size);
+			
+		}
+		
+		/**
+		 * Make room for one more row
+		 */
+		private void grow() {
+			
+			if (size == ids.length) {
+				int capacity = ids.length * 2;
+				
+				ids = Arrays.copyOf(ids, capacity);
+				firstUse = Arrays.copyOf(firstUse, capacity);
+				lastUse = Arrays.copyOf(lastUse, capacity);
+				useCounts = Arrays.copyOf(useCounts, capacity);
+				types = Arrays.copyOf(types, capacity);
+				
+			}
+			
+		}
+		
+		/**
+		 * Put the rows in media ID order.  Each key holds the media ID above the row number, so sorting
+		 * the keys gives the new order of the rows without boxing them.
+		 */
+		private void sort() {
+			long [] keys = new long[size];
+			char [] oldIds = ids.clone();
+			long [] oldFirst = firstUse.clone();
+			long [] oldLast = lastUse.clone();
+			int [] oldCounts = useCounts.clone();
+			BitSet oldActive = (BitSet) active.clone();
+			byte [] oldTypes = types.clone();
+			
+			for (int row = 0; row < size; row++) {
+				keys[row] = ((long) ids[row] << 32) | row;
+			}
+			
+			Arrays.sort(keys);
+			
+			for (int row = 0; row < size; row++) {
+				int from = (int) keys[row];
+				
+				ids[row] = oldIds[from];
+				firstUse[row] = oldFirst[from];
+				lastUse[row] = oldLast[from];
+				useCounts[row] = oldCounts[from];
+				active.set(row, oldActive.get(from));
+				types[row] = oldTypes[from];
+				
+			}
+			
+			sorted = true;
+			
+		}
+		
+	}
+	
+}
@@ -3,8 +3,13 @@ package com.ed.sysdocs.dao;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
 
 import org.xBaseJ.DBF;
 import org.xBaseJ.fields.CharField;
@@ -14,8 +19,10 @@ import org.xBaseJ.xBaseJException;
 
 import com.ed.pojo.BackupMedia;
 import com.ed.pojo.DbfMetaData;
+import com.ed.sysdocs.ErrMsgs;
 import com.ed.sysdocs.MediaTypes;
 import com.ed.sysdocs.SysConstants;
+import com.ed.sysdocs.TimestampCodec;
 
 /**
  * Data Access Object (DAO) to manage the backup media data.<br>
@@ -30,7 +37,7 @@ import com.ed.sysdocs.SysConstants;
  * ** Total **            00049
  * 
  * Indexes
- * 1. media1.ndx: MEDIAID, unique
+ * 1. media1.ndx: MEDIAID, unique, with the hash index media1.ndh
  * 2. media2.ndx: MEDIATYPE+LASTUSE, not unique</pre> 
  * @author Ed Swaneck
  * @version 1.0
@@ -47,6 +54,9 @@ public class MediaDbfDao extends DBFUtilities {
 	/** Filename of the secondary index */
 	public static final String index2Name = "media2.ndx";
 	
+	/** Decodes the MEDIATYPE field */
+	private static final DBFCodec.EnumLookup<MediaTypes> mediaTypes = new DBFCodec.EnumLookup<>(MediaTypes.class);
+	
 	// Internal properties
 	private CharField mediaId;
 	private CharField firstUse;
@@ -87,15 +97,18 @@ public class MediaDbfDao extends DBFUtilities {
 		File dbf = new File(dbfFileSpec);
 		File ndx1 = new File(ndx1FileSpec);
 		File ndx2 = new File(ndx2FileSpec);
+		File hash1 = new File(NDXHash.fileSpec(ndx1FileSpec));
 		
 		if (!dbf.exists()) {
 			create();
 		}
 		
-		if (!ndx1.exists() || !ndx2.exists()) {
+		if (!ndx1.exists() || !ndx2.exists() || !hash1.exists()) {
 			index();
 		}
 		
+		recover(dbfFileSpec, ndx1FileSpec, ndx1FileSpec, ndx2FileSpec);
+		
 	}
 	
 	/*
@@ -104,7 +117,10 @@ public class MediaDbfDao extends DBFUtilities {
 	 */
 	@Override
 	public void create() throws SecurityException, xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec, false);
+		DBF media;
+		
+		DBFHandlePool.invalidate(dbfFileSpec);
+		media = new DBF(dbfFileSpec, false);
 		
 		media.addField(mediaId);
 		media.addField(firstUse);
@@ -125,47 +141,42 @@ public class MediaDbfDao extends DBFUtilities {
 	public void index() throws SecurityException, xBaseJException, IOException {
 		String ndx2Key = buildKey(BackupMedia.Fields.MediaType.name(), BackupMedia.Fields.LastUse.name());
 		
-		createIndex(dbfFileSpec, ndx1FileSpec, BackupMedia.Fields.MediaId.name(), true);
-		createIndex(dbfFileSpec, ndx2FileSpec, ndx2Key, false);
+		createIndexes(new NDXBuilder(dbfFileSpec).add(ndx1FileSpec, BackupMedia.Fields.MediaId.name(), true)
+				                                 .add(ndx2FileSpec, ndx2Key, false));
 
 	}
 	
+	/**
+	 * Append rows to the table in one pass and rebuild its indexes once, for seeding and migrating the table
+	 * @param source The rows to append, with the field values as stored in the table
+	 * @return Number of rows appended
+	 * @throws SecurityException If the OS will not allow the indexes to be rebuilt
+	 * @throws xBaseJException If the indexes cannot be rebuilt
+	 * @throws IOException If the source cannot be read, a row does not fit the table, a row repeats a unique key
+	 *                     or the table cannot be written
+	 */
+	public int load(DBFBulkLoader.Source source) throws SecurityException, xBaseJException, IOException {
+		return bulkLoad(dbfFileSpec, source);
+	}
+	
 	/**
 	 * Create a new record
 	 * @param bm The data to save
 	 * @throws SecurityException If the OS will not allow the table to be created 
-	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws xBaseJException If the table already has media with the same media ID
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public void insert(BackupMedia bm) throws SecurityException, xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec);
+		boolean done;
 		
-		media.useIndex(ndx1FileSpec);
-		media.useIndex(ndx2FileSpec);
-
-		media.getField(mediaId.Name).put(bm.getMediaIdAsString());
-		
-		if (bm.getFirstUse() == null) {
-			media.getField(firstUse.Name).put("");
-		}
-		else {
-			media.getField(firstUse.Name).put(sdf.format(bm.getFirstUse()));
+		try (DBFHandle handle = openMedia()) {
+			done = apply(handle, List.of(change(DBFJournal.ChangeType.Insert, bm)))[0];
 		}
 		
-		if (bm.getLastUse() == null) {
-			media.getField(lastUse.Name).put("");
-		}
-		else {
-			media.getField(lastUse.Name).put(sdf.format(bm.getLastUse()));
+		if (!done) {
+			throw new xBaseJException(ErrMsgs.DUPLICATE_MEDIA.getMsg(bm.getMediaIdAsString()));
 		}
 		
-		media.getField(useCount.Name).put(String.valueOf(bm.getUseCount()));
-		media.getField(active.Name).put(booleanToLogical(bm.isActive()));
-		media.getField(mediaType.Name).put(bm.getMediaType().name());
-
-		media.write();
-		media.close();
-		
 	}
 	
 	/**
@@ -177,44 +188,22 @@ public class MediaDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public boolean update(BackupMedia bm) throws SecurityException, xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec);
-		boolean done = false;
-		
-		media.useIndex(ndx2FileSpec);
-		media.useIndex(ndx1FileSpec);
+		boolean done;
 		
-		if (media.findExact(bm.getMediaIdAsString())) {
-			
-			if (bm.getFirstUse() == null) {
-				media.getField(firstUse.Name).put("");
-			}
-			else {
-				media.getField(firstUse.Name).put(sdf.format(bm.getFirstUse()));
-			}
-			
-			if (bm.getLastUse() == null) {
-				media.getField(lastUse.Name).put("");
-			}
-			else {
-				media.getField(lastUse.Name).put(sdf.format(bm.getLastUse()));
-			}
-			
-			media.getField(useCount.Name).put(String.valueOf(bm.getUseCount()));
-			media.getField(active.Name).put(booleanToLogical(bm.isActive()));
-
-			media.update();
-			done = true;
-			
+		try (DBFHandle handle = openMedia()) {
+			done = apply(handle, List.of(change(DBFJournal.ChangeType.Update, bm)))[0];
 		}
-
-		media.close();
 		
 		return done;
 		
 	}
 	
 	/**
-	 * Update the last used date and use count of the least recently used media of a given type
+	 * Update the last used date and use count of the least recently used media of a given type.  This
+	 * is one locked session on the media table: a seek on media2.ndx positions the table on the media,
+	 * and LASTUSE, FIRSTUSE and USECOUNT are written in place, which also moves its media2.ndx entry.
+	 * Concurrent increments, in this or another process, each see the media the previous one used as
+	 * the most recently used, so they choose different media.
 	 * @param mt Update the least recently used media of this type
 	 * @return Media ID of the media item that was updated
 	 * @throws SecurityException If the OS will not allow the table to be updated 
@@ -222,25 +211,26 @@ public class MediaDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public char increment(MediaTypes mt) throws SecurityException, xBaseJException, IOException {
-		List<BackupMedia> bml = listByType(mt, true);
 		char mediaId = SysConstants.badMediaId; 
-		BackupMedia bm = null;
-		
-		if (bml != null && !bml.isEmpty()) {
-			bm = bml.get(0);
-		}
 		
-		if (bm != null) {
-			if (bm.getFirstUse() == null) {
-				bm.setFirstUse(new Date());
+		try (DBFHandle handle = openMedia()) {
+			if (seekLeastRecentlyUsed(handle, mt)) {
+				BackupMedia bm = parseData(handle.getDbf());
+				String now = TimestampCodec.Storage.format(new Date());
+				DBFJournal.Change c = new DBFJournal.Change(DBFJournal.ChangeType.Update, bm.getMediaIdAsString());
+				
+				if (bm.getFirstUse() == null) {
+					c.set(firstUse.Name, now);
+				}
+				
+				bm.incrementUseCount();
+				c.set(lastUse.Name, now);
+				c.set(useCount.Name, String.valueOf(bm.getUseCount()));
+				updateCurrent(handle, c, ndx1FileSpec, ndx2FileSpec);
+				
+				mediaId = bm.getMediaId();
+				
 			}
-			
-			bm.setLastUse(new Date());
-			bm.incrementUseCount();
-			update(bm);
-			
-			mediaId = bm.getMediaId();
-			
 		}
 		
 		return mediaId;
@@ -255,22 +245,82 @@ public class MediaDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public boolean delete(char mediaId) throws xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec);
-		boolean done = false;
+		boolean done;
 		
-		media.useIndex(ndx2FileSpec);
-		media.useIndex(ndx1FileSpec);
+		try (DBFHandle handle = openMedia()) {
+			done = apply(handle, List.of(new DBFJournal.Change(DBFJournal.ChangeType.Delete, String.valueOf(mediaId))))[0];
+		}
 		
-		if (media.findExact(String.valueOf(mediaId))) {
-			media.delete();
-			done = media.deleted();
+		if (done) {
+			DBFCompactor.deleted(this, dbfFileSpec);
 		}
-
-		media.close();
 		
 		return done;
 		
 	}
+	
+	/**
+	 * Apply the inserts, updates and deletes of a list of media in a single session, as one batch
+	 * of the journal.  The operation applied to each media is determined by its delete flag and
+	 * updated value.  If any media was deleted, the deletes are reported to {@link DBFCompactor},
+	 * which packs the table in the background once enough records are deleted.
+	 * @param bml The media to save
+	 * @return The media that were applied, by operation, and any media that could not be applied
+	 * @throws SecurityException If the OS will not allow the table to be updated
+	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws IOException If the table cannot be read or updated
+	 * @throws CloneNotSupportedException Java error caused by called methods
+	 */
+	public BatchResult<BackupMedia> applyBatch(List<BackupMedia> bml) throws SecurityException, xBaseJException, IOException, CloneNotSupportedException {
+		BatchResult<BackupMedia> result = new BatchResult<>();
+		
+		List<DBFJournal.Change> changes = new ArrayList<>();
+		List<DBFOperations> ops = new ArrayList<>();
+		List<BackupMedia> changed = new ArrayList<>();
+		
+		for (BackupMedia bm : bml) {
+			if (bm.isDelete()) {
+				changes.add(change(DBFJournal.ChangeType.Delete, bm));
+				ops.add(DBFOperations.Delete);
+				changed.add(bm);
+			}
+			else if (bm.getUpdated() == DBFOperations.Insert) {
+				changes.add(change(DBFJournal.ChangeType.Insert, bm));
+				ops.add(DBFOperations.Insert);
+				changed.add(bm);
+			}
+			else if (bm.getUpdated() == DBFOperations.Modified) {
+				changes.add(change(DBFJournal.ChangeType.Update, bm));
+				ops.add(DBFOperations.Modified);
+				changed.add(bm);
+			}
+			else {
+				result.add(DBFOperations.Unchanged, bm);
+			}
+			
+		}
+		
+		try (DBFHandle handle = openMedia()) {
+			boolean [] done = apply(handle, changes);
+			
+			for (int i = 0; i < done.length; i++) {
+				if (done[i]) {
+					result.add(ops.get(i), changed.get(i));
+				}
+				else {
+					result.fail(changed.get(i));
+				}
+			}
+			
+		}
+		
+		if (result.hasDeletes()) {
+			DBFCompactor.deleted(this, dbfFileSpec);
+		}
+		
+		return result;
+		
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -279,7 +329,7 @@ public class MediaDbfDao extends DBFUtilities {
 	@Override
 	public void pack() throws xBaseJException, IOException, SecurityException, CloneNotSupportedException {
 		
-		packDbf(dbfFileSpec, ndx2FileSpec, ndx1FileSpec);
+		packDbf(dbfFileSpec);
 		
 	}
 	
@@ -295,7 +345,7 @@ public class MediaDbfDao extends DBFUtilities {
 	}
 	
 	/**
-	 * Generate a list of all backup media
+	 * Generate a list of all backup media, in media ID order
 	 * @param activeOnly true to retrieve only active media types
 	 * @return A populated list of all backup media
 	 * @throws SecurityException If the OS will not allow the table to be created 
@@ -303,29 +353,20 @@ public class MediaDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be created
 	 */
 	public List<BackupMedia> listAll(boolean activeOnly) throws SecurityException, xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec);
 		List<BackupMedia> ml = new ArrayList<>();
 		
-		media.useIndex(ndx1FileSpec);
-		media.startTop();
-		
-		for (int i = 1; i <= media.getRecordCount(); i++) {
-			media.findNext();
-			
-			if (!activeOnly || logicalToBoolean(media.getField(BackupMedia.Fields.Active.name()).get())) {
-				ml.add(parseData(media));
+		for (BackupMedia bm : cachedMedia().byId) {
+			if (!activeOnly || bm.isActive()) {
+				ml.add(new BackupMedia(bm));
 			}
-			
 		}
 		
-		media.close();
-		
 		return ml;
 		
 	}
 	
 	/**
-	 * List the media of a specific type
+	 * List the media of a specific type, least recently used first
 	 * @param requestedType The type of media to list
 	 * @param activeOnly true to retrieve only active media types
 	 * @return A list of media that matches the requested type
@@ -334,74 +375,416 @@ public class MediaDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be created
 	 */
 	public List<BackupMedia> listByType(MediaTypes requestedType, boolean activeOnly) throws SecurityException, xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec);
 		List<BackupMedia> ml = new ArrayList<>();
-		boolean done = false;
 		
-		media.useIndex(ndx2FileSpec);
+		for (BackupMedia bm : cachedMedia().byType.getOrDefault(requestedType, Collections.emptyList())) {
+			if (!activeOnly || bm.isActive()) {
+				ml.add(new BackupMedia(bm));
+			}
+		}
+		
+		return ml;
+		
+	}
+	
+	/**
+	 * Open a cursor over all backup media, in media ID order.  Nothing is decoded until the cursor is advanced,
+	 * inactive media are skipped on the record bytes when only active media are wanted.
+	 * @param activeOnly true to retrieve only active media
+	 * @return The open cursor
+	 * @throws IOException If the table or media1.ndx cannot be read or is not valid
+	 */
+	public DBFCursor<BackupMedia> cursorAll(boolean activeOnly) throws IOException {
+		
+		return openCursor(dbfFileSpec, ndx1FileSpec, "", activeOnly ? scan -> scan.is(active.Name, true) : null, reader -> new MediaDecoder(reader, null, activeOnly));
+		
+	}
+	
+	/**
+	 * Open a cursor over the media of a specific type, least recently used first
+	 * @param requestedType The type of media
+	 * @param activeOnly true to retrieve only active media
+	 * @return The open cursor
+	 * @throws IOException If the table or media2.ndx cannot be read or is not valid
+	 */
+	public DBFCursor<BackupMedia> cursorByType(MediaTypes requestedType, boolean activeOnly) throws IOException {
+		// media2.ndx is keyed on MEDIATYPE+LASTUSE, the type is blank padded to the width of its field
+		String prefix = String.format("%-" + mediaType.getLength() + "s", requestedType.name());
+		
+		return openCursor(dbfFileSpec, ndx2FileSpec, prefix, activeOnly ? scan -> scan.is(active.Name, true) : null, reader -> new MediaDecoder(reader, requestedType, activeOnly));
+		
+	}
+	
+	/**
+	 * Decode the whole media table in parallel and merge the media with a collector, such as a count
+	 * or a grouping by type.  The records are read in physical order, not through an index.
+	 * @param <A> Type of the intermediate results of the collector
+	 * @param <R> Type of the result
+	 * @param collector Merges the media
+	 * @param activeOnly true to collect only active media
+	 * @return The result of the collector
+	 * @throws IOException If the table cannot be read or does not have the expected layout
+	 */
+	public <A, R> R collect(Collector<? super BackupMedia, A, R> collector, boolean activeOnly) throws IOException {
+		
+		return scanParallel(dbfFileSpec, reader -> new MediaDecoder(reader, null, activeOnly), collector);
+		
+	}
+	
+	/**
+	 * Find the media that meet a query.  media1.ndx or media2.ndx is used when it bounds the query.
+	 * @param <T> Type of the results
+	 * @param query The conditions on the media fields
+	 * @param projection Builds a result from each matching media
+	 * @return The results
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	public <T> List<T> query(DBFQuery<BackupMedia.Fields> query, DBFQuery.Projection<BackupMedia.Fields, T> projection) throws IOException {
+		
+		return runQuery(dbfFileSpec,
+				        BackupMedia.Fields.class,
+				        List.of(new DBFQuery.Index<>(ndx1FileSpec, BackupMedia.Fields.MediaId),
+				                new DBFQuery.Index<>(ndx2FileSpec, BackupMedia.Fields.MediaType, BackupMedia.Fields.LastUse)),
+				        query,
+				        projection);
+				
+	}
+	
+	/**
+	 * Find the media that meet a query.  Records of unknown media types are skipped.
+	 * @param query The conditions on the media fields
+	 * @return The media
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	public List<BackupMedia> query(DBFQuery<BackupMedia.Fields> query) throws IOException {
+		List<BackupMedia> ml = query(query, row -> {
+			BackupMedia bm = new BackupMedia();
+			
+			bm.setMediaId(row.getChar(BackupMedia.Fields.MediaId));
+			bm.setFirstUse(DBFCodec.toDate(row.getTimestamp(BackupMedia.Fields.FirstUse)));
+			bm.setLastUse(DBFCodec.toDate(row.getTimestamp(BackupMedia.Fields.LastUse)));
+			bm.setUseCount(row.getInt(BackupMedia.Fields.UseCount));
+			bm.setActive(row.getLogical(BackupMedia.Fields.Active));
+			bm.setMediaType(row.getEnum(BackupMedia.Fields.MediaType, MediaTypes.class));
+			
+			return bm;
+			
+		});
+		
+		ml.removeIf(bm -> bm.getMediaType() == null);
+		
+		return ml;
+		
+	}
+	
+	/**
+	 * Load a media record
+	 * @param mediaId ID of the record to load
+	 * @return The media data or null if the media ID does not exist
+	 * @throws SecurityException If the OS will not allow the table to be created 
+	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws IOException If the table cannot be created
+	 */
+	public BackupMedia read(String mediaId) throws SecurityException, xBaseJException, IOException {
+		BackupMedia bm = mediaId == null || mediaId.length() != 1 ? null : cachedMedia().ids.get(Character.valueOf(mediaId.charAt(0)));
+		
+		return bm == null ? null : new BackupMedia(bm);
+		
+	}
+	
+	/**
+	 * Retrieve the media table by column, for usage reports.  The columns are cached with the table and
+	 * the writes made through this DAO are applied to them, the table is only decoded again after it
+	 * was changed by another process.
+	 * @return All media in media ID order, shared by every caller
+	 * @throws IOException If the table cannot be read or is not valid
+	 */
+	public MediaColumns columns() throws IOException {
+		
+		return DBFTableCache.get(dbfFileSpec, MediaColumns.class.getSimpleName(), this::scanColumns);
+		
+	}
+	
+	/**
+	 * Load the active media of a type that should be used next.  Media that has never been used
+	 * comes first, followed by the media with the oldest last used date.  This is the media that
+	 * {@link #increment(MediaTypes)} will update.
+	 * @param mt The type of media
+	 * @return The least recently used active media or null if there is no active media of the type
+	 * @throws SecurityException If the OS will not allow the table to be read
+	 * @throws xBaseJException If the table or index cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	public BackupMedia findLeastRecentlyUsed(MediaTypes mt) throws SecurityException, xBaseJException, IOException {
+		BackupMedia bm = cachedMedia().leastRecentlyUsed.get(mt);
+		
+		return bm == null ? null : new BackupMedia(bm);
+		
+	}
+	
+	/**
+	 * Obtain the pooled handle of the media table
+	 * @return The open media table with both indexes attached
+	 * @throws xBaseJException If the table or an index cannot be opened
+	 * @throws IOException If the table or an index cannot be opened
+	 */
+	private DBFHandle openMedia() throws xBaseJException, IOException {
+		
+		return openTable(dbfFileSpec, ndx1FileSpec, ndx2FileSpec);
+		
+	}
+	
+	/**
+	 * Retrieve the decoded media table from the application cache
+	 * @return The media, shared by every caller and not to be modified
+	 * @throws IOException If the table or an index cannot be read or is not valid
+	 */
+	private MediaRows cachedMedia() throws IOException {
+		
+		return DBFTableCache.get(dbfFileSpec, () -> {
+			List<BackupMedia> byId = new ArrayList<>();
+			List<BackupMedia> byLastUse = new ArrayList<>();
+			
+			try (DBFCursor<BackupMedia> cursor = cursorAll(false)) {
+				cursor.forEachRemaining(byId::add);
+			}
+			
+			try (DBFCursor<BackupMedia> cursor = openCursor(dbfFileSpec, ndx2FileSpec, "", reader -> new MediaDecoder(reader, null, false))) {
+				cursor.forEachRemaining(byLastUse::add);
+			}
+			
+			return new MediaRows(byId, byLastUse);
+			
+		}, ndx1FileSpec, ndx2FileSpec);
+		
+	}
+	
+	/**
+	 * Decode the media table by column, in one pass over the records.  Deleted records and media of
+	 * an unknown type are skipped.
+	 * @return All media in media ID order
+	 * @throws IOException If the table cannot be read or does not have the expected layout
+	 */
+	private MediaColumns scanColumns() throws IOException {
+		DBFReader media = openReader(dbfFileSpec);
+		MediaColumns.Builder columns = new MediaColumns.Builder(media.getRecordCount());
+		DBFReader.Field idFld = media.getField(mediaId.Name, mediaId.getLength());
+		DBFReader.Field firstFld = media.getField(firstUse.Name, firstUse.getLength());
+		DBFReader.Field lastFld = media.getField(lastUse.Name, lastUse.getLength());
+		DBFReader.Field countFld = media.getField(useCount.Name, useCount.getLength());
+		DBFReader.Field activeFld = media.getField(active.Name, active.getLength());
+		DBFReader.Field typeFld = media.getField(mediaType.Name, mediaType.getLength());
+		
+		for (int rec = 1; rec <= media.getRecordCount(); rec++) {
+			MediaTypes mt = media.isDeleted(rec) ? null : media.getEnum(rec, typeFld, mediaTypes);
+			
+			if (mt != null) {
+				columns.add((char) media.getByte(rec, idFld), media.getTimestamp(rec, firstFld), media.getTimestamp(rec, lastFld),
+						    media.getInt(rec, countFld), media.getLogical(rec, activeFld), mt);
+			}
+			
+		}
+		
+		return columns.build();
+		
+	}
+	
+	/**
+	 * The decoded media table in the order of each index, with the media looked up by ID and by type
+	 */
+	private static class MediaRows {
+		
+		/** All media in media1.ndx order */
+		private final List<BackupMedia> byId;
+		
+		/** The media of each type in media2.ndx order, least recently used first */
+		private final Map<MediaTypes, List<BackupMedia>> byType = new EnumMap<>(MediaTypes.class);
+		
+		/** All media by media ID */
+		private final Map<Character, BackupMedia> ids = new HashMap<>();
+		
+		/** The first active media of each type in media2.ndx order */
+		private final Map<MediaTypes, BackupMedia> leastRecentlyUsed = new EnumMap<>(MediaTypes.class);
+		
+		/**
+		 * Constructor
+		 * @param byId All media in media1.ndx order
+		 * @param byLastUse All media in media2.ndx order
+		 */
+		MediaRows(List<BackupMedia> byId, List<BackupMedia> byLastUse) {
+			
+			this.byId = List.copyOf(byId);
+			
+			for (BackupMedia bm : this.byId) {
+				ids.put(Character.valueOf(bm.getMediaId()), bm);
+			}
+			
+			for (BackupMedia bm : byLastUse) {
+				if (bm.getMediaType() != null) {
+					byType.computeIfAbsent(bm.getMediaType(), mt -> new ArrayList<>()).add(bm);
+					
+					if (bm.isActive()) {
+						leastRecentlyUsed.putIfAbsent(bm.getMediaType(), bm);
+					}
+					
+				}
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Position the table on the least recently used active media of a type.  media2.ndx is keyed
+	 * on MEDIATYPE+LASTUSE, so this is one seek to the start of the type followed by a skip over any
+	 * inactive or deleted media.
+	 * @param handle The open media table
+	 * @param mt The type of media
+	 * @return true if the table is positioned on the media, false if there is no active media of the type
+	 * @throws xBaseJException If the index cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	private boolean seekLeastRecentlyUsed(DBFHandle handle, MediaTypes mt) throws xBaseJException, IOException {
+		DBF media = handle.useIndex(ndx2FileSpec);
+		boolean found = false;
+		boolean done = false;
 		
 		try {
-			media.find(requestedType.name());
+			media.find(mt.name());
 		}
 		catch (xBaseJException e) {
 			done = true;
 		}
 		
-		if (!done && media.getField(mediaType.Name).get().equals(requestedType.name())) {
-
-			if (!activeOnly || logicalToBoolean(media.getField(BackupMedia.Fields.Active.name()).get())) {
-				ml.add(parseData(media));
+		while (!done && !found) {
+			if (!media.getField(mediaType.Name).get().equals(mt.name())) {
+				done = true;
 			}
-			
-			while (!done) {
+			else if (!media.deleted() && logicalToBoolean(media.getField(active.Name).get())) {
+				found = true;
+			}
+			else {
 				try {
 					media.findNext();
-					
-					if (media.getField(mediaType.Name).get().equals(requestedType.name())) { 
-						if (!activeOnly || logicalToBoolean(media.getField(BackupMedia.Fields.Active.name()).get())) {
-							ml.add(parseData(media));
-						}
-					}
-					else {
-						done = true;
-					}
-					
 				}
 				catch (xBaseJException e) {
 					done = true;
 				}
-				
 			}
 			
 		}
 		
-		media.close();
+		return found;
 		
-		return ml;
+	}
+	
+	/**
+	 * Decodes the media table directly from the DBF bytes
+	 */
+	private class MediaDecoder implements RecordDecoder<BackupMedia> {
+		
+		private DBFReader media;
+		private MediaTypes requestedType;
+		private boolean activeOnly;
+		private DBFReader.Field idFld;
+		private DBFReader.Field firstFld;
+		private DBFReader.Field lastFld;
+		private DBFReader.Field countFld;
+		private DBFReader.Field activeFld;
+		private DBFReader.Field typeFld;
+		
+		/**
+		 * Constructor
+		 * @param media The media table
+		 * @param requestedType Only decode media of this type or null for all types
+		 * @param activeOnly true to decode only active media
+		 * @throws IOException If the table does not have the expected layout
+		 */
+		MediaDecoder(DBFReader media, MediaTypes requestedType, boolean activeOnly) throws IOException {
+			
+			this.media = media;
+			this.requestedType = requestedType;
+			this.activeOnly = activeOnly;
+			idFld = media.getField(mediaId.Name, mediaId.getLength());
+			firstFld = media.getField(firstUse.Name, firstUse.getLength());
+			lastFld = media.getField(lastUse.Name, lastUse.getLength());
+			countFld = media.getField(useCount.Name, useCount.getLength());
+			activeFld = media.getField(active.Name, active.getLength());
+			typeFld = media.getField(mediaType.Name, mediaType.getLength());
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#newRecord()
+		 */
+		@Override
+		public BackupMedia newRecord() {
+			return new BackupMedia();
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#decode(int, java.lang.Object)
+		 */
+		@Override
+		public boolean decode(int rec, BackupMedia bm) {
+			MediaTypes mt = media.getEnum(rec, typeFld, mediaTypes);
+			boolean isActive = media.getLogical(rec, activeFld);
+			boolean wanted = mt != null && (requestedType == null || mt == requestedType) && (!activeOnly || isActive);
+			
+			if (wanted) {
+				bm.setMediaId((char) media.getByte(rec, idFld));
+				bm.setFirstUse(DBFCodec.toDate(media.getTimestamp(rec, firstFld)));
+				bm.setLastUse(DBFCodec.toDate(media.getTimestamp(rec, lastFld)));
+				bm.setUseCount(media.getInt(rec, countFld));
+				bm.setActive(isActive);
+				bm.setMediaType(mt);
+			}
+			
+			return wanted;
+			
+		}
 		
 	}
 	
 	/**
-	 * Load a media record
-	 * @param mediaId ID of the record to load
-	 * @return The media data or null if the media ID does not exist
-	 * @throws SecurityException If the OS will not allow the table to be created 
-	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
-	 * @throws IOException If the table cannot be created
+	 * Journal and apply changes to the media table
+	 * @param handle The open media table
+	 * @param changes The changes to apply
+	 * @return For each change, true if it was applied or false if its media was not found
+	 * @throws xBaseJException If a record cannot be written
+	 * @throws IOException If the journal cannot be written or the table cannot be updated
 	 */
-	public BackupMedia read(String mediaId) throws SecurityException, xBaseJException, IOException {
-		DBF media = new DBF(dbfFileSpec);
-		BackupMedia bm = null;
+	private boolean [] apply(DBFHandle handle, List<DBFJournal.Change> changes) throws xBaseJException, IOException {
+		
+		return applyChanges(handle, ndx1FileSpec, changes, ndx1FileSpec, ndx2FileSpec);
 		
-		media.useIndex(ndx1FileSpec);
+	}
+	
+	/**
+	 * Describe a change to the record of a media.  An insert or upsert sets every field, an update
+	 * sets the fields that can change and a delete sets none.
+	 * @param type The type of change
+	 * @param bm The media
+	 * @return The change
+	 */
+	private DBFJournal.Change change(DBFJournal.ChangeType type, BackupMedia bm) {
+		DBFJournal.Change c = new DBFJournal.Change(type, bm.getMediaIdAsString());
 		
-		if (media.findExact(mediaId)) {
-			bm = parseData(media);
+		if (type == DBFJournal.ChangeType.Insert || type == DBFJournal.ChangeType.Upsert) {
+			c.set(mediaId.Name, bm.getMediaIdAsString());
+			c.set(mediaType.Name, bm.getMediaType().name());
 		}
 		
-		media.close();
+		if (type != DBFJournal.ChangeType.Delete) {
+			c.set(firstUse.Name, bm.getFirstUse() == null ? "" : TimestampCodec.Storage.format(bm.getFirstUse()));
+			c.set(lastUse.Name, bm.getLastUse() == null ? "" : TimestampCodec.Storage.format(bm.getLastUse()));
+			c.set(useCount.Name, String.valueOf(bm.getUseCount()));
+			c.set(active.Name, booleanToLogical(bm.isActive()));
+		}
 		
-		return bm;
+		return c;
 		
 	}
 	
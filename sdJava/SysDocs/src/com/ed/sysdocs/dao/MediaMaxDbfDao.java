@@ -3,6 +3,8 @@ package com.ed.sysdocs.dao;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +27,7 @@ import com.ed.sysdocs.MediaTypes;
  * ** Total **            00018
  * 
  * Index
- * 1. mediamax.ndx: MEDIATYPE, unique</pre>
+ * 1. mediamax.ndx: MEDIATYPE, unique, with the hash index mediamax.ndh</pre>
  * @author Ed Swaneck
  * @version 1.0
  * @since 04/12/2024
@@ -38,6 +40,9 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	/** Filename of the primary index */
 	public static final String index1Name = "mediamax.ndx";
 	
+	/** Decodes the MEDIATYPE field */
+	private static final DBFCodec.EnumLookup<MediaTypes> mediaTypes = new DBFCodec.EnumLookup<>(MediaTypes.class);
+	
 	// Internal properties
 	private CharField mediaType;
 	private NumField maxUse;
@@ -67,15 +72,18 @@ public class MediaMaxDbfDao extends DBFUtilities {
 		
 		File dbf = new File(dbfFileSpec);
 		File ndx = new File(ndx1FileSpec);
+		File hash = new File(NDXHash.fileSpec(ndx1FileSpec));
 		
 		if (!dbf.exists()) {
 			create();
 		}
 		
-		if (!ndx.exists()) {
+		if (!ndx.exists() || !hash.exists()) {
 			index();
 		}
 		
+		recover(dbfFileSpec, ndx1FileSpec, ndx1FileSpec);
+		
 	}
 
 	/*
@@ -84,12 +92,16 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 */
 	@Override
 	public void create() throws SecurityException, xBaseJException, IOException {
-		DBF mmd = new DBF(dbfFileSpec, false);
+		DBF mmd;
+		
+		DBFHandlePool.invalidate(dbfFileSpec);
+		mmd = new DBF(dbfFileSpec, false);
 		
 		mmd.addField(mediaType);
 		mmd.addField(maxUse);
 		mmd.close();
-		index();
+		
+		List<Map<String, String>> rows = new ArrayList<>();
 		
 		for (MediaTypes mt : MediaTypes.values()) {
 			MediaMaximum mm = new MediaMaximum();
@@ -97,10 +109,12 @@ public class MediaMaxDbfDao extends DBFUtilities {
 			mm.setMediaType(mt);
 			mm.setMaxUse(0);
 			
-			insert(mm);
+			rows.add(change(DBFJournal.ChangeType.Upsert, mm).getFields());
 			
 		}
 		
+		load(DBFBulkLoader.rows(rows));
+		
 	}
 
 	/*
@@ -114,6 +128,19 @@ public class MediaMaxDbfDao extends DBFUtilities {
 
 	}
 	
+	/**
+	 * Append rows to the table in one pass and rebuild its indexes once, for seeding and migrating the table
+	 * @param source The rows to append, with the field values as stored in the table
+	 * @return Number of rows appended
+	 * @throws SecurityException If the OS will not allow the indexes to be rebuilt
+	 * @throws xBaseJException If the indexes cannot be rebuilt
+	 * @throws IOException If the source cannot be read, a row does not fit the table, a row repeats a unique key
+	 *                     or the table cannot be written
+	 */
+	public int load(DBFBulkLoader.Source source) throws SecurityException, xBaseJException, IOException {
+		return bulkLoad(dbfFileSpec, source);
+	}
+	
 	/**
 	 * Create a new record
 	 * @param mm The data to save
@@ -122,15 +149,10 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public void insert(MediaMaximum mm) throws SecurityException, xBaseJException, IOException {
-		DBF mmd = new DBF(dbfFileSpec);
-		
-		mmd.useIndex(ndx1FileSpec);
-
-		mmd.getField(mediaType.Name).put(mm.getMediaType().name());
-		mmd.getField(maxUse.Name).put(String.valueOf(mm.getMaxUse()));
 		
-		mmd.write();
-		mmd.close();
+		try (DBFHandle handle = openMediaMax()) {
+			apply(handle, List.of(change(DBFJournal.ChangeType.Upsert, mm)));
+		}
 		
 	}
 	
@@ -143,23 +165,56 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public boolean update(MediaMaximum prop) throws SecurityException, xBaseJException, IOException {
-		DBF mm = new DBF(dbfFileSpec);
-		boolean done = false;
+		boolean done;
 		
-		mm.useIndex(ndx1FileSpec);
-		
-		if (mm.findExact(prop.getMediaType().name())) {
-			mm.getField(maxUse.Name).put(String.valueOf(prop.getMaxUse()));
-			mm.update();
-			done = true;
+		try (DBFHandle handle = openMediaMax()) {
+			done = apply(handle, List.of(change(DBFJournal.ChangeType.Update, prop)))[0];
 		}
-
-		mm.close();
 		
 		return done;
 		
 	}
 	
+	/**
+	 * Save a list of media maximums in a single session, as one batch of the journal.  Existing
+	 * media types are updated when their maximum changed and any missing media types are inserted.
+	 * @param mml The media maximums to save
+	 * @return The media maximums that were applied, by operation
+	 * @throws SecurityException If the OS will not allow the table to be updated
+	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws IOException If the table cannot be read or updated
+	 */
+	public BatchResult<MediaMaximum> applyBatch(List<MediaMaximum> mml) throws SecurityException, xBaseJException, IOException {
+		BatchResult<MediaMaximum> result = new BatchResult<>();
+		
+		try (DBFHandle handle = openMediaMax()) {
+			List<DBFJournal.Change> changes = new ArrayList<>();
+			
+			for (MediaMaximum prop : mml) {
+				DBF mm = handle.getDbf();
+				
+				if (!handle.findExact(ndx1FileSpec, prop.getMediaType().name())) {
+					changes.add(change(DBFJournal.ChangeType.Upsert, prop));
+					result.add(DBFOperations.Insert, prop);
+				}
+				else if (mm.deleted() || parseData(mm).getMaxUse() != prop.getMaxUse()) {
+					changes.add(change(DBFJournal.ChangeType.Upsert, prop));
+					result.add(DBFOperations.Modified, prop);
+				}
+				else {
+					result.add(DBFOperations.Unchanged, prop);
+				}
+				
+			}
+			
+			apply(handle, changes);
+			
+		}
+		
+		return result;
+		
+	}
+	
 	/**
 	 * Delete a media maximum record
 	 * @param mediaName Name of the media type to delete
@@ -168,17 +223,15 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public boolean delete(String mediaName) throws xBaseJException, IOException {
-		DBF mm = new DBF(dbfFileSpec);
 		boolean done = false;
 		
-		mm.useIndex(ndx1FileSpec);
+		try (DBFHandle handle = openMediaMax()) {
+			done = apply(handle, List.of(new DBFJournal.Change(DBFJournal.ChangeType.Delete, mediaName)))[0];
+		}
 		
-		if (mm.findExact(mediaName)) {
-			mm.delete();
-			done = mm.deleted();
+		if (done) {
+			DBFCompactor.deleted(this, dbfFileSpec);
 		}
-
-		mm.close();
 		
 		return done;
 		
@@ -191,7 +244,7 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	@Override
 	public void pack() throws xBaseJException, IOException, SecurityException, CloneNotSupportedException {
 		
-		packDbf(dbfFileSpec, ndx1FileSpec);
+		packDbf(dbfFileSpec);
 		
 	}
 	
@@ -214,41 +267,31 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be created
 	 */
 	public List<MediaMaximum> listAll() throws SecurityException, xBaseJException, IOException {
-		DBF mm = new DBF(dbfFileSpec);
+		Map<MediaTypes, MediaMaximum> found = cachedMediaMax();
 		List<MediaMaximum> pl = new ArrayList<>();
-		List<MediaMaximum> add = new ArrayList<>();
-		
-		mm.useIndex(ndx1FileSpec);
-		mm.startTop();
 		
 		for (MediaTypes mt : MediaTypes.values()) {
-			if (mm.findExact(mt.name())) {
-				pl.add(parseData(mm));
-			}
-			else {
-				MediaMaximum sdp = new MediaMaximum();
-				
+			MediaMaximum sdp = found.get(mt);
+			
+			// Add any new media types to the list and the DBF
+			if (sdp == null) {
+				sdp = new MediaMaximum();
 				sdp.setMediaType(mt);
 				sdp.setMaxUse(0);
-				add.add(sdp);
-				
+				insert(sdp);
+			}
+			else {
+				sdp = new MediaMaximum(sdp);
 			}
 			
-		}
-
-		// Add any new media types to the list and the DBF
-		for (MediaMaximum sdp : add) {
 			pl.add(sdp);
-			insert(sdp);
+			
 		}
 		
-		mm.close();
-		
 		return pl;
 		
 	}
 	
-	
 	/**
 	 * Generate a map of all backup media types and their maximums
 	 * @return A populated map of all backup media
@@ -257,38 +300,54 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be created
 	 */
 	public Map<MediaTypes, Integer> mapAll() throws SecurityException, xBaseJException, IOException {
-		DBF mm = new DBF(dbfFileSpec);
 		Map<MediaTypes, Integer> pm = new HashMap<>();
-		List<MediaMaximum> add = new ArrayList<>();
 		
-		mm.useIndex(ndx1FileSpec);
-		mm.startTop();
+		for (MediaMaximum sdp : listAll()) {
+			pm.put(sdp.getMediaType(), Integer.valueOf(sdp.getMaxUse()));
+		}
 		
-		for (MediaTypes mt : MediaTypes.values()) {
-			MediaMaximum p;
+		return pm;
+		
+	}
+	
+	/**
+	 * Find the media maximums that meet a query.  mediamax.ndx is used when it bounds the query.
+	 * @param <T> Type of the results
+	 * @param query The conditions on the media maximum fields
+	 * @param projection Builds a result from each matching record
+	 * @return The results
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	public <T> List<T> query(DBFQuery<MediaMaximum.Fields> query, DBFQuery.Projection<MediaMaximum.Fields, T> projection) throws IOException {
+		
+		return runQuery(dbfFileSpec,
+				        MediaMaximum.Fields.class,
+				        List.of(new DBFQuery.Index<>(ndx1FileSpec, MediaMaximum.Fields.MediaType)),
+				        query,
+				        projection);
+				
+	}
+	
+	/**
+	 * Find the media maximums that meet a query.  Records of unknown media types are skipped.
+	 * @param query The conditions on the media maximum fields
+	 * @return The media maximums
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	public List<MediaMaximum> query(DBFQuery<MediaMaximum.Fields> query) throws IOException {
+		List<MediaMaximum> mml = query(query, row -> {
+			MediaMaximum mm = new MediaMaximum();
 			
-			if (mm.findExact(mt.name())) {
-				p = parseData(mm);
-				pm.put(p.getMediaType(), Integer.valueOf(p.getMaxUse()));
-			}
-			else {
-				p = new MediaMaximum();
-				p.setMediaType(mt);
-				p.setMaxUse(0);
-				add.add(p);
-			}
+			mm.setMediaType(row.getEnum(MediaMaximum.Fields.MediaType, MediaTypes.class));
+			mm.setMaxUse(row.getInt(MediaMaximum.Fields.MaxUse));
 			
-		}
-
-		// Add any new media types to the map and the DBF
-		for (MediaMaximum sdp : add) {
-			pm.put(sdp.getMediaType(), sdp.getMaxUse());
-			insert(sdp);
-		}
+			return mm;
+			
+		});
 		
-		mm.close();
+		mml.removeIf(mm -> mm.getMediaType() == null);
 		
-		return pm;
+		return mml;
 		
 	}
 	
@@ -301,18 +360,137 @@ public class MediaMaxDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be created
 	 */
 	public MediaMaximum read(String pn) throws SecurityException, xBaseJException, IOException {
-		DBF mm = new DBF(dbfFileSpec);
 		MediaMaximum prop = null;
 		
-		mm.useIndex(ndx1FileSpec);
+		for (MediaMaximum mm : cachedMediaMax().values()) {
+			if (mm.getMediaType().name().equals(pn)) {
+				prop = new MediaMaximum(mm);
+			}
+		}
+		
+		return prop;
 		
-		if (mm.findExact(pn)) {
-			prop = parseData(mm);
+	}
+	
+	/**
+	 * Obtain the pooled handle of the media maximums table
+	 * @return The open media maximums table with its index attached
+	 * @throws xBaseJException If the table or the index cannot be opened
+	 * @throws IOException If the table or the index cannot be opened
+	 */
+	private DBFHandle openMediaMax() throws xBaseJException, IOException {
+		
+		return openTable(dbfFileSpec, ndx1FileSpec);
+		
+	}
+	
+	/**
+	 * Retrieve the decoded media maximums table from the application cache
+	 * @return The maximums, shared by every caller and not to be modified
+	 * @throws IOException If the table cannot be read or does not have the expected layout
+	 */
+	private Map<MediaTypes, MediaMaximum> cachedMediaMax() throws IOException {
+		
+		return DBFTableCache.get(dbfFileSpec, () -> Collections.unmodifiableMap(scanMediaMax()));
+		
+	}
+	
+	/**
+	 * Read the media maximums table
+	 * @return The maximums that were found, excluding deleted records and unknown media types
+	 * @throws IOException If the table cannot be read or does not have the expected layout
+	 */
+	private Map<MediaTypes, MediaMaximum> scanMediaMax() throws IOException {
+		Map<MediaTypes, MediaMaximum> found = new EnumMap<>(MediaTypes.class);
+		
+		try (DBFCursor<MediaMaximum> cursor = openCursor(dbfFileSpec, MediaMaxDecoder::new)) {
+			cursor.forEachRemaining(sdp -> found.put(sdp.getMediaType(), sdp));
 		}
 		
-		mm.close();
+		return found;
 		
-		return prop;
+	}
+	
+	/**
+	 * Decodes the media maximums table directly from the DBF bytes.  Records of unknown media types are skipped.
+	 */
+	private class MediaMaxDecoder implements RecordDecoder<MediaMaximum> {
+		
+		private DBFReader mm;
+		private DBFReader.Field typeFld;
+		private DBFReader.Field maxFld;
+		
+		/**
+		 * Constructor
+		 * @param mm The media maximums table
+		 * @throws IOException If the table does not have the expected layout
+		 */
+		MediaMaxDecoder(DBFReader mm) throws IOException {
+			
+			this.mm = mm;
+			typeFld = mm.getField(mediaType.Name, mediaType.getLength());
+			maxFld = mm.getField(maxUse.Name, maxUse.getLength());
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#newRecord()
+		 */
+		@Override
+		public MediaMaximum newRecord() {
+			return new MediaMaximum();
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#decode(int, java.lang.Object)
+		 */
+		@Override
+		public boolean decode(int rec, MediaMaximum sdp) {
+			MediaTypes mt = mm.getEnum(rec, typeFld, mediaTypes);
+			
+			if (mt != null) {
+				sdp.setMediaType(mt);
+				sdp.setMaxUse(mm.getInt(rec, maxFld));
+			}
+			
+			return mt != null;
+			
+		}
+		
+	}
+	
+	/**
+	 * Journal and apply changes to the media maximums table
+	 * @param handle The open media maximums table
+	 * @param changes The changes to apply
+	 * @return For each change, true if it was applied or false if its media type was not found
+	 * @throws xBaseJException If a record cannot be written
+	 * @throws IOException If the journal cannot be written or the table cannot be updated
+	 */
+	private boolean [] apply(DBFHandle handle, List<DBFJournal.Change> changes) throws xBaseJException, IOException {
+		
+		return applyChanges(handle, ndx1FileSpec, changes, ndx1FileSpec);
+		
+	}
+	
+	/**
+	 * Describe a change to the record of a media type
+	 * @param type The type of change, an upsert or an update
+	 * @param mm The media maximum
+	 * @return The change
+	 */
+	private DBFJournal.Change change(DBFJournal.ChangeType type, MediaMaximum mm) {
+		DBFJournal.Change c = new DBFJournal.Change(type, mm.getMediaType().name());
+		
+		if (type == DBFJournal.ChangeType.Upsert) {
+			c.set(mediaType.Name, mm.getMediaType().name());
+		}
+		
+		c.set(maxUse.Name, String.valueOf(mm.getMaxUse()));
+		
+		return c;
 		
 	}
 	
@@ -0,0 +1,497 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Builds every index of a table from a single scan of the DBF file.<br>
+ * The keys of all of the indexes are extracted in one pass over the records, each index is sorted
+ * in memory and written bottom-up as a dBase III B+ tree, in the layout read by {@link NDXReader}.
+ * The keys are spread evenly over as few leaves as will hold them, then each interior level holds
+ * the highest key of each of its children.  Every index is written to a temporary file next to the old one and then moved over it,
+ * so a reader sees either the old index or the complete new one.  Windows will not replace a file that another
+ * process has open, as the pooled handles of other processes keep their indexes, so the new index is then copied
+ * over the old one in place.  The write lock of the table keeps every reader out while it is copied and the
+ * generation of the table, see {@link DBFLock#changed()}, makes the other processes reopen their handles.  The
+ * temporary file is removed either way.<br>
+ * Only character keys are supported: a single field, or fields joined with
+ * {@link DBFUtilities#keyOp}, where the key is the concatenated field contents.  As with dBase,
+ * deleted records are indexed.  A unique index keeps the live record of each key, or the first deleted
+ * record when none of them is live, and the build fails if more than one live record has the same key.
+ * Every index is sorted before any is written, so a build that fails leaves the indexes as they were.
+ * A unique index also gets an {@link NDXHash} of its keys for exact lookups.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class NDXBuilder {
+	
+	/** Longest key allowed in an NDX file */
+	public static final int maxKeyLength = 100;
+	
+	/** Key type of a character key */
+	private static final short charKey = 0;
+	
+	/** File specification of the DBF file */
+	private String dbfFileSpec;
+	
+	/** The indexes to build */
+	private List<Definition> definitions = new ArrayList<>();
+	
+	/**
+	 * One index to build
+	 */
+	private static class Definition {
+		
+		private String ndxFileSpec;
+		private String key;
+		private boolean unique;
+		private DBFReader.Field [] fields;
+		private int keyLength;
+		private byte [] keys;
+		private int [] order;
+		
+		/**
+		 * Constructor
+		 * @param ndxFileSpec File specification of the index
+		 * @param key Index expression
+		 * @param unique true if the index keeps only one record of each key
+		 */
+		Definition(String ndxFileSpec, String key, boolean unique) {
+			
+			this.ndxFileSpec = ndxFileSpec;
+			this.key = key;
+			this.unique = unique;
+			
+		}
+		
+	}
+	
+	/**
+	 * Constructor
+	 * @param dbfFileSpec File specification of the DBF file to index
+	 */
+	public NDXBuilder(String dbfFileSpec) {
+		
+		super();
+		this.dbfFileSpec = dbfFileSpec;
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return File specification of the DBF file
+	 */
+	public String getDbfFileSpec() {
+		return dbfFileSpec;
+	}
+	
+	/**
+	 * Add an index to build
+	 * @param ndxFileSpec File specification of the index, any current index will be replaced
+	 * @param key Index expression
+	 * @param unique true if this index will generate unique keys, otherwise false
+	 * @return This builder
+	 */
+	public NDXBuilder add(String ndxFileSpec, String key, boolean unique) {
+		
+		definitions.add(new Definition(ndxFileSpec, key, unique));
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Build all of the indexes.  The table must not be open for update while this runs.
+	 * @throws IOException If the table cannot be read, a key cannot be indexed, more than one live record
+	 *                     has the same key of a unique index or an index cannot be written
+	 */
+	public void build() throws IOException {
+		DBFReader table = new DBFReader(dbfFileSpec);
+		int count = table.getRecordCount();
+		
+		for (Definition def : definitions) {
+			resolve(table, def);
+			def.keys = new byte[count * def.keyLength];
+		}
+		
+		// One pass over the records extracts the keys of every index
+		for (int rec = 1; rec <= count; rec++) {
+			int start = table.recordStart(rec);
+			
+			for (Definition def : definitions) {
+				int pos = (rec - 1) * def.keyLength;
+				
+				for (DBFReader.Field f : def.fields) {
+					table.getData().get(start + f.getOffset(), def.keys, pos, f.getLength());
+					pos += f.getLength();
+				}
+				
+			}
+			
+		}
+		
+		for (Definition def : definitions) {
+			sort(def, table, count);
+		}
+		
+		for (Definition def : definitions) {
+			write(def);
+			
+			if (def.unique) {
+				NDXHash.write(def.ndxFileSpec, table, def.fields, def.keyLength, def.keys, def.order);
+			}
+			
+			def.keys = null;
+			def.order = null;
+		}
+		
+	}
+	
+	/**
+	 * Look up the fields of an index expression
+	 * @param table The table
+	 * @param def The index
+	 * @throws IOException If the expression is not a character key of the table
+	 */
+	private void resolve(DBFReader table, Definition def) throws IOException {
+		String [] names = def.key.split("\\" + DBFUtilities.keyOp);
+		boolean character = false;
+		
+		def.fields = new DBFReader.Field[names.length];
+		def.keyLength = 0;
+		
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i].trim();
+			
+			for (DBFReader.Field f : table.getFields()) {
+				if (f.getName().equalsIgnoreCase(name)) {
+					def.fields[i] = f;
+				}
+			}
+			
+			if (def.fields[i] == null) {
+				throw new IOException(ErrMsgs.NDX_KEY.getMsg(dbfFileSpec, def.key));
+			}
+			
+			character |= def.fields[i].getType() == 'C';
+			def.keyLength += def.fields[i].getLength();
+			
+		}
+		
+		// A key made only of numeric or date fields is not stored as text
+		if (!character || def.keyLength > maxKeyLength) {
+			throw new IOException(ErrMsgs.NDX_KEY.getMsg(dbfFileSpec, def.key));
+		}
+		
+	}
+	
+	/**
+	 * Sort the records of an index by key and then by record number, dropping repeated keys from a unique
+	 * index.  Of the records with the same key a unique index keeps the live one, or the first one if they
+	 * are all deleted.
+	 * @param def The index
+	 * @param table The table
+	 * @param count Number of records in the table
+	 * @throws IOException If more than one live record has the same key of a unique index
+	 */
+	private void sort(Definition def, DBFReader table, int count) throws IOException {
+		int [] recs = mergeSort(def, count);
+		int kept = 0;
+		
+		// The records are already in order, so dropping repeated keys can reuse the array
+		for (int i = 0; i < count; i++) {
+			int rec = recs[i];
+			
+			if (!def.unique || kept == 0 || compareKeys(def, recs[kept - 1], rec) != 0) {
+				recs[kept++] = rec;
+			}
+			else if (!table.isDeleted(rec + 1)) {
+				if (!table.isDeleted(recs[kept - 1] + 1)) {
+					throw new IOException(ErrMsgs.NDX_DUPLICATE.getMsg(def.ndxFileSpec,
+							                                           new String(def.keys, rec * def.keyLength, def.keyLength, StandardCharsets.ISO_8859_1).trim()));
+				}
+				
+				recs[kept - 1] = rec;
+				
+			}
+			
+		}
+		
+		def.order = kept == count ? recs : Arrays.copyOf(recs, kept);
+		
+	}
+	
+	/**
+	 * Sort the record numbers of a table by the keys of an index with a bottom-up merge sort on a primitive
+	 * array.  The sort is stable and starts in record number order, so records with equal keys stay in
+	 * record number order.  A pair of runs that is already in order is copied without comparing each key,
+	 * so a table that was loaded in key order costs one comparison per run.
+	 * @param def The index, with its keys extracted
+	 * @param count Number of records in the table
+	 * @return The zero based record numbers in key order
+	 */
+	private static int [] mergeSort(Definition def, int count) {
+		int [] from = new int[count];
+		int [] to = new int[count];
+		int [] swap;
+		
+		for (int i = 0; i < count; i++) {
+			from[i] = i;
+		}
+		
+		for (int width = 1; width < count; width *= 2) {
+			for (int lo = 0; lo < count; lo += 2 * width) {
+				int mid = Math.min(lo + width, count);
+				int hi = Math.min(lo + 2 * width, count);
+				
+				if (mid == hi || compareKeys(def, from[mid - 1], from[mid]) <= 0) {
+					System.arraycopy(from, lo, to, lo, hi - lo);
+				}
+				else {
+					int a = lo;
+					int b = mid;
+					
+					for (int k = lo; k < hi; k++) {
+						if (b >= hi || a < mid && compareKeys(def, from[a], from[b]) <= 0) {
+							to[k] = from[a++];
+						}
+						else {
+							to[k] = from[b++];
+						}
+					}
+					
+				}
+				
+			}
+			
+			swap = from;
+			from = to;
+			to = swap;
+			
+		}
+		
+		return from;
+		
+	}
+	
+	/**
+	 * Compare the keys of two records as unsigned bytes
+	 * @param def The index
+	 * @param a Zero based number of the first record
+	 * @param b Zero based number of the second record
+	 * @return Negative, zero or positive as the first key is less than, equal to or greater than the second
+	 */
+	private static int compareKeys(Definition def, int a, int b) {
+		int len = def.keyLength;
+		
+		return Arrays.compareUnsigned(def.keys, a * len, a * len + len, def.keys, b * len, b * len + len);
+		
+	}
+	
+	/**
+	 * Write an index bottom-up to a temporary file and move it over the current index
+	 * @param def The index
+	 * @throws IOException If the index cannot be written
+	 */
+	private void write(Definition def) throws IOException {
+		int entrySize = (def.keyLength + 8 + 3) / 4 * 4;
+		int perNode = (NDXReader.blockSize - 8) / entrySize;
+		Path target = Paths.get(def.ndxFileSpec);
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		List<int []> level = new ArrayList<>();
+		int next = 1;
+		int root;
+		
+		try (FileChannel fc = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+											   StandardOpenOption.WRITE)) {
+			ByteBuffer block = ByteBuffer.allocate(NDXReader.blockSize).order(ByteOrder.LITTLE_ENDIAN);
+			int leaves = Math.max(1, (def.order.length + perNode - 1) / perNode);
+			int i = 0;
+			
+			// Leaves, each level entry is the block number and the position of the highest key under it
+			for (int leaf = 0; leaf < leaves; leaf++) {
+				int n = share(def.order.length, leaves, leaf);
+				
+				block.clear();
+				Arrays.fill(block.array(), (byte) 0);
+				block.putInt(0, n);
+				
+				for (int k = 0; k < n; k++) {
+					putEntry(block, def, 4 + k * entrySize, 0, i + k);
+				}
+				
+				fc.write(block, (long) next * NDXReader.blockSize);
+				level.add(new int[] { next++, n == 0 ? -1 : i + n - 1 });
+				i += n;
+				
+			}
+			
+			// Interior levels, a node with n keys has n + 1 children
+			while (level.size() > 1) {
+				List<int []> parents = new ArrayList<>();
+				int nodes = (level.size() + perNode) / (perNode + 1);
+				int c = 0;
+				
+				// Spreading the children evenly gives every node at least two, a node without keys would read as a leaf
+				for (int node = 0; node < nodes; node++) {
+					int n = share(level.size(), nodes, node) - 1;
+					
+					block.clear();
+					Arrays.fill(block.array(), (byte) 0);
+					block.putInt(0, n);
+					
+					for (int k = 0; k < n; k++) {
+						int [] child = level.get(c + k);
+						
+						putEntry(block, def, 4 + k * entrySize, child[0], child[1]);
+					}
+					
+					block.putInt(4 + n * entrySize, level.get(c + n)[0]);
+					fc.write(block, (long) next * NDXReader.blockSize);
+					parents.add(new int[] { next++, level.get(c + n)[1] });
+					c += n + 1;
+					
+				}
+				
+				level = parents;
+				
+			}
+			
+			root = level.get(0)[0];
+			writeHeader(fc, def, root, next, perNode, entrySize);
+			fc.force(true);
+			
+		}
+		
+		replace(temp, target);
+		
+	}
+	
+	/**
+	 * Move a new index over the current one, or copy it over the current one in place when the current one
+	 * cannot be replaced because another process has it open.  The new index is removed in either case.
+	 * @param temp The new index
+	 * @param target The current index
+	 * @throws IOException If the index can be neither replaced nor overwritten, it must then be built again
+	 */
+	private static void replace(Path temp, Path target) throws IOException {
+		
+		try {
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (FileSystemException e) {
+			overwrite(temp, target);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+		
+	}
+	
+	/**
+	 * Copy a new index over the current one in place.  The file is only shortened if the new index is
+	 * smaller, a block past the end of the new index is never read.
+	 * @param temp The new index
+	 * @param target The current index
+	 * @throws IOException If the current index cannot be written
+	 */
+	private static void overwrite(Path temp, Path target) throws IOException {
+		
+		try (FileChannel in = FileChannel.open(temp, StandardOpenOption.READ);
+			 FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+			long size = in.size();
+			long pos = 0;
+			
+			while (pos < size) {
+				pos += in.transferTo(pos, size - pos, out.position(pos));
+			}
+			
+			if (out.size() > size) {
+				out.truncate(size);
+			}
+			
+			out.force(true);
+			
+		}
+		catch (IOException e) {
+			throw new IOException(ErrMsgs.NDX_REPLACE.getMsg(target.toString()), e);
+		}
+		
+	}
+	
+	/**
+	 * Divide items as evenly as possible between nodes
+	 * @param items Number of items
+	 * @param nodes Number of nodes
+	 * @param node Zero based node number
+	 * @return Number of items in the node
+	 */
+	private static int share(int items, int nodes, int node) {
+		return items / nodes + (node < items % nodes ? 1 : 0);
+	}
+	
+	/**
+	 * Store a key entry in a node
+	 * @param block The node
+	 * @param def The index
+	 * @param pos Position of the entry in the node
+	 * @param child Block number of the child node or 0 in a leaf
+	 * @param i Position of the key in the sorted order
+	 */
+	private static void putEntry(ByteBuffer block, Definition def, int pos, int child, int i) {
+		int rec = def.order[i];
+		
+		block.putInt(pos, child);
+		block.putInt(pos + 4, rec + 1);
+		block.put(pos + 8, def.keys, rec * def.keyLength, def.keyLength);
+		
+	}
+	
+	/**
+	 * Write the header block
+	 * @param fc The index file
+	 * @param def The index
+	 * @param root Block number of the root node
+	 * @param blocks Number of blocks in the file
+	 * @param perNode Maximum number of keys in a node
+	 * @param entrySize Size of a key entry
+	 * @throws IOException If the header cannot be written
+	 */
+	private static void writeHeader(FileChannel fc, Definition def, int root, int blocks, int perNode, int entrySize) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(NDXReader.blockSize).order(ByteOrder.LITTLE_ENDIAN);
+		byte [] expr = def.key.getBytes(StandardCharsets.ISO_8859_1);
+		
+		header.putInt(0, root);
+		header.putInt(4, blocks);
+		header.putShort(12, (short) def.keyLength);
+		header.putShort(14, (short) perNode);
+		header.putShort(16, charKey);
+		header.putShort(18, (short) entrySize);
+		header.put(23, (byte) (def.unique ? 1 : 0));
+		header.put(24, expr, 0, Math.min(expr.length, NDXReader.blockSize - 25));
+		fc.write(header, 0);
+		
+	}
+	
+}
@@ -0,0 +1,475 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Memory mapped hash table from the keys of a unique NDX index to their DBF record numbers, kept in a
+ * file next to the index, so an exact key is found with one probe instead of a walk down the tree.<br>
+ * The layout of the file, little endian, is:
+ * <pre> Offset  Size  Content
+ * 0       4     Signature, NDXH
+ * 4       4     Number of slots, a power of 2
+ * 8       4     Number of keys
+ * 12      2     Length of a key
+ * 14      2     Size of a slot, the key length plus 4 rounded up to a multiple of 4
+ * 16      2     Length of the DBF header
+ * 18      2     Length of a DBF record
+ * 20      1     Number of key fields
+ * 24      4     Offset and length, 2 bytes each, of each key field within a record
+ * 128     Slots Record number, 0 for an empty slot, then the key</pre>
+ * Keys are placed by open addressing with linear probing and the table doubles before it is half full.
+ * Keys are only ever added.  A record number found for a key is checked against the key fields of the
+ * record in the DBF, so an entry left behind by a record that was reused for another key, or by a write
+ * this index did not see, is never returned.  The caller searches the NDX when a key is not found.<br>
+ * The file is rebuilt in place by {@link NDXBuilder} along with the index and is never truncated, so a
+ * mapping held by another handle or process stays valid.  An instance is not thread safe, it is used by
+ * the thread that holds the {@link DBFHandle} of the table.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public final class NDXHash implements AutoCloseable {
+	
+	/** Extension of a hash index, which has the name of its NDX */
+	public static final String hashExt = ".ndh";
+	
+	/** Signature of a hash index, NDXH */
+	private static final int signature = 0x4858444E;
+	
+	/** Size of the header */
+	private static final int headerSize = 128;
+	
+	/** Most key fields the header can describe */
+	private static final int maxFields = (headerSize - 24) / 4;
+	
+	/** Fewest slots in a table */
+	private static final int minSlots = 16;
+	
+	/** File specification of the hash index */
+	private final String fileSpec;
+	
+	/** The hash index, open for update */
+	private final FileChannel channel;
+	
+	/** The DBF file, open for reading the key fields of a record */
+	private final FileChannel table;
+	
+	/** The mapped file */
+	private MappedByteBuffer map;
+	
+	/** Number of slots in the mapping */
+	private int slots;
+	
+	/** Length of a key */
+	private int keyLength;
+	
+	/** Size of a slot */
+	private int slotSize;
+	
+	/** Position of the first record in the DBF */
+	private int headerLength;
+	
+	/** Offset of each key field within a record */
+	private int [] fieldOffsets;
+	
+	/** Length of each key field */
+	private int [] fieldLengths;
+	
+	/** The key looked up, blank padded to the key length */
+	private byte [] probe;
+	
+	/** The key of a slot */
+	private byte [] slotKey;
+	
+	/** A record read from the DBF, direct so that a read is not copied through a temporary buffer */
+	private ByteBuffer record;
+	
+	/**
+	 * Constructor
+	 * @param ndxFileSpec File specification of the NDX index that the hash index is kept with
+	 * @param dbfFileSpec File specification of the DBF file
+	 * @throws IOException If either file cannot be opened or the hash index is not valid
+	 */
+	public NDXHash(String ndxFileSpec, String dbfFileSpec) throws IOException {
+		
+		super();
+		fileSpec = fileSpec(ndxFileSpec);
+		channel = FileChannel.open(Paths.get(fileSpec), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		try {
+			table = FileChannel.open(Paths.get(dbfFileSpec), StandardOpenOption.READ);
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+		try {
+			mapFile();
+		}
+		catch (IOException e) {
+			close();
+			throw e;
+		}
+		
+	}
+	
+	/**
+	 * Build the file specification of the hash index of an NDX index
+	 * @param ndxFileSpec File specification of the NDX index
+	 * @return File specification of the hash index
+	 */
+	public static String fileSpec(String ndxFileSpec) {
+		return DBFUtilities.replaceExtension(ndxFileSpec, hashExt);
+	}
+	
+	/**
+	 * Find the record of a key
+	 * @param key The key, as for a find on the NDX, shorter keys are blank padded
+	 * @return The record number or 0 if the key is not in the hash index
+	 * @throws IOException If the hash index or the DBF cannot be read
+	 */
+	public int find(String key) throws IOException {
+		int recNo = 0;
+		
+		if (setProbe(key)) {
+			int pos = slotPosition(locate());
+			int rec = map.getInt(pos);
+			
+			if (rec > 0 && matches(rec)) {
+				recNo = rec;
+			}
+			
+		}
+		
+		return recNo;
+		
+	}
+	
+	/**
+	 * Add a key or move it to another record.  The table doubles once it is half full.
+	 * @param key The key, as for a find on the NDX
+	 * @param recNo The record number
+	 * @throws IOException If the hash index cannot be read or grown
+	 */
+	public void put(String key, int recNo) throws IOException {
+		
+		if (setProbe(key) && recNo > 0) {
+			int pos = slotPosition(locate());
+			
+			if (map.getInt(pos) == 0) {
+				map.put(pos + 4, probe);
+				map.putInt(8, map.getInt(8) + 1);
+			}
+			
+			// The record number goes in last, it is what marks the slot as used
+			map.putInt(pos, recNo);
+			
+			if (map.getInt(8) * 2 > slots) {
+				grow();
+			}
+			
+		}
+		
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		map = null;
+		
+		try {
+			channel.close();
+		}
+		finally {
+			table.close();
+		}
+		
+	}
+	
+	/**
+	 * Write the hash index of a unique index, over any current one.  The file is rewritten in place
+	 * and only grows, it is not replaced, so any mapping of it stays valid.
+	 * @param ndxFileSpec File specification of the NDX index
+	 * @param dbf The table
+	 * @param fields The key fields
+	 * @param keyLength Length of a key
+	 * @param keys The key of every record, in record order
+	 * @param order Zero based numbers of the records to add, one record of each key
+	 * @throws IOException If the hash index cannot be written or the key has too many fields
+	 */
+	static void write(String ndxFileSpec, DBFReader dbf, DBFReader.Field [] fields, int keyLength, byte [] keys, int [] order) throws IOException {
+		String fs = fileSpec(ndxFileSpec);
+		int slotSize = (keyLength + 4 + 3) / 4 * 4;
+		int slots = tableSize(order.length);
+		
+		if (fields.length > maxFields) {
+			throw new IOException(ErrMsgs.NDH_HEADER.getMsg(fs));
+		}
+		
+		try (FileChannel fc = FileChannel.open(Paths.get(fs), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer m = fc.map(FileChannel.MapMode.READ_WRITE, 0, headerSize + (long) slots * slotSize);
+			
+			m.order(ByteOrder.LITTLE_ENDIAN);
+			clear(m, 0, headerSize + slots * slotSize);
+			
+			for (int rec : order) {
+				insert(m, slots, slotSize, keys, rec * keyLength, keyLength, rec + 1);
+			}
+			
+			m.putShort(12, (short) keyLength);
+			m.putShort(14, (short) slotSize);
+			m.putShort(16, (short) dbf.recordStart(1));
+			m.putShort(18, (short) dbf.getRecordLength());
+			m.put(20, (byte) fields.length);
+			
+			for (int i = 0; i < fields.length; i++) {
+				m.putShort(24 + i * 4, (short) fields[i].getOffset());
+				m.putShort(26 + i * 4, (short) fields[i].getLength());
+			}
+			
+			m.putInt(8, order.length);
+			m.putInt(4, slots);
+			m.putInt(0, signature);
+			m.force();
+			
+		}
+		
+	}
+	
+	/**
+	 * Map the file and read its header.  The mapping is made again whenever another handle or process
+	 * has grown or rebuilt the table.
+	 * @throws IOException If the file cannot be mapped or the header is not valid
+	 */
+	private void mapFile() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+		int fields;
+		
+		channel.read(header, 0);
+		slots = header.getInt(4);
+		keyLength = Short.toUnsignedInt(header.getShort(12));
+		slotSize = Short.toUnsignedInt(header.getShort(14));
+		headerLength = Short.toUnsignedInt(header.getShort(16));
+		fields = Byte.toUnsignedInt(header.get(20));
+		
+		if (header.getInt(0) != signature || slots < minSlots || Integer.bitCount(slots) != 1 || keyLength == 0
+			|| slotSize < keyLength + 4 || fields > maxFields || channel.size() < headerSize + (long) slots * slotSize) {
+			throw new IOException(ErrMsgs.NDH_HEADER.getMsg(fileSpec));
+		}
+		
+		fieldOffsets = new int[fields];
+		fieldLengths = new int[fields];
+		
+		for (int i = 0; i < fields; i++) {
+			fieldOffsets[i] = Short.toUnsignedInt(header.getShort(24 + i * 4));
+			fieldLengths[i] = Short.toUnsignedInt(header.getShort(26 + i * 4));
+		}
+		
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize + (long) slots * slotSize);
+		map.order(ByteOrder.LITTLE_ENDIAN);
+		probe = new byte[keyLength];
+		slotKey = new byte[keyLength];
+		record = ByteBuffer.allocateDirect(Short.toUnsignedInt(header.getShort(18)));
+		
+	}
+	
+	/**
+	 * Store a key as the probe, remapping the file first if its table has changed size
+	 * @param key The key
+	 * @return true if the key fits the key length, otherwise false
+	 * @throws IOException If the file cannot be mapped again
+	 */
+	private boolean setProbe(String key) throws IOException {
+		byte [] k = key.getBytes(StandardCharsets.ISO_8859_1);
+		
+		if (map.getInt(4) != slots) {
+			mapFile();
+		}
+		
+		if (k.length <= keyLength) {
+			System.arraycopy(k, 0, probe, 0, k.length);
+			Arrays.fill(probe, k.length, keyLength, (byte) ' ');
+		}
+		
+		return k.length <= keyLength;
+		
+	}
+	
+	/**
+	 * Find the slot of the probe or the empty slot where it would go
+	 * @return The slot number
+	 */
+	private int locate() {
+		int slot = hash(probe, 0, keyLength) & (slots - 1);
+		boolean done = false;
+		
+		while (!done) {
+			int pos = slotPosition(slot);
+			
+			map.get(pos + 4, slotKey);
+			done = map.getInt(pos) == 0 || Arrays.equals(slotKey, probe);
+			
+			if (!done) {
+				slot = (slot + 1) & (slots - 1);
+			}
+			
+		}
+		
+		return slot;
+		
+	}
+	
+	/**
+	 * Check that the key fields of a record hold the probe
+	 * @param recNo The record number
+	 * @return true if the record exists and has the key, otherwise false
+	 * @throws IOException If the DBF cannot be read
+	 */
+	private boolean matches(int recNo) throws IOException {
+		long pos = headerLength + (long) (recNo - 1) * record.capacity();
+		boolean same;
+		int k = 0;
+		
+		record.clear();
+		
+		while (record.hasRemaining() && table.read(record, pos + record.position()) > 0) {
+			// Keep reading until the record is complete
+		}
+		
+		same = !record.hasRemaining();
+		
+		for (int i = 0; i < fieldOffsets.length && same; i++) {
+			for (int b = 0; b < fieldLengths[i] && same; b++) {
+				same = record.get(fieldOffsets[i] + b) == probe[k++];
+			}
+		}
+		
+		return same;
+		
+	}
+	
+	/**
+	 * Double the table, placing every key again
+	 * @throws IOException If the file cannot be grown
+	 */
+	private void grow() throws IOException {
+		int count = map.getInt(8);
+		int [] recs = new int[count];
+		byte [] keys = new byte[count * keyLength];
+		int n = 0;
+		
+		for (int slot = 0; slot < slots; slot++) {
+			int pos = slotPosition(slot);
+			int rec = map.getInt(pos);
+			
+			if (rec > 0 && n < count) {
+				recs[n] = rec;
+				map.get(pos + 4, keys, n * keyLength, keyLength);
+				n++;
+			}
+			
+		}
+		
+		slots = tableSize(n);
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize + (long) slots * slotSize);
+		map.order(ByteOrder.LITTLE_ENDIAN);
+		clear(map, headerSize, headerSize + slots * slotSize);
+		
+		for (int i = 0; i < n; i++) {
+			insert(map, slots, slotSize, keys, i * keyLength, keyLength, recs[i]);
+		}
+		
+		map.putInt(8, n);
+		map.putInt(4, slots);
+		
+	}
+	
+	/**
+	 * Number of slots for a number of keys, a power of 2 at least twice the number of keys
+	 * @param count Number of keys
+	 * @return Number of slots
+	 */
+	private static int tableSize(int count) {
+		return Math.max(minSlots, Integer.highestOneBit(Math.max(1, count) * 4 - 1));
+	}
+	
+	/**
+	 * Position of a slot in the file
+	 * @param slot The slot number
+	 * @return The position of its record number
+	 */
+	private int slotPosition(int slot) {
+		return headerSize + slot * slotSize;
+	}
+	
+	/**
+	 * Place a key that is not in the table in the first empty slot of its probe sequence
+	 * @param m The mapped file
+	 * @param slots Number of slots
+	 * @param slotSize Size of a slot
+	 * @param keys The keys
+	 * @param from Position of the key
+	 * @param keyLength Length of a key
+	 * @param recNo Record number of the key
+	 */
+	private static void insert(ByteBuffer m, int slots, int slotSize, byte [] keys, int from, int keyLength, int recNo) {
+		int slot = hash(keys, from, keyLength) & (slots - 1);
+		
+		while (m.getInt(headerSize + slot * slotSize) != 0) {
+			slot = (slot + 1) & (slots - 1);
+		}
+		
+		m.put(headerSize + slot * slotSize + 4, keys, from, keyLength);
+		m.putInt(headerSize + slot * slotSize, recNo);
+		
+	}
+	
+	/**
+	 * Zero a range of the mapped file
+	 * @param m The mapped file
+	 * @param from The first byte
+	 * @param to The byte after the last one
+	 */
+	private static void clear(ByteBuffer m, int from, int to) {
+		byte [] zeros = new byte[NDXReader.blockSize];
+		
+		for (int pos = from; pos < to; pos += zeros.length) {
+			m.put(pos, zeros, 0, Math.min(zeros.length, to - pos));
+		}
+		
+	}
+	
+	/**
+	 * FNV-1a hash of a key, with the high bits folded into the low bits that pick the slot
+	 * @param key The keys
+	 * @param from Position of the key
+	 * @param len Length of the key
+	 * @return The hash
+	 */
+	private static int hash(byte [] key, int from, int len) {
+		int h = 0x811C9DC5;
+		
+		for (int i = from; i < from + len; i++) {
+			h = (h ^ (key[i] & 0xFF)) * 0x01000193;
+		}
+		
+		return h ^ (h >>> 16);
+		
+	}
+	
+}
@@ -0,0 +1,404 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import com.ed.sysdocs.ErrMsgs;
+
+/**
+ * Read-only image of a dBase III NDX index that walks the key order without xBaseJ.<br>
+ * The index is a B+ tree of 512 byte blocks.  Block 0 is the header:
+ * <pre> Offset  Size  Content
+ * 0       4     Block number of the root node
+ * 4       4     Number of blocks in the file
+ * 12      2     Length of a key
+ * 14      2     Maximum number of keys in a node
+ * 16      2     Key type, 0 for character keys
+ * 18      2     Size of a key entry, the key length plus 8 rounded up to a multiple of 4
+ * 23      1     Unique flag
+ * 24      -     Key expression, terminated by a null</pre>
+ * Each node starts with a 4 byte key count followed by the key entries.  An entry is the block
+ * number of the child node, which is 0 in a leaf, the DBF record number and the key.  An interior
+ * node has one more child than it has keys.  Every key is held in a leaf, the key of an interior
+ * entry is the highest key of its child.
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public class NDXReader {
+	
+	/** Size of a block */
+	public static final int blockSize = 512;
+	
+	/** Deepest tree that will be walked */
+	private static final int maxDepth = 32;
+	
+	/** File specification of the index */
+	private String fileSpec;
+	
+	/** The file contents */
+	private ByteBuffer data;
+	
+	/** Block number of the root node */
+	private int root;
+	
+	/** Number of blocks in the file */
+	private int blockCount;
+	
+	/** Length of a key */
+	private int keyLength;
+	
+	/** Size of a key entry */
+	private int entrySize;
+	
+	/** true if the index does not allow duplicate keys */
+	private boolean unique;
+	
+	/** The key expression */
+	private String keyExpression;
+	
+	/**
+	 * Constructor
+	 * @param fileSpec File specification of the NDX file
+	 * @throws IOException If the file cannot be read or the header is not valid
+	 */
+	public NDXReader(String fileSpec) throws IOException {
+		
+		super();
+		this.fileSpec = fileSpec;
+		data = DBFReader.load(fileSpec);
+		readHeader();
+		
+	}
+	
+	/**
+	 * Getter
+	 * @return File specification of the index
+	 */
+	public String getFileSpec() {
+		return fileSpec;
+	}
+	
+	/**
+	 * Getter
+	 * @return Length of a key
+	 */
+	public int getKeyLength() {
+		return keyLength;
+	}
+	
+	/**
+	 * Getter
+	 * @return true if the index does not allow duplicate keys, otherwise false
+	 */
+	public boolean isUnique() {
+		return unique;
+	}
+	
+	/**
+	 * Getter
+	 * @return The key expression
+	 */
+	public String getKeyExpression() {
+		return keyExpression;
+	}
+	
+	/**
+	 * List the record numbers of the keys that start with a prefix, in key order
+	 * @param prefix The beginning of the keys.  An empty prefix selects every key.
+	 * @return The record numbers
+	 */
+	public PrimitiveIterator.OfInt range(String prefix) {
+		return range(prefix, prefix);
+	}
+	
+	/**
+	 * List the record numbers of the keys between two bounds, in key order.  Each bound is compared with
+	 * the start of the keys, as long as the bound, so a bound that is shorter than the keys includes
+	 * every key that starts with it.
+	 * @param low The lowest key to list.  An empty bound starts at the first key.
+	 * @param high The highest key to list.  An empty bound ends at the last key.
+	 * @return The record numbers
+	 */
+	public PrimitiveIterator.OfInt range(String low, String high) {
+		return new Range(low.getBytes(StandardCharsets.ISO_8859_1), high.getBytes(StandardCharsets.ISO_8859_1));
+	}
+	
+	/**
+	 * Walks the leaves of the tree from the first key that is not less than the low bound
+	 */
+	private class Range implements PrimitiveIterator.OfInt {
+		
+		private byte [] low;
+		private byte [] high;
+		private int [] blocks = new int[maxDepth];
+		private int [] positions = new int[maxDepth];
+		private int depth = 0;
+		private int next = 0;
+		
+		/**
+		 * Constructor
+		 * @param low The lowest key to list
+		 * @param high The highest key to list
+		 */
+		Range(byte [] low, byte [] high) {
+			
+			super();
+			this.low = low;
+			this.high = high;
+			seek();
+			advance();
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			return next != 0;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.PrimitiveIterator.OfInt#nextInt()
+		 */
+		@Override
+		public int nextInt() {
+			int recNo = next;
+			
+			if (recNo == 0) {
+				throw new NoSuchElementException();
+			}
+			
+			advance();
+			
+			return recNo;
+			
+		}
+		
+		/**
+		 * Descend from the root to the first leaf entry that is not less than the low bound
+		 */
+		private void seek() {
+			int block = root;
+			boolean leaf = false;
+			
+			depth = 0;
+			
+			while (!leaf) {
+				int count = keyCount(block);
+				int i = 0;
+				
+				leaf = count == 0 || child(block, 0) == 0;
+				
+				while (i < count && compare(block, i, low) < 0) {
+					i++;
+				}
+				
+				blocks[depth] = block;
+				positions[depth] = i;
+				
+				if (!leaf) {
+					block = child(block, i);
+					depth++;
+					checkDepth();
+				}
+				
+			}
+			
+		}
+		
+		/**
+		 * Move to the next leaf entry and determine if it is still in the range
+		 */
+		private void advance() {
+			next = 0;
+			
+			while (next == 0 && depth >= 0) {
+				int block = blocks[depth];
+				
+				if (positions[depth] < keyCount(block)) {
+					int i = positions[depth]++;
+					
+					if (compare(block, i, high) <= 0) {
+						next = recordNumber(block, i);
+					}
+					else {
+						// Keys are in order, nothing past here can match
+						depth = -1;
+					}
+					
+				}
+				else {
+					nextLeaf();
+				}
+				
+			}
+			
+		}
+		
+		/**
+		 * Climb to the nearest ancestor that has another child and descend to the leftmost leaf of that child
+		 */
+		private void nextLeaf() {
+			
+			do {
+				depth--;
+			} while (depth >= 0 && positions[depth] + 1 > keyCount(blocks[depth]));
+			
+			if (depth >= 0) {
+				int block = child(blocks[depth], ++positions[depth]);
+				
+				while (block != 0) {
+					depth++;
+					checkDepth();
+					blocks[depth] = block;
+					positions[depth] = 0;
+					block = keyCount(block) == 0 ? 0 : child(block, 0);
+				}
+				
+			}
+			
+		}
+		
+		/**
+		 * Compare the start of a key with a bound
+		 * @param block Block number of the node
+		 * @param i Entry number in the node
+		 * @param bound The bound
+		 * @return Negative if the key is less than the bound, 0 if the key starts with the bound, otherwise positive
+		 */
+		private int compare(int block, int i, byte [] bound) {
+			int pos = entry(block, i) + 8;
+			int len = Math.min(bound.length, keyLength);
+			int cmp = 0;
+			
+			for (int k = 0; k < len && cmp == 0; k++) {
+				cmp = Byte.toUnsignedInt(data.get(pos + k)) - Byte.toUnsignedInt(bound[k]);
+			}
+			
+			return cmp;
+			
+		}
+		
+		/**
+		 * Make sure the tree is not deeper than can be walked, which only happens if the index is damaged
+		 */
+		private void checkDepth() {
+			
+			if (depth >= maxDepth) {
+				throw new UncheckedIOException(new IOException(ErrMsgs.NDX_HEADER.getMsg(fileSpec)));
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Get the number of keys in a node
+	 * @param block Block number of the node
+	 * @return The number of keys
+	 */
+	private int keyCount(int block) {
+		int count = data.getInt(checkBlock(block) * blockSize);
+		
+		// An interior node also holds the child pointer after its last key
+		if (count < 0 || 4 + count * entrySize + 4 > blockSize) {
+			throw new UncheckedIOException(new IOException(ErrMsgs.NDX_HEADER.getMsg(fileSpec)));
+		}
+		
+		return count;
+		
+	}
+	
+	/**
+	 * Get the child block of an entry
+	 * @param block Block number of the node
+	 * @param i Entry number in the node
+	 * @return Block number of the child or 0 in a leaf
+	 */
+	private int child(int block, int i) {
+		return data.getInt(entry(block, i));
+	}
+	
+	/**
+	 * Get the DBF record number of an entry
+	 * @param block Block number of the node
+	 * @param i Entry number in the node
+	 * @return The record number
+	 */
+	private int recordNumber(int block, int i) {
+		return data.getInt(entry(block, i) + 4);
+	}
+	
+	/**
+	 * Determine the position of an entry in the file
+	 * @param block Block number of the node
+	 * @param i Entry number in the node
+	 * @return The position of the entry
+	 */
+	private int entry(int block, int i) {
+		return checkBlock(block) * blockSize + 4 + i * entrySize;
+	}
+	
+	/**
+	 * Make sure a block number is inside the file
+	 * @param block The block number
+	 * @return The block number
+	 */
+	private int checkBlock(int block) {
+		
+		if (block <= 0 || (long) (block + 1) * blockSize > data.limit()) {
+			throw new UncheckedIOException(new IOException(ErrMsgs.NDX_HEADER.getMsg(fileSpec)));
+		}
+		
+		return block;
+		
+	}
+	
+	/**
+	 * Read the key expression of an index
+	 * @param header The header block
+	 * @return The key expression
+	 */
+	static String readKeyExpression(ByteBuffer header) {
+		int pos = 24;
+		
+		while (pos < blockSize && header.get(pos) != 0) {
+			pos++;
+		}
+		
+		return StandardCharsets.ISO_8859_1.decode(header.slice(24, pos - 24)).toString().trim();
+		
+	}
+	
+	/**
+	 * Parse and validate the header
+	 * @throws IOException If the header is not valid
+	 */
+	private void readHeader() throws IOException {
+		
+		if (data.limit() < 2 * blockSize) {
+			throw new IOException(ErrMsgs.NDX_HEADER.getMsg(fileSpec));
+		}
+		
+		root = data.getInt(0);
+		blockCount = data.getInt(4);
+		keyLength = Short.toUnsignedInt(data.getShort(12));
+		entrySize = Short.toUnsignedInt(data.getShort(18));
+		unique = data.get(23) != 0;
+		keyExpression = readKeyExpression(data);
+		
+		if (root <= 0 || root >= blockCount || keyLength == 0 || entrySize < keyLength + 8 || entrySize > blockSize - 4) {
+			throw new IOException(ErrMsgs.NDX_HEADER.getMsg(fileSpec));
+		}
+		
+	}
+	
+}
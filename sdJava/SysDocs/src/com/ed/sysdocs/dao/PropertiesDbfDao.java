@@ -1,10 +1,22 @@
 package com.ed.sysdocs.dao;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 import org.xBaseJ.DBF;
 import org.xBaseJ.xBaseJException;
@@ -26,7 +38,12 @@ import com.ed.sysdocs.SysConstants;
  * ** Total **            00136
  *
  * Index
- * 1. properties.ndx: GROUP+PROPERTY+POSITION, unique</pre>
+ * 1. properties.ndx: GROUP+PROPERTY+POSITION, unique, with the hash index properties.ndh</pre>
+ * Unless {@link SysConstants#multiValueBlobs} is false, the values of a multi-value property are kept
+ * together in the blob file properties.blb, see {@link DBFBlobFile}, and the VALUE of its record at
+ * POSITION 0 refers to them.  Records at other positions, written one per value, are still read.
+ * Packing the table also compacts the blob file, the values that are still referred to are copied to
+ * a new blob file, which replaces the old one once the records refer to the copies.
  * @author Ed Swaneck
  * @version 1.1
  * @since 04/12/2024
@@ -39,6 +56,18 @@ public class PropertiesDbfDao extends DBFUtilities {
 	/** Filename of the primary index */
 	public static final String index1Name = "properties.ndx";
 	
+	/** Decodes the PROPERTY field */
+	private static final DBFCodec.EnumLookup<Property.Properties> propertyNames = new DBFCodec.EnumLookup<>(Property.Properties.class);
+	
+	/** Name of the cached view of the stored values of each property by position */
+	private static final String positionsView = "positions";
+	
+	/** Starts a VALUE that refers to values in the blob file, followed by their position */
+	private static final String blobRef = "*BLOB*";
+	
+	/** The stored values of a property that is not in the table */
+	private static final StoredValues noValues = new StoredValues();
+	
 	// Internal properties
 	private CharField group;
 	private CharField property;
@@ -72,15 +101,22 @@ public class PropertiesDbfDao extends DBFUtilities {
 		
 		File dbf = new File(dbfFileSpec);
 		File ndx = new File(ndx1FileSpec);
+		File hash = new File(NDXHash.fileSpec(ndx1FileSpec));
 		
 		if (!dbf.exists()) {
 			create();
 		}
 		
-		if (!ndx.exists()) {
+		if (!ndx.exists() || !hash.exists()) {
 			index();
 		}
 		
+		recover(dbfFileSpec, ndx1FileSpec, ndx1FileSpec);
+		
+		if (new File(DBFBlobFile.compactFileSpec(dbfFileSpec)).exists()) {
+			recoverBlobs();
+		}
+		
 	}
 
 	/* (non-Javadoc)
@@ -88,21 +124,27 @@ public class PropertiesDbfDao extends DBFUtilities {
 	 */
 	@Override
 	public void create() throws SecurityException, xBaseJException, IOException {
-		DBF prp = new DBF(dbfFileSpec, false);
+		DBF prp;
+		
+		DBFHandlePool.invalidate(dbfFileSpec);
+		prp = new DBF(dbfFileSpec, false);
 		
 		prp.addField(group);
 		prp.addField(property);
 		prp.addField(position);
 		prp.addField(value);
 		prp.close();
-		index();
+		
+		List<Map<String, String>> rows = new ArrayList<>();
 		
 		for (Property.Properties p : Property.Properties.values()) {
 			Property prop = new Property(p);
 			
-			insert(prop);
+			rows.add(change(DBFJournal.ChangeType.Upsert, prop).getFields());
 			
 		}
+		
+		load(DBFBulkLoader.rows(rows));
 
 	}
 
@@ -119,12 +161,29 @@ public class PropertiesDbfDao extends DBFUtilities {
 
 	}
 
-	/* (non-Javadoc)
+	/**
+	 * Pack the table and then compact the blob file.  The values that the records still refer to are
+	 * copied to a new blob file, which is forced to disk, the records are changed to refer to the copies
+	 * in one batch of the journal and the new blob file is moved over the old one.  The table stays
+	 * write locked throughout, so no value is appended or read in between.
 	 * @see com.ed.sysdocs.dao.DBFUtilities#pack()
 	 */
 	@Override
 	public void pack() throws xBaseJException, IOException, SecurityException, CloneNotSupportedException {
-		packDbf(dbfFileSpec, ndx1FileSpec);
+		DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).write();
+		
+		try {
+			packDbf(dbfFileSpec);
+			
+			if (new File(DBFBlobFile.blobFileSpec(dbfFileSpec)).exists()) {
+				compactBlobs();
+			}
+			
+		}
+		finally {
+			hold.close();
+		}
+		
 	}
 
 	/* (non-Javadoc)
@@ -135,6 +194,19 @@ public class PropertiesDbfDao extends DBFUtilities {
 		return getMetaData(dbfFileSpec, ndx1FileSpec);
 	}
 
+	/**
+	 * Append rows to the table in one pass and rebuild its indexes once, for seeding and migrating the table
+	 * @param source The rows to append, with the field values as stored in the table
+	 * @return Number of rows appended
+	 * @throws SecurityException If the OS will not allow the indexes to be rebuilt
+	 * @throws xBaseJException If the indexes cannot be rebuilt
+	 * @throws IOException If the source cannot be read, a row does not fit the table, a row repeats a unique key
+	 *                     or the table cannot be written
+	 */
+	public int load(DBFBulkLoader.Source source) throws SecurityException, xBaseJException, IOException {
+		return bulkLoad(dbfFileSpec, source);
+	}
+	
 	/**
 	 * Create a new record
 	 * @param prop The data to save
@@ -143,17 +215,10 @@ public class PropertiesDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public void insert(Property prop) throws SecurityException, xBaseJException, IOException {
-		DBF prp = new DBF(dbfFileSpec);
-		
-		prp.useIndex(ndx1FileSpec);
-
-		prp.getField(group.Name).put(prop.getKey().getGroup().name());
-		prp.getField(property.Name).put(prop.getKey().name());
-		prp.getField(position.Name).put(String.valueOf(prop.getPosition()));
-		prp.getField(value.Name).put(encodePropValue(prop));
 		
-		prp.write();
-		prp.close();
+		try (DBFHandle handle = openProperties()) {
+			apply(handle, List.of(change(DBFJournal.ChangeType.Upsert, prop)));
+		}
 		
 	}
 
@@ -166,20 +231,13 @@ public class PropertiesDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public boolean update(Property prop) throws SecurityException, xBaseJException, IOException {
-		DBF prp = new DBF(dbfFileSpec);
 		boolean done = false;
 		
-		prp.useIndex(ndx1FileSpec);
-		
-		if (prp.findExact(generateRecordKey(prop.getKey(), prop.getPosition()))) {
-			prp.getField(position.Name).put(String.valueOf(prop.getPosition()));
-			prp.getField(value.Name).put(encodePropValue(prop));
-			prp.update();
-			prp.undelete();
-			done = true;
+		try (DBFHandle handle = openProperties()) {
+			if (findRecord(handle, prop)) {
+				done = apply(handle, List.of(change(DBFJournal.ChangeType.Upsert, prop)))[0];
+			}
 		}
-
-		prp.close();
 		
 		return done;
 		
@@ -193,22 +251,127 @@ public class PropertiesDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be read or updated
 	 */
 	public boolean delete(Property prop) throws xBaseJException, IOException {
-		DBF prp = new DBF(dbfFileSpec);
-		boolean done = false;
+		boolean done;
 		
-		prp.useIndex(ndx1FileSpec);
+		try (DBFHandle handle = openProperties()) {
+			done = apply(handle, List.of(change(DBFJournal.ChangeType.Delete, prop)))[0];
+		}
 		
-		if (prp.findExact(generateRecordKey(prop.getKey(), prop.getPosition()))) {
-			prp.delete();
-			done = prp.deleted();
+		if (done) {
+			DBFCompactor.deleted(this, dbfFileSpec);
 		}
-
-		prp.close();
 		
 		return done;
 		
 	}
 	
+	/**
+	 * Apply a list of property values in a single session, as one batch of the journal.  A property with a null value is deleted,
+	 * a property that is not in the table is inserted and a property whose value changed is updated.
+	 * If any property was deleted, the deletes are reported to {@link DBFCompactor}, which packs the table
+	 * in the background once enough records are deleted.
+	 * @param props The property values to save, each with its position
+	 * @return The properties that were applied, by operation
+	 * @throws SecurityException If the OS will not allow the table to be updated
+	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws IOException If the table cannot be read or updated
+	 * @throws CloneNotSupportedException Java error caused by called methods
+	 */
+	public BatchResult<Property> applyBatch(List<Property> props) throws SecurityException, xBaseJException, IOException, CloneNotSupportedException {
+		BatchResult<Property> result = new BatchResult<>();
+		
+		try (DBFHandle handle = openProperties()) {
+			List<DBFJournal.Change> changes = new ArrayList<>();
+			
+			for (Property prop : props) {
+				boolean found = findRecord(handle, prop);
+				boolean deleted = found && handle.getDbf().deleted();
+				
+				if (prop.getValue() == null) {
+					if (found && !deleted) {
+						changes.add(change(DBFJournal.ChangeType.Delete, prop));
+						result.add(DBFOperations.Delete, prop);
+					}
+					else {
+						result.add(DBFOperations.Unchanged, prop);
+					}
+				}
+				else if (!found) {
+					changes.add(change(DBFJournal.ChangeType.Upsert, prop));
+					result.add(DBFOperations.Insert, prop);
+				}
+				else if (deleted || !prop.getValue().equals(parseData(handle.getDbf()).getValue())) {
+					changes.add(change(DBFJournal.ChangeType.Upsert, prop));
+					result.add(DBFOperations.Modified, prop);
+				}
+				else {
+					result.add(DBFOperations.Unchanged, prop);
+				}
+				
+			}
+			
+			apply(handle, changes);
+			
+		}
+		
+		if (result.hasDeletes()) {
+			DBFCompactor.deleted(this, dbfFileSpec);
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Save properties, writing only the records that differ from the table.  The stored values of each
+	 * property are compared by position with its current values: a value that is not stored is inserted,
+	 * a value that changed is updated and a stored position that no longer has a value is deleted.  The
+	 * values of a multi-value property are appended to the blob file as one value, if they changed, and
+	 * its records at other positions are deleted.  A deleted property has no values.<br>
+	 * The stored values are first taken from the cached table, so saving unchanged properties does not
+	 * open the table.  If anything differs, the table is opened for writing and the stored values are
+	 * read again from the table, since another writer may have changed it after it was cached.  The
+	 * changes worked out from them are applied in the same session, as one batch of the journal.
+	 * @param props The properties to save
+	 * @return The records that were written, by operation, each as a property with its position
+	 * @throws SecurityException If the OS will not allow the table to be updated
+	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
+	 * @throws IOException If the table cannot be read or updated
+	 */
+	public BatchResult<Property> save(Collection<Property> props) throws SecurityException, xBaseJException, IOException {
+		Map<Property.Properties, List<String>> blobWrites = new EnumMap<>(Property.Properties.class);
+		List<DBFJournal.Change> changes = new ArrayList<>();
+		BatchResult<Property> result = diff(props, DBFTableCache.get(dbfFileSpec, positionsView, this::scanPositions, ndx1FileSpec), blobWrites, changes);
+		
+		if (!changes.isEmpty() || !blobWrites.isEmpty()) {
+			
+			try (DBFHandle handle = openProperties()) {
+				DBFBlobFile blob = DBFBlobFile.forTable(dbfFileSpec);
+				
+				// The cached table may be stale, the changes are worked out again from the table as this writer found it
+				blobWrites.clear();
+				changes.clear();
+				result = diff(props, scanPositions(), blobWrites, changes);
+				
+				// The values are on disk before the journal refers to them
+				for (Map.Entry<Property.Properties, List<String>> w : blobWrites.entrySet()) {
+					changes.add(blobChange(w.getKey(), blob.append(encodeValues(w.getKey(), w.getValue()))));
+				}
+				
+				apply(handle, changes);
+				
+			}
+			
+		}
+		
+		if (result.hasDeletes()) {
+			DBFCompactor.deleted(this, dbfFileSpec);
+		}
+		
+		return result;
+		
+	}
+	
 	/**
 	 * Load a property from the properties table
 	 * @param key Load this property
@@ -236,17 +399,15 @@ public class PropertiesDbfDao extends DBFUtilities {
 		   throws ArrayIndexOutOfBoundsException, 
 		          xBaseJException, 
 		          IOException {
-		DBF prp = new DBF(dbfFileSpec);
 		Property p = null;
 		
-		prp.useIndex(ndx1FileSpec);
-		
-		if (prp.findExact(generateRecordKey(key, position))) {
-			p = parseData(prp);
+		try (DBFHandle handle = readTable(dbfFileSpec, ndx1FileSpec)) {
+			if (handle.findExact(ndx1FileSpec, generateRecordKey(key, position)) && !handle.getDbf().deleted()) {
+				p = parseData(handle.getDbf());
+			}
+			
 		}
 		
-		prp.close();
-		
 		return p;
 		
 	}
@@ -259,55 +420,502 @@ public class PropertiesDbfDao extends DBFUtilities {
 	 * @throws IOException If the table cannot be created
 	 */
 	public Map<Property.Properties, Property> loadMap() throws SecurityException, xBaseJException, IOException {
-		DBF props = new DBF(dbfFileSpec);
 		Map<Property.Properties, Property> pm = new HashMap<>();
 		
-		props.useIndex(ndx1FileSpec);
-		props.startTop();
+		for (Property p : DBFTableCache.get(dbfFileSpec, this::scanProperties, ndx1FileSpec).values()) {
+			pm.put(p.getKey(), new Property(p));
+		}
 		
-		for (int i = 1; i <= props.getRecordCount(); i++) {
-			props.findNext();
-			
-			if (!props.deleted()) {
-				Property p = parseData(props);
+		return pm;
+		
+	}
+	
+	/**
+	 * Retrieve a form of the properties that is built from the table and cached with it.  It is built
+	 * again whenever the table changes: by a write through this application, which rebuilds it before the
+	 * writer releases the table, or by another process, a bulk load, a pack or a recovery.
+	 * @param <T> Type of the view
+	 * @param view Name of the view, which tells apart the forms in which the table is cached
+	 * @param builder Builds the view from the properties, which must not be modified
+	 * @return The view, shared by every caller
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	public <T> T view(String view, Function<Map<Property.Properties, Property>, T> builder) throws IOException {
+		
+		return DBFTableCache.get(dbfFileSpec, view, () -> builder.apply(scanProperties()), ndx1FileSpec);
+		
+	}
+	
+	/**
+	 * Find the property records that meet a query.  properties.ndx is used when it bounds the query, so
+	 * the records of a multi-value property are found in position order.  The records are not joined
+	 * into properties and values kept in the blob file are not read.
+	 * @param <T> Type of the results
+	 * @param query The conditions on the property fields
+	 * @param projection Builds a result from each matching record
+	 * @return The results
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	public <T> List<T> query(DBFQuery<Property.Fields> query, DBFQuery.Projection<Property.Fields, T> projection) throws IOException {
+		
+		return runQuery(dbfFileSpec,
+				        Property.Fields.class,
+				        List.of(new DBFQuery.Index<>(ndx1FileSpec, Property.Fields.Group, Property.Fields.Property, Property.Fields.Position)),
+				        query,
+				        projection);
 				
-				if (pm.get(p.getKey()) == null) {
-					pm.put(p.getKey(), p);
+	}
+	
+	/**
+	 * Read the properties table, joining the values of each multi-value property
+	 * @return The properties, which are cached and must not be modified
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	private Map<Property.Properties, Property> scanProperties() throws IOException {
+		Map<Property.Properties, Property> pm = new HashMap<>();
+		Map<Property.Properties, String> refs = new EnumMap<>(Property.Properties.class);
+		
+		// properties.ndx is in GROUP+PROPERTY+POSITION order, so the values of a multi-value property are joined in position order
+		try (DBFCursor<PropertyRow> cursor = openCursor(dbfFileSpec, ndx1FileSpec, "", PropertyDecoder::new)) {
+			cursor.visit(row -> {
+				Property p0 = pm.get(row.key);
+				
+				if (isBlobRef(row.key, row.position, row.value)) {
+					refs.put(row.key, row.value);
+				}
+				else if (p0 == null) {
+					Property p = new Property(row.key, decodeValue(row.key, row.value));
+					
+					p.setPosition(row.position);
+					pm.put(row.key, p);
 					
 				}
 				else {
-					Property p0 = pm.get(p.getKey());
-					StringBuilder compoundVal = new StringBuilder(p0.getValue()); 
+					StringBuilder compoundVal = new StringBuilder(p0.getValue());
 					
 					compoundVal.append(SysConstants.newline);
-					compoundVal.append(p.getValue());
+					compoundVal.append(decodeValue(row.key, row.value));
 					p0.setValue(compoundVal.toString());
 					
 				}
 				
+			});
+		}
+		
+		// Values kept in the blob file replace any records written one per value
+		for (Map.Entry<Property.Properties, String> ref : refs.entrySet()) {
+			pm.put(ref.getKey(), new Property(ref.getKey(), String.join(String.valueOf(SysConstants.newline), readValues(ref.getKey(), ref.getValue()))));
+		}
+		
+		return pm;
+		
+	}
+	
+	/**
+	 * Find the records that refer to values in the blob file
+	 * @return The VALUE of the record at POSITION 0 of each property that refers to the blob file
+	 * @throws IOException If the table or index cannot be read or is not valid
+	 */
+	private Map<Property.Properties, String> scanBlobRefs() throws IOException {
+		Map<Property.Properties, String> refs = new EnumMap<>(Property.Properties.class);
+		
+		try (DBFCursor<PropertyRow> cursor = openCursor(dbfFileSpec, ndx1FileSpec, "", PropertyDecoder::new)) {
+			cursor.visit(row -> {
+				if (isBlobRef(row.key, row.position, row.value)) {
+					refs.put(row.key, row.value);
+				}
+			});
+		}
+		
+		return refs;
+		
+	}
+	
+	/**
+	 * Copy the values the records refer to into a new blob file and make it the blob file, if that
+	 * reclaims any space.  The write lock of the table must be held.
+	 * @throws xBaseJException If a record cannot be written
+	 * @throws IOException If the table or blob file cannot be read or written or the new blob file cannot
+	 *                     be moved over the old one
+	 */
+	private void compactBlobs() throws xBaseJException, IOException {
+		Map<Property.Properties, String> refs = scanBlobRefs();
+		List<DBFJournal.Change> changes = new ArrayList<>();
+		DBFBlobFile blob = DBFBlobFile.forTable(dbfFileSpec);
+		
+		try (DBFBlobFile.Compaction compaction = blob.compact()) {
+			for (Map.Entry<Property.Properties, String> ref : refs.entrySet()) {
+				changes.add(blobChange(ref.getKey(), compaction.copy(blobPosition(ref.getValue()))));
+			}
+			
+			if (compaction.reclaims()) {
+				
+				// The copies are on disk before the journal refers to them
+				compaction.force();
+				
+				try (DBFHandle handle = openProperties()) {
+					apply(handle, changes);
+					compaction.swap();
+				}
+				
 			}
 			
 		}
 		
-		props.close();
+	}
+	
+	/**
+	 * Finish or discard a compaction of the blob file that was interrupted, after the journal was recovered
+	 * @throws IOException If the table cannot be read or the new blob file cannot be moved or deleted
+	 */
+	private void recoverBlobs() throws IOException {
+		List<Long> positions = new ArrayList<>();
+		DBFLock.Hold hold = DBFLock.forTable(dbfFileSpec).write();
+		
+		try {
+			for (String ref : scanBlobRefs().values()) {
+				positions.add(Long.valueOf(blobPosition(ref)));
+			}
+			
+			DBFBlobFile.forTable(dbfFileSpec).recover(positions);
+			DBFTableCache.invalidate(dbfFileSpec);
+			
+		}
+		finally {
+			hold.close();
+		}
+		
+	}
+	
+	/**
+	 * Read the stored values of each property by position, and the values its record at POSITION 0
+	 * refers to in the blob file
+	 * @return The values, which are cached and must not be modified
+	 * @throws IOException If the table, index or blob file cannot be read or is not valid
+	 */
+	private Map<Property.Properties, StoredValues> scanPositions() throws IOException {
+		Map<Property.Properties, StoredValues> pm = new HashMap<>();
+		
+		try (DBFCursor<PropertyRow> cursor = openCursor(dbfFileSpec, ndx1FileSpec, "", PropertyDecoder::new)) {
+			cursor.visit(row -> pm.computeIfAbsent(row.key, k -> new StoredValues()).positions
+					              .put(Integer.valueOf(row.position), isBlobRef(row.key, row.position, row.value) ? row.value : decodeValue(row.key, row.value)));
+		}
+		
+		for (Map.Entry<Property.Properties, StoredValues> e : pm.entrySet()) {
+			String ref = e.getValue().positions.get(Integer.valueOf(0));
+			
+			if (isBlobRef(e.getKey(), 0, ref)) {
+				e.getValue().blobValues = readValues(e.getKey(), ref);
+			}
+			
+		}
 		
 		return pm;
 		
 	}
 	
 	/**
-	 * Generate the search key for a record
+	 * Compare properties with their stored values
+	 * @param props The properties
+	 * @param stored The stored values of each property
+	 * @param blobWrites Receives the values to append to the blob file
+	 * @param changes Receives the changes to the table
+	 * @return The records that are written, by operation
+	 */
+	private BatchResult<Property> diff(Collection<Property> props,
+			                           Map<Property.Properties, StoredValues> stored,
+			                           Map<Property.Properties, List<String>> blobWrites,
+			                           List<DBFJournal.Change> changes) {
+		BatchResult<Property> result = new BatchResult<>();
+		
+		for (Property prop : props) {
+			StoredValues current = stored.getOrDefault(prop.getKey(), noValues);
+			
+			if (SysConstants.multiValueBlobs && prop.getKey().getGroup().isMultiValue()) {
+				diffBlob(prop, current, blobWrites, changes, result);
+			}
+			else {
+				diffPositions(prop, current, changes, result);
+			}
+			
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Compare a property with its stored values by position
+	 * @param prop The property
+	 * @param current Its stored values
+	 * @param changes Receives the changes to the table
+	 * @param result Receives the records that are written
+	 */
+	private void diffPositions(Property prop, StoredValues current, List<DBFJournal.Change> changes, BatchResult<Property> result) {
+		Map<Integer, String> wanted = new TreeMap<>();
+		
+		if (prop.getKey().getGroup().isMultiValue()) {
+			String [] values = prop.isDeleted() ? new String[0] : prop.getMultiValue();
+			
+			for (int i = 0; i < values.length; i++) {
+				wanted.put(Integer.valueOf(i), values[i]);
+			}
+			
+		}
+		else if (!prop.isDeleted()) {
+			wanted.put(Integer.valueOf(prop.getPosition()), prop.getValue());
+		}
+		
+		for (Map.Entry<Integer, String> w : wanted.entrySet()) {
+			String was = current.positions.get(w.getKey());
+			Property row = makeRow(prop.getKey(), w.getKey().intValue(), w.getValue());
+			
+			if (was == null) {
+				changes.add(change(DBFJournal.ChangeType.Upsert, row));
+				result.add(DBFOperations.Insert, row);
+			}
+			else if (!was.equals(w.getValue())) {
+				changes.add(change(DBFJournal.ChangeType.Upsert, row));
+				result.add(DBFOperations.Modified, row);
+			}
+			
+		}
+		
+		for (Integer pos : current.positions.keySet()) {
+			if (!wanted.containsKey(pos)) {
+				Property row = makeRow(prop.getKey(), pos.intValue(), null);
+				
+				changes.add(change(DBFJournal.ChangeType.Delete, row));
+				result.add(DBFOperations.Delete, row);
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * Compare a multi-value property with the values it has in the blob file.  Values that changed, or
+	 * that are still stored one per position, are written to the blob file and every record but the one
+	 * at POSITION 0, which refers to them, is deleted.
+	 * @param prop The property
+	 * @param current Its stored values
+	 * @param blobWrites Receives the values to append to the blob file
+	 * @param changes Receives the changes to the table
+	 * @param result Receives the records that are written
+	 */
+	private void diffBlob(Property prop,
+			              StoredValues current,
+			              Map<Property.Properties, List<String>> blobWrites,
+			              List<DBFJournal.Change> changes,
+			              BatchResult<Property> result) {
+		List<String> values = prop.isDeleted() ? List.of() : List.of(prop.getMultiValue());
+		boolean unchanged = current.blobValues != null && current.positions.size() == 1 && current.blobValues.equals(values);
+		
+		if (!values.isEmpty() && !unchanged) {
+			blobWrites.put(prop.getKey(), values);
+			result.add(current.positions.isEmpty() ? DBFOperations.Insert : DBFOperations.Modified,
+					   makeRow(prop.getKey(), 0, String.join(String.valueOf(SysConstants.newline), values)));
+		}
+		
+		for (Integer pos : current.positions.keySet()) {
+			if (values.isEmpty() || pos.intValue() != 0) {
+				Property row = makeRow(prop.getKey(), pos.intValue(), null);
+				
+				changes.add(change(DBFJournal.ChangeType.Delete, row));
+				result.add(DBFOperations.Delete, row);
+				
+			}
+		}
+		
+	}
+	
+	/**
+	 * Describe the record at POSITION 0 of a multi-value property that refers to its values in the blob file
+	 * @param key The property
+	 * @param pos Position of the values in the blob file
+	 * @return The change
+	 */
+	private DBFJournal.Change blobChange(Property.Properties key, long pos) {
+		DBFJournal.Change c = change(DBFJournal.ChangeType.Upsert, makeRow(key, 0, ""));
+		
+		c.set(value.Name, blobRef + pos);
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Encode the values of a multi-value property for the blob file: the number of values, then each
+	 * value as its length and its UTF-8 bytes
+	 * @param key The property
+	 * @param values The values
+	 * @return The encoded values
+	 * @throws IOException If the values cannot be encoded
+	 */
+	private byte [] encodeValues(Property.Properties key, List<String> values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		
+		out.writeInt(values.size());
+		
+		for (String v : values) {
+			byte [] b = encodePropValue(new Property(key, v)).getBytes(StandardCharsets.UTF_8);
+			
+			out.writeInt(b.length);
+			out.write(b);
+			
+		}
+		
+		out.flush();
+		
+		return bytes.toByteArray();
+		
+	}
+	
+	/**
+	 * Read the values of a multi-value property from the blob file
+	 * @param key The property
+	 * @param ref The VALUE of its record at POSITION 0
+	 * @return The values, which cannot be modified
+	 * @throws IOException If the blob file cannot be read or has no valid values at the position
+	 */
+	private List<String> readValues(Property.Properties key, String ref) throws IOException {
+		List<String> values = new ArrayList<>();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(DBFBlobFile.forTable(dbfFileSpec).read(blobPosition(ref))));
+		int count = in.readInt();
+		
+		for (int i = 0; i < count; i++) {
+			byte [] b = new byte[in.readInt()];
+			
+			in.readFully(b);
+			values.add(decodeValue(key, new String(b, StandardCharsets.UTF_8)));
+			
+		}
+		
+		return Collections.unmodifiableList(values);
+		
+	}
+	
+	/**
+	 * Get the position in the blob file that a stored VALUE refers to
+	 * @param ref The VALUE of the record at POSITION 0
+	 * @return The position or -1 if the VALUE has no valid position, which the blob file reports
+	 */
+	private static long blobPosition(String ref) {
+		long pos;
+		
+		try {
+			pos = Long.parseLong(ref.substring(blobRef.length()).trim());
+		}
+		catch (NumberFormatException e) {
+			// Not a position, reported by the blob file
+			pos = -1;
+		}
+		
+		return pos;
+		
+	}
+	
+	/**
+	 * Determine if a stored VALUE refers to values in the blob file.  Only the record at POSITION 0 of a
+	 * multi-value property refers to the blob file, the value of any other record is its own text even
+	 * if it starts like a reference.
+	 * @param key The property of the record
+	 * @param pos POSITION of the record
+	 * @param val The stored value
+	 * @return true if the value is a reference to the blob file, otherwise false
+	 */
+	private static boolean isBlobRef(Property.Properties key, int pos, String val) {
+		return key != null && key.getGroup().isMultiValue() && pos == 0 && val != null && val.startsWith(blobRef);
+	}
+	
+	/**
+	 * Create the record for one position of a property
+	 * @param key Key of the property
+	 * @param position Position of the value
+	 * @param value The value or null to delete the position
+	 * @return The record as a property
+	 */
+	private Property makeRow(Property.Properties key, int position, String value) {
+		Property row = new Property(key, value);
+		
+		row.setPosition(position);
+		
+		return row;
+		
+	}
+	
+	/**
+	 * Obtain the pooled handle of the properties table to change it
+	 * @return The open properties table with its index attached
+	 * @throws xBaseJException If the table or the index cannot be opened
+	 * @throws IOException If the table or the index cannot be opened
+	 */
+	private DBFHandle openProperties() throws xBaseJException, IOException {
+		
+		return openTable(dbfFileSpec, ndx1FileSpec);
+		
+	}
+	
+	/**
+	 * Position the table on the record of a property
+	 * @param handle The open properties table
+	 * @param prop Find the record with the key and position of this property
+	 * @return true if the record exists, otherwise false
+	 * @throws xBaseJException If the index cannot be read
+	 * @throws IOException If the table cannot be read
+	 */
+	private boolean findRecord(DBFHandle handle, Property prop) throws xBaseJException, IOException {
+		
+		return handle.findExact(ndx1FileSpec, generateRecordKey(prop.getKey(), prop.getPosition()));
+		
+	}
+	
+	/**
+	 * Journal and apply changes to the properties table
+	 * @param handle The open properties table
+	 * @param changes The changes to apply
+	 * @return For each change, true if it was applied or false if its property was not found
+	 * @throws xBaseJException If a record cannot be written
+	 * @throws IOException If the journal cannot be written or the table cannot be updated
+	 */
+	private boolean [] apply(DBFHandle handle, List<DBFJournal.Change> changes) throws xBaseJException, IOException {
+		
+		return applyChanges(handle, ndx1FileSpec, changes, ndx1FileSpec);
+		
+	}
+	
+	/**
+	 * Describe a change to the record of a property value
+	 * @param type The type of change, an upsert or a delete
+	 * @param prop The property, with its position
+	 * @return The change
+	 */
+	private DBFJournal.Change change(DBFJournal.ChangeType type, Property prop) {
+		DBFJournal.Change c = new DBFJournal.Change(type, generateRecordKey(prop.getKey(), prop.getPosition()));
+		
+		if (type != DBFJournal.ChangeType.Delete) {
+			c.set(group.Name, prop.getKey().getGroup().name());
+			c.set(property.Name, prop.getKey().name());
+			c.set(position.Name, String.valueOf(prop.getPosition()));
+			c.set(value.Name, encodePropValue(prop));
+		}
+		
+		return c;
+		
+	}
+	
+	/**
+	 * Generate the search key for a record.  The key is stored as the contents of its fields, so GROUP and
+	 * PROPERTY are blank padded to their widths and POSITION is right aligned.
 	 * @param key Generate the index key for this record
 	 * @param position Add the position value to the key
 	 * @return The generated key
 	 */
 	private String generateRecordKey(Property.Properties key, int position) {
-		StringBuilder sk = new StringBuilder(key.getGroup().name());
 		
-		sk.append(key.name());
-		sk.append(position);
-		
-		return sk.toString();
+		return String.format("%-" + group.getLength() + "s%-" + property.getLength() + "s%" + this.position.getLength() + "d",
+				             key.getGroup().name(), key.name(), Integer.valueOf(position));
 		
 	}
 
@@ -317,20 +925,26 @@ public class PropertiesDbfDao extends DBFUtilities {
 	 * @return a property record
 	 * @throws xBaseJException If the table already exists and an attempt is made to overwrite it
 	 * @throws ArrayIndexOutOfBoundsException If the field position is invalid  
+	 * @throws IOException If the values of a multi-value property cannot be read from the blob file
 	 */
-	private Property parseData(DBF props) throws ArrayIndexOutOfBoundsException, xBaseJException { 
-		String val = props.getField(value.Name).get();
+	private Property parseData(DBF props) throws ArrayIndexOutOfBoundsException, xBaseJException, IOException {
 		Property.Properties prp;
 		Property prop;
+		String val;
+		int pos;
 		
 		try {
 			prp = Property.Properties.valueOf(props.getField(property.Name).get());
+			pos = Integer.parseInt(props.getField(position.Name).get().trim());
+			val = props.getField(value.Name).get();
 			
-			if (prp.isEncoded()) {
-				val = new String(Base64.getDecoder().decode(val.getBytes()));
+			if (isBlobRef(prp, pos, val)) {
+				prop = new Property(prp, String.join(String.valueOf(SysConstants.newline), readValues(prp, val)));
+			}
+			else {
+				prop = new Property(prp, decodeValue(prp, val));
 			}
 			
-			prop = new Property(prp, val);
 		}
 		catch (IllegalArgumentException e) {
 			prop = null;
@@ -340,6 +954,18 @@ public class PropertiesDbfDao extends DBFUtilities {
 		
 	}
 	
+	/**
+	 * Decode the stored value of a property
+	 * @param prp The property
+	 * @param val The stored value
+	 * @return The value, decoded from Base64 if the property is encoded
+	 */
+	private String decodeValue(Property.Properties prp, String val) {
+		
+		return prp.isEncoded() ? new String(Base64.getDecoder().decode(val.getBytes())) : val;
+		
+	}
+	
 	/**
 	 * Encode a property value if it is supposed to be encoded
 	 * @param prop Encode the value of this property is required
@@ -356,4 +982,76 @@ public class PropertiesDbfDao extends DBFUtilities {
 
 	}
 	
+	/**
+	 * The stored values of one property
+	 */
+	private static class StoredValues {
+		
+		/** The VALUE of each record, by position */
+		private final Map<Integer, String> positions = new TreeMap<>();
+		
+		/** The values in the blob file or null if the property is stored one value per position */
+		private List<String> blobValues = null;
+		
+	}
+	
+	/**
+	 * One record of the properties table, reused for every row of a scan
+	 */
+	private static class PropertyRow {
+		private Property.Properties key;
+		private int position;
+		private String value;
+	}
+	
+	/**
+	 * Decodes the properties table directly from the DBF bytes.  Records of unknown properties are skipped.
+	 */
+	private class PropertyDecoder implements RecordDecoder<PropertyRow> {
+		
+		private DBFReader props;
+		private DBFReader.Field propFld;
+		private DBFReader.Field posFld;
+		private DBFReader.Field valueFld;
+		
+		/**
+		 * Constructor
+		 * @param props The properties table
+		 * @throws IOException If the table does not have the expected layout
+		 */
+		PropertyDecoder(DBFReader props) throws IOException {
+			
+			this.props = props;
+			propFld = props.getField(property.Name, property.getLength());
+			posFld = props.getField(position.Name, position.getLength());
+			valueFld = props.getField(value.Name, value.getLength());
+			
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#newRecord()
+		 */
+		@Override
+		public PropertyRow newRecord() {
+			return new PropertyRow();
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see com.ed.sysdocs.dao.RecordDecoder#decode(int, java.lang.Object)
+		 */
+		@Override
+		public boolean decode(int rec, PropertyRow row) {
+			
+			row.key = props.getEnum(rec, propFld, propertyNames);
+			row.position = props.getInt(rec, posFld);
+			row.value = row.key == null ? null : props.getString(rec, valueFld);
+			
+			return row.key != null;
+			
+		}
+		
+	}
+	
 }
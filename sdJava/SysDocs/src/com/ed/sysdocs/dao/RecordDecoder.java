@@ -0,0 +1,48 @@
+package com.ed.sysdocs.dao;
+
+import java.io.IOException;
+
+/**
+ * Decodes the records of a table into objects for a {@link DBFCursor}.<br>
+ * A decoder is bound to one {@link DBFReader} so that the fields are looked up once, when the
+ * cursor is opened, and not for every record.
+ * @param <T> Type of the decoded records
+ * @author Ed Swaneck
+ * @version 1.0
+ * @since 10/18/2026
+ */
+public interface RecordDecoder<T> {
+	
+	/**
+	 * Creates a decoder for a table
+	 * @param <T> Type of the decoded records
+	 */
+	@FunctionalInterface
+	public interface Factory<T> {
+		
+		/**
+		 * Create a decoder for a table
+		 * @param reader The table
+		 * @return A decoder bound to the table
+		 * @throws IOException If the table does not have the expected layout
+		 */
+		RecordDecoder<T> bind(DBFReader reader) throws IOException;
+		
+	}
+	
+	/**
+	 * Create an empty record
+	 * @return The record
+	 */
+	T newRecord();
+	
+	/**
+	 * Decode a record of the table.  Every field of the record must be set, the record may hold the
+	 * values of a previous row.
+	 * @param recNo The record number, starting at 1
+	 * @param record The record to fill in
+	 * @return true if the record was decoded, false to skip the row
+	 */
+	boolean decode(int recNo, T record);
+	
+}
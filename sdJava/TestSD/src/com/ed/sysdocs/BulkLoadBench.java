@@ -0,0 +1,145 @@
+package com.ed.sysdocs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xBaseJ.DBF;
+import org.xBaseJ.xBaseJException;
+import org.xBaseJ.fields.CharField;
+import org.xBaseJ.fields.LogicalField;
+import org.xBaseJ.fields.NumField;
+
+import com.ed.pojo.DbfMetaData;
+import com.ed.sysdocs.dao.DBFBulkLoader;
+import com.ed.sysdocs.dao.DBFHandle;
+import com.ed.sysdocs.dao.DBFHandlePool;
+import com.ed.sysdocs.dao.DBFJournal;
+import com.ed.sysdocs.dao.DBFUtilities;
+import com.ed.sysdocs.dao.NDXBuilder;
+
+// Loads synthetic rows into a scratch table row by row through the journal and then with the bulk
+// loader, from memory, CSV and JSON.  The per-row path is timed on fewer rows and scaled.
+public class BulkLoadBench {
+	public static final String rootDir = "C:/Src/sysdocs/bench/";
+	public static final int rows = 100000;
+	public static final int perRowRows = 2000;
+	
+	public static void main(String [] args) throws SecurityException, xBaseJException, IOException {
+		List<Map<String, String>> data = new ArrayList<>();
+		StringBuilder csv = new StringBuilder("ID,NAME,QTY,FLAG\r\n");
+		StringBuilder json = new StringBuilder("[");
+		
+		for (int i = 0; i < rows; i++) {
+			Map<String, String> row = new LinkedHashMap<>();
+			
+			row.put("ID", String.format("K%08d", i));
+			row.put("NAME", "Row \"" + i + "\", synthetic");
+			row.put("QTY", String.valueOf(i % 1000));
+			row.put("FLAG", i % 2 == 0 ? "T" : "F");
+			data.add(row);
+			
+			csv.append(row.get("ID")).append(",\"").append(row.get("NAME").replace("\"", "\"\"")).append("\",")
+			   .append(row.get("QTY")).append(',').append(row.get("FLAG")).append("\r\n");
+			json.append(i == 0 ? "" : ",\n").append("{\"ID\": \"").append(row.get("ID")).append("\", \"NAME\": \"")
+				.append(row.get("NAME").replace("\"", "\\\"")).append("\", \"QTY\": ").append(row.get("QTY"))
+				.append(", \"FLAG\": ").append(i % 2 == 0).append('}');
+				
+		}
+		
+		json.append(']');
+		new File(rootDir + SysConstants.dataDir).mkdirs();
+		
+		BenchDao dao = new BenchDao(rootDir);
+		long start = System.nanoTime();
+		
+		for (Map<String, String> row : data.subList(0, perRowRows)) {
+			dao.insert(row);
+		}
+		
+		double perRow = (System.nanoTime() - start) / 1e6 / perRowRows;
+		
+		System.out.printf("Per row: %.3f ms/row, about %.0f ms for %d rows%n", perRow, perRow * rows, rows);
+		
+		time("Bulk, memory", dao, DBFBulkLoader.rows(data), perRow);
+		time("Bulk, CSV", dao, DBFBulkLoader.csv(new StringReader(csv.toString())), perRow);
+		time("Bulk, JSON", dao, DBFBulkLoader.json(new StringReader(json.toString())), perRow);
+		
+	}
+	
+	private static void time(String name, BenchDao dao, DBFBulkLoader.Source source, double perRow) throws SecurityException, xBaseJException, IOException {
+		dao.create();
+		
+		long start = System.nanoTime();
+		int count = dao.load(source);
+		double ms = (System.nanoTime() - start) / 1e6;
+		
+		System.out.printf("%s: %d rows in %.0f ms, %.0fx faster than per row%n", name, count, ms, perRow * count / ms);
+		
+	}
+	
+	// Scratch table: ID C 9, NAME C 30, QTY N 6, FLAG L, indexed on ID
+	private static class BenchDao extends DBFUtilities {
+		private String dbfFileSpec;
+		private String ndxFileSpec;
+		
+		BenchDao(String rootDir) throws SecurityException, xBaseJException, IOException {
+			super(rootDir);
+			dbfFileSpec = buildFileSpec(rootDir, "bench.dbf");
+			ndxFileSpec = buildFileSpec(rootDir, "bench.ndx");
+			create();
+		}
+		
+		@Override
+		public void create() throws SecurityException, xBaseJException, IOException {
+			DBF dbf;
+			
+			DBFHandlePool.invalidate(dbfFileSpec);
+			dbf = new DBF(dbfFileSpec, true);
+			
+			dbf.addField(new CharField("ID", 9));
+			dbf.addField(new CharField("NAME", 30));
+			dbf.addField(new NumField("QTY", 6, 0));
+			dbf.addField(new LogicalField("FLAG"));
+			dbf.close();
+			index();
+			
+		}
+		
+		@Override
+		public void index() throws SecurityException, xBaseJException, IOException {
+			createIndexes(new NDXBuilder(dbfFileSpec).add(ndxFileSpec, "ID", true));
+		}
+		
+		@Override
+		public void pack() throws xBaseJException, IOException, SecurityException, CloneNotSupportedException {
+			packDbf(dbfFileSpec);
+		}
+		
+		@Override
+		public DbfMetaData loadMetaData() throws xBaseJException, IOException, SecurityException {
+			return getMetaData(dbfFileSpec, ndxFileSpec);
+		}
+		
+		void insert(Map<String, String> row) throws xBaseJException, IOException {
+			DBFJournal.Change c = new DBFJournal.Change(DBFJournal.ChangeType.Upsert, row.get("ID"));
+			
+			row.forEach(c::set);
+			
+			try (DBFHandle handle = openTable(dbfFileSpec, ndxFileSpec)) {
+				applyChanges(handle, ndxFileSpec, List.of(c), ndxFileSpec);
+			}
+			
+		}
+		
+		int load(DBFBulkLoader.Source source) throws SecurityException, xBaseJException, IOException {
+			return bulkLoad(dbfFileSpec, source);
+		}
+		
+	}
+	
+}
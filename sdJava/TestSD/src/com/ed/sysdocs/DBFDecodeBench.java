@@ -0,0 +1,92 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import com.ed.sysdocs.dao.DBFCodec;
+import com.ed.sysdocs.dao.DBFReader;
+import com.ed.sysdocs.dao.MediaDbfDao;
+
+public class DBFDecodeBench {
+	public static final String rootDir = "C:/Src/sysdocs/";
+	public static final int passes = 20000;
+	
+	private static final DBFCodec.EnumLookup<MediaTypes> mediaTypes = new DBFCodec.EnumLookup<>(MediaTypes.class);
+	private static long sink = 0;
+	
+	public static void main(String [] args) throws IOException {
+		DBFReader media = new DBFReader(rootDir + SysConstants.dataDir + MediaDbfDao.dataFileName);
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long rows = (long) passes * media.getRecordCount();
+		
+		// Warm up both paths so the JIT has compiled them before measuring
+		decodeStrings(media, passes);
+		decodeBytes(media, passes);
+		
+		long before = mx.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		decodeStrings(media, passes);
+		long stringNanos = System.nanoTime() - start;
+		long stringBytes = mx.getCurrentThreadAllocatedBytes() - before;
+		
+		before = mx.getCurrentThreadAllocatedBytes();
+		start = System.nanoTime();
+		decodeBytes(media, passes);
+		long byteNanos = System.nanoTime() - start;
+		long byteBytes = mx.getCurrentThreadAllocatedBytes() - before;
+		
+		System.out.println("Rows decoded per path: " + rows);
+		System.out.println("String decode: " + (stringBytes / rows) + " bytes/row, " + (stringNanos / rows) + " ns/row");
+		System.out.println("Byte decode:   " + (byteBytes / rows) + " bytes/row, " + (byteNanos / rows) + " ns/row");
+		System.out.println(sink);
+		
+	}
+	
+	// The per-field String decode the DAOs used before DBFCodec
+	private static void decodeStrings(DBFReader media, int n) throws IOException {
+		SimpleDateFormat sdf = new SimpleDateFormat(SysConstants.timestampFmt);
+		DBFReader.Field id = media.getField("MEDIAID", 1);
+		DBFReader.Field last = media.getField("LASTUSE", 14);
+		DBFReader.Field count = media.getField("USECOUNT", 4);
+		DBFReader.Field active = media.getField("ACTIVE", 1);
+		DBFReader.Field type = media.getField("MEDIATYPE", 15);
+		
+		for (int p = 0; p < n; p++) {
+			for (int rec = 1; rec <= media.getRecordCount(); rec++) {
+				sink += media.getString(rec, id).charAt(0);
+				sink += Integer.valueOf(media.getString(rec, count).trim());
+				sink += media.getString(rec, active).charAt(0) == 'T' ? 1 : 0;
+				sink += MediaTypes.valueOf(media.getString(rec, type)).ordinal();
+				
+				try {
+					sink += sdf.parse(media.getString(rec, last)).getTime();
+				}
+				catch (ParseException e) {}
+				
+			}
+		}
+		
+	}
+	
+	private static void decodeBytes(DBFReader media, int n) throws IOException {
+		DBFReader.Field id = media.getField("MEDIAID", 1);
+		DBFReader.Field last = media.getField("LASTUSE", 14);
+		DBFReader.Field count = media.getField("USECOUNT", 4);
+		DBFReader.Field active = media.getField("ACTIVE", 1);
+		DBFReader.Field type = media.getField("MEDIATYPE", 15);
+		
+		for (int p = 0; p < n; p++) {
+			for (int rec = 1; rec <= media.getRecordCount(); rec++) {
+				sink += media.getByte(rec, id);
+				sink += media.getInt(rec, count);
+				sink += media.getLogical(rec, active) ? 1 : 0;
+				sink += media.getEnum(rec, type, mediaTypes).ordinal();
+				sink += media.getTimestamp(rec, last);
+			}
+		}
+		
+	}
+	
+}
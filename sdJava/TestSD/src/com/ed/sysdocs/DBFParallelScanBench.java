@@ -0,0 +1,151 @@
+package com.ed.sysdocs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.sysdocs.dao.DBFCodec;
+import com.ed.sysdocs.dao.DBFReader;
+import com.ed.sysdocs.dao.DBFSpliterator;
+import com.ed.sysdocs.dao.RecordDecoder;
+
+// Decodes synthetic media tables of 1M and 4M rows into media objects and counts the active media by
+// type, sequentially and then in parallel on fork/join pools of 1 thread up to one thread per core.
+// The parallel counts must equal the sequential counts, the speedup should grow with the threads.
+public class DBFParallelScanBench {
+	public static final String tempDir = System.getProperty("java.io.tmpdir");
+	public static final int [] sizes = {1000000, 4000000};
+	public static final int rounds = 5;
+	public static final long warmupNanos = 2000000000L;
+	
+	private static long sink = 0;
+	
+	public static void main(String [] args) throws IOException, InterruptedException, ExecutionException {
+		int cores = Runtime.getRuntime().availableProcessors();
+		
+		System.out.println(cores + " cores");
+		
+		for (int rows : sizes) {
+			File f = new File(tempDir, "parallelbench" + rows + ".dbf");
+			
+			DBFScanBench.write(f, rows);
+			
+			DBFReader reader = new DBFReader(f.getPath());
+			RecordDecoder<BackupMedia> decoder = new Decoder(reader);
+			Map<MediaTypes, Long> expected = count(reader, decoder, null);
+			
+			// Warm up both paths
+			long start = System.nanoTime();
+			
+			while (System.nanoTime() - start < warmupNanos) {
+				sink += count(reader, decoder, null).size() + count(reader, decoder, ForkJoinPool.commonPool()).size();
+			}
+			
+			long sequentialNanos = time(reader, decoder, null);
+			
+			System.out.println(String.format("%,d rows: sequential %.2f ns/row, %s", Integer.valueOf(rows), Double.valueOf((double) sequentialNanos / rows), expected));
+			
+			for (int threads = 1; threads <= cores; threads *= 2) {
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				long parallelNanos = time(reader, decoder, pool);
+				
+				System.out.println(String.format("  %d threads: %.2f ns/row, speedup %.2f, %s",
+						                         Integer.valueOf(threads),
+						                         Double.valueOf((double) parallelNanos / rows),
+						                         Double.valueOf((double) sequentialNanos / parallelNanos),
+						                         expected.equals(count(reader, decoder, pool)) ? "OK" : "FAILED"));
+						
+				pool.shutdown();
+				
+			}
+			
+			f.delete();
+			
+		}
+		
+		System.out.println(sink);
+		
+	}
+	
+	// Best time of a round
+	private static long time(DBFReader reader, RecordDecoder<BackupMedia> decoder, ForkJoinPool pool) throws InterruptedException, ExecutionException {
+		long best = Long.MAX_VALUE;
+		
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			
+			sink += count(reader, decoder, pool).size();
+			best = Math.min(best, System.nanoTime() - start);
+			
+		}
+		
+		return best;
+		
+	}
+	
+	// Active media by type, sequentially when there is no pool.  A parallel stream started in a pool
+	// forks its chunks in that pool.
+	private static Map<MediaTypes, Long> count(DBFReader reader, RecordDecoder<BackupMedia> decoder, ForkJoinPool pool) throws InterruptedException, ExecutionException {
+		Map<MediaTypes, Long> counts;
+		
+		if (pool == null) {
+			counts = DBFSpliterator.stream(reader, decoder, false).filter(BackupMedia::isActive)
+					               .collect(Collectors.groupingBy(BackupMedia::getMediaType, Collectors.counting()));
+		}
+		else {
+			counts = pool.submit(() -> DBFSpliterator.stream(reader, decoder, true).filter(BackupMedia::isActive)
+					                                 .collect(Collectors.groupingBy(BackupMedia::getMediaType, Collectors.counting()))).get();
+		}
+		
+		return counts;
+		
+	}
+	
+	// Decodes every field, as the media decoder of MediaDbfDao does, and skips unknown types
+	private static class Decoder implements RecordDecoder<BackupMedia> {
+		private static final DBFCodec.EnumLookup<MediaTypes> mediaTypes = new DBFCodec.EnumLookup<>(MediaTypes.class);
+		private final DBFReader reader;
+		private final DBFReader.Field id;
+		private final DBFReader.Field first;
+		private final DBFReader.Field last;
+		private final DBFReader.Field count;
+		private final DBFReader.Field active;
+		private final DBFReader.Field type;
+		
+		Decoder(DBFReader reader) throws IOException {
+			this.reader = reader;
+			id = reader.getField("MEDIAID");
+			first = reader.getField("FIRSTUSE");
+			last = reader.getField("LASTUSE");
+			count = reader.getField("USECOUNT");
+			active = reader.getField("ACTIVE");
+			type = reader.getField("MEDIATYPE");
+		}
+		
+		@Override
+		public BackupMedia newRecord() {
+			return new BackupMedia();
+		}
+		
+		@Override
+		public boolean decode(int rec, BackupMedia bm) {
+			MediaTypes mt = reader.getEnum(rec, type, mediaTypes);
+			
+			bm.setMediaId((char) reader.getByte(rec, id));
+			bm.setFirstUse(DBFCodec.toDate(reader.getTimestamp(rec, first)));
+			bm.setLastUse(DBFCodec.toDate(reader.getTimestamp(rec, last)));
+			bm.setUseCount(reader.getInt(rec, count));
+			bm.setActive(reader.getLogical(rec, active));
+			bm.setMediaType(mt);
+			
+			return mt != null;
+			
+		}
+		
+	}
+	
+}
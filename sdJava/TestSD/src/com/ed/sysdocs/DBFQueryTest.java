@@ -0,0 +1,104 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.pojo.MediaMaximum;
+import com.ed.pojo.Property;
+import com.ed.sysdocs.dao.DBFQuery;
+import com.ed.sysdocs.dao.MediaDbfDao;
+import com.ed.sysdocs.dao.MediaMaxDbfDao;
+import com.ed.sysdocs.dao.PropertiesDbfDao;
+
+// Runs a few queries and checks each against listAll filtered in Java
+public class DBFQueryTest {
+	public static final String rootDir = "C:/Src/sysdocs/";
+	public static final long day = 24L * 60 * 60 * 1000;
+	
+	public static void main(String [] args) throws SecurityException, xBaseJException, IOException {
+		MediaDbfDao dao = new MediaDbfDao(rootDir);
+		List<BackupMedia> all = dao.listAll(false);
+		int maxFlash = new MediaMaxDbfDao(rootDir).mapAll().getOrDefault(MediaTypes.flash, Integer.valueOf(Integer.MAX_VALUE)).intValue();
+		Date monthAgo = new Date(System.currentTimeMillis() - 30 * day);
+		
+		// Bounded by MEDIATYPE on media2.ndx
+		List<BackupMedia> worn = dao.query(DBFQuery.where(DBFQuery.is(BackupMedia.Fields.MediaType, MediaTypes.flash))
+				                                   .and(DBFQuery.is(BackupMedia.Fields.Active, true))
+				                                   .and(DBFQuery.atLeast(BackupMedia.Fields.UseCount, maxFlash)));
+		List<BackupMedia> expected = new ArrayList<>();
+		
+		for (BackupMedia bm : all) {
+			if (bm.getMediaType() == MediaTypes.flash && bm.isActive() && bm.getUseCount() >= maxFlash) {
+				expected.add(bm);
+			}
+		}
+		
+		report("Worn flash media", ids(worn), ids(expected));
+		
+		// Bounded by MEDIATYPE+LASTUSE on media2.ndx, media that was never used is included
+		List<Character> idle = dao.query(DBFQuery.where(DBFQuery.is(BackupMedia.Fields.MediaType, MediaTypes.tape))
+				                                 .and(DBFQuery.before(BackupMedia.Fields.LastUse, monthAgo)),
+				                         row -> Character.valueOf(row.getChar(BackupMedia.Fields.MediaId)));
+		List<Character> expectedIdle = new ArrayList<>();
+		
+		for (BackupMedia bm : all) {
+			if (bm.getMediaType() == MediaTypes.tape && (bm.getLastUse() == null || bm.getLastUse().before(monthAgo))) {
+				expectedIdle.add(Character.valueOf(bm.getMediaId()));
+			}
+		}
+		
+		report("Tapes not used in 30 days", sorted(idle), sorted(expectedIdle));
+		
+		// No index bounds the use count, the table is scanned
+		List<Character> unused = dao.query(DBFQuery.where(DBFQuery.is(BackupMedia.Fields.UseCount, 0)),
+				                           row -> Character.valueOf(row.getChar(BackupMedia.Fields.MediaId)));
+		List<Character> expectedUnused = new ArrayList<>();
+		
+		for (BackupMedia bm : all) {
+			if (bm.getUseCount() == 0 && bm.getMediaType() != null) {
+				expectedUnused.add(Character.valueOf(bm.getMediaId()));
+			}
+		}
+		
+		report("Unused media", sorted(unused), sorted(expectedUnused));
+		
+		List<MediaMaximum> tapeMax = new MediaMaxDbfDao(rootDir).query(DBFQuery.where(DBFQuery.is(MediaMaximum.Fields.MediaType, MediaTypes.tape)));
+		System.out.println("Tape maximum: " + (tapeMax.isEmpty() ? "none" : String.valueOf(tapeMax.get(0).getMaxUse())));
+		
+		List<String> smtp = new PropertiesDbfDao(rootDir).query(DBFQuery.where(DBFQuery.is(Property.Fields.Group, Property.PropertyGroup.smtp)),
+				                                                row -> row.getString(Property.Fields.Property) + "[" + row.getInt(Property.Fields.Position) + "]");
+		System.out.println("SMTP properties: " + smtp);
+		
+	}
+	
+	private static List<Character> ids(List<BackupMedia> media) {
+		List<Character> ids = new ArrayList<>();
+		
+		for (BackupMedia bm : media) {
+			ids.add(Character.valueOf(bm.getMediaId()));
+		}
+		
+		return sorted(ids);
+		
+	}
+	
+	private static List<Character> sorted(List<Character> ids) {
+		
+		ids.sort(null);
+		
+		return ids;
+		
+	}
+	
+	private static void report(String name, List<Character> got, List<Character> expected) {
+		
+		System.out.println(name + ": " + got + (got.equals(expected) ? " OK" : " FAILED, expected " + expected));
+		
+	}
+	
+}
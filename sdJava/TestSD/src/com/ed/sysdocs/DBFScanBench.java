@@ -0,0 +1,163 @@
+package com.ed.sysdocs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+
+import com.ed.sysdocs.dao.DBFReader;
+import com.ed.sysdocs.dao.DBFScan;
+
+// Selects the active flash media with USECOUNT >= 100 from synthetic media tables of 10k to 10M rows,
+// one row at a time through DBFReader, with the scalar scan and with the vector scan.  Run with
+// --add-modules jdk.incubator.vector to include the vector scan.
+public class DBFScanBench {
+	public static final String tempDir = System.getProperty("java.io.tmpdir");
+	public static final int [] sizes = {10000, 100000, 1000000, 10000000};
+	public static final int rounds = 5;
+	public static final int rowsPerTiming = 20000000;
+	public static final long warmupNanos = 2000000000L;
+	
+	// Name, type and width of the media fields, 49 bytes with the deletion flag
+	private static final String [][] fields = {{"MEDIAID", "C", "1"}, {"FIRSTUSE", "C", "14"}, {"LASTUSE", "C", "14"},
+			                                   {"USECOUNT", "N", "4"}, {"ACTIVE", "L", "1"}, {"MEDIATYPE", "C", "15"}};
+	private static final String [] types = {"tape", "flash", "CDRW", "DVDRW"};
+	
+	private static long sink = 0;
+	
+	public static void main(String [] args) throws IOException {
+		
+		System.out.println("Vector API " + (DBFScan.isVectorized() ? "available" : "not available, add --add-modules jdk.incubator.vector"));
+		
+		for (int rows : sizes) {
+			File f = new File(tempDir, "scanbench" + rows + ".dbf");
+			
+			write(f, rows);
+			
+			DBFReader reader = new DBFReader(f.getPath());
+			BitSet expected = rowAtATime(reader);
+			
+			// Warm up every path, long enough for the small tables to be compiled
+			long start = System.nanoTime();
+			
+			while (System.nanoTime() - start < warmupNanos) {
+				sink += rowAtATime(reader).cardinality() + scan(reader, false).cardinality() + scan(reader, true).cardinality();
+			}
+			
+			long rowNanos = time(rows, () -> rowAtATime(reader));
+			long scalarNanos = time(rows, () -> scan(reader, false));
+			long vectorNanos = time(rows, () -> scan(reader, true));
+			
+			System.out.println(String.format("%,d rows: row at a time %.2f ns/row, scalar scan %.2f ns/row, vector scan %.2f ns/row, %,d selected, %s",
+					                         Integer.valueOf(rows),
+					                         Double.valueOf((double) rowNanos / rows),
+					                         Double.valueOf((double) scalarNanos / rows),
+					                         Double.valueOf((double) vectorNanos / rows),
+					                         Integer.valueOf(expected.cardinality()),
+					                         expected.equals(scan(reader, false)) && expected.equals(scan(reader, true)) ? "OK" : "FAILED"));
+					
+			f.delete();
+			
+		}
+		
+		System.out.println(sink);
+		
+	}
+	
+	private interface Selection {
+		BitSet select() throws IOException;
+	}
+	
+	// Best time of a round, with more rounds for the small tables
+	private static long time(int rows, Selection s) throws IOException {
+		long best = Long.MAX_VALUE;
+		
+		for (int i = 0; i < Math.max(rounds, rowsPerTiming / rows); i++) {
+			long start = System.nanoTime();
+			
+			sink += s.select().cardinality();
+			best = Math.min(best, System.nanoTime() - start);
+			
+		}
+		
+		return best;
+		
+	}
+	
+	// The filters of the media decoder, one record at a time
+	private static BitSet rowAtATime(DBFReader reader) throws IOException {
+		DBFReader.Field active = reader.getField("ACTIVE");
+		DBFReader.Field type = reader.getField("MEDIATYPE");
+		DBFReader.Field count = reader.getField("USECOUNT");
+		BitSet selected = new BitSet(reader.getRecordCount());
+		
+		for (int rec = 1; rec <= reader.getRecordCount(); rec++) {
+			if (!reader.isDeleted(rec) && reader.getLogical(rec, active) && reader.matches(rec, type, "flash") && reader.getInt(rec, count) >= 100) {
+				selected.set(rec - 1);
+			}
+		}
+		
+		return selected;
+		
+	}
+	
+	private static BitSet scan(DBFReader reader, boolean vectorize) throws IOException {
+		
+		return new DBFScan(reader, vectorize).is("ACTIVE", true).is("MEDIATYPE", "flash").atLeast("USECOUNT", 100).select();
+		
+	}
+	
+	// A dBase III table with the layout of media.dbf and random values, also written by DBFParallelScanBench
+	static void write(File f, int rows) throws IOException {
+		Random random = new Random(rows);
+		int recordLength = 1;
+		
+		for (String [] fld : fields) {
+			recordLength += Integer.parseInt(fld[2]);
+		}
+		
+		ByteBuffer header = ByteBuffer.allocate(32 + 32 * fields.length + 1).order(ByteOrder.LITTLE_ENDIAN);
+		
+		header.put((byte) 3).put((byte) 126).put((byte) 10).put((byte) 18);
+		header.putInt(rows).putShort((short) header.capacity()).putShort((short) recordLength);
+		header.position(32);
+		
+		for (String [] fld : fields) {
+			byte [] name = new byte[11];
+			byte [] src = fld[0].getBytes(StandardCharsets.ISO_8859_1);
+			
+			System.arraycopy(src, 0, name, 0, src.length);
+			header.put(name).put((byte) fld[1].charAt(0)).putInt(0).put((byte) Integer.parseInt(fld[2])).put((byte) 0);
+			header.position(header.position() + 14);
+			
+		}
+		
+		header.put((byte) 0x0D);
+		
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(f), 1 << 16)) {
+			out.write(header.array());
+			
+			for (int rec = 0; rec < rows; rec++) {
+				String lastUse = random.nextInt(5) == 0 ? "" : String.format("2026%02d%02d120000", Integer.valueOf(random.nextInt(12) + 1), Integer.valueOf(random.nextInt(28) + 1));
+				String row = (random.nextInt(20) == 0 ? "*" : " ")
+						   + (char) ('A' + rec % 26)
+						   + "20240101000000"
+						   + String.format("%-14s%4d%s%-15s", lastUse, Integer.valueOf(random.nextInt(200)), random.nextBoolean() ? "T" : "F", types[random.nextInt(types.length)]);
+						
+				out.write(row.getBytes(StandardCharsets.ISO_8859_1));
+				
+			}
+			
+			out.write(0x1A);
+			
+		}
+		
+	}
+	
+}
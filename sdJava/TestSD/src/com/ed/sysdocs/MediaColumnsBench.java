@@ -0,0 +1,108 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.pojo.MediaMaximum;
+import com.ed.sysdocs.dao.MediaColumns;
+import com.ed.sysdocs.dao.MediaDbfDao;
+import com.ed.sysdocs.dao.MediaMaxDbfDao;
+
+// Counts the active media over their maximum use, per type, from the media objects with boxed counts
+// as usageNotification did and from the cached columns.  Then increments a media and checks that the
+// columns patched from the write match a fresh decode of the table.
+public class MediaColumnsBench {
+	public static final String rootDir = "C:/Src/sysdocs/";
+	public static final int rounds = 200000;
+	
+	private static long sink = 0;
+	
+	public static void main(String [] args) throws SecurityException, xBaseJException, IOException {
+		MediaDbfDao dao = new MediaDbfDao(rootDir);
+		Map<MediaTypes, Integer> maxMap = new MediaMaxDbfDao(rootDir).mapAll();
+		int [] maxUse = new int[MediaTypes.values().length];
+		
+		Arrays.fill(maxUse, Integer.MAX_VALUE);
+		
+		for (MediaMaximum max : new MediaMaxDbfDao(rootDir).listAll()) {
+			maxUse[max.getMediaType().ordinal()] = max.getMaxUse();
+		}
+		
+		List<BackupMedia> media = dao.listAll(false);
+		MediaColumns columns = dao.columns();
+		
+		// Warm up both paths
+		for (int i = 0; i < rounds / 10; i++) {
+			sink += objects(media, maxMap).size();
+			sink += columns.countOverMaximum(maxUse, true).length;
+		}
+		
+		long start = System.nanoTime();
+		
+		for (int i = 0; i < rounds; i++) {
+			sink += objects(media, maxMap).size();
+		}
+		
+		long objectNanos = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		
+		for (int i = 0; i < rounds; i++) {
+			sink += columns.countOverMaximum(maxUse, true).length;
+		}
+		
+		long columnNanos = System.nanoTime() - start;
+		
+		System.out.println(media.size() + " media, " + rounds + " rounds");
+		System.out.println("Objects: " + (objectNanos / rounds) + " ns/round " + objects(media, maxMap));
+		System.out.println("Columns: " + (columnNanos / rounds) + " ns/round " + Arrays.toString(columns.countOverMaximum(maxUse, true)));
+		System.out.println("Age, days <30 <90 <365 older never: " + Arrays.toString(columns.ageHistogram(null, true, System.currentTimeMillis(), 30, 90, 365)));
+		
+		char id = dao.increment(MediaTypes.tape);
+		MediaColumns patched = dao.columns();
+		
+		System.out.println("Incremented " + id + ", columns " + (patched == columns ? "not refreshed, FAILED" : "refreshed") + ", "
+						   + (matches(patched, dao.listAll(false)) ? "match a fresh decode, OK" : "differ from a fresh decode, FAILED"));
+		System.out.println(sink);
+		
+	}
+	
+	// usageNotification before the columns
+	private static Map<MediaTypes, Integer> objects(List<BackupMedia> media, Map<MediaTypes, Integer> maxMap) {
+		Map<MediaTypes, Integer> over = new HashMap<>();
+		
+		for (BackupMedia m : media) {
+			if (m.isActive() && m.getUseCount() >= maxMap.get(m.getMediaType())) {
+				over.merge(m.getMediaType(), Integer.valueOf(1), Integer::sum);
+			}
+		}
+		
+		return over;
+		
+	}
+	
+	// The media list is decoded again after a write, the columns are patched
+	private static boolean matches(MediaColumns columns, List<BackupMedia> media) {
+		boolean same = columns.size() == media.size();
+		
+		for (int row = 0; row < media.size() && same; row++) {
+			BackupMedia bm = media.get(row);
+			
+			same = columns.getId(row) == bm.getMediaId() && columns.getUseCount(row) == bm.getUseCount()
+				&& columns.isActive(row) == bm.isActive() && columns.getType(row) == bm.getMediaType()
+				&& columns.getLastUse(row) == (bm.getLastUse() == null ? MediaColumns.never : bm.getLastUse().getTime())
+				&& columns.getFirstUse(row) == (bm.getFirstUse() == null ? MediaColumns.never : bm.getFirstUse().getTime());
+				
+		}
+		
+		return same;
+		
+	}
+	
+}
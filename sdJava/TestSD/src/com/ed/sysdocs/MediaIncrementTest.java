@@ -0,0 +1,89 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.sysdocs.dao.MediaDbfDao;
+
+// One thread per active media of the type, all released at once.  Each increment must pick a
+// different media and every chosen media must gain exactly one use.
+public class MediaIncrementTest {
+	public static final String rootDir = "C:/Src/sysdocs/";
+	public static final MediaTypes type = MediaTypes.tape;
+	
+	public static void main(String [] args) throws SecurityException, xBaseJException, IOException, InterruptedException {
+		Map<Character, Integer> before = useCounts();
+		Set<Character> chosen = ConcurrentHashMap.newKeySet();
+		List<Character> picks = new ArrayList<>();
+		List<Thread> workers = new ArrayList<>();
+		CountDownLatch go = new CountDownLatch(1);
+		int n = before.size();
+		
+		for (int t = 0; t < n; t++) {
+			workers.add(new Thread(() -> {
+				try {
+					go.await();
+					char id = new MediaDbfDao(rootDir).increment(type);
+					
+					synchronized (picks) {
+						picks.add(Character.valueOf(id));
+					}
+					
+					chosen.add(Character.valueOf(id));
+					
+				}
+				catch (InterruptedException | SecurityException | xBaseJException | IOException e) {
+					e.printStackTrace();
+				}
+			}));
+		}
+		
+		for (Thread w : workers) {
+			w.start();
+		}
+		
+		go.countDown();
+		
+		for (Thread w : workers) {
+			w.join();
+		}
+		
+		Map<Character, Integer> after = useCounts();
+		int wrong = 0;
+		
+		for (Map.Entry<Character, Integer> e : before.entrySet()) {
+			int expected = e.getValue().intValue() + (chosen.contains(e.getKey()) ? 1 : 0);
+			
+			if (after.get(e.getKey()).intValue() != expected) {
+				System.out.println(e.getKey() + ": " + e.getValue() + " -> " + after.get(e.getKey()) + ", expected " + expected);
+				wrong++;
+			}
+			
+		}
+		
+		System.out.println(n + " increments chose " + picks);
+		System.out.println(chosen.size() + " distinct media, " + wrong + " wrong counts" + (chosen.size() == n && wrong == 0 ? ", OK" : ", FAILED"));
+		
+	}
+	
+	private static Map<Character, Integer> useCounts() throws SecurityException, xBaseJException, IOException {
+		Map<Character, Integer> counts = new HashMap<>();
+		
+		for (BackupMedia bm : new MediaDbfDao(rootDir).listByType(type, true)) {
+			counts.put(Character.valueOf(bm.getMediaId()), Integer.valueOf(bm.getUseCount()));
+		}
+		
+		return counts;
+		
+	}
+	
+}
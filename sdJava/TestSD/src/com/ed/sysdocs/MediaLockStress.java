@@ -0,0 +1,88 @@
+package com.ed.sysdocs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.pojo.BackupMedia;
+import com.ed.sysdocs.dao.DBFLock;
+import com.ed.sysdocs.dao.MediaDbfDao;
+
+// Several JVMs increment the same media type at once, as the webapp and IncrementMedia do.
+// Every increment must land, so the use counts grow by exactly processes * iterations.
+public class MediaLockStress {
+	public static final String rootDir = "C:/Src/sysdocs/";
+	public static final MediaTypes type = MediaTypes.tape;
+	public static final int processes = 4;
+	public static final int iterations = 50;
+	
+	public static void main(String [] args) throws SecurityException, xBaseJException, IOException, InterruptedException {
+		
+		if (args.length > 0 && args[0].equals("worker")) {
+			worker();
+		}
+		else {
+			run();
+		}
+		
+	}
+	
+	private static void run() throws SecurityException, xBaseJException, IOException, InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<Process> workers = new ArrayList<>();
+		long before = totalUses();
+		long start = System.nanoTime();
+		int failed = 0;
+		
+		for (int p = 0; p < processes; p++) {
+			workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), MediaLockStress.class.getName(), "worker")
+						.inheritIO().start());
+		}
+		
+		for (Process w : workers) {
+			if (w.waitFor() != 0) {
+				failed++;
+			}
+		}
+		
+		long after = totalUses();
+		long expected = before + (long) processes * iterations;
+		
+		System.out.println(processes + " processes x " + iterations + " increments in " + ((System.nanoTime() - start) / 1000000) + " ms, " +
+						   failed + " failed");
+		System.out.println("Use count " + before + " -> " + after + ", expected " + expected + (after == expected ? ", OK" : ", LOST UPDATES"));
+		
+	}
+	
+	private static void worker() throws SecurityException, xBaseJException, IOException {
+		MediaDbfDao media = new MediaDbfDao(rootDir);
+		
+		for (int i = 0; i < iterations; i++) {
+			if (media.increment(type) == SysConstants.badMediaId) {
+				System.err.println("No media of type " + type);
+				System.exit(1);
+			}
+		}
+		
+		DBFLock.Stats stats = DBFLock.forTable(rootDir + SysConstants.dataDir + MediaDbfDao.dataFileName).getStats();
+		
+		System.out.println("Worker " + ProcessHandle.current().pid() + ": " + stats.getWrites() + " write locks, " + stats.getContended() +
+						   " waited " + stats.getWaitMillis() + " ms (max " + stats.getMaxWaitMillis() + " ms), " + stats.getTimeouts() + " timed out");
+						
+	}
+	
+	private static long totalUses() throws SecurityException, xBaseJException, IOException {
+		long total = 0;
+		
+		for (BackupMedia bm : new MediaDbfDao(rootDir).listByType(type, false)) {
+			total += bm.getUseCount();
+		}
+		
+		return total;
+		
+	}
+	
+}
@@ -0,0 +1,157 @@
+package com.ed.sysdocs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.xBaseJ.DBF;
+import org.xBaseJ.xBaseJException;
+
+import com.ed.sysdocs.dao.NDXBuilder;
+import com.ed.sysdocs.dao.NDXHash;
+
+// Looks up every key of synthetic tables of 1k to 1M unique keys in random order, through the NDX with
+// xBaseJ as the DAOs did and through the hash index, positioning the table on the record both ways.
+public class NDXHashBench {
+	public static final String tempDir = System.getProperty("java.io.tmpdir");
+	public static final int [] sizes = {1000, 100000, 1000000};
+	public static final int rounds = 5;
+	public static final long warmupNanos = 2000000000L;
+	
+	private static long sink = 0;
+	
+	public static void main(String [] args) throws xBaseJException, IOException {
+		
+		for (int rows : sizes) {
+			File f = new File(tempDir, "hashbench" + rows + ".dbf");
+			String ndx = new File(tempDir, "hashbench" + rows + ".ndx").getPath();
+			List<String> keys = write(f, rows);
+			
+			new NDXBuilder(f.getPath()).add(ndx, "KEY", true).build();
+			
+			DBF dbf = new DBF(f.getPath());
+			NDXHash hash = new NDXHash(ndx, f.getPath());
+			
+			dbf.useIndex(ndx);
+			
+			// Warm up both paths
+			long start = System.nanoTime();
+			
+			while (System.nanoTime() - start < warmupNanos) {
+				sink += byNdx(dbf, keys) + byHash(dbf, hash, keys);
+			}
+			
+			long ndxNanos = Long.MAX_VALUE;
+			long hashNanos = Long.MAX_VALUE;
+			long ndxFound = 0;
+			long hashFound = 0;
+			
+			for (int i = 0; i < rounds; i++) {
+				start = System.nanoTime();
+				ndxFound = byNdx(dbf, keys);
+				ndxNanos = Math.min(ndxNanos, System.nanoTime() - start);
+				
+				start = System.nanoTime();
+				hashFound = byHash(dbf, hash, keys);
+				hashNanos = Math.min(hashNanos, System.nanoTime() - start);
+				
+			}
+			
+			System.out.println(String.format("%,d keys: NDX %.0f ns/lookup, hash %.0f ns/lookup, %s",
+					                         Integer.valueOf(rows),
+					                         Double.valueOf((double) ndxNanos / rows),
+					                         Double.valueOf((double) hashNanos / rows),
+					                         ndxFound == rows && hashFound == rows ? "OK" : "FAILED"));
+					
+			hash.close();
+			dbf.close();
+			f.delete();
+			new File(ndx).delete();
+			new File(NDXHash.fileSpec(ndx)).delete();
+			
+		}
+		
+		System.out.println(sink);
+		
+	}
+	
+	// The lookup of the DAOs before the hash index
+	private static long byNdx(DBF dbf, List<String> keys) throws xBaseJException, IOException {
+		long found = 0;
+		
+		for (String key : keys) {
+			if (dbf.findExact(key)) {
+				sink += dbf.getCurrentRecordNumber();
+				found++;
+			}
+		}
+		
+		return found;
+		
+	}
+	
+	// The lookup of DBFHandle.findExact when the key is in the hash index
+	private static long byHash(DBF dbf, NDXHash hash, List<String> keys) throws xBaseJException, IOException {
+		long found = 0;
+		
+		for (String key : keys) {
+			int recNo = hash.find(key);
+			
+			if (recNo > 0) {
+				dbf.gotoRecord(recNo);
+				sink += dbf.getCurrentRecordNumber();
+				found++;
+			}
+			
+		}
+		
+		return found;
+		
+	}
+	
+	// A dBase III table of a unique KEY C(10) and a VALUE C(30), returning the keys in random order
+	private static List<String> write(File f, int rows) throws IOException {
+		Random random = new Random(rows);
+		List<String> keys = new ArrayList<>();
+		ByteBuffer header = ByteBuffer.allocate(32 + 32 * 2 + 1).order(ByteOrder.LITTLE_ENDIAN);
+		
+		header.put((byte) 3).put((byte) 126).put((byte) 10).put((byte) 18);
+		header.putInt(rows).putShort((short) header.capacity()).putShort((short) 41);
+		header.position(32);
+		header.put("KEY".getBytes(StandardCharsets.ISO_8859_1)).position(32 + 11);
+		header.put((byte) 'C').putInt(0).put((byte) 10).put((byte) 0).position(64);
+		header.put("VALUE".getBytes(StandardCharsets.ISO_8859_1)).position(64 + 11);
+		header.put((byte) 'C').putInt(0).put((byte) 30).put((byte) 0).position(96);
+		header.put((byte) 0x0D);
+		
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(f), 1 << 16)) {
+			out.write(header.array());
+			
+			for (int rec = 0; rec < rows; rec++) {
+				String key = String.format("K%09d", Integer.valueOf(rec * 7 + random.nextInt(7)));
+				
+				keys.add(key);
+				out.write((" " + key + String.format("%-30s", "value " + rec)).getBytes(StandardCharsets.ISO_8859_1));
+				
+			}
+			
+			out.write(0x1A);
+			
+		}
+		
+		Collections.shuffle(keys, random);
+		
+		return keys;
+		
+	}
+	
+}
@@ -0,0 +1,109 @@
+package com.ed.sysdocs;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+
+import org.xBaseJ.xBaseJException;
+
+import com.ed.sysdocs.dao.MediaDbfDao;
+import com.ed.sysdocs.dao.MediaMaxDbfDao;
+import com.ed.sysdocs.dao.PropertiesDbfDao;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+
+public class PageRenderBench {
+	public static final String rootDir = "C:/Src/sysdocs/";
+	public static final int pages = 200;
+	
+	private static long sink = 0;
+	
+	public static void main(String [] args) throws SecurityException, xBaseJException, IOException {
+		HttpServletRequest request = makeGetRequest();
+		int legacyLoads = 0;
+		int snapshotLoads = 0;
+		
+		// Warm up both paths
+		for (int i = 0; i < pages / 10; i++) {
+			renderLegacy();
+			renderSnapshot(request);
+		}
+		
+		long start = System.nanoTime();
+		
+		for (int i = 0; i < pages; i++) {
+			legacyLoads = renderLegacy();
+		}
+		
+		long legacyNanos = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		
+		for (int i = 0; i < pages; i++) {
+			snapshotLoads = renderSnapshot(request);
+		}
+		
+		long snapshotNanos = System.nanoTime() - start;
+		
+		System.out.println("Per-method DAOs: " + legacyLoads + " table reads/page, " + (legacyNanos / pages / 1000) + " us/page");
+		System.out.println("PageSnapshot:    " + snapshotLoads + " table reads/page, " + (snapshotNanos / pages / 1000) + " us/page");
+		System.out.println(sink);
+		
+	}
+	
+	// The table reads one GET of backups.jsp made before PageSnapshot, one per call
+	private static int renderLegacy() throws SecurityException, xBaseJException, IOException {
+		int loads = 0;
+		
+		sink += new PropertiesDbfDao(rootDir).loadMap().size(); loads++;			// constructor
+		sink += new MediaMaxDbfDao(rootDir).mapAll().size(); loads++;				// constructor
+		sink += new MediaMaxDbfDao(rootDir).listAll().size(); loads++;				// editMediaMaximums
+		sink += new MediaDbfDao(rootDir).listAll(false).size(); loads++;			// showMedia
+		sink += new MediaDbfDao(rootDir).listAll(false).size(); loads++;			// showMediaMaximums
+		sink += new MediaDbfDao(rootDir).listAll(true).size(); loads++;				// usageNotification
+		sink += new MediaDbfDao(rootDir).findLeastRecentlyUsed(MediaTypes.flash) == null ? 0 : 1; loads++;	// nextMediaId
+		sink += new MediaDbfDao(rootDir).loadMetaData().generateTableMetaData().length(); loads++;
+		sink += new PropertiesDbfDao(rootDir).loadMetaData().generateTableMetaData().length(); loads++;
+		sink += new MediaMaxDbfDao(rootDir).loadMetaData().generateTableMetaData().length(); loads++;
+		sink += new PropertiesDbfDao(rootDir).loadMap().size(); loads++;			// showProperties
+		
+		return loads;
+		
+	}
+	
+	// The same page rendered by SysDocsUI, the properties come from the shared snapshot
+	private static int renderSnapshot(HttpServletRequest request) throws SecurityException, xBaseJException, IOException {
+		SysDocsUI sd = new SysDocsUI(request);
+		
+		sink += sd.editMediaMaximums().length();
+		sink += sd.showMedia().length();
+		sink += sd.showMediaMaximums().length();
+		sink += sd.usageNotification().length();
+		sink += sd.nextMediaId(MediaTypes.flash);
+		sink += sd.showMediaMetaData().length();
+		sink += sd.showPropertiesMetaData().length();
+		sink += sd.showMediaMaxMetaData().length();
+		sink += sd.showProperties().length();
+		
+		return sd.snapshot.getLoads();
+		
+	}
+	
+	// A GET of /sysdocs/backups.jsp with no form data
+	private static HttpServletRequest makeGetRequest() {
+		ServletContext context = (ServletContext) Proxy.newProxyInstance(PageRenderBench.class.getClassLoader(),
+				new Class<?>[] { ServletContext.class },
+				(proxy, method, args) -> method.getName().equals("getRealPath") ? rootDir.substring(0, rootDir.length() - "sysdocs/".length()) : null);
+				
+		return (HttpServletRequest) Proxy.newProxyInstance(PageRenderBench.class.getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class },
+				(proxy, method, args) -> switch (method.getName()) {
+					case "getServletContext" -> context;
+					case "getServletPath" -> "/sysdocs/backups.jsp";
+					case "getMethod" -> SysConstants.HttpRequestTypes.GET.name();
+					default -> null;
+				});
+				
+	}
+	
+}
@@ -10,8 +10,7 @@ public class TestScheduledTask {
 	
 	public static void main(String [] args) throws SecurityException, xBaseJException, IOException {
 		String rootDir = "C:/Src/sysdocs/";
-		PropertiesOps properties = new PropertiesOps(rootDir);
-		Scheduler s = new Scheduler(properties, rootDir);
+		Scheduler s = new Scheduler(rootDir);
 		
 	    s.processSchedule();
 	    
@@ -0,0 +1,117 @@
+package com.ed.sysdocs;
+
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TimestampStress {
+	public static final int threads = 16;
+	public static final int iterations = 200000;
+	
+	private interface Codec {
+		String format(Date d);
+		Date parse(String s) throws ParseException;
+	}
+	
+	public static void main(String [] args) throws InterruptedException {
+		SimpleDateFormat shared = new SimpleDateFormat(SysConstants.timestampFmt);
+		
+		run("Shared SimpleDateFormat", new Codec() {
+			public String format(Date d) { return shared.format(d); }
+			public Date parse(String s) throws ParseException { return shared.parse(s); }
+		});
+		
+		run("SimpleDateFormat per call", new Codec() {
+			public String format(Date d) { return new SimpleDateFormat(SysConstants.timestampFmt).format(d); }
+			public Date parse(String s) throws ParseException { return new SimpleDateFormat(SysConstants.timestampFmt).parse(s); }
+		});
+		
+		run("TimestampCodec", new Codec() {
+			public String format(Date d) { return TimestampCodec.Storage.format(d); }
+			public Date parse(String s) { return TimestampCodec.Storage.parse(s); }
+		});
+		
+	}
+	
+	private static void run(String name, Codec codec) throws InterruptedException {
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		DateTimeFormatter expected = DateTimeFormatter.ofPattern(SysConstants.timestampFmt);
+		AtomicLong errors = new AtomicLong();
+		AtomicLong allocated = new AtomicLong();
+		List<Thread> workers = new ArrayList<>();
+		long start = System.nanoTime();
+		
+		for (int t = 0; t < threads; t++) {
+			long seed = t;
+			
+			workers.add(new Thread(() -> {
+				Random rnd = new Random(seed);
+				long before;
+				
+				// Compare with java.time.  Parsing and reformatting must give the same text, a
+				// straight Date comparison would fail on the repeated hour when daylight time ends.
+				for (int i = 0; i < iterations; i++) {
+					Date d = randomDate(rnd);
+					
+					try {
+						String s = codec.format(d);
+						
+						if (!s.equals(expected.format(LocalDateTime.ofInstant(d.toInstant(), ZoneId.systemDefault()))) ||
+							!s.equals(codec.format(codec.parse(s)))) {
+							errors.incrementAndGet();
+						}
+						
+					}
+					catch (ParseException | RuntimeException e) {
+						errors.incrementAndGet();
+					}
+					
+				}
+				
+				// Allocation of the codec alone
+				before = mx.getCurrentThreadAllocatedBytes();
+				
+				for (int i = 0; i < iterations; i++) {
+					try {
+						codec.parse(codec.format(randomDate(rnd)));
+					}
+					catch (ParseException | RuntimeException e) {
+						// Already counted above
+					}
+				}
+				
+				allocated.addAndGet(mx.getCurrentThreadAllocatedBytes() - before);
+				
+			}));
+			
+		}
+		
+		for (Thread w : workers) {
+			w.start();
+		}
+		
+		for (Thread w : workers) {
+			w.join();
+		}
+		
+		long ops = (long) threads * iterations;
+		
+		System.out.println(name + ": " + errors.get() + " corrupted of " + ops + ", " +
+				           (allocated.get() / ops) + " bytes/op, " + ((System.nanoTime() - start) / 1000000) + " ms");
+				
+	}
+	
+	// Whole seconds between 2000 and 2040
+	private static Date randomDate(Random rnd) {
+		return new Date((946684800L + (long) rnd.nextInt(1262304000)) * 1000L);
+	}
+	
+}